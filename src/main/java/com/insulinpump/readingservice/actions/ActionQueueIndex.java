@@ -0,0 +1,127 @@
+package com.insulinpump.readingservice.actions;
+
+import com.insulinpump.readingservice.dto.ReadingActionDto;
+import com.insulinpump.readingservice.model.ActionState;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Índice en memoria de las acciones abiertas, ordenado por gravedad y antigüedad.
+ *
+ * Solo contiene acciones no resueltas, así que su tamaño y el coste de paginar dependen del trabajo pendiente
+ * y no del histórico. La tabla acciones_lectura es la fuente de verdad: el índice se reconstruye al arrancar y
+ * periódicamente para recoger los cambios hechos por otras instancias.
+ */
+@Component
+public class ActionQueueIndex {
+
+    // Hipoglucemia grave primero: es la situación que menos espera admite
+    private static final Comparator<ReadingActionDto> PRIORITY = Comparator
+            .comparingInt((ReadingActionDto action) -> severity(action.getReadingStatus()))
+            .thenComparing(ReadingActionDto::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ReadingActionDto::getId);
+
+    private final ConcurrentSkipListSet<ReadingActionDto> queue = new ConcurrentSkipListSet<>(PRIORITY);
+    private final ConcurrentMap<Long, ReadingActionDto> byId = new ConcurrentHashMap<>();
+
+    public void put(ReadingActionDto action) {
+        if (action.getState() == ActionState.RESOLVED) {
+            remove(action.getId());
+            return;
+        }
+        byId.compute(action.getId(), (id, current) -> {
+            if (current != null && current.getVersion() != null && action.getVersion() != null
+                    && current.getVersion() > action.getVersion()) {
+                return current;
+            }
+            if (current != null) {
+                queue.remove(current);
+            }
+            queue.add(action);
+            return action;
+        });
+    }
+
+    /**
+     * Aplica el cambio al índice cuando se confirme la transacción en curso (o ya, si no hay ninguna).
+     */
+    public void putAfterCommit(ReadingActionDto action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(action);
+            }
+        });
+    }
+
+    public void remove(Long id) {
+        byId.computeIfPresent(id, (key, current) -> {
+            queue.remove(current);
+            return null;
+        });
+    }
+
+    public List<ReadingActionDto> page(int page, int size) {
+        List<ReadingActionDto> content = new ArrayList<>(size);
+        Iterator<ReadingActionDto> iterator = queue.iterator();
+        for (long skip = (long) page * size; skip > 0 && iterator.hasNext(); skip--) {
+            iterator.next();
+        }
+        while (content.size() < size && iterator.hasNext()) {
+            content.add(iterator.next());
+        }
+        return content;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Sustituye el contenido por las acciones abiertas leídas de la base de datos a partir de loadedAt.
+     * Las acciones creadas después de loadedAt se conservan aunque no estén en la lista.
+     */
+    public void reload(Collection<ReadingActionDto> open, LocalDateTime loadedAt) {
+        Set<Long> loaded = new HashSet<>();
+        for (ReadingActionDto action : open) {
+            loaded.add(action.getId());
+            put(action);
+        }
+        for (ReadingActionDto action : new ArrayList<>(byId.values())) {
+            if (!loaded.contains(action.getId()) && action.getCreatedAt() != null && action.getCreatedAt().isBefore(loadedAt)) {
+                remove(action.getId());
+            }
+        }
+    }
+
+    private static int severity(ReadingStatus status) {
+        if (status == null) {
+            return 5;
+        }
+        return switch (status) {
+            case CRITICAL_LOW -> 0;
+            case CRITICAL_HIGH -> 1;
+            case LOW -> 2;
+            case HIGH -> 3;
+            case NORMAL -> 4;
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package com.insulinpump.readingservice.actions;
+
+import com.insulinpump.readingservice.dto.ActionTransitionDto;
+import com.insulinpump.readingservice.dto.ReadingActionDto;
+import com.insulinpump.readingservice.dto.ReadingActionPageDto;
+import com.insulinpump.readingservice.exception.ActionConflictException;
+import com.insulinpump.readingservice.exception.ReadingActionNotFoundException;
+import com.insulinpump.readingservice.model.ActionState;
+import com.insulinpump.readingservice.model.ReadingAction;
+import com.insulinpump.readingservice.repository.ReadingActionRepository;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Cola de acciones sobre lecturas críticas: OPEN -> CLAIMED -> ACKNOWLEDGED -> RESOLVED.
+ *
+ * Las transiciones usan concurrencia optimista: el cliente envía la versión que vio y, si otra persona ha
+ * cambiado la acción entretanto, recibe un 409 en lugar de pisar su trabajo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ReadingActionService {
+
+    private final ReadingActionRepository actionRepository;
+    private final ActionQueueIndex actionQueueIndex;
+    private final ShardExecutor shardExecutor;
+
+    public ReadingActionPageDto getOpenActions(int page, int size) {
+        if (page < 0 || size <= 0 || size > 500) {
+            throw new IllegalArgumentException("La página debe ser >= 0 y el tamaño estar entre 1 y 500");
+        }
+        return new ReadingActionPageDto(actionQueueIndex.page(page, size), page, size, actionQueueIndex.size());
+    }
+
+    @Transactional(readOnly = true)
+    public ReadingActionDto getAction(Long id) {
+        return shardExecutor.findById(id, () -> actionRepository.findById(id))
+                .map(ReadingActionDto::from)
+                .orElseThrow(() -> new ReadingActionNotFoundException(id));
+    }
+
+    public ReadingActionDto claim(Long id, ActionTransitionDto transition) {
+        log.info("Asignando la acción {} a {}", id, transition.getClinician());
+        return transition(id, transition, action -> {
+            if (action.getState() != ActionState.OPEN && !isOwnedBy(action, transition)) {
+                throw new ActionConflictException("La acción " + id + " ya está asignada a " + action.getAssignee());
+            }
+            action.setState(ActionState.CLAIMED);
+            action.setAssignee(transition.getClinician());
+            action.setClaimedAt(LocalDateTime.now());
+        });
+    }
+
+    public ReadingActionDto acknowledge(Long id, ActionTransitionDto transition) {
+        log.info("Acción {} vista por {}", id, transition.getClinician());
+        return transition(id, transition, action -> {
+            if (action.getAssignee() != null && !isOwnedBy(action, transition)) {
+                throw new ActionConflictException("La acción " + id + " está asignada a " + action.getAssignee());
+            }
+            action.setState(ActionState.ACKNOWLEDGED);
+            action.setAssignee(transition.getClinician());
+            action.setAcknowledgedAt(LocalDateTime.now());
+        });
+    }
+
+    public ReadingActionDto resolve(Long id, ActionTransitionDto transition) {
+        log.info("Resolviendo la acción {} por {}", id, transition.getClinician());
+        return transition(id, transition, action -> {
+            action.setState(ActionState.RESOLVED);
+            action.setAssignee(transition.getClinician());
+            action.setResolvedAt(LocalDateTime.now());
+            action.setResolution(transition.getNotes());
+        });
+    }
+
+    private ReadingActionDto transition(Long id, ActionTransitionDto transition, Consumer<ReadingAction> change) {
+        int shard = shardExecutor.locate(id, () -> actionRepository.existsById(id));
+        if (shard < 0) {
+            throw new ReadingActionNotFoundException(id);
+        }
+        return shardExecutor.onShard(shard, false, () -> {
+            ReadingAction action = actionRepository.findById(id)
+                    .orElseThrow(() -> new ReadingActionNotFoundException(id));
+            if (transition.getVersion() != null && !transition.getVersion().equals(action.getVersion())) {
+                throw new ActionConflictException("La acción " + id + " ha cambiado (versión " + action.getVersion()
+                        + ", esperada " + transition.getVersion() + ")");
+            }
+            if (action.getState() == ActionState.RESOLVED) {
+                throw new ActionConflictException("La acción " + id + " ya está resuelta");
+            }
+            change.accept(action);
+            // El flush comprueba @Version: si otra transacción la ha modificado falla aquí
+            ReadingActionDto saved = ReadingActionDto.from(actionRepository.saveAndFlush(action));
+            actionQueueIndex.putAfterCommit(saved);
+            return saved;
+        });
+    }
+
+    private boolean isOwnedBy(ReadingAction action, ActionTransitionDto transition) {
+        return Objects.equals(action.getAssignee(), transition.getClinician());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        reloadIndex();
+    }
+
+    // Recoge las acciones creadas o cerradas por otras instancias
+    @Scheduled(fixedDelayString = "${readingservice.actions.index-refresh-interval:60000}",
+            initialDelayString = "${readingservice.actions.index-refresh-interval:60000}")
+    @Transactional(readOnly = true)
+    public void reloadIndex() {
+        LocalDateTime loadedAt = LocalDateTime.now();
+        List<ReadingActionDto> open = new ArrayList<>();
+        for (int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+            shardExecutor.onShard(shard, true, () -> actionRepository.findByStateNot(ActionState.RESOLVED))
+                    .forEach(action -> open.add(ReadingActionDto.from(action)));
+        }
+        actionQueueIndex.reload(open, loadedAt);
+        log.debug("Índice de acciones recargado: {} abiertas", open.size());
+    }
+}
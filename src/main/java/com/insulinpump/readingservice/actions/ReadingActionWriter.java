@@ -0,0 +1,130 @@
+package com.insulinpump.readingservice.actions;
+
+import com.insulinpump.readingservice.dto.ReadingActionDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.event.ReadingsBulkChangedEvent;
+import com.insulinpump.readingservice.model.ActionState;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingAction;
+import com.insulinpump.readingservice.repository.ReadingActionRepository;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la cola de acciones a partir de los cambios de lecturas. Como el outbox, se ejecuta dentro de la
+ * transacción que guarda la lectura: la acción existe si y solo si la lectura crítica se confirmó.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadingActionWriter {
+
+    static final String SYSTEM = "sistema";
+
+    private static final String RESOLVE_BULK = "UPDATE acciones_lectura SET state = :resolved, resolved_at = :now, "
+            + "resolution = :resolution, assignee = COALESCE(assignee, :system), version = version + 1 "
+            + "WHERE state <> :resolved AND reading_id IN (SELECT id FROM lecturas WHERE %s)";
+    // %1$s = estado de la lectura l (según el formato de almacenamiento), %2$s = condición
+    private static final String REFRESH_BULK = "UPDATE acciones_lectura SET reading_status = "
+            + "(SELECT %1$s FROM lecturas l WHERE l.id = acciones_lectura.reading_id), version = version + 1 "
+            + "WHERE state <> :resolved AND reading_id IN (SELECT id FROM lecturas l WHERE %2$s "
+            + "AND l.requires_action = TRUE AND %1$s <> acciones_lectura.reading_status)";
+    private static final String OPEN_BULK = "INSERT INTO acciones_lectura (reading_id, device_id, reading_status, "
+            + "glucose_level, reading_timestamp, state, created_at, version) "
+            + "SELECT l.id, l.device_id, %s, %s, l.timestamp, :open, :now, 0 FROM lecturas l "
+            + "WHERE %s AND l.requires_action = TRUE AND NOT EXISTS "
+            + "(SELECT 1 FROM acciones_lectura a WHERE a.reading_id = l.id AND a.state <> :resolved) ORDER BY l.id";
+    private static final String SELECT_CHANGED = "SELECT * FROM acciones_lectura "
+            + "WHERE reading_id IN (SELECT id FROM lecturas WHERE %s) AND (state <> :resolved OR resolved_at >= :now)";
+
+    private final ReadingActionRepository actionRepository;
+    private final ActionQueueIndex actionQueueIndex;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ReadingStorageLayout storageLayout;
+
+    @EventListener
+    public void onReadingChanged(ReadingChangedEvent event) {
+        Reading reading = event.getReading();
+        switch (event.getType()) {
+            case CREATED -> {
+                if (Boolean.TRUE.equals(reading.getRequiresAction())) {
+                    save(ReadingAction.open(reading));
+                }
+            }
+            case UPDATED -> onReadingUpdated(reading);
+            case DELETED -> resolveOpen(reading.getId(), event.isRelocation() ? "Lectura trasladada a otro shard" : "Lectura eliminada");
+        }
+    }
+
+    /**
+     * Versión de conjunto de onReadingChanged: resuelve, refresca y abre acciones con una sentencia cada una y
+     * solo lee de vuelta las acciones afectadas para actualizar el índice.
+     */
+    @EventListener
+    public void onReadingsChanged(ReadingsBulkChangedEvent event) {
+        String condition = event.getCondition();
+        Map<String, Object> parameters = new HashMap<>(event.getParameters());
+        parameters.put("now", LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        parameters.put("open", ActionState.OPEN.name());
+        parameters.put("resolved", ActionState.RESOLVED.name());
+        parameters.put("system", SYSTEM);
+        if (event.getType() == ReadingChangedEvent.Type.DELETED) {
+            parameters.put("resolution", "Lectura eliminada");
+            jdbcTemplate.update(String.format(RESOLVE_BULK, condition), parameters);
+        } else {
+            parameters.put("resolution", "La lectura ya no requiere acción");
+            jdbcTemplate.update(String.format(RESOLVE_BULK, condition + " AND (requires_action IS NULL OR requires_action = FALSE)"), parameters);
+            jdbcTemplate.update(String.format(REFRESH_BULK, storageLayout.status("l"), condition), parameters);
+            jdbcTemplate.update(String.format(OPEN_BULK, storageLayout.status("l"), storageLayout.glucoseLevel("l"), condition), parameters);
+        }
+        jdbcTemplate.query(String.format(SELECT_CHANGED, condition), parameters, new BeanPropertyRowMapper<>(ReadingAction.class))
+                .forEach(action -> actionQueueIndex.putAfterCommit(ReadingActionDto.from(action)));
+    }
+
+    private void onReadingUpdated(Reading reading) {
+        List<ReadingAction> open = actionRepository.findByReadingIdAndStateNot(reading.getId(), ActionState.RESOLVED);
+        if (!Boolean.TRUE.equals(reading.getRequiresAction())) {
+            resolveOpen(open, "La lectura ya no requiere acción");
+        } else if (open.isEmpty()) {
+            save(ReadingAction.open(reading));
+        } else {
+            for (ReadingAction action : open) {
+                action.setReadingStatus(reading.getStatus());
+                action.setGlucoseLevel(reading.getGlucoseLevel());
+                action.setReadingTimestamp(reading.getTimestamp());
+                save(action);
+            }
+        }
+    }
+
+    private void resolveOpen(Long readingId, String resolution) {
+        resolveOpen(actionRepository.findByReadingIdAndStateNot(readingId, ActionState.RESOLVED), resolution);
+    }
+
+    private void resolveOpen(List<ReadingAction> open, String resolution) {
+        for (ReadingAction action : open) {
+            action.setState(ActionState.RESOLVED);
+            action.setResolvedAt(LocalDateTime.now());
+            action.setResolution(resolution);
+            if (action.getAssignee() == null) {
+                action.setAssignee(SYSTEM);
+            }
+            save(action);
+        }
+    }
+
+    private void save(ReadingAction action) {
+        // saveAndFlush para que la versión devuelta sea la que quedará confirmada
+        ReadingAction saved = actionRepository.saveAndFlush(action);
+        actionQueueIndex.putAfterCommit(ReadingActionDto.from(saved));
+    }
+}
@@ -0,0 +1,50 @@
+package com.insulinpump.readingservice.analytics;
+
+import lombok.Getter;
+
+/**
+ * Parcial de una cohorte: el agregado de todas sus lecturas y, por dispositivo, el tiempo en rango, para
+ * poder dar tanto el porcentaje global como la media entre pacientes. Se combina con merge() igual que
+ * GlucoseAggregate.
+ */
+@Getter
+public class CohortAggregate {
+
+    private final GlucoseAggregate readings = new GlucoseAggregate();
+    private long devicesScanned;
+    private long devicesUnresolved;
+    private long devicesWithReadings;
+    private double timeInRangeSum;
+
+    void scanned(int devices, int unresolved) {
+        devicesScanned += devices;
+        devicesUnresolved += unresolved;
+    }
+
+    /**
+     * Suma la fila de un dispositivo [deviceId, count, sum, sumOfSquares, min, max, low, high].
+     */
+    void addDevice(Object[] row) {
+        GlucoseAggregate device = GlucoseAggregate.fromRow(row, 1);
+        if (device.isEmpty()) {
+            return;
+        }
+        readings.merge(device);
+        devicesWithReadings++;
+        timeInRangeSum += device.getTimeInRange();
+    }
+
+    public CohortAggregate merge(CohortAggregate other) {
+        readings.merge(other.readings);
+        devicesScanned += other.devicesScanned;
+        devicesUnresolved += other.devicesUnresolved;
+        devicesWithReadings += other.devicesWithReadings;
+        timeInRangeSum += other.timeInRangeSum;
+        return this;
+    }
+
+    // Media del tiempo en rango de cada paciente: cada dispositivo pesa lo mismo tenga las lecturas que tenga
+    public Float getAverageTimeInRange() {
+        return devicesWithReadings > 0 ? (float) (timeInRangeSum / devicesWithReadings) : null;
+    }
+}
@@ -0,0 +1,281 @@
+package com.insulinpump.readingservice.analytics;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
+import com.insulinpump.readingservice.dto.CohortStatisticsDto;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.repository.ReadingStore;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estadísticas de población: todos los dispositivos con lecturas en el rango, filtrados por el tipo de diabetes
+ * del paciente y el modelo de la bomba.
+ *
+ * Los dispositivos se reparten en bloques que se procesan en paralelo en un ForkJoinPool acotado. Cada bloque
+ * filtra sus dispositivos y calcula en la base de datos un parcial por dispositivo; los parciales se combinan
+ * con CohortAggregate. Una consulta se detiene al agotar su presupuesto de tiempo o al cancelarla: los bloques
+ * pendientes no se ejecutan y se devuelve lo calculado hasta entonces, marcado como incompleto.
+ */
+@Service
+@Slf4j
+public class CohortAnalyticsService {
+
+    public static final String TIME_BUDGET = "TIME_BUDGET";
+    public static final String CANCELLED = "CANCELLED";
+
+    private final ReadingStore readingRepository;
+    private final ShardExecutor shardExecutor;
+    private final DeviceClient deviceClient;
+    private final PatientClient patientClient;
+    private final PatientDeviceDirectory patientDeviceDirectory;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final Duration defaultBudget;
+    private final Duration maxBudget;
+    private final ConcurrentMap<String, CohortQuery> running = new ConcurrentHashMap<>();
+
+    public CohortAnalyticsService(ReadingStore readingRepository,
+                                  ShardExecutor shardExecutor,
+                                  DeviceClient deviceClient,
+                                  PatientClient patientClient,
+                                  PatientDeviceDirectory patientDeviceDirectory,
+                                  @Value("${readingservice.analytics.parallelism:4}") int parallelism,
+                                  @Value("${readingservice.analytics.chunk-size:64}") int chunkSize,
+                                  @Value("${readingservice.analytics.time-budget:10s}") Duration defaultBudget,
+                                  @Value("${readingservice.analytics.max-time-budget:60s}") Duration maxBudget) {
+        if (parallelism <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("readingservice.analytics.parallelism y chunk-size deben ser positivos");
+        }
+        this.readingRepository = readingRepository;
+        this.shardExecutor = shardExecutor;
+        this.deviceClient = deviceClient;
+        this.patientClient = patientClient;
+        this.patientDeviceDirectory = patientDeviceDirectory;
+        this.chunkSize = chunkSize;
+        this.defaultBudget = defaultBudget;
+        this.maxBudget = maxBudget;
+        // Como mucho parallelism hilos: sin hilos de compensación aunque los bloques esperen a la red o a la base de datos
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("cohort-analytics-" + thread.getPoolIndex());
+            return thread;
+        }, null, false, 0, parallelism, 1, pool -> true, 60, TimeUnit.SECONDS);
+    }
+
+    public CohortStatisticsDto analyze(String diabetesType, String deviceModel, LocalDateTime start, LocalDateTime end,
+                                       Duration budget, String queryId) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la de fin");
+        }
+        Duration timeBudget = budget != null ? budget : defaultBudget;
+        if (timeBudget.isNegative() || timeBudget.isZero() || timeBudget.compareTo(maxBudget) > 0) {
+            throw new IllegalArgumentException("El presupuesto de tiempo debe estar entre 1 y " + maxBudget.toMillis() + " ms");
+        }
+        CohortQuery query = new CohortQuery(queryId != null ? queryId : UUID.randomUUID().toString(),
+                blankToNull(diabetesType), blankToNull(deviceModel), start, end);
+        if (running.putIfAbsent(query.id, query) != null) {
+            throw new IllegalArgumentException("Ya hay una consulta de cohorte en curso con el id " + query.id);
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            log.info("Calculando estadísticas de la cohorte {} (diabetes {}, modelo {}) entre {} y {}",
+                    query.id, query.diabetesType, query.deviceModel, start, end);
+            List<Long> devices = shardExecutor.scatterGather(
+                    () -> readingRepository.findDeviceIdsWithReadingsBetween(start, end), Comparator.naturalOrder());
+
+            ForkJoinTask<Void> task = pool.submit(new ChunkTask(query, devices, 0, devices.size()));
+            try {
+                task.get(Math.max(0, timeBudget.toNanos() - (System.nanoTime() - startedAt)), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                query.stop(TIME_BUDGET);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                query.stop(CANCELLED);
+            } catch (ExecutionException e) {
+                query.stop(CANCELLED);
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+
+            CohortStatisticsDto result = toDto(query, devices.size());
+            result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            if (!result.isComplete()) {
+                log.warn("Cohorte {} detenida ({}): {} de {} dispositivos procesados",
+                        query.id, result.getStopReason(), result.getDevicesScanned(), devices.size());
+            }
+            return result;
+        } finally {
+            running.remove(query.id, query);
+        }
+    }
+
+    /**
+     * Detiene la consulta en curso con ese id. Devuelve false si no hay ninguna.
+     */
+    public boolean cancel(String queryId) {
+        CohortQuery query = running.get(queryId);
+        if (query == null) {
+            return false;
+        }
+        log.info("Cancelando la consulta de cohorte {}", queryId);
+        query.stop(CANCELLED);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running.values().forEach(query -> query.stop(CANCELLED));
+        pool.shutdownNow();
+    }
+
+    private CohortAggregate aggregateChunk(CohortQuery query, List<Long> chunk) {
+        CohortAggregate partial = new CohortAggregate();
+        List<Long> members = new ArrayList<>(chunk.size());
+        int unresolved = 0;
+        for (Long deviceId : chunk) {
+            try {
+                if (matches(query, deviceId)) {
+                    members.add(deviceId);
+                }
+            } catch (Exception e) {
+                unresolved++;
+                log.debug("No se pudo clasificar el dispositivo {} en la cohorte {}: {}", deviceId, query.id, e.getMessage());
+            }
+        }
+        if (!members.isEmpty()) {
+            shardExecutor.gatherByDevices(members,
+                    deviceIds -> readingRepository.aggregateGlucoseByDeviceIdsAndTimeRange(deviceIds, query.start, query.end), null)
+                    .forEach(partial::addDevice);
+        }
+        partial.scanned(chunk.size(), unresolved);
+        return partial;
+    }
+
+    // Solo se consulta el servicio que hace falta para el criterio pedido; el paciente sale del directorio local
+    private boolean matches(CohortQuery query, Long deviceId) {
+        if (query.deviceModel != null) {
+            DeviceDto device = deviceClient.getDeviceById(deviceId);
+            if (device == null || !query.deviceModel.equalsIgnoreCase(device.getModel())) {
+                return false;
+            }
+        }
+        if (query.diabetesType != null) {
+            PatientDto patient = patientDeviceDirectory.patientForDevice(deviceId, patientClient::getPatientByDeviceId);
+            return patient != null && query.diabetesType.equalsIgnoreCase(patient.getDiabetesType());
+        }
+        return true;
+    }
+
+    private CohortStatisticsDto toDto(CohortQuery query, long devicesTotal) {
+        CohortAggregate total = new CohortAggregate();
+        for (CohortAggregate partial : query.partials) {
+            total.merge(partial);
+        }
+        GlucoseAggregate readings = total.getReadings();
+
+        CohortStatisticsDto result = new CohortStatisticsDto();
+        result.setQueryId(query.id);
+        result.setDiabetesType(query.diabetesType);
+        result.setDeviceModel(query.deviceModel);
+        result.setStartTime(query.start);
+        result.setEndTime(query.end);
+        result.setDevicesTotal(devicesTotal);
+        result.setDevicesScanned(total.getDevicesScanned());
+        result.setDevicesUnresolved(total.getDevicesUnresolved());
+        result.setDevicesInCohort(total.getDevicesWithReadings());
+        result.setTimeInRange(readings.isEmpty() ? null : readings.getTimeInRange());
+        result.setAverageTimeInRange(total.getAverageTimeInRange());
+        result.setStatistics(readings.toStatistics(query.start, query.end));
+        result.setStopReason(query.stopReason.get());
+        result.setComplete(result.getStopReason() == null && total.getDevicesScanned() == devicesTotal);
+        return result;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static final class CohortQuery {
+
+        private final String id;
+        private final String diabetesType;
+        private final String deviceModel;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Queue<CohortAggregate> partials = new ConcurrentLinkedQueue<>();
+        private final AtomicReference<String> stopReason = new AtomicReference<>();
+
+        private CohortQuery(String id, String diabetesType, String deviceModel, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.diabetesType = diabetesType;
+            this.deviceModel = deviceModel;
+            this.start = start;
+            this.end = end;
+        }
+
+        private void stop(String reason) {
+            stopReason.compareAndSet(null, reason);
+        }
+
+        private boolean isStopped() {
+            return stopReason.get() != null;
+        }
+    }
+
+    // Divide el rango de dispositivos por la mitad hasta llegar a chunkSize; cada bloque deja su parcial en la consulta
+    private final class ChunkTask extends RecursiveAction {
+
+        private final CohortQuery query;
+        private final List<Long> devices;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(CohortQuery query, List<Long> devices, int from, int to) {
+            this.query = query;
+            this.devices = devices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (query.isStopped()) {
+                return;
+            }
+            if (to - from <= chunkSize) {
+                query.partials.add(aggregateChunk(query, devices.subList(from, to)));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(query, devices, from, middle), new ChunkTask(query, devices, middle, to));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.insulinpump.readingservice.analytics;
+
+import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agregado de glucosa combinable: parciales calculados por dispositivo, shard o bloque se suman con merge()
+ * y el resultado es el mismo que si se hubiera calculado sobre todas las lecturas juntas.
+ */
+@Getter
+public class GlucoseAggregate {
+
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private float min = Float.POSITIVE_INFINITY;
+    private float max = Float.NEGATIVE_INFINITY;
+    private long lowCount;
+    private long highCount;
+
+    /**
+     * Parcial a partir de una fila [count, sum, sumOfSquares, min, max, low, high] empezando en offset.
+     */
+    public static GlucoseAggregate fromRow(Object[] row, int offset) {
+        GlucoseAggregate aggregate = new GlucoseAggregate();
+        aggregate.count = number(row[offset]).longValue();
+        if (aggregate.count == 0) {
+            return aggregate;
+        }
+        aggregate.sum = number(row[offset + 1]).doubleValue();
+        aggregate.sumOfSquares = number(row[offset + 2]).doubleValue();
+        aggregate.min = number(row[offset + 3]).floatValue();
+        aggregate.max = number(row[offset + 4]).floatValue();
+        aggregate.lowCount = number(row[offset + 5]).longValue();
+        aggregate.highCount = number(row[offset + 6]).longValue();
+        return aggregate;
+    }
+
+    public void add(float glucoseLevel, ReadingStatus status) {
+        count++;
+        sum += glucoseLevel;
+        sumOfSquares += (double) glucoseLevel * glucoseLevel;
+        min = Math.min(min, glucoseLevel);
+        max = Math.max(max, glucoseLevel);
+        if (status == ReadingStatus.LOW || status == ReadingStatus.CRITICAL_LOW) {
+            lowCount++;
+        } else if (status == ReadingStatus.HIGH || status == ReadingStatus.CRITICAL_HIGH) {
+            highCount++;
+        }
+    }
+
+    public GlucoseAggregate merge(GlucoseAggregate other) {
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        lowCount += other.lowCount;
+        highCount += other.highCount;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public float getAverage() {
+        return count > 0 ? (float) (sum / count) : 0.0f;
+    }
+
+    // Porcentaje de lecturas en rango (ni bajas ni altas: 70-180 mg/dL)
+    public float getTimeInRange() {
+        return count > 0 ? 100.0f * (count - lowCount - highCount) / count : 0.0f;
+    }
+
+    // Desviación típica poblacional, igual que la de las estadísticas por dispositivo
+    public float getStandardDeviation() {
+        if (count <= 1) {
+            return 0.0f;
+        }
+        double mean = sum / count;
+        return (float) Math.sqrt(Math.max(0.0, sumOfSquares / count - mean * mean));
+    }
+
+    public GlucoseStatisticsDto toStatistics(LocalDateTime start, LocalDateTime end) {
+        GlucoseStatisticsDto statistics = new GlucoseStatisticsDto();
+        statistics.setStartTime(start);
+        statistics.setEndTime(end);
+        statistics.setAverageGlucoseLevel(getAverage());
+        statistics.setLowReadingsCount(lowCount);
+        statistics.setHighReadingsCount(highCount);
+        statistics.setLowestReading(isEmpty() ? null : min);
+        statistics.setHighestReading(isEmpty() ? null : max);
+        statistics.setTotalReadings((int) count);
+        statistics.setStandardDeviation(getStandardDeviation());
+        return statistics;
+    }
+
+    private static Number number(Object value) {
+        return value != null ? (Number) value : 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.insulinpump.readingservice.bucketing;
+
+public enum BucketFunction {
+    AVG,
+    MIN,
+    MAX,
+    COUNT,
+    STDDEV
+}
@@ -0,0 +1,33 @@
+package com.insulinpump.readingservice.bucketing;
+
+public enum BucketWidth {
+    FIVE_MINUTES("5m", 300),
+    FIFTEEN_MINUTES("15m", 900),
+    ONE_HOUR("1h", 3600),
+    ONE_DAY("1d", 86400);
+
+    private final String label;
+    private final long seconds;
+
+    BucketWidth(String label, long seconds) {
+        this.label = label;
+        this.seconds = seconds;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    public static BucketWidth fromLabel(String label) {
+        for (BucketWidth width : values()) {
+            if (width.label.equalsIgnoreCase(label.trim())) {
+                return width;
+            }
+        }
+        throw new IllegalArgumentException("Ancho de intervalo no soportado: " + label + " (5m, 15m, 1h o 1d)");
+    }
+}
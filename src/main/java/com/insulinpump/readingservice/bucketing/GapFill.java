@@ -0,0 +1,11 @@
+package com.insulinpump.readingservice.bucketing;
+
+/**
+ * Qué devolver en los intervalos sin lecturas: nada, el valor del intervalo anterior o la interpolación
+ * lineal entre el anterior y el siguiente con lecturas.
+ */
+public enum GapFill {
+    NULL,
+    PREVIOUS,
+    LINEAR
+}
@@ -0,0 +1,123 @@
+package com.insulinpump.readingservice.bucketing;
+
+import com.insulinpump.readingservice.dto.GlucoseBucketDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serie de intervalos consecutivos de ancho fijo, alineados a múltiplos del ancho en UTC (las horas en punto,
+ * los días a medianoche). Recibe los agregados de cada intervalo calculados en la base de datos y genera la
+ * serie completa, rellenando los intervalos sin lecturas.
+ */
+public class GlucoseBuckets {
+
+    public static final int MAX_BUCKETS = 10_000;
+
+    private final LocalDateTime origin;
+    private final BucketWidth width;
+    private final long[] counts;
+    // Por intervalo: media, mínimo, máximo y desviación típica (null si no hay lecturas)
+    private final Float[][] values;
+
+    public GlucoseBuckets(LocalDateTime start, LocalDateTime end, BucketWidth width) {
+        this.width = width;
+        this.origin = origin(start, width);
+        long size = Math.floorDiv(seconds(end) - seconds(origin), width.getSeconds()) + 1;
+        if (size > MAX_BUCKETS) {
+            throw new IllegalArgumentException("El rango pedido genera " + size + " intervalos; el máximo es " + MAX_BUCKETS);
+        }
+        this.counts = new long[(int) size];
+        this.values = new Float[4][(int) size];
+    }
+
+    public static LocalDateTime origin(LocalDateTime start, BucketWidth width) {
+        long seconds = Math.floorDiv(seconds(start), width.getSeconds()) * width.getSeconds();
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    public LocalDateTime getOrigin() {
+        return origin;
+    }
+
+    public int size() {
+        return counts.length;
+    }
+
+    /**
+     * Agregados del intervalo: número de lecturas, suma y suma de cuadrados (para la desviación típica
+     * poblacional, como en GlucoseAggregate), mínimo y máximo.
+     */
+    public void add(int bucket, long count, double sum, double sumOfSquares, float min, float max) {
+        if (bucket < 0 || bucket >= counts.length || count == 0) {
+            return;
+        }
+        double mean = sum / count;
+        counts[bucket] = count;
+        values[0][bucket] = (float) mean;
+        values[1][bucket] = min;
+        values[2][bucket] = max;
+        values[3][bucket] = count > 1 ? (float) Math.sqrt(Math.max(0.0, sumOfSquares / count - mean * mean)) : 0.0f;
+    }
+
+    public List<GlucoseBucketDto> finish(Set<BucketFunction> functions, GapFill fill) {
+        Float[][] values = new Float[this.values.length][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.values[i].clone();
+            fill(values[i], fill);
+        }
+        List<GlucoseBucketDto> buckets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            GlucoseBucketDto bucket = new GlucoseBucketDto();
+            bucket.setTimestamp(origin.plusSeconds(i * width.getSeconds()));
+            if (functions.contains(BucketFunction.COUNT)) {
+                bucket.setCount(counts[i]);
+            }
+            if (functions.contains(BucketFunction.AVG)) {
+                bucket.setAverageGlucoseLevel(values[0][i]);
+            }
+            if (functions.contains(BucketFunction.MIN)) {
+                bucket.setMinGlucoseLevel(values[1][i]);
+            }
+            if (functions.contains(BucketFunction.MAX)) {
+                bucket.setMaxGlucoseLevel(values[2][i]);
+            }
+            if (functions.contains(BucketFunction.STDDEV)) {
+                bucket.setStandardDeviation(values[3][i]);
+            }
+            if (counts[i] == 0 && values[0][i] != null) {
+                bucket.setFilled(true);
+            }
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    private void fill(Float[] series, GapFill fill) {
+        if (fill == GapFill.NULL) {
+            return;
+        }
+        int previous = -1;
+        for (int i = 0; i < series.length; i++) {
+            if (counts[i] > 0) {
+                if (fill == GapFill.LINEAR && previous >= 0) {
+                    // Los huecos entre dos intervalos con lecturas; antes del primero y tras el último no hay recta
+                    for (int gap = previous + 1; gap < i; gap++) {
+                        float fraction = (float) (gap - previous) / (i - previous);
+                        series[gap] = series[previous] + (series[i] - series[previous]) * fraction;
+                    }
+                }
+                previous = i;
+            } else if (fill == GapFill.PREVIOUS && previous >= 0) {
+                series[i] = series[previous];
+            }
+        }
+    }
+
+    private static long seconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,130 @@
+package com.insulinpump.readingservice.coalescing;
+
+import com.insulinpump.readingservice.datasource.ReplicaRoutingContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Agrupa las peticiones idénticas concurrentes: la primera con una clave (líder) hace el cálculo y las que llegan
+ * mientras está en curso reciben su resultado, o su excepción, sin repetir llamadas remotas ni consultas.
+ *
+ * Solo se guardan las claves en curso y cada una se elimina al terminar: no es una caché, una petición posterior
+ * siempre calcula de nuevo. La clave debe identificar exactamente los datos leídos (incluida la versión del
+ * dispositivo) para que una petición posterior a una escritura no se una a un cálculo anterior. La decisión de
+ * ReplicaRoutingContext forma parte de la clave: una petición que debe leer del primario no se une a un cálculo
+ * servido por la réplica. Con más de max-in-flight claves en curso las peticiones nuevas se ejecutan sin agrupar.
+ *
+ * Los resultados mutables se comparten con execute(key, work, copy): cada llamada, también la del líder, recibe
+ * su propia copia y ninguna ve los cambios que otra haga sobre el resultado.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final int maxInFlight;
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public SingleFlight(ObjectProvider<MeterRegistry> meterRegistry,
+                        @Value("${readingservice.coalescing.max-in-flight:10000}") int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            requestCounter(registry, "leader", leaders);
+            requestCounter(registry, "follower", followers);
+            requestCounter(registry, "bypassed", bypassed);
+            Gauge.builder("readingservice.coalescing.in-flight", inFlight, ConcurrentMap::size)
+                    .description("Cálculos en curso que admiten peticiones agrupadas")
+                    .register(registry);
+            Gauge.builder("readingservice.coalescing.ratio", this, SingleFlight::getCoalescingRatio)
+                    .description("Fracción de peticiones servidas con el resultado de otra en curso")
+                    .register(registry);
+        }
+    }
+
+    private static void requestCounter(MeterRegistry registry, String role, LongAdder adder) {
+        FunctionCounter.builder("readingservice.coalescing.requests", adder, LongAdder::sum)
+                .description("Peticiones agrupables por papel: leader calcula, follower espera, bypassed sin agrupar")
+                .tag("role", role)
+                .register(registry);
+    }
+
+    // Solo para resultados inmutables: todas las llamadas reciben la misma instancia
+    public <T> T execute(Object key, Supplier<T> work) {
+        return execute(key, work, UnaryOperator.identity());
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> work, UnaryOperator<T> copy) {
+        Object routedKey = new RoutedKey(key, ReplicaRoutingContext.isPrimaryForced());
+        CompletableFuture<Object> existing = inFlight.get(routedKey);
+        if (existing == null) {
+            if (inFlight.size() >= maxInFlight) {
+                bypassed.increment();
+                return work.get();
+            }
+            CompletableFuture<Object> call = new CompletableFuture<>();
+            existing = inFlight.putIfAbsent(routedKey, call);
+            if (existing == null) {
+                return copy.apply((T) lead(routedKey, call, work));
+            }
+        }
+        followers.increment();
+        return copy.apply((T) await(existing));
+    }
+
+    private Object lead(Object key, CompletableFuture<Object> call, Supplier<?> work) {
+        leaders.increment();
+        try {
+            Object result = work.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            // La misma excepción que recibe el líder (p. ej. ReadingNotFoundException -> 404)
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record RoutedKey(Object key, boolean primaryForced) {
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    public double getCoalescingRatio() {
+        long followerCount = followers.sum();
+        long total = leaders.sum() + followerCount + bypassed.sum();
+        return total == 0 ? 0.0 : (double) followerCount / total;
+    }
+}
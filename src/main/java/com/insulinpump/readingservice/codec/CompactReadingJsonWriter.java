@@ -0,0 +1,229 @@
+package com.insulinpump.readingservice.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato compacto para listas de lecturas (application/vnd.reading.compact+json).
+ *
+ * <pre>
+ * {"devices":[{"id":7,"serialNo":...,"patientId":3}],
+ *  "patients":[{"id":3,"name":...}],
+ *  "readings":[{"id":1,"timestamp":"2025-03-01T10:00:00","deviceId":7,"glucoseLevel":110.5,"status":"NORMAL",...}]}
+ * </pre>
+ *
+ * Cada dispositivo y paciente se escribe una sola vez; las lecturas lo referencian por deviceId y el dispositivo
+ * al paciente por patientId. Los campos nulos se omiten. Las lecturas se escriben directamente con el
+ * JsonGenerator, con nombres de campo y estados preserializados y la fecha de cada día formateada una vez.
+ */
+@Component
+public class CompactReadingJsonWriter {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.reading.compact+json";
+
+    private static final SerializedString DEVICES = new SerializedString("devices");
+    private static final SerializedString PATIENTS = new SerializedString("patients");
+    private static final SerializedString READINGS = new SerializedString("readings");
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString DEVICE_ID = new SerializedString("deviceId");
+    private static final SerializedString GLUCOSE_LEVEL = new SerializedString("glucoseLevel");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString NOTES = new SerializedString("notes");
+    private static final SerializedString INSULIN_DOSE = new SerializedString("insulinDose");
+    private static final SerializedString CARB_INTAKE = new SerializedString("carbIntake");
+    private static final SerializedString MANUAL_READING = new SerializedString("manualReading");
+    private static final SerializedString REQUIRES_ACTION = new SerializedString("requiresAction");
+
+    private static final Map<String, SerializableString> STATUS_VALUES = new HashMap<>();
+
+    static {
+        for (ReadingStatus status : ReadingStatus.values()) {
+            STATUS_VALUES.put(status.toString(), new SerializedString(status.toString()));
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+
+    public CompactReadingJsonWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(List<ReadingDetailsDto> readings, OutputStream outputStream) throws IOException {
+        Map<Long, DeviceDto> devices = new LinkedHashMap<>();
+        Map<Long, PatientDto> patients = new LinkedHashMap<>();
+        for (ReadingDetailsDto reading : readings) {
+            if (reading.getDevice() != null && reading.getDevice().getId() != null) {
+                devices.putIfAbsent(reading.getDevice().getId(), reading.getDevice());
+            }
+            if (reading.getPatient() != null && reading.getPatient().getId() != null) {
+                patients.putIfAbsent(reading.getPatient().getId(), reading.getPatient());
+            }
+        }
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER.mappedFeature());
+            generator.writeStartObject();
+
+            generator.writeFieldName(DEVICES);
+            objectMapper.writeValue(generator, devices.values());
+            generator.writeFieldName(PATIENTS);
+            objectMapper.writeValue(generator, patients.values());
+
+            generator.writeFieldName(READINGS);
+            generator.writeStartArray();
+            RowFormatter formatter = new RowFormatter();
+            for (ReadingDetailsDto reading : readings) {
+                writeReading(generator, reading, formatter);
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeReading(JsonGenerator generator, ReadingDetailsDto reading, RowFormatter formatter) throws IOException {
+        generator.writeStartObject();
+        if (reading.getId() != null) {
+            generator.writeFieldName(ID);
+            generator.writeNumber(reading.getId());
+        }
+        if (reading.getTimestamp() != null) {
+            generator.writeFieldName(TIMESTAMP);
+            formatter.writeTimestamp(generator, reading.getTimestamp());
+        }
+        if (reading.getDeviceId() != null) {
+            generator.writeFieldName(DEVICE_ID);
+            generator.writeNumber(reading.getDeviceId());
+        }
+        if (reading.getGlucoseLevel() != null) {
+            generator.writeFieldName(GLUCOSE_LEVEL);
+            formatter.writeFloat(generator, reading.getGlucoseLevel());
+        }
+        if (reading.getStatus() != null) {
+            generator.writeFieldName(STATUS);
+            SerializableString status = STATUS_VALUES.get(reading.getStatus());
+            if (status != null) {
+                generator.writeString(status);
+            } else {
+                generator.writeString(reading.getStatus());
+            }
+        }
+        if (reading.getNotes() != null) {
+            generator.writeFieldName(NOTES);
+            generator.writeString(reading.getNotes());
+        }
+        if (reading.getInsulinDose() != null) {
+            generator.writeFieldName(INSULIN_DOSE);
+            formatter.writeFloat(generator, reading.getInsulinDose());
+        }
+        if (reading.getCarbIntake() != null) {
+            generator.writeFieldName(CARB_INTAKE);
+            formatter.writeFloat(generator, reading.getCarbIntake());
+        }
+        if (reading.getManualReading() != null) {
+            generator.writeFieldName(MANUAL_READING);
+            generator.writeBoolean(reading.getManualReading());
+        }
+        if (reading.getRequiresAction() != null) {
+            generator.writeFieldName(REQUIRES_ACTION);
+            generator.writeBoolean(reading.getRequiresAction());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Formatea fechas y decimales sobre buffers reutilizados en lugar de crear un String por valor.
+     */
+    static final class RowFormatter {
+
+        private final char[] buffer = new char[23];
+        private final char[] number = new char[16];
+        private LocalDate day;
+
+        /**
+         * Escribe LocalDateTime como ISO-8601 (yyyy-MM-ddTHH:mm:ss[.SSS]). La parte de fecha solo se recalcula
+         * al cambiar de día, lo habitual en series de un mismo dispositivo.
+         */
+        void writeTimestamp(JsonGenerator generator, LocalDateTime timestamp) throws IOException {
+            LocalDate date = timestamp.toLocalDate();
+            if (!date.equals(day)) {
+                if (date.getYear() < 0 || date.getYear() > 9999) {
+                    generator.writeString(timestamp.toString());
+                    return;
+                }
+                day = date;
+                writeDigits(buffer, 0, date.getYear(), 4);
+                buffer[4] = '-';
+                writeDigits(buffer, 5, date.getMonthValue(), 2);
+                buffer[7] = '-';
+                writeDigits(buffer, 8, date.getDayOfMonth(), 2);
+                buffer[10] = 'T';
+                buffer[13] = ':';
+                buffer[16] = ':';
+            }
+            writeDigits(buffer, 11, timestamp.getHour(), 2);
+            writeDigits(buffer, 14, timestamp.getMinute(), 2);
+            writeDigits(buffer, 17, timestamp.getSecond(), 2);
+            int millis = timestamp.getNano() / 1_000_000;
+            if (millis == 0) {
+                generator.writeString(buffer, 0, 19);
+            } else {
+                buffer[19] = '.';
+                writeDigits(buffer, 20, millis, 3);
+                generator.writeString(buffer, 0, 23);
+            }
+        }
+
+        /**
+         * Glucosa, insulina y carbohidratos llevan como mucho un decimal: en ese caso se escribe igual que
+         * Float.toString ("110.5", "80.0") sin crear el String. El resto de valores se delega en Jackson.
+         */
+        void writeFloat(JsonGenerator generator, float value) throws IOException {
+            int tenths = Math.round(value * 10);
+            if (Math.abs(value) >= 1_000_000 || (float) (tenths / 10.0) != value) {
+                generator.writeNumber(value);
+                return;
+            }
+            int position = number.length;
+            int magnitude = Math.abs(tenths);
+            number[--position] = (char) ('0' + magnitude % 10);
+            number[--position] = '.';
+            magnitude /= 10;
+            do {
+                number[--position] = (char) ('0' + magnitude % 10);
+                magnitude /= 10;
+            } while (magnitude > 0);
+            if (tenths < 0) {
+                number[--position] = '-';
+            }
+            generator.writeRawValue(number, position, number.length - position);
+        }
+
+        private static void writeDigits(char[] target, int offset, int value, int digits) {
+            for (int i = offset + digits - 1; i >= offset; i--) {
+                target[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+    }
+}
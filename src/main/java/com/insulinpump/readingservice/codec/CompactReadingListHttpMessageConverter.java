@@ -0,0 +1,83 @@
+package com.insulinpump.readingservice.codec;
+
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Escribe las respuestas List&lt;ReadingDetailsDto&gt; en formato compacto cuando el cliente lo pide con
+ * Accept: application/vnd.reading.compact+json. El resto de respuestas sigue en JSON normal.
+ */
+public class CompactReadingListHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<ReadingDetailsDto>> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(CompactReadingJsonWriter.MEDIA_TYPE_VALUE);
+
+    private final CompactReadingJsonWriter writer;
+
+    public CompactReadingListHttpMessageConverter(CompactReadingJsonWriter writer) {
+        super(MEDIA_TYPE);
+        this.writer = writer;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!isReadingList(type)) {
+            return false;
+        }
+        // Sin media type (cálculo de tipos producibles) solo se ofrece si el cliente lo pidió: al ir antes que
+        // Jackson, con Accept: */* se elegiría el formato compacto
+        return mediaType != null ? MEDIA_TYPE.isCompatibleWith(mediaType) && !mediaType.isWildcardType() : requestedExplicitly();
+    }
+
+    private boolean requestedExplicitly() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String accept = attributes.getRequest().getHeader(HttpHeaders.ACCEPT);
+            return accept != null && accept.contains(CompactReadingJsonWriter.MEDIA_TYPE_VALUE);
+        }
+        return false;
+    }
+
+    private boolean isReadingList(@Nullable Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && List.class.isAssignableFrom(raw)
+                && parameterized.getActualTypeArguments()[0] == ReadingDetailsDto.class;
+    }
+
+    @Override
+    protected void writeInternal(List<ReadingDetailsDto> readings, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        writer.write(readings, outputMessage.getBody());
+    }
+
+    @Override
+    protected List<ReadingDetailsDto> readInternal(Class<? extends List<ReadingDetailsDto>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("El formato compacto solo se usa en respuestas", inputMessage);
+    }
+
+    @Override
+    public List<ReadingDetailsDto> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("El formato compacto solo se usa en respuestas", inputMessage);
+    }
+}
@@ -0,0 +1,125 @@
+package com.insulinpump.readingservice.codec;
+
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.exception.InvalidReadingFrameException;
+import com.insulinpump.readingservice.model.Reading;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato binario compacto para la ingesta de lecturas desde los gateways de las bombas.
+ *
+ * Trama (big-endian): cabecera de 7 bytes (magic "RF", versión, número de registros)
+ * seguida de registros de 29 bytes: deviceId (int64), epoch-millis UTC (int64, 0 = hora del servidor),
+ * glucosa (float32), dosis de insulina (float32, NaN = sin dato), carbohidratos (float32, NaN = sin dato)
+ * y un byte de flags (bit 0: lectura manual informada, bit 1: lectura manual).
+ */
+@Component
+public class ReadingFrameCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-reading-frame";
+
+    public static final short MAGIC = 0x5246;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 7;
+    public static final int RECORD_SIZE = 29;
+    public static final int MAX_RECORDS = 10_000;
+
+    private static final byte FLAG_MANUAL_PRESENT = 0x01;
+    private static final byte FLAG_MANUAL = 0x02;
+
+    public List<Reading> decode(byte[] frame) {
+        if (frame == null || frame.length < HEADER_SIZE) {
+            throw new InvalidReadingFrameException("La trama es demasiado corta");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        if (buffer.getShort() != MAGIC) {
+            throw new InvalidReadingFrameException("Cabecera de trama no reconocida");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new InvalidReadingFrameException("Versión de trama no soportada: " + version);
+        }
+        int count = buffer.getInt();
+        if (count <= 0 || count > MAX_RECORDS) {
+            throw new InvalidReadingFrameException("Número de registros inválido: " + count);
+        }
+        if (buffer.remaining() != count * RECORD_SIZE) {
+            throw new InvalidReadingFrameException("La longitud de la trama no coincide con el número de registros");
+        }
+
+        List<Reading> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            readings.add(decodeRecord(buffer, i));
+        }
+        return readings;
+    }
+
+    public byte[] encode(List<ReadingCreateDto> readings) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + readings.size() * RECORD_SIZE);
+        buffer.putShort(MAGIC);
+        buffer.put(VERSION);
+        buffer.putInt(readings.size());
+
+        for (ReadingCreateDto reading : readings) {
+            buffer.putLong(reading.getDeviceId());
+            buffer.putLong(reading.getTimestamp() != null
+                    ? reading.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()
+                    : 0L);
+            buffer.putFloat(reading.getGlucoseLevel());
+            buffer.putFloat(reading.getInsulinDose() != null ? reading.getInsulinDose() : Float.NaN);
+            buffer.putFloat(reading.getCarbIntake() != null ? reading.getCarbIntake() : Float.NaN);
+
+            byte flags = 0;
+            if (reading.getManualReading() != null) {
+                flags |= FLAG_MANUAL_PRESENT;
+                if (reading.getManualReading()) {
+                    flags |= FLAG_MANUAL;
+                }
+            }
+            buffer.put(flags);
+        }
+        return buffer.array();
+    }
+
+    private Reading decodeRecord(ByteBuffer buffer, int index) {
+        long deviceId = buffer.getLong();
+        long epochMillis = buffer.getLong();
+        float glucoseLevel = buffer.getFloat();
+        float insulinDose = buffer.getFloat();
+        float carbIntake = buffer.getFloat();
+        byte flags = buffer.get();
+
+        // Validación equivalente a las anotaciones de ReadingCreateDto, sin pasar por Bean Validation
+        if (deviceId <= 0) {
+            throw new InvalidReadingFrameException("Registro " + index + ": el ID del dispositivo es obligatorio");
+        }
+        if (!(glucoseLevel > 0) || Float.isInfinite(glucoseLevel)) {
+            throw new InvalidReadingFrameException("Registro " + index + ": el nivel de glucosa debe ser un valor positivo");
+        }
+
+        Reading reading = new Reading();
+        reading.setDeviceId(deviceId);
+        reading.setGlucoseLevel(glucoseLevel);
+        if (epochMillis != 0) {
+            reading.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+        }
+        if (!Float.isNaN(insulinDose)) {
+            reading.setInsulinDose(insulinDose);
+        }
+        if (!Float.isNaN(carbIntake)) {
+            reading.setCarbIntake(carbIntake);
+        }
+        if ((flags & FLAG_MANUAL_PRESENT) != 0) {
+            reading.setManualReading((flags & FLAG_MANUAL) != 0);
+        }
+        return reading;
+    }
+}
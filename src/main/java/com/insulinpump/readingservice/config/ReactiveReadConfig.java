@@ -0,0 +1,71 @@
+package com.insulinpump.readingservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Perfil reactive: la instancia sirve la API de lectura con WebFlux sobre Netty, consulta la tabla lecturas por
+ * R2DBC y enriquece con WebClient. Las altas, modificaciones y el resto de endpoints siguen en las instancias MVC
+ * que comparten la misma base de datos.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveReadConfig {
+
+    public ReactiveReadConfig(Environment environment) {
+        if (environment.getProperty("readingservice.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("El perfil reactive no es compatible con el sharding por deviceId");
+        }
+        if ("segment".equals(environment.getProperty("readingservice.storage.engine"))) {
+            throw new IllegalStateException("El perfil reactive requiere readingservice.storage.engine=jpa");
+        }
+    }
+
+    // Con Tomcat y Netty en el classpath Spring Boot elegiría Tomcat
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+
+    /**
+     * Spring Boot no crea el DataSource de JDBC cuando hay un ConnectionFactory de R2DBC, pero JPA lo sigue
+     * necesitando (outbox, contadores, tareas programadas). Con réplica lo define ReadReplicaDataSourceConfig.
+     */
+    @Configuration
+    @Profile("reactive")
+    @ConditionalOnExpression("'${readingservice.datasource.replica.jdbc-url:}'.isEmpty()")
+    static class JpaDataSourceConfig {
+
+        @Bean
+        @ConfigurationProperties("spring.datasource.hikari")
+        public HikariDataSource dataSource(DataSourceProperties properties) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            dataSource.setPoolName("reading-primary");
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.insulinpump.readingservice.config;
+
+import com.insulinpump.readingservice.repository.ReadingStore;
+import com.insulinpump.readingservice.segment.SegmentReadingRepository;
+import com.insulinpump.readingservice.segment.SegmentReadingStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Motor de almacenamiento embebido para despliegues sin MySQL: las lecturas se guardan en segmentos proyectados
+ * en memoria y el resto de tablas (outbox, acciones, checkpoints) siguen en la base de datos configurada.
+ *
+ * Las funciones que consultan la tabla lecturas por SQL no verían las lecturas de los segmentos: exportación,
+ * cambios masivos y series reducidas o por intervalos solo se crean con engine=jpa, y la retención y el sharding
+ * (rebalanceo) impiden arrancar.
+ *
+ * Las lecturas se anexan al segmento tras el commit de la transacción que escribe el outbox y las acciones, así que
+ * un rollback no deja lecturas huérfanas; lo que no se garantiza es la lectura si el proceso cae justo después del
+ * commit.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "segment")
+public class SegmentStoreConfig {
+
+    public SegmentStoreConfig(Environment environment) {
+        if (environment.getProperty("readingservice.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("El motor de segmentos no es compatible con el sharding por deviceId");
+        }
+        if (environment.getProperty("readingservice.retention.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("La retención borra por SQL y requiere readingservice.storage.engine=jpa");
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public SegmentReadingStore segmentReadingStore(
+            @Value("${readingservice.storage.segment.directory:data/segments}") String directory,
+            @Value("${readingservice.storage.segment.segment-size:8MB}") DataSize segmentSize,
+            @Value("${readingservice.storage.segment.sync-every-write:false}") boolean syncEveryWrite) {
+        if (segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El tamaño de segmento no puede superar 2 GB: " + segmentSize);
+        }
+        return new SegmentReadingStore(Path.of(directory), (int) segmentSize.toBytes(), syncEveryWrite);
+    }
+
+    @Bean
+    @Primary
+    public ReadingStore segmentReadingRepository(SegmentReadingStore store) {
+        return new SegmentReadingRepository(store);
+    }
+}
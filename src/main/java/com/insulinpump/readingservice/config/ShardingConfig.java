@@ -0,0 +1,78 @@
+package com.insulinpump.readingservice.config;
+
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import com.insulinpump.readingservice.sharding.ShardRouter;
+import com.insulinpump.readingservice.sharding.ShardRoutingDataSource;
+import com.insulinpump.readingservice.sharding.ShardSchemaInitializer;
+import com.insulinpump.readingservice.sharding.ShardingProperties;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ShardExecutor shardExecutor(ShardingProperties properties, ObjectProvider<PlatformTransactionManager> transactionManager) {
+        if (!properties.isEnabled()) {
+            return ShardExecutor.local(transactionManager.getIfAvailable());
+        }
+        return ShardExecutor.sharded(new ShardRouter(properties.getShards().size()), transactionManager.getObject());
+    }
+
+    /**
+     * Reparte la tabla lecturas entre varios DataSource según el deviceId.
+     * No es compatible con el enrutado a réplica (readingservice.datasource.replica.*).
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "readingservice.sharding", name = "enabled", havingValue = "true")
+    static class ShardedDataSourceConfig {
+
+        @Bean
+        public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties, Environment environment) {
+            if (properties.getShards().isEmpty()) {
+                throw new IllegalStateException("readingservice.sharding.enabled=true requiere al menos un shard configurado");
+            }
+            if (environment.containsProperty("readingservice.datasource.replica.jdbc-url")) {
+                throw new IllegalStateException("El sharding y el enrutado a réplica no pueden activarse a la vez");
+            }
+
+            List<HikariDataSource> shards = new ArrayList<>();
+            for (int i = 0; i < properties.getShards().size(); i++) {
+                ShardingProperties.Shard shard = properties.getShards().get(i);
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setPoolName("reading-shard-" + i);
+                dataSource.setJdbcUrl(shard.getJdbcUrl());
+                dataSource.setUsername(shard.getUsername());
+                dataSource.setPassword(shard.getPassword());
+                dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+                shards.add(dataSource);
+            }
+
+            if (properties.isInitializeSchema()) {
+                ReadingStorageLayout layout = new ReadingStorageLayout(environment.getProperty("readingservice.storage.layout", "standard"));
+                new ShardSchemaInitializer(layout.isCompact()).initialize(shards);
+            }
+            return new ShardRoutingDataSource(shards);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+        }
+    }
+}
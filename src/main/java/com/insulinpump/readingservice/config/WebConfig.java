@@ -0,0 +1,37 @@
+package com.insulinpump.readingservice.config;
+
+import com.insulinpump.readingservice.codec.CompactReadingJsonWriter;
+import com.insulinpump.readingservice.codec.CompactReadingListHttpMessageConverter;
+import com.insulinpump.readingservice.limiter.ConcurrencyLimitInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CompactReadingJsonWriter compactReadingJsonWriter;
+    private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new CompactReadingListHttpMessageConverter(compactReadingJsonWriter));
+    }
+
+    // Consultas pesadas: rangos, series y estadísticas (la ingesta se limita en ReadingController)
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(concurrencyLimitInterceptor).addPathPatterns(
+                "/api/readings/device/*/timerange/**",
+                "/api/readings/patient/*/timerange",
+                "/api/readings/device/*/statistics",
+                "/api/readings/patient/*/statistics");
+    }
+}
@@ -0,0 +1,48 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.analytics.CohortAnalyticsService;
+import com.insulinpump.readingservice.dto.CohortStatisticsDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/analytics/cohort")
+@RequiredArgsConstructor
+@Slf4j
+public class CohortAnalyticsController {
+
+    private final CohortAnalyticsService cohortAnalyticsService;
+
+    @GetMapping("/statistics")
+    public ResponseEntity<CohortStatisticsDto> getCohortStatistics(
+            @RequestParam(required = false) String diabetesType,
+            @RequestParam(required = false) String deviceModel,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) Long budgetMs,
+            @RequestParam(required = false) String queryId) {
+        log.info("GET /api/analytics/cohort/statistics - Estadísticas de la cohorte (diabetes {}, modelo {})", diabetesType, deviceModel);
+        CohortStatisticsDto statistics = cohortAnalyticsService.analyze(diabetesType, deviceModel, start, end,
+                budgetMs != null ? Duration.ofMillis(budgetMs) : null, queryId);
+        return ResponseEntity.ok(statistics);
+    }
+
+    @DeleteMapping("/{queryId}")
+    public ResponseEntity<Void> cancel(@PathVariable String queryId) {
+        log.info("DELETE /api/analytics/cohort/{} - Cancelando consulta de cohorte", queryId);
+        return cohortAnalyticsService.cancel(queryId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
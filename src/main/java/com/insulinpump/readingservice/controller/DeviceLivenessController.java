@@ -0,0 +1,51 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.dto.DeviceLivenessDto;
+import com.insulinpump.readingservice.exception.DeviceNotFoundException;
+import com.insulinpump.readingservice.liveness.DeviceLivenessTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/liveness")
+@ConditionalOnProperty(prefix = "readingservice.liveness", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class DeviceLivenessController {
+
+    private final DeviceLivenessTracker deviceLivenessTracker;
+
+    @GetMapping("/silent")
+    public ResponseEntity<List<DeviceLivenessDto>> getSilentDevices() {
+        log.info("GET /api/liveness/silent - Obteniendo dispositivos sin lecturas");
+        return ResponseEntity.ok(deviceLivenessTracker.getSilentDevices());
+    }
+
+    @GetMapping("/devices/{deviceId}")
+    public ResponseEntity<DeviceLivenessDto> getDevice(@PathVariable Long deviceId) {
+        log.info("GET /api/liveness/devices/{} - Obteniendo actividad del dispositivo", deviceId);
+        return ResponseEntity.ok(deviceLivenessTracker.getDevice(deviceId)
+                .orElseThrow(() -> new DeviceNotFoundException("Sin actividad registrada para el dispositivo: " + deviceId)));
+    }
+
+    @PutMapping("/devices/{deviceId}/threshold")
+    public ResponseEntity<DeviceLivenessDto> setThreshold(@PathVariable Long deviceId, @RequestParam long minutes) {
+        log.info("PUT /api/liveness/devices/{}/threshold - Umbral de {} minutos", deviceId, minutes);
+        return ResponseEntity.ok(deviceLivenessTracker.setThreshold(deviceId, Duration.ofMinutes(minutes)));
+    }
+
+    @DeleteMapping("/devices/{deviceId}")
+    public ResponseEntity<Void> forget(@PathVariable Long deviceId) {
+        log.info("DELETE /api/liveness/devices/{} - Dejando de vigilar el dispositivo", deviceId);
+        deviceLivenessTracker.forget(deviceId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
+import com.insulinpump.readingservice.dto.PatientDeviceAssignmentDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/directory")
+@RequiredArgsConstructor
+@Slf4j
+public class PatientDeviceDirectoryController {
+
+    private final PatientDeviceDirectory patientDeviceDirectory;
+
+    @PostMapping("/assignments")
+    public ResponseEntity<Map<String, Integer>> pushAssignments(@RequestBody List<PatientDeviceAssignmentDto> assignments) {
+        log.info("POST /api/directory/assignments - Recibidos {} cambios de asignación", assignments.size());
+        int applied = 0;
+        for (PatientDeviceAssignmentDto assignment : assignments) {
+            if (assignment.getPatientId() == null) {
+                continue;
+            }
+            LocalDateTime changedAt = assignment.getChangedAt() != null ? assignment.getChangedAt() : LocalDateTime.now();
+            if (patientDeviceDirectory.apply(assignment.getPatientId(), assignment.getDeviceId(), changedAt)) {
+                applied++;
+            }
+        }
+        return ResponseEntity.ok(Map.of("received", assignments.size(), "applied", applied));
+    }
+
+    @DeleteMapping("/patients/{patientId}")
+    public ResponseEntity<Void> evictPatient(@PathVariable Long patientId) {
+        log.info("DELETE /api/directory/patients/{} - Eliminando paciente del directorio", patientId);
+        patientDeviceDirectory.remove(patientId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.actions.ReadingActionService;
+import com.insulinpump.readingservice.dto.ActionTransitionDto;
+import com.insulinpump.readingservice.dto.ReadingActionDto;
+import com.insulinpump.readingservice.dto.ReadingActionPageDto;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/actions")
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingActionController {
+
+    private final ReadingActionService readingActionService;
+
+    @GetMapping
+    public ResponseEntity<ReadingActionPageDto> getOpenActions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        log.info("GET /api/actions - Obteniendo acciones abiertas (página {}, tamaño {})", page, size);
+        return ResponseEntity.ok(readingActionService.getOpenActions(page, size));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReadingActionDto> getAction(@PathVariable Long id) {
+        log.info("GET /api/actions/{} - Obteniendo acción", id);
+        return ResponseEntity.ok(readingActionService.getAction(id));
+    }
+
+    @PostMapping("/{id}/claim")
+    public ResponseEntity<ReadingActionDto> claim(@PathVariable Long id, @Valid @RequestBody ActionTransitionDto transition) {
+        log.info("POST /api/actions/{}/claim - Asignando acción", id);
+        return ResponseEntity.ok(readingActionService.claim(id, transition));
+    }
+
+    @PostMapping("/{id}/acknowledge")
+    public ResponseEntity<ReadingActionDto> acknowledge(@PathVariable Long id, @Valid @RequestBody ActionTransitionDto transition) {
+        log.info("POST /api/actions/{}/acknowledge - Marcando acción como vista", id);
+        return ResponseEntity.ok(readingActionService.acknowledge(id, transition));
+    }
+
+    @PostMapping("/{id}/resolve")
+    public ResponseEntity<ReadingActionDto> resolve(@PathVariable Long id, @Valid @RequestBody ActionTransitionDto transition) {
+        log.info("POST /api/actions/{}/resolve - Resolviendo acción", id);
+        return ResponseEntity.ok(readingActionService.resolve(id, transition));
+    }
+}
@@ -0,0 +1,44 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.dto.ReadingBulkDeleteDto;
+import com.insulinpump.readingservice.dto.ReadingBulkResultDto;
+import com.insulinpump.readingservice.dto.ReadingBulkUpdateDto;
+import com.insulinpump.readingservice.service.ReadingBulkService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@Profile("!reactive")
+@RequestMapping("/api/readings/bulk")
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingBulkController {
+
+    private final ReadingBulkService readingBulkService;
+
+    @PostMapping("/update")
+    public ResponseEntity<ReadingBulkResultDto> updateReadings(@RequestBody ReadingBulkUpdateDto request) {
+        log.info("POST /api/readings/bulk/update - Actualización masiva de lecturas");
+        return respond(readingBulkService.updateReadings(request));
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<ReadingBulkResultDto> deleteReadings(@RequestBody ReadingBulkDeleteDto request) {
+        log.info("POST /api/readings/bulk/delete - Borrado masivo de lecturas");
+        return respond(readingBulkService.deleteReadings(request));
+    }
+
+    // 207 si algún shard no confirmó su parte: el cuerpo indica el desenlace de cada shard
+    private static ResponseEntity<ReadingBulkResultDto> respond(ReadingBulkResultDto result) {
+        return ResponseEntity.status(result.isPartial() ? HttpStatus.MULTI_STATUS : HttpStatus.OK).body(result);
+    }
+}
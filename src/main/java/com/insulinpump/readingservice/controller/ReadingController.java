@@ -1,28 +1,59 @@
 package com.insulinpump.readingservice.controller;
 
+import com.insulinpump.readingservice.bucketing.BucketFunction;
+import com.insulinpump.readingservice.bucketing.GapFill;
+import com.insulinpump.readingservice.codec.ReadingFrameCodec;
+import com.insulinpump.readingservice.coalescing.SingleFlight;
+import com.insulinpump.readingservice.downsampling.DownsamplingMode;
+import com.insulinpump.readingservice.dto.GlucoseBucketSeriesDto;
+import com.insulinpump.readingservice.dto.GlucoseSeriesDto;
 import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
+import com.insulinpump.readingservice.dto.ReadingBatchResultDto;
 import com.insulinpump.readingservice.dto.ReadingCreateDto;
 import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.dto.ReadingPatchDto;
+import com.insulinpump.readingservice.journal.IngestJournal;
+import com.insulinpump.readingservice.limiter.AdaptiveConcurrencyLimiter;
+import com.insulinpump.readingservice.limiter.RequestPriority;
+import com.insulinpump.readingservice.model.Reading;
 import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.service.DeviceVersionTracker;
+import com.insulinpump.readingservice.service.GlucoseBucketService;
+import com.insulinpump.readingservice.service.GlucoseDownsamplingService;
+import com.insulinpump.readingservice.service.DeviceVersionTracker.DeviceVersion;
 import com.insulinpump.readingservice.service.ReadingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/readings")
 @RequiredArgsConstructor
 @Slf4j
 public class ReadingController {
 
     private final ReadingService readingService;
+    // Solo con readingservice.storage.engine=jpa: consultan la tabla lecturas por SQL
+    private final ObjectProvider<GlucoseDownsamplingService> glucoseDownsamplingService;
+    private final ObjectProvider<GlucoseBucketService> glucoseBucketService;
+    private final ReadingFrameCodec readingFrameCodec;
+    private final DeviceVersionTracker deviceVersionTracker;
+    private final SingleFlight singleFlight;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final IngestJournal ingestJournal;
 
     @GetMapping
     public ResponseEntity<List<ReadingDetailsDto>> getAllReadings() {
@@ -53,10 +84,20 @@ public class ReadingController {
     }
 
     @GetMapping("/device/{deviceId}/latest")
-    public ResponseEntity<ReadingDetailsDto> getLatestReadingByDeviceId(@PathVariable Long deviceId) {
+    public ResponseEntity<ReadingDetailsDto> getLatestReadingByDeviceId(@PathVariable Long deviceId, WebRequest request) {
         log.info("GET /api/readings/device/{}/latest - Obteniendo última lectura del dispositivo", deviceId);
-        ReadingDetailsDto reading = readingService.getLatestReadingByDeviceId(deviceId);
-        return ResponseEntity.ok(reading);
+
+        // Responder 304 sin consultar la base de datos si no ha habido escrituras en el dispositivo
+        DeviceVersion version = deviceVersionTracker.current(deviceId);
+        String etag = deviceVersionTracker.etag(version, "latest");
+        if (request.checkNotModified(etag, version.lastModified())) {
+            return notModified(etag, version);
+        }
+
+        // Las peticiones idénticas en curso comparten resultado; el ETag ya identifica dispositivo y versión
+        ReadingDetailsDto reading = singleFlight.execute(etag, () -> readingService.getLatestReadingByDeviceId(deviceId),
+                ReadingDetailsDto::new);
+        return versioned(ResponseEntity.ok(), etag, version).body(reading);
     }
 
     @GetMapping("/device/{deviceId}/timerange")
@@ -69,13 +110,76 @@ public class ReadingController {
         return ResponseEntity.ok(readings);
     }
 
+    @GetMapping("/device/{deviceId}/timerange/downsampled")
+    public ResponseEntity<GlucoseSeriesDto> getDownsampledReadingsByDeviceIdAndTimeRange(
+            @PathVariable Long deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "500") int points,
+            @RequestParam(defaultValue = "LTTB") DownsamplingMode mode) {
+        log.info("GET /api/readings/device/{}/timerange/downsampled - Obteniendo serie reducida", deviceId);
+        GlucoseSeriesDto series = requireJpa(glucoseDownsamplingService).getDownsampledSeries(deviceId, start, end, points, mode);
+        return ResponseEntity.ok(series);
+    }
+
+    @GetMapping("/device/{deviceId}/timerange/buckets")
+    public ResponseEntity<GlucoseBucketSeriesDto> getBucketedReadingsByDeviceIdAndTimeRange(
+            @PathVariable Long deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "1h") String width,
+            @RequestParam(defaultValue = "AVG") Set<BucketFunction> functions,
+            @RequestParam(defaultValue = "NULL") GapFill fill,
+            WebRequest request) {
+        log.info("GET /api/readings/device/{}/timerange/buckets - Obteniendo serie por intervalos", deviceId);
+
+        DeviceVersion version = deviceVersionTracker.current(deviceId);
+        String etag = deviceVersionTracker.etag(version, "buckets", start, end, width, functions, fill);
+        if (request.checkNotModified(etag, version.lastModified())) {
+            return notModified(etag, version);
+        }
+
+        GlucoseBucketSeriesDto series = requireJpa(glucoseBucketService).getBucketedSeries(deviceId, start, end, width, functions, fill);
+        return versioned(ResponseEntity.ok(), etag, version).body(series);
+    }
+
     @GetMapping("/device/{deviceId}/statistics")
     public ResponseEntity<GlucoseStatisticsDto> getGlucoseStatisticsByDeviceId(
             @PathVariable Long deviceId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            WebRequest request) {
         log.info("GET /api/readings/device/{}/statistics - Obteniendo estadísticas de glucosa", deviceId);
-        GlucoseStatisticsDto statistics = readingService.getGlucoseStatisticsByDeviceId(deviceId, start, end);
+
+        DeviceVersion version = deviceVersionTracker.current(deviceId);
+        String etag = deviceVersionTracker.etag(version, "statistics", start, end);
+        if (request.checkNotModified(etag, version.lastModified())) {
+            return notModified(etag, version);
+        }
+
+        // El ETag solo lleva un hash del rango: la clave incluye los valores exactos
+        GlucoseStatisticsDto statistics = singleFlight.execute(List.of(etag, start, end),
+                () -> readingService.getGlucoseStatisticsByDeviceId(deviceId, start, end), GlucoseStatisticsDto::new);
+        return versioned(ResponseEntity.ok(), etag, version).body(statistics);
+    }
+
+    @GetMapping("/patient/{patientId}/timerange")
+    public ResponseEntity<List<ReadingDetailsDto>> getReadingsByPatientIdAndTimeRange(
+            @PathVariable Long patientId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        log.info("GET /api/readings/patient/{}/timerange - Obteniendo lecturas de todos los dispositivos del paciente", patientId);
+        List<ReadingDetailsDto> readings = readingService.getReadingsByPatientIdAndTimeRange(patientId, start, end);
+        return ResponseEntity.ok(readings);
+    }
+
+    @GetMapping("/patient/{patientId}/statistics")
+    public ResponseEntity<GlucoseStatisticsDto> getGlucoseStatisticsByPatientId(
+            @PathVariable Long patientId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        log.info("GET /api/readings/patient/{}/statistics - Obteniendo estadísticas de glucosa del paciente", patientId);
+        GlucoseStatisticsDto statistics = readingService.getGlucoseStatisticsByPatientId(patientId, start, end);
         return ResponseEntity.ok(statistics);
     }
 
@@ -96,8 +200,41 @@ public class ReadingController {
     @PostMapping
     public ResponseEntity<ReadingDetailsDto> createReading(@Valid @RequestBody ReadingCreateDto readingCreateDto) {
         log.info("POST /api/readings - Creando nueva lectura");
-        ReadingDetailsDto createdReading = readingService.createReading(readingCreateDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdReading);
+        RequestPriority priority = ReadingService.isCritical(readingCreateDto.getStatus(), readingCreateDto.getGlucoseLevel())
+                ? RequestPriority.CRITICAL : RequestPriority.ROUTINE;
+        // El timestamp se fija antes de intentar la escritura: si su resultado queda en duda, la entrada del diario
+        // lleva la misma clave (dispositivo, timestamp) y la reproducción no la duplica
+        if (readingCreateDto.getTimestamp() == null) {
+            readingCreateDto.setTimestamp(LocalDateTime.now());
+        }
+        try (AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(priority)) {
+            ReadingDetailsDto createdReading = readingService.createReading(readingCreateDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdReading);
+        } catch (RuntimeException e) {
+            // Sin base de datos la lectura queda en el diario de ingesta y se inserta al recuperarse
+            if (!ingestJournal.isEnabled() || !IngestJournal.isDatabaseUnavailable(e)) {
+                throw e;
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(readingService.journalReading(readingCreateDto));
+        }
+    }
+
+    @PostMapping(consumes = ReadingFrameCodec.MEDIA_TYPE_VALUE)
+    public ResponseEntity<ReadingBatchResultDto> createReadingsFromFrame(@RequestBody byte[] frame) {
+        log.info("POST /api/readings - Creando lecturas desde trama binaria ({} bytes)", frame.length);
+        List<Reading> readings = readingFrameCodec.decode(frame);
+        // Una sola lectura crítica basta para que la trama entre con prioridad
+        RequestPriority priority = readings.stream()
+                .anyMatch(reading -> ReadingService.isCritical(reading.getStatus(), reading.getGlucoseLevel()))
+                ? RequestPriority.CRITICAL : RequestPriority.ROUTINE;
+        try (AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(priority)) {
+            ReadingBatchResultDto result = readingService.createReadings(readings);
+            // 207 si algún shard no confirmó su parte del lote y 202 si alguna parte quedó en el diario de ingesta:
+            // el cuerpo indica el resultado de cada shard
+            HttpStatus status = result.isPartial() ? HttpStatus.MULTI_STATUS
+                    : result.isJournaled() ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+            return ResponseEntity.status(status).body(result);
+        }
     }
 
     @PutMapping("/{id}")
@@ -109,10 +246,41 @@ public class ReadingController {
         return ResponseEntity.ok(updatedReading);
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<ReadingDetailsDto> patchReading(
+            @PathVariable Long id,
+            @Valid @RequestBody ReadingPatchDto readingPatchDto) {
+        log.info("PATCH /api/readings/{} - Actualizando parcialmente la lectura", id);
+        ReadingDetailsDto patchedReading = readingService.patchReading(id, readingPatchDto);
+        return ResponseEntity.ok(patchedReading);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteReading(@PathVariable Long id) {
         log.info("DELETE /api/readings/{} - Eliminando lectura", id);
         readingService.deleteReading(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static <T> T requireJpa(ObjectProvider<T> service) {
+        T available = service.getIfAvailable();
+        if (available == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                    "No disponible con el motor de segmentos: requiere readingservice.storage.engine=jpa");
+        }
+        return available;
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag, DeviceVersion version) {
+        return versioned(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, version).build();
+    }
+
+    // Last-Modified solo si se conoce la última escritura del dispositivo
+    private static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder builder, String etag, DeviceVersion version) {
+        builder.eTag(etag);
+        if (version.hasLastModified()) {
+            builder.lastModified(version.lastModified());
+        }
+        return builder;
+    }
 }
@@ -0,0 +1,72 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.export.ExportFormat;
+import com.insulinpump.readingservice.service.ReadingExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+@RestController
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@Profile("!reactive")
+@RequestMapping("/api/readings/export")
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingExportController {
+
+    private final ReadingExportService readingExportService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportAll(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        log.info("GET /api/readings/export - Exportando lecturas de la flota");
+        return stream("lecturas", format,
+                out -> readingExportService.exportAll(start, end, format, out));
+    }
+
+    @GetMapping("/device/{deviceId}")
+    public ResponseEntity<StreamingResponseBody> exportByDevice(
+            @PathVariable Long deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        log.info("GET /api/readings/export/device/{} - Exportando lecturas del dispositivo", deviceId);
+        return stream("lecturas-dispositivo-" + deviceId, format,
+                out -> readingExportService.exportByDevice(deviceId, start, end, format, out));
+    }
+
+    @GetMapping("/patient/{patientId}")
+    public ResponseEntity<StreamingResponseBody> exportByPatient(
+            @PathVariable Long patientId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        log.info("GET /api/readings/export/patient/{} - Exportando lecturas del paciente", patientId);
+        // Resolver el dispositivo antes de empezar a escribir la respuesta para poder devolver 404
+        Long deviceId = readingExportService.resolvePatientDeviceId(patientId);
+        return stream("lecturas-paciente-" + patientId, format,
+                out -> readingExportService.exportByDevice(deviceId, start, end, format, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String fileName, ExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,34 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.counters.ReadingStatusCounters;
+import com.insulinpump.readingservice.dto.ReadingStatusSummaryDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/readings")
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingSummaryController {
+
+    private final ReadingStatusCounters readingStatusCounters;
+
+    @GetMapping("/summary")
+    public ResponseEntity<ReadingStatusSummaryDto> getSummary() {
+        log.info("GET /api/readings/summary - Obteniendo conteos por estado");
+        return ResponseEntity.ok(readingStatusCounters.summary());
+    }
+
+    @GetMapping("/device/{deviceId}/summary")
+    public ResponseEntity<ReadingStatusSummaryDto> getDeviceSummary(@PathVariable Long deviceId) {
+        log.info("GET /api/readings/device/{}/summary - Obteniendo conteos por estado del dispositivo", deviceId);
+        return ResponseEntity.ok(readingStatusCounters.summary(deviceId));
+    }
+}
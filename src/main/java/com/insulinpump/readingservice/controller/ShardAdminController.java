@@ -0,0 +1,29 @@
+package com.insulinpump.readingservice.controller;
+
+import com.insulinpump.readingservice.dto.ShardRebalanceResultDto;
+import com.insulinpump.readingservice.sharding.ShardRebalancer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin/shards")
+@ConditionalOnProperty(prefix = "readingservice.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardAdminController {
+
+    private final ShardRebalancer shardRebalancer;
+
+    @PostMapping("/rebalance")
+    public ResponseEntity<ShardRebalanceResultDto> rebalance() {
+        log.info("POST /api/admin/shards/rebalance - Rebalanceando lecturas entre shards");
+        return ResponseEntity.ok(shardRebalancer.rebalance());
+    }
+}
@@ -0,0 +1,266 @@
+package com.insulinpump.readingservice.counters;
+
+import com.insulinpump.readingservice.dto.ReadingStatusSummaryDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.event.ReadingsBulkChangedEvent;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de lecturas por estado, globales y por dispositivo, mantenidos con cada alta, modificación y borrado.
+ *
+ * Se actualizan tras el commit con LongAdder, sin bloqueos entre escrituras concurrentes. Las ventanas recientes
+ * se calculan sobre un anillo de cubetas de un minuto. ReadingStatusReconciler compara periódicamente con la base
+ * de datos y corrige la diferencia (lecturas cargadas antes del arranque, purgas de retención, otras instancias):
+ * la corrección de las ventanas se suma a la cubeta de cada minuto, así que caduca con ella.
+ */
+@Component
+@Slf4j
+public class ReadingStatusCounters {
+
+    public static final Map<String, Integer> WINDOWS = windows();
+
+    private static final ReadingStatus[] STATUSES = ReadingStatus.values();
+    // Posición del contador de lecturas que requieren acción en los arrays de conciliación
+    public static final int REQUIRING_ACTION = STATUSES.length;
+
+    private final StatusCounts global = new StatusCounts();
+    private final ConcurrentMap<Long, StatusCounts> byDevice = new ConcurrentHashMap<>();
+    private final StatusWindow window = new StatusWindow(24 * 60);
+    private volatile LocalDateTime reconciledAt;
+
+    private static Map<String, Integer> windows() {
+        Map<String, Integer> windows = new LinkedHashMap<>();
+        windows.put("15m", 15);
+        windows.put("1h", 60);
+        windows.put("24h", 24 * 60);
+        return windows;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReadingChanged(ReadingChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED -> apply(event.getReading(), 1);
+            case DELETED -> apply(event.getReading(), -1);
+            case UPDATED -> {
+                apply(event.getPrevious(), -1);
+                apply(event.getReading(), 1);
+            }
+        }
+    }
+
+    // Solo los totales: las ventanas de los cambios masivos se corrigen en la siguiente conciliación
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReadingsChanged(ReadingsBulkChangedEvent event) {
+        event.getCountDeltas().forEach((deviceId, deltas) -> {
+            StatusCounts counts = byDevice.computeIfAbsent(deviceId, id -> new StatusCounts());
+            for (int i = 0; i < deltas.length; i++) {
+                if (deltas[i] != 0) {
+                    counts.adders[i].add(deltas[i]);
+                    global.adders[i].add(deltas[i]);
+                }
+            }
+            counts.writes.incrementAndGet();
+        });
+    }
+
+    void apply(Reading reading, long delta) {
+        if (reading == null || reading.getStatus() == null) {
+            return;
+        }
+        boolean requiresAction = Boolean.TRUE.equals(reading.getRequiresAction());
+        global.add(reading.getStatus(), requiresAction, delta);
+        if (reading.getDeviceId() != null) {
+            byDevice.computeIfAbsent(reading.getDeviceId(), id -> new StatusCounts()).add(reading.getStatus(), requiresAction, delta);
+        }
+        if (reading.getTimestamp() != null) {
+            window.add(minute(reading.getTimestamp()), minute(LocalDateTime.now()), reading.getStatus(), delta);
+        }
+    }
+
+    public ReadingStatusSummaryDto summary() {
+        ReadingStatusSummaryDto summary = toSummary(null, global.snapshot());
+        long nowMinute = minute(LocalDateTime.now());
+        Map<String, Map<ReadingStatus, Long>> windowCounts = new LinkedHashMap<>();
+        WINDOWS.forEach((name, minutes) -> {
+            long[] counts = window.sum(nowMinute, minutes);
+            Map<ReadingStatus, Long> byStatus = new EnumMap<>(ReadingStatus.class);
+            for (ReadingStatus status : STATUSES) {
+                byStatus.put(status, Math.max(0, counts[status.ordinal()]));
+            }
+            windowCounts.put(name, byStatus);
+        });
+        summary.setWindows(windowCounts);
+        return summary;
+    }
+
+    public ReadingStatusSummaryDto summary(Long deviceId) {
+        StatusCounts counts = byDevice.get(deviceId);
+        return toSummary(deviceId, counts != null ? counts.snapshot() : new long[STATUSES.length + 1]);
+    }
+
+    /**
+     * Estado de los contadores antes de consultar la base de datos. Con él, la conciliación solo corrige los
+     * dispositivos y minutos que no han recibido escrituras desde entonces: en el resto no se sabe si la consulta
+     * vio esas escrituras, y se corrigen en la siguiente pasada. En cada contador se lee primero el número de
+     * escrituras y después los valores.
+     */
+    Fence fence(long nowMinute) {
+        Map<Long, DeviceFence> devices = new HashMap<>();
+        byDevice.forEach((deviceId, counts) -> {
+            long writes = counts.writes.get();
+            devices.put(deviceId, new DeviceFence(writes, counts.snapshot()));
+        });
+        long[] minuteWrites = new long[window.getSize()];
+        long[][] minuteCounts = new long[window.getSize()][];
+        for (int i = 0; i < minuteWrites.length; i++) {
+            minuteWrites[i] = window.writes(nowMinute - i);
+            minuteCounts[i] = window.counts(nowMinute - i);
+        }
+        return new Fence(nowMinute, devices, minuteWrites, minuteCounts);
+    }
+
+    /**
+     * Corrige los totales con los conteos de la base de datos (índice = ordinal del estado, más REQUIRING_ACTION)
+     * tomados después de fence. Se suma la diferencia con el estado de fence en lugar de sobrescribir, para no
+     * perder los cambios aplicados después de la consulta.
+     */
+    void reconcileTotals(Fence fence, Map<Long, long[]> databaseCounts) {
+        Set<Long> devices = new HashSet<>(byDevice.keySet());
+        devices.addAll(databaseCounts.keySet());
+        int skipped = 0;
+        for (Long deviceId : devices) {
+            long[] expected = databaseCounts.getOrDefault(deviceId, new long[STATUSES.length + 1]);
+            DeviceFence before = fence.devices().getOrDefault(deviceId, DeviceFence.EMPTY);
+            StatusCounts counts = byDevice.computeIfAbsent(deviceId, id -> new StatusCounts());
+            if (counts.writes.get() != before.writes()) {
+                skipped++;
+                continue;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                long drift = expected[i] - before.counts()[i];
+                if (drift != 0) {
+                    counts.adders[i].add(drift);
+                    global.adders[i].add(drift);
+                }
+            }
+            if (!databaseCounts.containsKey(deviceId) && counts.isEmpty()) {
+                byDevice.remove(deviceId, counts);
+            }
+        }
+        if (skipped > 0) {
+            log.debug("{} dispositivos con escrituras durante la conciliación se corregirán en la siguiente", skipped);
+        }
+    }
+
+    /**
+     * Corrige cada minuto del anillo con los conteos de la base de datos por minuto (índice = ordinal del estado),
+     * sumando la diferencia a su cubeta.
+     */
+    void reconcileWindow(Fence fence, Map<Long, long[]> databaseCountsByMinute) {
+        long nowMinute = fence.nowMinute();
+        for (int i = 0; i < fence.minuteWrites().length; i++) {
+            long minute = nowMinute - i;
+            if (window.writes(minute) != fence.minuteWrites()[i]) {
+                continue;
+            }
+            long[] expected = databaseCountsByMinute.get(minute);
+            long[] before = fence.minuteCounts()[i];
+            for (ReadingStatus status : STATUSES) {
+                long drift = (expected != null ? expected[status.ordinal()] : 0) - before[status.ordinal()];
+                if (drift != 0) {
+                    window.add(minute, nowMinute, status, drift);
+                }
+            }
+        }
+    }
+
+    StatusWindow window() {
+        return window;
+    }
+
+    void markReconciled(LocalDateTime at) {
+        reconciledAt = at;
+    }
+
+    public static long minute(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public static LocalDateTime minuteStart(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private ReadingStatusSummaryDto toSummary(Long deviceId, long[] snapshot) {
+        Map<ReadingStatus, Long> counts = new EnumMap<>(ReadingStatus.class);
+        long total = 0;
+        for (ReadingStatus status : STATUSES) {
+            counts.put(status, snapshot[status.ordinal()]);
+            total += snapshot[status.ordinal()];
+        }
+        return new ReadingStatusSummaryDto(deviceId, total, snapshot[REQUIRING_ACTION], counts, null, reconciledAt);
+    }
+
+    record Fence(long nowMinute, Map<Long, DeviceFence> devices, long[] minuteWrites, long[][] minuteCounts) {
+    }
+
+    record DeviceFence(long writes, long[] counts) {
+
+        static final DeviceFence EMPTY = new DeviceFence(0, new long[STATUSES.length + 1]);
+    }
+
+    private static final class StatusCounts {
+
+        private final LongAdder[] adders = new LongAdder[STATUSES.length + 1];
+        // Se incrementa después de los contadores, ver fence()
+        private final AtomicLong writes = new AtomicLong();
+
+        private StatusCounts() {
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+        }
+
+        private void add(ReadingStatus status, boolean requiresAction, long delta) {
+            adders[status.ordinal()].add(delta);
+            if (requiresAction) {
+                adders[REQUIRING_ACTION].add(delta);
+            }
+            writes.incrementAndGet();
+        }
+
+        private long[] snapshot() {
+            long[] values = new long[adders.length];
+            for (int i = 0; i < adders.length; i++) {
+                values[i] = adders[i].sum();
+            }
+            return values;
+        }
+
+        private boolean isEmpty() {
+            for (LongAdder adder : adders) {
+                if (adder.sum() != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.insulinpump.readingservice.counters;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.ReadingStore;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Recalcula los conteos por estado en la base de datos y corrige ReadingStatusCounters.
+ *
+ * Es la única parte que recorre la tabla y se ejecuta en segundo plano; la primera pasada, poco después del
+ * arranque, carga los conteos de las lecturas existentes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.counters.reconcile", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingStatusReconciler {
+
+    private static final int STATUSES = ReadingStatus.values().length;
+    private static final int RING_MINUTES = ReadingStatusCounters.WINDOWS.get("24h");
+
+    private final ReadingStore readingRepository;
+    private final ShardExecutor shardExecutor;
+    private final ReadingStatusCounters counters;
+
+    @Scheduled(fixedDelayString = "${readingservice.counters.reconcile.interval:600000}",
+            initialDelayString = "${readingservice.counters.reconcile.initial-delay:5000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Error conciliando los contadores de estado, se reintentará: {}", e.getMessage());
+        }
+    }
+
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        long nowMinute = ReadingStatusCounters.minute(now);
+        LocalDateTime since = ReadingStatusCounters.minuteStart(nowMinute - RING_MINUTES + 1);
+        // Antes de consultar: las escrituras posteriores no se pierden ni se cuentan dos veces
+        ReadingStatusCounters.Fence fence = counters.fence(nowMinute);
+        Map<Long, long[]> byDevice = new HashMap<>();
+        Map<Long, long[]> byMinute = new HashMap<>();
+
+        for (int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+            shardExecutor.onShard(shard, true, () -> {
+                for (Object[] row : readingRepository.countByDeviceIdAndStatus()) {
+                    long[] counts = byDevice.computeIfAbsent((Long) row[0], id -> new long[STATUSES + 1]);
+                    counts[((ReadingStatus) row[1]).ordinal()] += ((Number) row[2]).longValue();
+                    counts[ReadingStatusCounters.REQUIRING_ACTION] += ((Number) row[3]).longValue();
+                }
+                for (Object[] row : readingRepository.countByMinuteAndStatusSince(since)) {
+                    long minute = ReadingStatusCounters.minute(LocalDateTime.of(((Number) row[0]).intValue(),
+                            ((Number) row[1]).intValue(), ((Number) row[2]).intValue(), ((Number) row[3]).intValue(),
+                            ((Number) row[4]).intValue()));
+                    byMinute.computeIfAbsent(minute, m -> new long[STATUSES])[((ReadingStatus) row[5]).ordinal()]
+                            += ((Number) row[6]).longValue();
+                }
+                return null;
+            });
+        }
+
+        counters.reconcileTotals(fence, byDevice);
+        counters.reconcileWindow(fence, byMinute);
+        counters.markReconciled(now);
+        log.debug("Contadores de estado conciliados: {} dispositivos", byDevice.size());
+    }
+}
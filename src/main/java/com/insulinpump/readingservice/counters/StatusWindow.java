@@ -0,0 +1,103 @@
+package com.insulinpump.readingservice.counters;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Anillo de cubetas de un minuto con un contador por estado.
+ *
+ * Cada cubeta recuerda el minuto que contiene; al llegar una lectura de un minuto posterior que cae en la
+ * misma posición, la cubeta se vacía y se reutiliza. No hay barridos periódicos: las cubetas caducadas se
+ * ignoran al sumar y se reciclan al escribir. Cada cubeta lleva además un contador de escrituras, que la
+ * conciliación usa para saber si cambió mientras consultaba la base de datos.
+ */
+class StatusWindow {
+
+    private static final int STATUSES = ReadingStatus.values().length;
+
+    private final int size;
+    private final AtomicLongArray bucketMinutes;
+    private final LongAdder[][] counts;
+    private final AtomicLongArray writes;
+
+    StatusWindow(int minutes) {
+        this.size = minutes;
+        this.bucketMinutes = new AtomicLongArray(minutes);
+        this.counts = new LongAdder[minutes][STATUSES];
+        this.writes = new AtomicLongArray(minutes);
+        for (int bucket = 0; bucket < minutes; bucket++) {
+            bucketMinutes.set(bucket, Long.MIN_VALUE);
+            for (int status = 0; status < STATUSES; status++) {
+                counts[bucket][status] = new LongAdder();
+            }
+        }
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    void add(long minute, long nowMinute, ReadingStatus status, long delta) {
+        // Fuera del anillo (o en el futuro): solo cuenta en los totales
+        if (minute > nowMinute || minute <= nowMinute - size) {
+            return;
+        }
+        int bucket = (int) Math.floorMod(minute, (long) size);
+        if (bucketMinutes.get(bucket) != minute) {
+            synchronized (counts[bucket]) {
+                long current = bucketMinutes.get(bucket);
+                if (current < minute) {
+                    for (LongAdder count : counts[bucket]) {
+                        count.reset();
+                    }
+                    bucketMinutes.set(bucket, minute);
+                } else if (current != minute) {
+                    return;
+                }
+            }
+        }
+        counts[bucket][status.ordinal()].add(delta);
+        // Después del contador: quien lea el número de escrituras antes que los contadores detecta esta escritura
+        writes.incrementAndGet(bucket);
+    }
+
+    /**
+     * Escrituras acumuladas en la cubeta del minuto (incluye las de minutos anteriores que la ocuparon).
+     */
+    long writes(long minute) {
+        return writes.get((int) Math.floorMod(minute, (long) size));
+    }
+
+    /**
+     * Lecturas por estado del minuto indicado; ceros si su cubeta está vacía o la ocupa otro minuto.
+     */
+    long[] counts(long minute) {
+        long[] totals = new long[STATUSES];
+        int bucket = (int) Math.floorMod(minute, (long) size);
+        if (bucketMinutes.get(bucket) == minute) {
+            for (int status = 0; status < STATUSES; status++) {
+                totals[status] = counts[bucket][status].sum();
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Lecturas por estado (índice = ordinal) en los últimos minutes minutos, incluido el actual.
+     */
+    long[] sum(long nowMinute, int minutes) {
+        long[] totals = new long[STATUSES];
+        for (int i = 0; i < Math.min(minutes, size); i++) {
+            long minute = nowMinute - i;
+            int bucket = (int) Math.floorMod(minute, (long) size);
+            if (bucketMinutes.get(bucket) == minute) {
+                for (int status = 0; status < STATUSES; status++) {
+                    totals[status] += counts[bucket][status].sum();
+                }
+            }
+        }
+        return totals;
+    }
+}
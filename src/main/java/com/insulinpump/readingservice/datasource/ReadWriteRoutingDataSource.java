@@ -0,0 +1,53 @@
+package com.insulinpump.readingservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Envía las transacciones de solo lectura a la réplica y el resto al primario.
+ * Debe envolverse en un LazyConnectionDataSourceProxy para que la decisión se tome
+ * cuando la transacción ya está marcada como readOnly.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.primaryCounter = meterRegistry != null ? routeCounter(meterRegistry, Route.PRIMARY) : null;
+        this.replicaCounter = meterRegistry != null ? routeCounter(meterRegistry, Route.REPLICA) : null;
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReplicaRoutingContext.isPrimaryForced()
+                ? Route.REPLICA
+                : Route.PRIMARY;
+
+        Counter counter = route == Route.REPLICA ? replicaCounter : primaryCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        return route;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, Route route) {
+        return Counter.builder("readingservice.datasource.connections.routed")
+                .description("Conexiones obtenidas por cada pool del enrutado lectura/escritura")
+                .tag("pool", route.name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.insulinpump.readingservice.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Emite un token con la marca temporal de la última escritura (cabecera y cookie) y, mientras el token
+ * sea más reciente que el retraso máximo tolerado de la réplica, fuerza las lecturas de ese cliente al primario.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String TOKEN_HEADER = "X-Last-Write";
+    public static final String TOKEN_COOKIE = "last_write";
+
+    private final Duration maxReplicaLag;
+
+    public ReadYourWritesFilter(Duration maxReplicaLag) {
+        this.maxReplicaLag = maxReplicaLag;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+
+        if (isWrite(request)) {
+            String token = Long.toString(now);
+            response.setHeader(TOKEN_HEADER, token);
+            Cookie cookie = new Cookie(TOKEN_COOKIE, token);
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, maxReplicaLag.toSeconds()));
+            response.addCookie(cookie);
+        } else if (isRecentWrite(readToken(request), now)) {
+            ReplicaRoutingContext.forcePrimary();
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingContext.clear();
+        }
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method) && !HttpMethod.OPTIONS.matches(method);
+    }
+
+    private boolean isRecentWrite(String token, long now) {
+        if (token == null) {
+            return false;
+        }
+        try {
+            return now - Long.parseLong(token) < maxReplicaLag.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private String readToken(HttpServletRequest request) {
+        String header = request.getHeader(TOKEN_HEADER);
+        if (header != null) {
+            return header;
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (TOKEN_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
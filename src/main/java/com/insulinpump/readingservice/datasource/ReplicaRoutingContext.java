@@ -0,0 +1,25 @@
+package com.insulinpump.readingservice.datasource;
+
+/**
+ * Marca, para el hilo actual, que las lecturas deben ir al primario aunque la transacción sea de solo lectura.
+ * Se usa para garantizar read-your-writes a clientes que acaban de escribir.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static void forcePrimary() {
+        PRIMARY_FORCED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_FORCED.remove();
+    }
+}
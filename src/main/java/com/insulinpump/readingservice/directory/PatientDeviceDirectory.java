@@ -0,0 +1,177 @@
+package com.insulinpump.readingservice.directory;
+
+import com.insulinpump.readingservice.dto.PatientDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Copia local de las asignaciones paciente ↔ dispositivo.
+ *
+ * Se rellena al consultar patient-service (lectura a través), con los cambios que otros servicios empujan por
+ * /api/directory y con la revalidación periódica de PatientDeviceDirectorySync. Cada cambio lleva la fecha en la
+ * que se observó: un cambio más antiguo que el que ya se conoce se descarta, de modo que una respuesta remota
+ * lenta no pisa una asignación empujada mientras tanto.
+ */
+@Component
+@Slf4j
+public class PatientDeviceDirectory {
+
+    private final ConcurrentMap<Long, Assignment> byPatient = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> patientByDevice = new ConcurrentHashMap<>();
+
+    // Las mismas asignaciones ordenadas por fecha de verificación, para recorrer solo las caducadas
+    private final NavigableSet<Assignment> byVerification = new ConcurrentSkipListSet<>(
+            Comparator.comparing(Assignment::verifiedAt).thenComparing(Assignment::patientId));
+
+    public Optional<Assignment> findByPatient(Long patientId) {
+        return patientId != null ? Optional.ofNullable(byPatient.get(patientId)) : Optional.empty();
+    }
+
+    public Optional<Assignment> findByDevice(Long deviceId) {
+        Long patientId = deviceId != null ? patientByDevice.get(deviceId) : null;
+        if (patientId == null) {
+            return Optional.empty();
+        }
+        Assignment assignment = byPatient.get(patientId);
+        return assignment != null && deviceId.equals(assignment.deviceId()) ? Optional.of(assignment) : Optional.empty();
+    }
+
+    /**
+     * Dispositivo asignado al paciente (null si no tiene). Si el paciente no está en el directorio se consulta
+     * con el loader y se registra; las excepciones del loader se propagan.
+     */
+    public Long deviceForPatient(Long patientId, Function<Long, PatientDto> loader) {
+        Assignment assignment = byPatient.get(patientId);
+        if (assignment != null) {
+            return assignment.deviceId();
+        }
+        return load(patientId, loader).getDeviceId();
+    }
+
+    public PatientDto patient(Long patientId, Function<Long, PatientDto> loader) {
+        Assignment assignment = byPatient.get(patientId);
+        if (assignment != null && assignment.patient() != null) {
+            return assignment.patient();
+        }
+        return load(patientId, loader);
+    }
+
+    public PatientDto patientForDevice(Long deviceId, Function<Long, PatientDto> loader) {
+        Optional<Assignment> assignment = findByDevice(deviceId);
+        if (assignment.isPresent() && assignment.get().patient() != null) {
+            return assignment.get().patient();
+        }
+        return load(deviceId, loader);
+    }
+
+    private PatientDto load(Long key, Function<Long, PatientDto> loader) {
+        LocalDateTime observedAt = LocalDateTime.now();
+        PatientDto patient = loader.apply(key);
+        if (patient != null) {
+            record(patient, observedAt);
+        }
+        return patient;
+    }
+
+    /**
+     * Registra el paciente tal como lo devolvió patient-service en observedAt.
+     * Devuelve true si cambió la asignación de dispositivo.
+     */
+    public synchronized boolean record(PatientDto patient, LocalDateTime observedAt) {
+        if (patient == null || patient.getId() == null) {
+            return false;
+        }
+        Assignment current = byPatient.get(patient.getId());
+        if (current != null && current.changedAt().isAfter(observedAt)) {
+            return false;
+        }
+        put(new Assignment(patient.getId(), patient.getDeviceId(), patient, observedAt, LocalDateTime.now()), current);
+        return current == null || !Objects.equals(current.deviceId(), patient.getDeviceId());
+    }
+
+    /**
+     * Aplica un cambio empujado por otro servicio. deviceId null significa que el paciente ya no tiene dispositivo.
+     */
+    public synchronized boolean apply(Long patientId, Long deviceId, LocalDateTime changedAt) {
+        Assignment current = byPatient.get(patientId);
+        if (current != null && current.changedAt().isAfter(changedAt)) {
+            log.debug("Descartado cambio antiguo del paciente {} ({} anterior a {})", patientId, changedAt, current.changedAt());
+            return false;
+        }
+        PatientDto patient = null;
+        if (current != null && current.patient() != null) {
+            PatientDto known = current.patient();
+            patient = new PatientDto(known.getId(), known.getName(), known.getAge(), known.getMedicalId(), deviceId, known.getDiabetesType());
+        }
+        put(new Assignment(patientId, deviceId, patient, changedAt, LocalDateTime.now()), current);
+        return true;
+    }
+
+    public synchronized void remove(Long patientId) {
+        Assignment current = byPatient.remove(patientId);
+        if (current != null) {
+            byVerification.remove(current);
+            if (current.deviceId() != null) {
+                patientByDevice.remove(current.deviceId(), patientId);
+            }
+        }
+    }
+
+    /**
+     * Las entradas verificadas antes de verifiedBefore, de la más antigua a la más reciente. Solo recorre las
+     * entradas devueltas: se detiene en la primera que aún no ha caducado.
+     */
+    public List<Assignment> staleEntries(LocalDateTime verifiedBefore, int limit) {
+        List<Assignment> stale = new ArrayList<>(Math.min(limit, 64));
+        for (Assignment assignment : byVerification) {
+            if (stale.size() >= limit || !assignment.verifiedAt().isBefore(verifiedBefore)) {
+                break;
+            }
+            stale.add(assignment);
+        }
+        return stale;
+    }
+
+    public int size() {
+        return byPatient.size();
+    }
+
+    private void put(Assignment assignment, Assignment current) {
+        if (current != null && current.deviceId() != null && !current.deviceId().equals(assignment.deviceId())) {
+            patientByDevice.remove(current.deviceId(), current.patientId());
+        }
+        if (assignment.deviceId() != null) {
+            Long previousPatient = patientByDevice.put(assignment.deviceId(), assignment.patientId());
+            // Un dispositivo tiene un único paciente: el anterior se olvida y se volverá a consultar
+            if (previousPatient != null && !previousPatient.equals(assignment.patientId())) {
+                Assignment forgotten = byPatient.remove(previousPatient);
+                if (forgotten != null) {
+                    byVerification.remove(forgotten);
+                }
+            }
+        }
+        if (current != null) {
+            byVerification.remove(current);
+        }
+        byPatient.put(assignment.patientId(), assignment);
+        byVerification.add(assignment);
+    }
+
+    /**
+     * patient puede ser null si la asignación llegó empujada y aún no se ha consultado el paciente.
+     */
+    public record Assignment(Long patientId, Long deviceId, PatientDto patient, LocalDateTime changedAt, LocalDateTime verifiedAt) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.insulinpump.readingservice.directory;
+
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory.Assignment;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Revalida por lotes las entradas más antiguas del directorio contra patient-service.
+ *
+ * Cada pasada solo consulta las entradas no verificadas en max-age, como mucho batch-size, de modo que el
+ * coste por pasada no depende del tamaño del directorio. Los cambios urgentes llegan por el endpoint de push.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.directory.sync", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PatientDeviceDirectorySync {
+
+    private final PatientDeviceDirectory directory;
+    private final PatientClient patientClient;
+    private final Counter changesCounter;
+
+    @Value("${readingservice.directory.sync.max-age:5m}")
+    private Duration maxAge;
+
+    @Value("${readingservice.directory.sync.batch-size:200}")
+    private int batchSize;
+
+    public PatientDeviceDirectorySync(PatientDeviceDirectory directory, PatientClient patientClient,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        this.directory = directory;
+        this.patientClient = patientClient;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("readingservice.directory.size", directory, PatientDeviceDirectory::size)
+                    .description("Asignaciones paciente-dispositivo en el directorio local")
+                    .register(registry);
+            this.changesCounter = Counter.builder("readingservice.directory.sync.changes")
+                    .description("Cambios de asignación detectados al revalidar el directorio")
+                    .register(registry);
+        } else {
+            this.changesCounter = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${readingservice.directory.sync.interval:30000}",
+            initialDelayString = "${readingservice.directory.sync.interval:30000}")
+    public void scheduledSync() {
+        sync();
+    }
+
+    /**
+     * Revalida un lote de entradas y devuelve cuántas cambiaron de dispositivo o desaparecieron.
+     */
+    public int sync() {
+        List<Assignment> stale = directory.staleEntries(LocalDateTime.now().minus(maxAge), batchSize);
+        int changes = 0;
+        for (Assignment assignment : stale) {
+            LocalDateTime observedAt = LocalDateTime.now();
+            try {
+                if (directory.record(patientClient.getPatientById(assignment.patientId()), observedAt)) {
+                    changes++;
+                }
+            } catch (FeignException.NotFound e) {
+                directory.remove(assignment.patientId());
+                changes++;
+            } catch (Exception e) {
+                // patient-service no disponible: se mantiene lo conocido y se reintenta en la siguiente pasada
+                log.warn("No se pudo revalidar el directorio de pacientes: {}", e.getMessage());
+                break;
+            }
+        }
+        if (changes > 0) {
+            log.info("Directorio de pacientes revalidado: {} entradas, {} cambios", stale.size(), changes);
+            if (changesCounter != null) {
+                changesCounter.increment(changes);
+            }
+        }
+        return changes;
+    }
+}
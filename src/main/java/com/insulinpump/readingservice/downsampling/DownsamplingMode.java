@@ -0,0 +1,6 @@
+package com.insulinpump.readingservice.downsampling;
+
+public enum DownsamplingMode {
+    LTTB,
+    MIN_MAX
+}
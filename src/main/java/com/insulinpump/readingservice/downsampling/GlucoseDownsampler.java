@@ -0,0 +1,25 @@
+package com.insulinpump.readingservice.downsampling;
+
+import com.insulinpump.readingservice.dto.GlucosePointDto;
+
+import java.util.List;
+
+/**
+ * Reduce en una sola pasada una serie ordenada por tiempo a un número acotado de puntos.
+ * Los puntos se reparten en cubetas de tiempo de igual anchura entre startMillis y endMillis.
+ */
+public interface GlucoseDownsampler {
+
+    void accept(long epochMillis, float glucoseLevel);
+
+    List<GlucosePointDto> finish();
+
+    long getSourcePoints();
+
+    static GlucoseDownsampler create(DownsamplingMode mode, long startMillis, long endMillis, int targetPoints) {
+        return switch (mode) {
+            case LTTB -> new LttbDownsampler(startMillis, endMillis, targetPoints);
+            case MIN_MAX -> new MinMaxDownsampler(startMillis, endMillis, targetPoints);
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package com.insulinpump.readingservice.downsampling;
+
+import com.insulinpump.readingservice.dto.GlucosePointDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Largest-Triangle-Three-Buckets en streaming sobre cubetas de tiempo.
+ * Solo mantiene en memoria dos cubetas: la pendiente de decidir y la siguiente, cuya media
+ * actúa como tercer vértice del triángulo. El primer y el último punto siempre se conservan.
+ */
+public class LttbDownsampler implements GlucoseDownsampler {
+
+    private final long startMillis;
+    private final double bucketWidth;
+    private final int buckets;
+    private final List<GlucosePointDto> points;
+
+    private PointBuffer pending = new PointBuffer();
+    private PointBuffer current = new PointBuffer();
+    private int currentBucket = -1;
+    private long sourcePoints;
+
+    // Último punto seleccionado (vértice A)
+    private long selectedTime;
+    private float selectedValue;
+
+    public LttbDownsampler(long startMillis, long endMillis, int targetPoints) {
+        this.startMillis = startMillis;
+        this.buckets = Math.max(1, targetPoints - 2);
+        this.bucketWidth = Math.max(1.0, (endMillis - startMillis + 1) / (double) buckets);
+        this.points = new ArrayList<>(targetPoints);
+    }
+
+    @Override
+    public void accept(long epochMillis, float glucoseLevel) {
+        sourcePoints++;
+        if (sourcePoints == 1) {
+            select(epochMillis, glucoseLevel);
+            return;
+        }
+
+        int bucket = bucketOf(epochMillis);
+        if (bucket != currentBucket) {
+            if (!pending.isEmpty()) {
+                selectFrom(pending, current.averageTime(), current.averageValue());
+            }
+            PointBuffer recycled = pending;
+            recycled.clear();
+            pending = current;
+            current = recycled;
+            currentBucket = bucket;
+        }
+        current.add(epochMillis, glucoseLevel);
+    }
+
+    @Override
+    public List<GlucosePointDto> finish() {
+        if (current.isEmpty()) {
+            return points;
+        }
+
+        // El último punto se emite siempre y actúa como vértice C de las cubetas restantes
+        long lastTime = current.times[current.size - 1];
+        float lastValue = current.values[current.size - 1];
+        current.removeLast();
+
+        if (!pending.isEmpty()) {
+            if (current.isEmpty()) {
+                selectFrom(pending, lastTime, lastValue);
+            } else {
+                selectFrom(pending, current.averageTime(), current.averageValue());
+            }
+        }
+        if (!current.isEmpty()) {
+            selectFrom(current, lastTime, lastValue);
+        }
+        select(lastTime, lastValue);
+
+        pending.clear();
+        current.clear();
+        return points;
+    }
+
+    @Override
+    public long getSourcePoints() {
+        return sourcePoints;
+    }
+
+    private void selectFrom(PointBuffer bucket, double nextTime, double nextValue) {
+        int best = 0;
+        double bestArea = -1;
+        for (int i = 0; i < bucket.size; i++) {
+            double area = Math.abs((selectedTime - nextTime) * (bucket.values[i] - selectedValue)
+                    - (selectedTime - bucket.times[i]) * (nextValue - selectedValue));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        select(bucket.times[best], bucket.values[best]);
+    }
+
+    private void select(long time, float value) {
+        selectedTime = time;
+        selectedValue = value;
+        points.add(GlucosePointDto.of(time, value));
+    }
+
+    private int bucketOf(long epochMillis) {
+        int bucket = (int) ((epochMillis - startMillis) / bucketWidth);
+        return Math.min(Math.max(bucket, 0), buckets - 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.insulinpump.readingservice.downsampling;
+
+import com.insulinpump.readingservice.dto.GlucosePointDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conserva el mínimo y el máximo de cada cubeta de tiempo, en orden temporal.
+ * Garantiza que ningún extremo clínicamente relevante (hipo o hiperglucemia) desaparece del gráfico.
+ */
+public class MinMaxDownsampler implements GlucoseDownsampler {
+
+    private final long startMillis;
+    private final double bucketWidth;
+    private final int buckets;
+    private final List<GlucosePointDto> points;
+
+    private long sourcePoints;
+    private int currentBucket = -1;
+    private long minTime;
+    private float minValue;
+    private long maxTime;
+    private float maxValue;
+
+    public MinMaxDownsampler(long startMillis, long endMillis, int targetPoints) {
+        this.startMillis = startMillis;
+        this.buckets = Math.max(1, targetPoints / 2);
+        this.bucketWidth = Math.max(1.0, (endMillis - startMillis + 1) / (double) buckets);
+        this.points = new ArrayList<>(buckets * 2);
+    }
+
+    @Override
+    public void accept(long epochMillis, float glucoseLevel) {
+        sourcePoints++;
+        int bucket = bucketOf(epochMillis);
+        if (bucket != currentBucket) {
+            flushBucket();
+            currentBucket = bucket;
+            minTime = maxTime = epochMillis;
+            minValue = maxValue = glucoseLevel;
+            return;
+        }
+        if (glucoseLevel < minValue) {
+            minValue = glucoseLevel;
+            minTime = epochMillis;
+        }
+        if (glucoseLevel > maxValue) {
+            maxValue = glucoseLevel;
+            maxTime = epochMillis;
+        }
+    }
+
+    @Override
+    public List<GlucosePointDto> finish() {
+        flushBucket();
+        currentBucket = -1;
+        return points;
+    }
+
+    @Override
+    public long getSourcePoints() {
+        return sourcePoints;
+    }
+
+    private void flushBucket() {
+        if (currentBucket < 0) {
+            return;
+        }
+        if (minTime == maxTime) {
+            points.add(GlucosePointDto.of(minTime, minValue));
+        } else if (minTime < maxTime) {
+            points.add(GlucosePointDto.of(minTime, minValue));
+            points.add(GlucosePointDto.of(maxTime, maxValue));
+        } else {
+            points.add(GlucosePointDto.of(maxTime, maxValue));
+            points.add(GlucosePointDto.of(minTime, minValue));
+        }
+    }
+
+    private int bucketOf(long epochMillis) {
+        int bucket = (int) ((epochMillis - startMillis) / bucketWidth);
+        return Math.min(Math.max(bucket, 0), buckets - 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.insulinpump.readingservice.downsampling;
+
+import java.util.Arrays;
+
+// Buffer de puntos con arrays primitivos para no crear un objeto por lectura
+class PointBuffer {
+
+    long[] times = new long[64];
+    float[] values = new float[64];
+    int size;
+    double sum;
+
+    void add(long time, float value) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+        sum += value;
+    }
+
+    void removeLast() {
+        size--;
+        sum -= values[size];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    double averageTime() {
+        // Punto medio temporal de la cubeta, suficiente para LTTB con lecturas casi equiespaciadas
+        return (times[0] + (double) times[size - 1]) / 2;
+    }
+
+    double averageValue() {
+        return sum / size;
+    }
+
+    void clear() {
+        size = 0;
+        sum = 0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.insulinpump.readingservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActionTransitionDto {
+
+    @NotBlank(message = "El profesional es obligatorio")
+    private String clinician;
+
+    // Versión de la acción que vio el cliente; si ha cambiado se responde 409
+    private Long version;
+
+    private String notes;
+}
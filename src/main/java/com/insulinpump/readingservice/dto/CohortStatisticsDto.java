@@ -0,0 +1,37 @@
+package com.insulinpump.readingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estadísticas de una cohorte (tipo de diabetes y/o modelo de bomba).
+ *
+ * Si la consulta agota su presupuesto de tiempo o se cancela, complete es false y las cifras cubren solo
+ * devicesScanned de devicesTotal dispositivos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortStatisticsDto {
+    private String queryId;
+    private String diabetesType;
+    private String deviceModel;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long devicesTotal;
+    private Long devicesScanned;
+    private Long devicesUnresolved;
+    private Long devicesInCohort;
+    // Porcentaje de lecturas en rango de toda la cohorte y media de los porcentajes de cada dispositivo
+    private Float timeInRange;
+    private Float averageTimeInRange;
+    private GlucoseStatisticsDto statistics;
+    private boolean complete;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String stopReason;
+    private Long elapsedMillis;
+}
@@ -14,4 +14,8 @@ public class DeviceDto {
     private String manufacturer;
     private String status;
     private Long patientId;
+
+    public DeviceDto(DeviceDto other) {
+        this(other.id, other.serialNo, other.model, other.manufacturer, other.status, other.patientId);
+    }
 }
@@ -0,0 +1,21 @@
+package com.insulinpump.readingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceLivenessDto {
+    private Long deviceId;
+    private LocalDateTime lastSeen;
+    private Long thresholdMinutes;
+    private boolean silent;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime silentSince;
+}
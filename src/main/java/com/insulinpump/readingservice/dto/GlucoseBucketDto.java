@@ -0,0 +1,26 @@
+package com.insulinpump.readingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un intervalo de la serie: solo lleva las funciones pedidas. filled indica que no tenía lecturas y los
+ * valores vienen del relleno de huecos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GlucoseBucketDto {
+    private LocalDateTime timestamp;
+    private Long count;
+    private Float averageGlucoseLevel;
+    private Float minGlucoseLevel;
+    private Float maxGlucoseLevel;
+    private Float standardDeviation;
+    private Boolean filled;
+}
@@ -0,0 +1,25 @@
+package com.insulinpump.readingservice.dto;
+
+import com.insulinpump.readingservice.bucketing.BucketFunction;
+import com.insulinpump.readingservice.bucketing.GapFill;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GlucoseBucketSeriesDto {
+    private Long deviceId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private String width;
+    private Set<BucketFunction> functions;
+    private GapFill fill;
+    private Long sourceReadings;
+    private List<GlucoseBucketDto> buckets;
+}
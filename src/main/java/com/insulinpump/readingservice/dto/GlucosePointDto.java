@@ -0,0 +1,22 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GlucosePointDto {
+    private LocalDateTime timestamp;
+    private Float glucoseLevel;
+
+    public static GlucosePointDto of(long epochMillis, float glucoseLevel) {
+        return new GlucosePointDto(
+                LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L), (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC),
+                glucoseLevel);
+    }
+}
@@ -0,0 +1,22 @@
+package com.insulinpump.readingservice.dto;
+
+import com.insulinpump.readingservice.downsampling.DownsamplingMode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GlucoseSeriesDto {
+    private Long deviceId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private DownsamplingMode mode;
+    private Integer requestedPoints;
+    private Long sourceReadings;
+    private List<GlucosePointDto> points;
+}
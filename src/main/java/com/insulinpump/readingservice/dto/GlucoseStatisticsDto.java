@@ -1,10 +1,13 @@
 package com.insulinpump.readingservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -22,4 +25,14 @@ public class GlucoseStatisticsDto {
     private Float highestReading;
     private Integer totalReadings;
     private Float standardDeviation;
+    // Solo en estadísticas por paciente: dispositivos incluidos
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Long> deviceIds;
+
+    public GlucoseStatisticsDto(GlucoseStatisticsDto other) {
+        this(other.deviceId, other.deviceSerialNo, other.patientName, other.startTime, other.endTime,
+                other.averageGlucoseLevel, other.lowReadingsCount, other.highReadingsCount, other.lowestReading,
+                other.highestReading, other.totalReadings, other.standardDeviation,
+                other.deviceIds != null ? new ArrayList<>(other.deviceIds) : null);
+    }
 }
@@ -0,0 +1,21 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientDeviceAssignmentDto {
+
+    private Long patientId;
+
+    // null si el paciente se ha quedado sin dispositivo
+    private Long deviceId;
+
+    // Momento del cambio en el servicio de origen; si no se indica se toma la hora de recepción
+    private LocalDateTime changedAt;
+}
@@ -14,4 +14,8 @@ public class PatientDto {
     private String medicalId;
     private Long deviceId;
     private String diabetesType;
+
+    public PatientDto(PatientDto other) {
+        this(other.id, other.name, other.age, other.medicalId, other.deviceId, other.diabetesType);
+    }
 }
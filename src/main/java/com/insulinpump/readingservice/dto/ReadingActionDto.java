@@ -0,0 +1,38 @@
+package com.insulinpump.readingservice.dto;
+
+import com.insulinpump.readingservice.model.ActionState;
+import com.insulinpump.readingservice.model.ReadingAction;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingActionDto {
+    private Long id;
+    private Long readingId;
+    private Long deviceId;
+    private ReadingStatus readingStatus;
+    private Float glucoseLevel;
+    private LocalDateTime readingTimestamp;
+    private ActionState state;
+    private String assignee;
+    private LocalDateTime createdAt;
+    private LocalDateTime claimedAt;
+    private LocalDateTime acknowledgedAt;
+    private LocalDateTime resolvedAt;
+    private String resolution;
+    // Enviar en las transiciones para detectar cambios concurrentes
+    private Long version;
+
+    public static ReadingActionDto from(ReadingAction action) {
+        return new ReadingActionDto(action.getId(), action.getReadingId(), action.getDeviceId(), action.getReadingStatus(),
+                action.getGlucoseLevel(), action.getReadingTimestamp(), action.getState(), action.getAssignee(),
+                action.getCreatedAt(), action.getClaimedAt(), action.getAcknowledgedAt(), action.getResolvedAt(),
+                action.getResolution(), action.getVersion());
+    }
+}
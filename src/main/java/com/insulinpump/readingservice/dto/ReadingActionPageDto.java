@@ -0,0 +1,17 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingActionPageDto {
+    private List<ReadingActionDto> content;
+    private Integer page;
+    private Integer size;
+    private Integer totalOpen;
+}
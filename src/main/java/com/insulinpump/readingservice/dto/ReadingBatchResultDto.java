@@ -0,0 +1,35 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingBatchResultDto {
+    private Integer receivedReadings;
+    private Integer storedReadings;
+    private List<Long> ids;
+
+    // Un elemento por shard de destino; con sharding el lote no es atómico entre shards
+    private List<ShardResultDto> shards;
+
+    public ReadingBatchResultDto(Integer receivedReadings, Integer storedReadings, List<Long> ids) {
+        this(receivedReadings, storedReadings, ids, List.of());
+    }
+
+    public boolean isPartial() {
+        return hasOutcome(ShardResultDto.Outcome.FAILED);
+    }
+
+    public boolean isJournaled() {
+        return hasOutcome(ShardResultDto.Outcome.JOURNALED);
+    }
+
+    private boolean hasOutcome(ShardResultDto.Outcome outcome) {
+        return shards != null && shards.stream().anyMatch(shard -> shard.getOutcome() == outcome);
+    }
+}
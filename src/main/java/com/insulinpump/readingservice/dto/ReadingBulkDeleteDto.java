@@ -0,0 +1,21 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Selección de lecturas a borrar: un dispositivo y un rango temporal, o una lista de IDs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingBulkDeleteDto {
+    private Long deviceId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private List<Long> ids;
+}
@@ -0,0 +1,25 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingBulkResultDto {
+    private Long affectedReadings;
+
+    // Con una lista de IDs y sharding, un elemento por shard: no es atómico entre shards
+    private List<ShardResultDto> shards;
+
+    public ReadingBulkResultDto(Long affectedReadings) {
+        this(affectedReadings, List.of());
+    }
+
+    public boolean isPartial() {
+        return shards != null && shards.stream().anyMatch(shard -> shard.getOutcome() == ShardResultDto.Outcome.FAILED);
+    }
+}
@@ -0,0 +1,31 @@
+package com.insulinpump.readingservice.dto;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cambios comunes a un conjunto de lecturas, seleccionadas por dispositivo y rango temporal o por IDs.
+ *
+ * status fija el estado de todas; recalculateStatus lo vuelve a derivar de la glucosa de cada una.
+ * Si cambia el estado y no se indica requiresAction, se deriva del nuevo estado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingBulkUpdateDto {
+    private Long deviceId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private List<Long> ids;
+
+    private ReadingStatus status;
+    private Boolean recalculateStatus;
+    private String notes;
+    private Boolean manualReading;
+    private Boolean requiresAction;
+}
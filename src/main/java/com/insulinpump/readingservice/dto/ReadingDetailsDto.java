@@ -34,4 +34,20 @@ public class ReadingDetailsDto {
         this.manualReading = reading.getManualReading();
         this.requiresAction = reading.getRequiresAction();
     }
+
+    // Copia independiente, también del dispositivo y el paciente
+    public ReadingDetailsDto(ReadingDetailsDto other) {
+        this.id = other.id;
+        this.glucoseLevel = other.glucoseLevel;
+        this.timestamp = other.timestamp;
+        this.deviceId = other.deviceId;
+        this.status = other.status;
+        this.notes = other.notes;
+        this.insulinDose = other.insulinDose;
+        this.carbIntake = other.carbIntake;
+        this.manualReading = other.manualReading;
+        this.requiresAction = other.requiresAction;
+        this.device = other.device != null ? new DeviceDto(other.device) : null;
+        this.patient = other.patient != null ? new PatientDto(other.patient) : null;
+    }
 }
@@ -0,0 +1,29 @@
+package com.insulinpump.readingservice.dto;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cambios parciales sobre una lectura: solo se aplican los campos no nulos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingPatchDto {
+
+    @Positive(message = "El nivel de glucosa debe ser un valor positivo")
+    private Float glucoseLevel;
+
+    private LocalDateTime timestamp;
+    private ReadingStatus status;
+    private String notes;
+    private Float insulinDose;
+    private Float carbIntake;
+    private Boolean manualReading;
+    private Boolean requiresAction;
+}
@@ -0,0 +1,26 @@
+package com.insulinpump.readingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReadingStatusSummaryDto {
+    // null en el resumen global
+    private Long deviceId;
+    private Long totalReadings;
+    private Long requiringAction;
+    private Map<ReadingStatus, Long> counts;
+    // Lecturas por estado en ventanas recientes ("15m", "1h", "24h"), solo en el resumen global
+    private Map<String, Map<ReadingStatus, Long>> windows;
+    // Última conciliación con la base de datos
+    private LocalDateTime reconciledAt;
+}
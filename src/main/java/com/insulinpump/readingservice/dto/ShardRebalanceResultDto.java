@@ -0,0 +1,17 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardRebalanceResultDto {
+    private Integer shards;
+    private Long scannedReadings;
+    private Long movedReadings;
+    private List<Long> movedPerShard;
+}
@@ -0,0 +1,26 @@
+package com.insulinpump.readingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de una operación en un shard. Cada shard confirma su propia transacción, así que una operación
+ * sobre varios puede quedar aplicada en unos y no en otros.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardResultDto {
+
+    public enum Outcome {
+        COMMITTED,
+        // Base de datos no disponible: las lecturas se insertarán al reproducir el diario de ingesta
+        JOURNALED,
+        FAILED
+    }
+
+    private Integer shard;
+    private Outcome outcome;
+    private Long readings;
+}
@@ -0,0 +1,21 @@
+package com.insulinpump.readingservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Un dispositivo ha superado su umbral sin enviar lecturas.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class DeviceSilentEvent {
+
+    private final Long deviceId;
+    private final LocalDateTime lastSeen;
+    private final Duration threshold;
+}
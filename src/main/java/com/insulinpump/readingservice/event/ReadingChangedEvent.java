@@ -0,0 +1,51 @@
+package com.insulinpump.readingservice.event;
+
+import com.insulinpump.readingservice.model.Reading;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class ReadingChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+
+    // Estado de la lectura tras el cambio (para DELETED, la lectura eliminada)
+    private final Reading reading;
+
+    // Estado anterior de la lectura en UPDATED, null en el resto de casos
+    private final Reading previous;
+
+    // La lectura cambia de shard (y de ID) en un rebalanceo: no es una lectura nueva del dispositivo
+    private final boolean relocation;
+
+    public static ReadingChangedEvent created(Reading reading) {
+        return new ReadingChangedEvent(Type.CREATED, reading, null, false);
+    }
+
+    public static ReadingChangedEvent updated(Reading previous, Reading reading) {
+        return new ReadingChangedEvent(Type.UPDATED, reading, previous, false);
+    }
+
+    public static ReadingChangedEvent deleted(Reading reading) {
+        return new ReadingChangedEvent(Type.DELETED, reading, null, false);
+    }
+
+    // Copia insertada en el shard destino con su ID nuevo
+    public static ReadingChangedEvent relocatedTo(Reading copy) {
+        return new ReadingChangedEvent(Type.CREATED, copy, null, true);
+    }
+
+    // Original borrada del shard origen
+    public static ReadingChangedEvent relocatedFrom(Reading original) {
+        return new ReadingChangedEvent(Type.DELETED, original, null, true);
+    }
+}
@@ -0,0 +1,29 @@
+package com.insulinpump.readingservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Cambio de un conjunto de lecturas hecho con una sola sentencia UPDATE o DELETE.
+ *
+ * En lugar de las lecturas lleva la condición SQL que las selecciona en la tabla lecturas, para que cada listener
+ * aplique su parte también con sentencias de conjunto. Se publica dentro de la transacción del shard: en UPDATED
+ * después de la sentencia y en DELETED antes, así que los listeners síncronos ven siempre las filas afectadas.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ReadingsBulkChangedEvent {
+
+    private final ReadingChangedEvent.Type type;
+
+    // Condición sobre las columnas de lecturas (sin alias) y sus parámetros con nombre
+    private final String condition;
+    private final Map<String, Object> parameters;
+
+    // Dispositivos afectados y su variación de lecturas: índice = ordinal del estado, más ReadingStatusCounters.REQUIRING_ACTION
+    private final Map<Long, long[]> countDeltas;
+}
@@ -0,0 +1,7 @@
+package com.insulinpump.readingservice.exception;
+
+public class ActionConflictException extends RuntimeException {
+    public ActionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.insulinpump.readingservice.exception;
+
+import com.insulinpump.readingservice.limiter.RequestPriority;
+import lombok.Getter;
+
+@Getter
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitExceededException(RequestPriority priority, int limit, long retryAfterSeconds) {
+        super("Servicio saturado: petición " + priority + " rechazada con el límite de concurrencia en " + limit);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.insulinpump.readingservice.exception;
+
+public class InvalidReadingFrameException extends RuntimeException {
+    public InvalidReadingFrameException(String message) {
+        super(message);
+    }
+}
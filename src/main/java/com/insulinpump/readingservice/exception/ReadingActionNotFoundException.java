@@ -0,0 +1,7 @@
+package com.insulinpump.readingservice.exception;
+
+public class ReadingActionNotFoundException extends RuntimeException {
+    public ReadingActionNotFoundException(Long id) {
+        super("Acción no encontrada con ID: " + id);
+    }
+}
@@ -0,0 +1,119 @@
+package com.insulinpump.readingservice.export;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato columnar comprimido con gzip: magic "RCOL", versión y bloques de hasta BLOCK_SIZE filas.
+ * Cada bloque empieza con el número de filas y guarda cada columna de forma contigua
+ * (id, epoch-millis UTC, deviceId, glucosa, ordinal de estado, insulina, carbohidratos, flags, notas).
+ * Un bloque con 0 filas marca el final del fichero. La memoria usada está acotada a un bloque.
+ */
+public class ColumnarReadingExportWriter implements ReadingExportWriter {
+
+    public static final int MAGIC = 0x52434F4C;
+    public static final byte VERSION = 1;
+    public static final int BLOCK_SIZE = 8192;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+
+    private final long[] ids = new long[BLOCK_SIZE];
+    private final long[] timestamps = new long[BLOCK_SIZE];
+    private final long[] deviceIds = new long[BLOCK_SIZE];
+    private final float[] glucoseLevels = new float[BLOCK_SIZE];
+    private final byte[] statuses = new byte[BLOCK_SIZE];
+    private final float[] insulinDoses = new float[BLOCK_SIZE];
+    private final float[] carbIntakes = new float[BLOCK_SIZE];
+    private final byte[] flags = new byte[BLOCK_SIZE];
+    private final String[] notes = new String[BLOCK_SIZE];
+    private int rows;
+
+    public ColumnarReadingExportWriter(OutputStream outputStream) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(outputStream, BUFFER_SIZE), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws SQLException, IOException {
+        int i = rows;
+        ids[i] = rs.getLong(1);
+        Timestamp timestamp = rs.getTimestamp(2);
+        timestamps[i] = timestamp != null ? timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+        deviceIds[i] = rs.getLong(3);
+        glucoseLevels[i] = nullableFloat(rs, 4);
+        String status = rs.getString(5);
+        statuses[i] = status != null ? (byte) ReadingStatus.valueOf(status).ordinal() : -1;
+        insulinDoses[i] = nullableFloat(rs, 6);
+        carbIntakes[i] = nullableFloat(rs, 7);
+        flags[i] = (byte) (flag(rs, 8, 0) | flag(rs, 9, 2));
+        notes[i] = rs.getString(10);
+
+        if (++rows == BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            flushBlock();
+        }
+        out.writeInt(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void flushBlock() throws IOException {
+        out.writeInt(rows);
+        for (int i = 0; i < rows; i++) out.writeLong(ids[i]);
+        for (int i = 0; i < rows; i++) out.writeLong(timestamps[i]);
+        for (int i = 0; i < rows; i++) out.writeLong(deviceIds[i]);
+        for (int i = 0; i < rows; i++) out.writeFloat(glucoseLevels[i]);
+        out.write(statuses, 0, rows);
+        for (int i = 0; i < rows; i++) out.writeFloat(insulinDoses[i]);
+        for (int i = 0; i < rows; i++) out.writeFloat(carbIntakes[i]);
+        out.write(flags, 0, rows);
+        for (int i = 0; i < rows; i++) {
+            if (notes[i] == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = notes[i].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                notes[i] = null;
+            }
+        }
+        rows = 0;
+    }
+
+    private static float nullableFloat(ResultSet rs, int column) throws SQLException {
+        float value = rs.getFloat(column);
+        return rs.wasNull() ? Float.NaN : value;
+    }
+
+    // Dos bits por flag: bit de presencia y bit de valor
+    private static int flag(ResultSet rs, int column, int shift) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        if (rs.wasNull()) {
+            return 0;
+        }
+        return (value ? 0b11 : 0b01) << shift;
+    }
+}
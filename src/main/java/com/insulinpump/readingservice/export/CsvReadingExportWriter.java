@@ -0,0 +1,98 @@
+package com.insulinpump.readingservice.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+public class CsvReadingExportWriter implements ReadingExportWriter {
+
+    private static final String HEADER = "id,timestamp,deviceId,glucoseLevel,status,insulinDose,carbIntake,manualReading,requiresAction,notes";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Mismo formato que spring.jackson.date-format
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(128);
+
+    public CsvReadingExportWriter(OutputStream outputStream) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws SQLException, IOException {
+        line.setLength(0);
+        line.append(rs.getLong(1)).append(',');
+        Timestamp timestamp = rs.getTimestamp(2);
+        if (timestamp != null) {
+            TIMESTAMP_FORMAT.formatTo(timestamp.toLocalDateTime(), line);
+        }
+        line.append(',').append(rs.getLong(3)).append(',');
+        appendFloat(rs, 4);
+        line.append(',');
+        appendString(rs.getString(5));
+        line.append(',');
+        appendFloat(rs, 6);
+        line.append(',');
+        appendFloat(rs, 7);
+        line.append(',');
+        appendBoolean(rs, 8);
+        line.append(',');
+        appendBoolean(rs, 9);
+        line.append(',');
+        appendString(rs.getString(10));
+
+        writer.append(line);
+        writer.newLine();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void appendFloat(ResultSet rs, int column) throws SQLException {
+        float value = rs.getFloat(column);
+        if (!rs.wasNull()) {
+            line.append(value);
+        }
+    }
+
+    private void appendBoolean(ResultSet rs, int column) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        if (!rs.wasNull()) {
+            line.append(value);
+        }
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
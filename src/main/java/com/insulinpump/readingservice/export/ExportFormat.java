@@ -0,0 +1,22 @@
+package com.insulinpump.readingservice.export;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    COLUMNAR("application/gzip", "rcol.gz");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,21 @@
+package com.insulinpump.readingservice.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Escribe filas de la tabla lecturas directamente desde el cursor JDBC, sin crear entidades.
+ * Las columnas del ResultSet siguen el orden de ReadingExportWriter.COLUMNS.
+ */
+public interface ReadingExportWriter extends AutoCloseable {
+
+    String COLUMNS = "id, timestamp, device_id, glucose_level, status, insulin_dose, carb_intake, manual_reading, requires_action, notes";
+
+    void writeRow(ResultSet rs) throws SQLException, IOException;
+
+    void finish() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,511 @@
+package com.insulinpump.readingservice.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insulinpump.readingservice.model.Reading;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Diario local de ingesta: guarda las lecturas que llegan mientras la base de datos no está disponible para
+ * insertarlas, en orden, cuando se recupere (ver IngestJournalReplayer).
+ *
+ * Es un fichero de solo anexado. Las escrituras concurrentes se agrupan: mientras un hilo hace el fsync, las
+ * entradas que llegan se acumulan y el siguiente fsync las lleva todas. append() vuelve cuando sus entradas
+ * están en disco. El avance de la reproducción se guarda en un fichero aparte; cuando todo está reproducido
+ * el diario se vacía. Al abrir se descarta la última entrada si quedó a medias (CRC).
+ *
+ * Formato de cada entrada (big endian): longitud total (int), CRC32 de lo que sigue (int), secuencia (long)
+ * y un JSON con el id de la entrada y la lectura. Las entradas que la base de datos rechaza por sus datos se
+ * copian a ingesta.rechazadas.jsonl (una línea JSON por entrada) antes de darlas por reproducidas.
+ */
+@Component
+@Slf4j
+public class IngestJournal implements Closeable {
+
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_ENTRY_SIZE = 1024 * 1024;
+    private static final int CHECKPOINT_EVERY = 100;
+
+    private static final List<Class<? extends Throwable>> UNAVAILABLE = List.of(
+            CannotCreateTransactionException.class, DataAccessResourceFailureException.class,
+            TransientDataAccessException.class, RecoverableDataAccessException.class,
+            JDBCConnectionException.class, SQLTransientException.class,
+            SQLNonTransientConnectionException.class, SQLRecoverableException.class, ConnectException.class);
+
+    private static final List<Class<? extends Throwable>> REJECTED = List.of(
+            DataIntegrityViolationException.class, ConstraintViolationException.class, IllegalArgumentException.class);
+
+    private final boolean enabled;
+    private final Path file;
+    private final Path checkpointFile;
+    private final Path deadLetterFile;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private FileChannel channel;
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private boolean flushing;
+    private boolean replaying;
+    // Cambia cuando falla una escritura: las entradas pendientes de esa época se pierden y sus append() fallan
+    private long epoch;
+    private IOException lastFailure;
+    private long nextSequence = 1;
+    private long durableSequence;
+    private long replayedSequence;
+    private long writePosition;
+    private long replayPosition;
+
+    private long appended;
+    private long replayed;
+    private long syncs;
+    private volatile double replayRate;
+
+    public IngestJournal(@Value("${readingservice.journal.enabled:true}") boolean enabled,
+                         @Value("${readingservice.journal.directory:data/journal}") Path directory,
+                         ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = enabled;
+        this.file = directory.resolve("ingesta.journal");
+        this.checkpointFile = directory.resolve("ingesta.checkpoint");
+        this.deadLetterFile = directory.resolve("ingesta.rechazadas.jsonl");
+        this.objectMapper = objectMapper;
+        // Sin diario previo el fichero se crea con la primera entrada
+        if (enabled && Files.exists(file)) {
+            recover();
+        }
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("readingservice.journal.depth", this, IngestJournal::getDepth)
+                    .description("Lecturas del diario de ingesta pendientes de insertar")
+                    .register(registry);
+            Gauge.builder("readingservice.journal.replay-rate", this, IngestJournal::getReplayRate)
+                    .description("Lecturas por segundo insertadas en la última reproducción del diario")
+                    .baseUnit("readings/s")
+                    .register(registry);
+            FunctionCounter.builder("readingservice.journal.appended", this, journal -> journal.locked(() -> journal.appended))
+                    .description("Lecturas aceptadas en el diario de ingesta")
+                    .register(registry);
+            FunctionCounter.builder("readingservice.journal.replayed", this, journal -> journal.locked(() -> journal.replayed))
+                    .description("Lecturas del diario de ingesta insertadas en la base de datos")
+                    .register(registry);
+            FunctionCounter.builder("readingservice.journal.syncs", this, journal -> journal.locked(() -> journal.syncs))
+                    .description("fsync del diario de ingesta (cada uno cubre un grupo de entradas)")
+                    .register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Si el error indica que la base de datos no está disponible o falló de forma transitoria (conexión, failover,
+     * timeout, bloqueo), y no un error de los datos.
+     */
+    public static boolean isDatabaseUnavailable(Throwable error) {
+        return causedBy(error, UNAVAILABLE);
+    }
+
+    /**
+     * Si la base de datos rechazó la lectura por sus datos (restricción, validación): repetirla no cambiaría nada.
+     */
+    public static boolean isRejected(Throwable error) {
+        return causedBy(error, REJECTED);
+    }
+
+    private static boolean causedBy(Throwable error, List<Class<? extends Throwable>> types) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            for (Class<? extends Throwable> type : types) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Añade las lecturas al diario y vuelve cuando están en disco.
+     */
+    public void append(List<Reading> readings) {
+        if (!enabled) {
+            throw new IllegalStateException("El diario de ingesta está desactivado");
+        }
+        List<byte[]> payloads = new ArrayList<>(readings.size());
+        for (Reading reading : readings) {
+            payloads.add(encode(new JournalEntry(entryId(reading), reading)));
+        }
+
+        lock.lock();
+        try {
+            open();
+            for (byte[] payload : payloads) {
+                pending.add(frame(nextSequence++, payload));
+            }
+            long target = nextSequence - 1;
+            long myEpoch = epoch;
+            while (durableSequence < target) {
+                if (epoch != myEpoch) {
+                    throw new UncheckedIOException("No se pudo escribir en el diario de ingesta", lastFailure);
+                }
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                } else {
+                    flush();
+                }
+            }
+            appended += readings.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Id de la entrada derivado de la clave natural (dispositivo, timestamp): la misma lectura aceptada dos veces,
+     * o cuya escritura original se confirmó sin que el cliente lo supiera, se inserta una sola vez al reproducir.
+     */
+    public static String entryId(Reading reading) {
+        String key = reading.getDeviceId() + "|" + reading.getTimestamp();
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    // Se llama con el bloqueo tomado; lo suelta durante la escritura para que otros hilos acumulen entradas
+    private void flush() {
+        flushing = true;
+        List<ByteBuffer> batch = pending;
+        pending = new ArrayList<>();
+        long batchLast = nextSequence - 1;
+        long start = writePosition;
+        long position = start;
+        IOException error = null;
+        lock.unlock();
+        try {
+            for (ByteBuffer entry : batch) {
+                while (entry.hasRemaining()) {
+                    position += channel.write(entry, position);
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        flushing = false;
+        if (error == null) {
+            writePosition = position;
+            durableSequence = batchLast;
+            syncs++;
+        } else {
+            log.error("Error escribiendo en el diario de ingesta: {}", error.getMessage());
+            lastFailure = error;
+            epoch++;
+            pending.clear();
+            nextSequence = durableSequence + 1;
+            try {
+                channel.truncate(start);
+            } catch (IOException e) {
+                log.warn("No se pudo recortar el diario de ingesta tras el error: {}", e.getMessage());
+            }
+        }
+        flushed.signalAll();
+    }
+
+    /**
+     * Entrega en orden las entradas pendientes. Si el consumidor lanza una excepción la reproducción se detiene
+     * y la entrada se volverá a entregar la próxima vez, así que el consumidor debe ser idempotente.
+     * Devuelve cuántas entradas se entregaron.
+     */
+    public int replay(Consumer<JournalEntry> consumer) {
+        long from;
+        long limit;
+        lock.lock();
+        try {
+            if (channel == null || replaying || replayedSequence >= durableSequence) {
+                return 0;
+            }
+            replaying = true;
+            from = replayPosition;
+            limit = writePosition;
+        } finally {
+            lock.unlock();
+        }
+
+        long started = System.nanoTime();
+        int delivered = 0;
+        try {
+            long position = from;
+            while (position < limit) {
+                ByteBuffer entry = readEntry(channel, position, limit);
+                if (entry == null) {
+                    throw new IllegalStateException("Entrada corrupta en el diario de ingesta en la posición " + position);
+                }
+                long sequence = entry.getLong(8);
+                consumer.accept(decode(entry));
+                position += entry.capacity();
+                delivered++;
+                advance(sequence, position, delivered % CHECKPOINT_EVERY == 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el diario de ingesta", e);
+        } finally {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            lock.lock();
+            try {
+                replaying = false;
+                if (delivered > 0) {
+                    replayRate = seconds > 0 ? delivered / seconds : delivered;
+                    writeCheckpoint();
+                    resetIfReplayed();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Copia una entrada rechazada al fichero de rechazadas, con el motivo, y vuelve cuando está en disco.
+     * Si no se puede escribir lanza la excepción y la entrada sigue pendiente en el diario.
+     */
+    public synchronized void reject(JournalEntry entry, Throwable error) {
+        try {
+            byte[] line = objectMapper.writeValueAsBytes(new RejectedEntry(entry.id(), entry.reading(),
+                    String.valueOf(error.getMessage()), LocalDateTime.now()));
+            Files.createDirectories(deadLetterFile.getParent());
+            try (FileChannel rejected = FileChannel.open(deadLetterFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+                while (buffer.hasRemaining()) {
+                    rejected.write(buffer);
+                }
+                rejected.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en " + deadLetterFile, e);
+        }
+    }
+
+    private void advance(long sequence, long position, boolean checkpoint) {
+        lock.lock();
+        try {
+            replayedSequence = sequence;
+            replayPosition = position;
+            replayed++;
+            if (checkpoint) {
+                writeCheckpoint();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Con todo reproducido y sin escrituras en curso, el diario vuelve a empezar vacío
+    private void resetIfReplayed() {
+        if (replayedSequence < durableSequence || flushing || !pending.isEmpty()) {
+            return;
+        }
+        try {
+            channel.truncate(0);
+            channel.force(true);
+            writePosition = 0;
+            replayPosition = 0;
+            log.info("Diario de ingesta reproducido por completo (hasta la secuencia {})", replayedSequence);
+        } catch (IOException e) {
+            log.warn("No se pudo vaciar el diario de ingesta: {}", e.getMessage());
+        }
+    }
+
+    private void writeCheckpoint() {
+        try {
+            Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(0, replayedSequence).array());
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Sin checkpoint se repiten entradas ya insertadas, que la reproducción ignora
+            log.warn("No se pudo guardar el avance del diario de ingesta: {}", e.getMessage());
+        }
+    }
+
+    private void recover() {
+        lock.lock();
+        try {
+            if (Files.exists(checkpointFile)) {
+                replayedSequence = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+            }
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            long position = 0;
+            long lastSequence = replayedSequence;
+            replayPosition = -1;
+            ByteBuffer entry;
+            while ((entry = readEntry(channel, position, size)) != null) {
+                long sequence = entry.getLong(8);
+                if (sequence > replayedSequence && replayPosition < 0) {
+                    replayPosition = position;
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+                position += entry.capacity();
+            }
+            if (position < size) {
+                log.warn("Diario de ingesta: se descartan {} bytes de una escritura incompleta", size - position);
+                channel.truncate(position);
+            }
+            writePosition = position;
+            if (replayPosition < 0) {
+                replayPosition = position;
+            }
+            durableSequence = lastSequence;
+            nextSequence = lastSequence + 1;
+            if (getDepth() > 0) {
+                log.info("Diario de ingesta con {} lecturas pendientes de insertar", getDepth());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el diario de ingesta " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        if (channel != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log.warn("Base de datos no disponible: las lecturas se guardan en el diario de ingesta {}", file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario de ingesta " + file, e);
+        }
+    }
+
+    // Entrada completa y con CRC correcto en la posición, o null si no la hay
+    private static ByteBuffer readEntry(FileChannel channel, long position, long limit) throws IOException {
+        if (position + HEADER_SIZE > limit) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(header, position);
+        int length = header.getInt(0);
+        if (length < HEADER_SIZE || length > MAX_ENTRY_SIZE || position + length > limit) {
+            return null;
+        }
+        ByteBuffer entry = ByteBuffer.allocate(length);
+        while (entry.hasRemaining()) {
+            if (channel.read(entry, position + entry.position()) < 0) {
+                return null;
+            }
+        }
+        return entry.getInt(4) == crc(entry) ? entry : null;
+    }
+
+    private static ByteBuffer frame(long sequence, byte[] payload) {
+        ByteBuffer entry = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        entry.putInt(0, entry.capacity());
+        entry.putLong(8, sequence);
+        entry.put(HEADER_SIZE, payload);
+        entry.putInt(4, crc(entry));
+        return entry;
+    }
+
+    private static int crc(ByteBuffer entry) {
+        CRC32 crc = new CRC32();
+        crc.update(entry.slice(8, entry.capacity() - 8));
+        return (int) crc.getValue();
+    }
+
+    private byte[] encode(JournalEntry entry) {
+        try {
+            return objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JournalEntry decode(ByteBuffer entry) throws IOException {
+        return objectMapper.readValue(entry.array(), HEADER_SIZE, entry.capacity() - HEADER_SIZE, JournalEntry.class);
+    }
+
+    public long getDepth() {
+        return locked(() -> nextSequence - 1 - replayedSequence);
+    }
+
+    public double getReplayRate() {
+        return replayRate;
+    }
+
+    private long locked(LongSupplier value) {
+        lock.lock();
+        try {
+            return value.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            log.warn("Error cerrando el diario de ingesta: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lectura del diario con el id que la identifica al reproducirla.
+     */
+    public record JournalEntry(String id, Reading reading) {
+    }
+
+    /**
+     * Línea del fichero de rechazadas.
+     */
+    public record RejectedEntry(String id, Reading reading, String error, LocalDateTime rejectedAt) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.insulinpump.readingservice.journal;
+
+import com.insulinpump.readingservice.service.ReadingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inserta en la base de datos las lecturas del diario de ingesta, en el orden en que se aceptaron.
+ *
+ * Ante cualquier error la reproducción se detiene y se reintenta en la siguiente pasada desde la misma entrada,
+ * salvo que la base de datos rechace la lectura por sus datos (restricción o validación): esa entrada se copia al
+ * fichero de rechazadas del diario para no bloquear las siguientes. Un error desconocido detiene la reproducción
+ * igual que una caída: es preferible retrasar el diario a perder lecturas de glucosa.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class IngestJournalReplayer {
+
+    private final IngestJournal journal;
+    private final ReadingService readingService;
+    private final Counter discardedCounter;
+
+    public IngestJournalReplayer(IngestJournal journal, ReadingService readingService, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.journal = journal;
+        this.readingService = readingService;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.discardedCounter = registry != null
+                ? Counter.builder("readingservice.journal.discarded").description("Lecturas del diario de ingesta rechazadas por sus datos").register(registry)
+                : null;
+    }
+
+    @Scheduled(fixedDelayString = "${readingservice.journal.replay-interval:5000}",
+            initialDelayString = "${readingservice.journal.replay-interval:5000}")
+    public void replay() {
+        if (journal.getDepth() == 0) {
+            return;
+        }
+        try {
+            int replayed = journal.replay(this::apply);
+            log.info("Diario de ingesta: {} lecturas reproducidas, {} pendientes", replayed, journal.getDepth());
+        } catch (RuntimeException e) {
+            if (IngestJournal.isDatabaseUnavailable(e)) {
+                log.warn("Reproducción del diario de ingesta interrumpida, se reintentará ({} pendientes): {}",
+                        journal.getDepth(), e.getMessage());
+            } else {
+                log.error("Reproducción del diario de ingesta detenida por un error desconocido, se reintentará ({} pendientes)",
+                        journal.getDepth(), e);
+            }
+        }
+    }
+
+    private void apply(IngestJournal.JournalEntry entry) {
+        try {
+            if (!readingService.createJournaledReading(entry.id(), entry.reading())) {
+                log.debug("Entrada {} del diario de ingesta ya insertada", entry.id());
+            }
+        } catch (RuntimeException e) {
+            if (IngestJournal.isDatabaseUnavailable(e) || !IngestJournal.isRejected(e)) {
+                throw e;
+            }
+            log.error("Entrada {} del diario de ingesta (dispositivo {}) rechazada, se copia a rechazadas: {}",
+                    entry.id(), entry.reading().getDeviceId(), e.getMessage());
+            journal.reject(entry, e);
+            if (discardedCounter != null) {
+                discardedCounter.increment();
+            }
+        }
+    }
+}
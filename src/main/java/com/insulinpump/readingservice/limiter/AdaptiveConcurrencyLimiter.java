@@ -0,0 +1,164 @@
+package com.insulinpump.readingservice.limiter;
+
+import com.insulinpump.readingservice.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de peticiones simultáneas de ingesta y consultas pesadas que se ajusta con la latencia medida.
+ *
+ * Con cada petición terminada se compara su latencia con la media a largo plazo. Mientras la latencia se mantiene
+ * por debajo de tolerance veces la media, el límite crece en su raíz cuadrada; cuando la supera, el límite se
+ * multiplica por el cociente (como poco 0,5) y baja. Las peticiones que no caben se rechazan al momento con
+ * Retry-After en lugar de esperar en el pool de Hikari o en device-service con todas las demás.
+ *
+ * Cada prioridad puede ocupar una fracción del límite (ver RequestPriority): al saturarse siempre queda hueco
+ * para las lecturas críticas.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_WEIGHT = 0.01;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final Map<RequestPriority, Double> shares = new EnumMap<>(RequestPriority.class);
+    private final long retryAfterSeconds;
+    private final Map<RequestPriority, Counter> rejectedCounters = new EnumMap<>(RequestPriority.class);
+
+    // Solo se modifican dentro de onSample (sincronizado); volatile para leerlos sin bloqueo al admitir
+    private volatile double limit;
+    private volatile double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(ObjectProvider<MeterRegistry> meterRegistry,
+                                      @Value("${readingservice.limiter.enabled:true}") boolean enabled,
+                                      @Value("${readingservice.limiter.initial-limit:20}") int initialLimit,
+                                      @Value("${readingservice.limiter.min-limit:4}") int minLimit,
+                                      @Value("${readingservice.limiter.max-limit:200}") int maxLimit,
+                                      @Value("${readingservice.limiter.tolerance:2.0}") double tolerance,
+                                      @Value("${readingservice.limiter.routine-share:0.9}") double routineShare,
+                                      @Value("${readingservice.limiter.read-share:0.7}") double readShare,
+                                      @Value("${readingservice.limiter.retry-after:1s}") Duration retryAfter) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Límites de concurrencia inválidos: min " + minLimit + ", inicial "
+                    + initialLimit + ", max " + maxLimit);
+        }
+        this.enabled = enabled;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.shares.put(RequestPriority.CRITICAL, 1.0);
+        this.shares.put(RequestPriority.ROUTINE, routineShare);
+        this.shares.put(RequestPriority.READ, readShare);
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("readingservice.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Límite de concurrencia actual")
+                    .register(registry);
+            Gauge.builder("readingservice.limiter.in-flight", inFlight, AtomicInteger::get)
+                    .description("Peticiones limitadas en curso")
+                    .register(registry);
+            for (RequestPriority priority : RequestPriority.values()) {
+                rejectedCounters.put(priority, Counter.builder("readingservice.limiter.rejected")
+                        .description("Peticiones rechazadas por saturación")
+                        .tag("priority", priority.name().toLowerCase())
+                        .register(registry));
+            }
+        }
+    }
+
+    /**
+     * Reserva un hueco para la petición o lanza ConcurrencyLimitExceededException si su prioridad no cabe.
+     * El permiso debe cerrarse al terminar la petición, haya ido bien o no.
+     */
+    public Permit acquire(RequestPriority priority) {
+        if (!enabled) {
+            return new Permit(-1);
+        }
+        int allowed = Math.max(1, (int) (limit * shares.get(priority)));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                Counter rejected = rejectedCounters.get(priority);
+                if (rejected != null) {
+                    rejected.increment();
+                }
+                // Con jitter, para que los clientes rechazados a la vez no vuelvan a la vez
+                long retryAfter = retryAfterSeconds + ThreadLocalRandom.current().nextLong(retryAfterSeconds + 1);
+                throw new ConcurrencyLimitExceededException(priority, getLimit(), retryAfter);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        long rtt = Math.max(1, rttNanos);
+        longRttNanos = longRttNanos == 0 ? rtt : longRttNanos * (1 - LONG_RTT_WEIGHT) + rtt * LONG_RTT_WEIGHT;
+        // Si la latencia baja claramente (fin de la saturación), la media la alcanza antes para detectar la siguiente subida
+        if (longRttNanos > rtt * 2) {
+            longRttNanos = longRttNanos * 0.9;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRttNanos / rtt));
+        double target;
+        if (gradient < 1.0) {
+            target = limit * gradient;
+        } else if (inFlightAtStart >= limit / 2) {
+            target = limit + Math.sqrt(limit);
+        } else {
+            // Sin demanda suficiente la latencia no dice nada de la capacidad: no se sube el límite
+            return;
+        }
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private final int inFlightAtStart;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        @Override
+        public void close() {
+            if (inFlightAtStart < 0 || !closed.compareAndSet(false, true)) {
+                return;
+            }
+            inFlight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inFlightAtStart);
+        }
+    }
+}
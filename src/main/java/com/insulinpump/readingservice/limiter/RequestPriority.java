@@ -0,0 +1,12 @@
+package com.insulinpump.readingservice.limiter;
+
+/**
+ * Prioridad de una petición frente al límite de concurrencia. Cada una puede ocupar una fracción del límite:
+ * las lecturas críticas todo, la ingesta rutinaria y las consultas pesadas menos, de modo que al saturarse se
+ * descartan primero las consultas, después la ingesta rutinaria y nunca antes las lecturas críticas.
+ */
+public enum RequestPriority {
+    CRITICAL,
+    ROUTINE,
+    READ
+}
@@ -0,0 +1,270 @@
+package com.insulinpump.readingservice.liveness;
+
+import com.insulinpump.readingservice.dto.DeviceLivenessDto;
+import com.insulinpump.readingservice.event.DeviceSilentEvent;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.liveness.HashedTimerWheel.Timeout;
+import com.insulinpump.readingservice.repository.ReadingStore;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registro en memoria de la última lectura recibida de cada dispositivo y detección de dispositivos silenciosos.
+ *
+ * Cada lectura solo actualiza lastSeen (O(1)); el temporizador del dispositivo no se mueve. Cuando vence, se
+ * compara con lastSeen: si ha habido lecturas se reprograma para lastSeen + umbral y, si no, el dispositivo pasa
+ * a silencioso. Así cada dispositivo tiene como mucho un temporizador en la rueda y no hay recorridos completos.
+ *
+ * Con varias instancias, cada una ve las lecturas que recibe: el enrutado por dispositivo del gateway debe
+ * mantener cada bomba en la misma instancia para que el registro sea fiable.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.liveness", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class DeviceLivenessTracker {
+
+    private static final int WHEEL_SIZE = 1024;
+
+    private final ConcurrentMap<Long, DeviceState> devices = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, DeviceState> silent = new ConcurrentHashMap<>();
+    private final HashedTimerWheel<DeviceState> wheel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReadingStore readingRepository;
+    private final ShardExecutor shardExecutor;
+    private final Duration defaultThreshold;
+    private final Duration bootstrapWindow;
+    private final Counter silentCounter;
+
+    public DeviceLivenessTracker(ApplicationEventPublisher eventPublisher, ReadingStore readingRepository,
+                                 ShardExecutor shardExecutor, ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${readingservice.liveness.default-threshold:15m}") Duration defaultThreshold,
+                                 @Value("${readingservice.liveness.tick:5000}") long tickMillis,
+                                 @Value("${readingservice.liveness.bootstrap-window:7d}") Duration bootstrapWindow) {
+        this.eventPublisher = eventPublisher;
+        this.readingRepository = readingRepository;
+        this.shardExecutor = shardExecutor;
+        this.defaultThreshold = defaultThreshold;
+        this.bootstrapWindow = bootstrapWindow;
+        this.wheel = new HashedTimerWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("readingservice.liveness.tracked", devices, ConcurrentMap::size)
+                    .description("Dispositivos con actividad registrada")
+                    .register(registry);
+            Gauge.builder("readingservice.liveness.silent", silent, ConcurrentMap::size)
+                    .description("Dispositivos sin lecturas por encima de su umbral")
+                    .register(registry);
+            this.silentCounter = Counter.builder("readingservice.liveness.silent.events")
+                    .description("Dispositivos que han pasado a silenciosos")
+                    .register(registry);
+        } else {
+            this.silentCounter = null;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReadingChanged(ReadingChangedEvent event) {
+        if (event.getType() == ReadingChangedEvent.Type.CREATED && !event.isRelocation() && event.getReading().getDeviceId() != null) {
+            seen(event.getReading().getDeviceId(), System.currentTimeMillis());
+        }
+    }
+
+    void seen(Long deviceId, long nowMillis) {
+        DeviceState state = devices.computeIfAbsent(deviceId, DeviceState::new);
+        // Con el mismo cerrojo que expire(): o expire() ve el nuevo lastSeen y reprograma, o esta lectura llega
+        // después, encuentra el temporizador vencido y reactiva el dispositivo
+        synchronized (state) {
+            if (nowMillis > state.lastSeen) {
+                state.lastSeen = nowMillis;
+            }
+            // Solo se programa al empezar a vigilarlo o al volver del silencio; el resto de lecturas no tocan la rueda
+            if (state.timeout == null) {
+                if (state.silentSince != 0) {
+                    log.info("El dispositivo {} vuelve a enviar lecturas", deviceId);
+                    state.silentSince = 0;
+                    silent.remove(deviceId, state);
+                }
+                arm(state);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${readingservice.liveness.tick:5000}")
+    public void tick() {
+        advance(System.currentTimeMillis());
+    }
+
+    int advance(long nowMillis) {
+        return wheel.advance(nowMillis, timeout -> expire(timeout, nowMillis));
+    }
+
+    private void expire(Timeout<DeviceState> timeout, long nowMillis) {
+        DeviceState state = timeout.target();
+        synchronized (state) {
+            // Temporizador sustituido por un cambio de umbral o dispositivo dado de baja
+            if (state.timeout != timeout) {
+                return;
+            }
+            if (state.lastSeen + threshold(state).toMillis() > nowMillis) {
+                arm(state);
+                return;
+            }
+            state.timeout = null;
+            state.silentSince = nowMillis;
+            silent.put(state.deviceId, state);
+        }
+        log.warn("El dispositivo {} no envía lecturas desde {} (umbral {} min)", state.deviceId,
+                toLocalDateTime(state.lastSeen), threshold(state).toMinutes());
+        if (silentCounter != null) {
+            silentCounter.increment();
+        }
+        eventPublisher.publishEvent(new DeviceSilentEvent(state.deviceId, toLocalDateTime(state.lastSeen), threshold(state)));
+    }
+
+    /**
+     * Fija el umbral de un dispositivo; si aún no se conocía, se empieza a vigilar desde ahora.
+     */
+    public DeviceLivenessDto setThreshold(Long deviceId, Duration threshold) {
+        if (threshold.isNegative() || threshold.isZero()) {
+            throw new IllegalArgumentException("El umbral debe ser positivo");
+        }
+        long now = System.currentTimeMillis();
+        DeviceState state = devices.computeIfAbsent(deviceId, id -> {
+            DeviceState created = new DeviceState(id);
+            created.lastSeen = now;
+            return created;
+        });
+        synchronized (state) {
+            state.threshold = threshold;
+            if (state.silentSince != 0 && state.lastSeen + threshold.toMillis() > now) {
+                state.silentSince = 0;
+                silent.remove(deviceId, state);
+            }
+            if (state.silentSince == 0) {
+                arm(state);
+            }
+        }
+        return toDto(state);
+    }
+
+    public void forget(Long deviceId) {
+        DeviceState state = devices.remove(deviceId);
+        if (state != null) {
+            synchronized (state) {
+                state.timeout = null;
+            }
+            silent.remove(deviceId, state);
+        }
+    }
+
+    public Optional<DeviceLivenessDto> getDevice(Long deviceId) {
+        return Optional.ofNullable(devices.get(deviceId)).map(this::toDto);
+    }
+
+    public List<DeviceLivenessDto> getSilentDevices() {
+        List<DeviceLivenessDto> result = new ArrayList<>(silent.size());
+        silent.values().forEach(state -> result.add(toDto(state)));
+        result.sort(Comparator.comparing(DeviceLivenessDto::getLastSeen));
+        return result;
+    }
+
+    public int size() {
+        return devices.size();
+    }
+
+    /**
+     * Sin esta carga, un dispositivo que dejó de enviar antes del arranque nunca se detectaría. Los que ya habían
+     * superado su umbral al arrancar quedan como silenciosos sin publicar DeviceSilentEvent: no es un cambio que
+     * se haya observado ahora y, si no, todos ellos dispararían el evento en el primer tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLastSeen() {
+        LocalDateTime since = LocalDateTime.now().minus(bootstrapWindow);
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        int overdue = 0;
+        for (int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+            for (Object[] row : shardExecutor.onShard(shard, true, () -> readingRepository.findLastTimestampByDeviceSince(since))) {
+                long lastSeen = Math.min(now, ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                if (lastSeen + defaultThreshold.toMillis() > now) {
+                    seen((Long) row[0], lastSeen);
+                } else if (seedSilent((Long) row[0], lastSeen)) {
+                    overdue++;
+                }
+                loaded++;
+            }
+        }
+        log.info("Registro de actividad cargado: {} dispositivos con lecturas desde {}, {} ya silenciosos al arrancar",
+                loaded, since, overdue);
+    }
+
+    // Silencioso desde su vencimiento, sin temporizador ni evento; una lectura posterior lo reactiva en seen()
+    boolean seedSilent(Long deviceId, long lastSeen) {
+        DeviceState state = devices.computeIfAbsent(deviceId, DeviceState::new);
+        synchronized (state) {
+            // Ya recibió lecturas desde el arranque
+            if (state.timeout != null || state.silentSince != 0 || state.lastSeen > lastSeen) {
+                return false;
+            }
+            state.lastSeen = lastSeen;
+            state.silentSince = lastSeen + threshold(state).toMillis();
+            silent.put(deviceId, state);
+            return true;
+        }
+    }
+
+    private void arm(DeviceState state) {
+        state.timeout = wheel.schedule(state, state.lastSeen + threshold(state).toMillis());
+    }
+
+    private Duration threshold(DeviceState state) {
+        return state.threshold != null ? state.threshold : defaultThreshold;
+    }
+
+    private DeviceLivenessDto toDto(DeviceState state) {
+        long silentSince = state.silentSince;
+        return new DeviceLivenessDto(state.deviceId, toLocalDateTime(state.lastSeen), threshold(state).toMinutes(),
+                silentSince != 0, silentSince != 0 ? toLocalDateTime(silentSince) : null);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static final class DeviceState {
+
+        private final Long deviceId;
+        private volatile long lastSeen;
+        private volatile Duration threshold;
+        private volatile Timeout<DeviceState> timeout;
+        private volatile long silentSince;
+
+        private DeviceState(Long deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+}
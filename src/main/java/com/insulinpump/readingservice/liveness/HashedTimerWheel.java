@@ -0,0 +1,76 @@
+package com.insulinpump.readingservice.liveness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de temporizadores con cubetas por tick: programar es O(1) y cada avance solo recorre las cubetas de los
+ * ticks transcurridos. Los temporizadores con vencimiento más allá de una vuelta se quedan en su cubeta y se
+ * revisan de nuevo en la vuelta siguiente.
+ *
+ * Se puede programar desde cualquier hilo; advance debe llamarse siempre desde el mismo.
+ */
+class HashedTimerWheel<T> {
+
+    private final long tickMillis;
+    private final Queue<Timeout<T>>[] buckets;
+    private volatile long processedTick;
+
+    @SuppressWarnings("unchecked")
+    HashedTimerWheel(long tickMillis, int size, long startMillis) {
+        if (tickMillis <= 0 || size <= 0) {
+            throw new IllegalArgumentException("El tick y el tamaño de la rueda deben ser positivos");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.processedTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    Timeout<T> schedule(T target, long deadlineMillis) {
+        // Lo que ya ha vencido se atiende en el siguiente tick
+        long tick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), processedTick + 1);
+        Timeout<T> timeout = new Timeout<>(target, deadlineMillis, tick);
+        bucket(tick).add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Avanza hasta nowMillis y entrega los temporizadores vencidos. Devuelve cuántos han vencido.
+     */
+    int advance(long nowMillis, Consumer<Timeout<T>> onExpired) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        // Tras una pausa larga basta con recorrer cada cubeta una vez
+        long from = Math.max(processedTick + 1, nowTick - buckets.length + 1);
+        int expired = 0;
+        for (long tick = from; tick <= nowTick; tick++) {
+            processedTick = tick;
+            Queue<Timeout<T>> bucket = bucket(tick);
+            List<Timeout<T>> pending = new ArrayList<>();
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                if (timeout.tick() <= nowTick) {
+                    onExpired.accept(timeout);
+                    expired++;
+                } else {
+                    pending.add(timeout);
+                }
+            }
+            bucket.addAll(pending);
+        }
+        processedTick = Math.max(processedTick, nowTick);
+        return expired;
+    }
+
+    private Queue<Timeout<T>> bucket(long tick) {
+        return buckets[(int) Math.floorMod(tick, (long) buckets.length)];
+    }
+
+    record Timeout<T>(T target, long deadlineMillis, long tick) {
+    }
+}
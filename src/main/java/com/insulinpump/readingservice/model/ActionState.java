@@ -0,0 +1,8 @@
+package com.insulinpump.readingservice.model;
+
+public enum ActionState {
+    OPEN,
+    CLAIMED,
+    ACKNOWLEDGED,
+    RESOLVED
+}
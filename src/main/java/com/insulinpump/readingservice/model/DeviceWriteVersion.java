@@ -0,0 +1,29 @@
+package com.insulinpump.readingservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versión de escritura de un dispositivo, compartida por todas las instancias. Se incrementa en la misma
+ * transacción que cada alta, modificación o borrado de sus lecturas (ver DeviceVersionTracker).
+ */
+@Entity
+@Table(name = "versiones_dispositivo")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceWriteVersion {
+
+    @Id
+    private Long deviceId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.insulinpump.readingservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada del diario de ingesta ya insertada. Se guarda en la misma transacción que la lectura, así que repetir
+ * la reproducción de una entrada no duplica la lectura.
+ */
+@Entity
+@Table(name = "diario_ingesta_aplicadas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalAppliedEntry {
+
+    @Id
+    @Column(length = 36)
+    private String entryId;
+
+    @Column(nullable = false)
+    private Long readingId;
+
+    private LocalDateTime appliedAt;
+}
@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "lecturas")
+@Table(name = "lecturas", indexes = @Index(name = "idx_lecturas_device_timestamp", columnList = "device_id, timestamp"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,67 @@
+package com.insulinpump.readingservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Elemento de la cola de acciones: una lectura que requiere atención y su estado de gestión.
+ */
+@Entity
+@Table(name = "acciones_lectura", indexes = @Index(name = "idx_acciones_lectura_state", columnList = "state"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingAction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long readingId;
+
+    @Column(nullable = false)
+    private Long deviceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ReadingStatus readingStatus;
+
+    private Float glucoseLevel;
+    private LocalDateTime readingTimestamp;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 15)
+    private ActionState state;
+
+    // Profesional que tiene asignada la acción
+    @Column(length = 100)
+    private String assignee;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime claimedAt;
+    private LocalDateTime acknowledgedAt;
+    private LocalDateTime resolvedAt;
+    private String resolution;
+
+    @Version
+    private Long version;
+
+    public static ReadingAction open(Reading reading) {
+        ReadingAction action = new ReadingAction();
+        action.setReadingId(reading.getId());
+        action.setDeviceId(reading.getDeviceId());
+        action.setReadingStatus(reading.getStatus());
+        action.setGlucoseLevel(reading.getGlucoseLevel());
+        action.setReadingTimestamp(reading.getTimestamp());
+        action.setState(ActionState.OPEN);
+        action.setCreatedAt(LocalDateTime.now());
+        return action;
+    }
+}
@@ -0,0 +1,60 @@
+package com.insulinpump.readingservice.model;
+
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del outbox: resumen de un cambio en una lectura, escrito en la misma transacción que el cambio.
+ */
+@Entity
+@Table(name = "eventos_lectura")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ReadingChangedEvent.Type type;
+
+    @Column(nullable = false)
+    private Long readingId;
+
+    @Column(nullable = false)
+    private Long deviceId;
+
+    private LocalDateTime readingTimestamp;
+    private Float glucoseLevel;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ReadingStatus status;
+
+    private Boolean requiresAction;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public static ReadingOutboxEvent from(ReadingChangedEvent event) {
+        Reading reading = event.getReading();
+        ReadingOutboxEvent outboxEvent = new ReadingOutboxEvent();
+        outboxEvent.setType(event.getType());
+        outboxEvent.setReadingId(reading.getId());
+        outboxEvent.setDeviceId(reading.getDeviceId());
+        outboxEvent.setReadingTimestamp(reading.getTimestamp());
+        outboxEvent.setGlucoseLevel(reading.getGlucoseLevel());
+        outboxEvent.setStatus(reading.getStatus());
+        outboxEvent.setRequiresAction(reading.getRequiresAction());
+        outboxEvent.setCreatedAt(LocalDateTime.now());
+        return outboxEvent;
+    }
+}
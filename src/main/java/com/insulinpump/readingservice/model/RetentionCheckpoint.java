@@ -0,0 +1,31 @@
+package com.insulinpump.readingservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso de la purga de lecturas antiguas, para continuar tras un reinicio.
+ */
+@Entity
+@Table(name = "retencion_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetentionCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    // Último ID revisado en la pasada actual; 0 cuando no hay pasada a medias
+    @Column(nullable = false)
+    private Long lastId;
+
+    private Long deletedInRun;
+    private LocalDateTime runStartedAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,54 @@
+package com.insulinpump.readingservice.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Añade los eventos a un fichero local, un JSON por línea.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.outbox", name = "sink", havingValue = "file")
+@Slf4j
+public class FileReadingEventSink implements ReadingEventSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileReadingEventSink(@Value("${readingservice.outbox.file.path:outbox/eventos-lectura.jsonl}") Path path,
+                                ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        log.info("Los eventos de lectura se escribirán en {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized void publish(List<ReadingOutboxEvent> events) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (ReadingOutboxEvent event : events) {
+                    writer.write(objectMapper.writeValueAsString(event));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.insulinpump.readingservice.outbox;
+
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Guarda en memoria los últimos eventos publicados. Pensado para tests y desarrollo local: el relay borra del
+ * outbox los eventos entregados, así que con este sink se pierden al reiniciar. Hay que activarlo
+ * expresamente con readingservice.outbox.sink=memory.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.outbox", name = "sink", havingValue = "memory")
+@Slf4j
+public class InMemoryReadingEventSink implements ReadingEventSink {
+
+    private final int capacity;
+    private final Deque<ReadingOutboxEvent> events = new ArrayDeque<>();
+
+    public InMemoryReadingEventSink(@Value("${readingservice.outbox.memory.capacity:10000}") int capacity) {
+        this.capacity = capacity;
+        log.warn("Sink del outbox en memoria: los eventos publicados se borran de eventos_lectura y se pierden al reiniciar. "
+                + "Usar solo en tests o desarrollo (readingservice.outbox.sink=file en producción)");
+    }
+
+    @Override
+    public synchronized void publish(List<ReadingOutboxEvent> batch) {
+        for (ReadingOutboxEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    public synchronized List<ReadingOutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
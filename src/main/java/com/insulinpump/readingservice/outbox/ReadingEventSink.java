@@ -0,0 +1,14 @@
+package com.insulinpump.readingservice.outbox;
+
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destino de los eventos del outbox. Recibe los lotes en orden de ID, que respeta el orden de cambios
+ * de cada dispositivo. Si lanza una excepción, el lote se reintenta en la siguiente pasada.
+ */
+public interface ReadingEventSink {
+
+    void publish(List<ReadingOutboxEvent> events);
+}
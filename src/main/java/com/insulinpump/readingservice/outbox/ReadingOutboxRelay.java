@@ -0,0 +1,109 @@
+package com.insulinpump.readingservice.outbox;
+
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import com.insulinpump.readingservice.repository.ReadingOutboxRepository;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Vacía el outbox por lotes hacia el ReadingEventSink configurado.
+ *
+ * Cada lote se lee bloqueado y en orden de ID, se publica y se borra en la misma transacción: si el sink
+ * falla, el lote se reintenta (entrega al menos una vez). Con sharding, cada shard tiene su propio outbox;
+ * como un dispositivo vive en un solo shard, el orden por dispositivo se mantiene.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ReadingOutboxRelay {
+
+    private final ReadingOutboxRepository outboxRepository;
+    private final ReadingEventSink sink;
+    private final ShardExecutor shardExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedCounter;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    @Value("${readingservice.outbox.batch-size:500}")
+    private int batchSize;
+
+    public ReadingOutboxRelay(ReadingOutboxRepository outboxRepository, ReadingEventSink sink, ShardExecutor shardExecutor,
+                              PlatformTransactionManager transactionManager, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.shardExecutor = shardExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.publishedCounter = registry != null
+                ? Counter.builder("readingservice.outbox.published").description("Eventos de lectura publicados").register(registry)
+                : null;
+    }
+
+    @Scheduled(fixedDelayString = "${readingservice.outbox.poll-interval:1000}",
+            initialDelayString = "${readingservice.outbox.poll-interval:1000}")
+    public void relay() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.error("Error publicando eventos del outbox, se reintentará: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publica todos los eventos pendientes y devuelve cuántos se publicaron.
+     */
+    public int drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            int published = 0;
+            for (int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+                int batch;
+                do {
+                    batch = shardExecutor.onShard(shard, false, () -> transactionTemplate.execute(status -> publishBatch()));
+                    published += batch;
+                } while (batch == batchSize);
+            }
+            if (published > 0) {
+                log.debug("Publicados {} eventos de lectura", published);
+            }
+            return published;
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private int publishBatch() {
+        List<ReadingOutboxEvent> batch = outboxRepository.findNextBatch(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        sink.publish(batch);
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (ReadingOutboxEvent event : batch) {
+            ids.add(event.getId());
+        }
+        outboxRepository.deleteAllByIdInBatch(ids);
+        if (publishedCounter != null) {
+            publishedCounter.increment(batch.size());
+        }
+        return batch.size();
+    }
+}
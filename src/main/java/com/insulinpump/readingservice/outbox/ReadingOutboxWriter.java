@@ -0,0 +1,55 @@
+package com.insulinpump.readingservice.outbox;
+
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.event.ReadingsBulkChangedEvent;
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import com.insulinpump.readingservice.repository.ReadingOutboxRepository;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Escribe cada cambio de lectura en el outbox. Es un listener síncrono: se ejecuta dentro de la
+ * transacción que guarda la lectura, así que el evento existe si y solo si el cambio se confirmó.
+ * Con sharding el evento queda en el outbox del shard de la lectura; un traslado entre shards (cambio de
+ * dispositivo o rebalanceo) deja DELETED con el ID antiguo en el origen y CREATED con el nuevo en el destino.
+ * Con readingservice.storage.engine=segment la lectura no participa en la transacción: se anexa al segmento tras el
+ * commit, por lo que un rollback no deja ni evento ni lectura, pero una caída entre el commit y el anexado deja el
+ * evento sin su lectura.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReadingOutboxWriter {
+
+    private static final String INSERT_BULK = "INSERT INTO eventos_lectura "
+            + "(type, reading_id, device_id, reading_timestamp, glucose_level, status, requires_action, created_at) "
+            + "SELECT :type, id, device_id, timestamp, %s, %s, requires_action, :createdAt "
+            + "FROM lecturas WHERE %s ORDER BY id";
+
+    private final ReadingOutboxRepository outboxRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ReadingStorageLayout storageLayout;
+
+    @EventListener
+    public void onReadingChanged(ReadingChangedEvent event) {
+        outboxRepository.save(ReadingOutboxEvent.from(event));
+    }
+
+    // Un evento por lectura afectada, como en los cambios individuales, pero con un único INSERT ... SELECT
+    @EventListener
+    public void onReadingsChanged(ReadingsBulkChangedEvent event) {
+        Map<String, Object> parameters = new HashMap<>(event.getParameters());
+        parameters.put("type", event.getType().name());
+        parameters.put("createdAt", LocalDateTime.now());
+        jdbcTemplate.update(String.format(INSERT_BULK, storageLayout.glucoseLevel("lecturas"), storageLayout.status("lecturas"),
+                event.getCondition()), parameters);
+    }
+}
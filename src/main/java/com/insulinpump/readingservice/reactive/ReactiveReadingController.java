@@ -0,0 +1,88 @@
+package com.insulinpump.readingservice.reactive;
+
+import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * API de lectura del perfil reactive, con las mismas rutas y respuestas que ReadingController. Los listados
+ * admiten application/x-ndjson: cada lectura se escribe en cuanto sale de la base de datos y el cliente marca
+ * el ritmo de la consulta.
+ */
+@RestController
+@RequestMapping("/api/readings")
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveReadingController {
+
+    private final ReactiveReadingService readingService;
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ReadingDetailsDto> getAllReadings() {
+        log.info("GET /api/readings - Obteniendo todas las lecturas");
+        return readingService.getAllReadings();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ReadingDetailsDto> getReadingById(@PathVariable Long id) {
+        log.info("GET /api/readings/{} - Obteniendo lectura por ID", id);
+        return readingService.getReadingById(id);
+    }
+
+    @GetMapping(value = "/device/{deviceId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ReadingDetailsDto> getReadingsByDeviceId(@PathVariable Long deviceId) {
+        log.info("GET /api/readings/device/{} - Obteniendo lecturas por dispositivo", deviceId);
+        return readingService.getReadingsByDeviceId(deviceId);
+    }
+
+    @GetMapping("/device/{deviceId}/latest")
+    public Mono<ReadingDetailsDto> getLatestReadingByDeviceId(@PathVariable Long deviceId) {
+        log.info("GET /api/readings/device/{}/latest - Obteniendo última lectura", deviceId);
+        return readingService.getLatestReadingByDeviceId(deviceId);
+    }
+
+    @GetMapping(value = "/device/{deviceId}/timerange", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ReadingDetailsDto> getReadingsByDeviceIdAndTimeRange(
+            @PathVariable Long deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        log.info("GET /api/readings/device/{}/timerange - Obteniendo lecturas por rango de tiempo", deviceId);
+        return readingService.getReadingsByDeviceIdAndTimeRange(deviceId, start, end);
+    }
+
+    @GetMapping("/device/{deviceId}/statistics")
+    public Mono<GlucoseStatisticsDto> getGlucoseStatisticsByDeviceId(
+            @PathVariable Long deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        log.info("GET /api/readings/device/{}/statistics - Obteniendo estadísticas de glucosa", deviceId);
+        return readingService.getGlucoseStatisticsByDeviceId(deviceId, start, end);
+    }
+
+    @GetMapping(value = "/status/{status}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ReadingDetailsDto> getReadingsByStatus(@PathVariable ReadingStatus status) {
+        log.info("GET /api/readings/status/{} - Obteniendo lecturas por estado", status);
+        return readingService.getReadingsByStatus(status);
+    }
+
+    @GetMapping(value = "/requiring-action", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ReadingDetailsDto> getReadingsRequiringAction() {
+        log.info("GET /api/readings/requiring-action - Obteniendo lecturas que requieren acción");
+        return readingService.getReadingsRequiringAction();
+    }
+}
@@ -0,0 +1,132 @@
+package com.insulinpump.readingservice.reactive;
+
+import com.insulinpump.readingservice.analytics.GlucoseAggregate;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consultas de lectura sobre R2DBC. Las filas se emiten según las pide el suscriptor. Con r2dbc-mysql y
+ * useServerPrepareStatement, las consultas con parámetros se ejecutan como sentencias preparadas en el servidor
+ * y el driver lee el cursor por bloques de fetch-size, así que una respuesta lenta frena la consulta en lugar de
+ * acumular filas en memoria; por eso todos los listados llevan algún parámetro. Las columnas salen de
+ * ReadingStorageLayout (formato estándar o compacto).
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveReadingRepository {
+
+    private final DatabaseClient databaseClient;
+    private final ReadingStorageLayout layout;
+    private final int fetchSize;
+    private final String select;
+    private final String aggregate;
+
+    public ReactiveReadingRepository(DatabaseClient databaseClient, ReadingStorageLayout layout,
+                                     @Value("${readingservice.reactive.fetch-size:500}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.layout = layout;
+        this.fetchSize = fetchSize;
+        this.select = "SELECT " + layout.selectColumns("r") + " FROM lecturas r";
+        String glucose = layout.glucoseLevel("r");
+        String status = layout.status("r");
+        this.aggregate = "SELECT COUNT(*), SUM(" + glucose + "), SUM(" + glucose + " * " + glucose + "), MIN(" + glucose + "), MAX(" + glucose + "), "
+                + "SUM(CASE WHEN " + status + " IN ('LOW', 'CRITICAL_LOW') THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + status + " IN ('HIGH', 'CRITICAL_HIGH') THEN 1 ELSE 0 END) "
+                + "FROM lecturas r WHERE r.device_id = :deviceId AND r.timestamp BETWEEN :start AND :end";
+    }
+
+    public Flux<Reading> findAll() {
+        return stream(databaseClient.sql(select + " WHERE r.id > :afterId ORDER BY r.id")
+                .bind("afterId", 0L));
+    }
+
+    public Mono<Reading> findById(Long id) {
+        return databaseClient.sql(select + " WHERE r.id = :id")
+                .bind("id", id)
+                .map(ReactiveReadingRepository::toReading)
+                .one();
+    }
+
+    public Flux<Reading> findByDeviceId(Long deviceId) {
+        return stream(databaseClient.sql(select + " WHERE r.device_id = :deviceId ORDER BY r.timestamp, r.id")
+                .bind("deviceId", deviceId));
+    }
+
+    public Flux<Reading> findByDeviceIdAndTimestampBetween(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        return stream(databaseClient.sql(select + " WHERE r.device_id = :deviceId AND r.timestamp BETWEEN :start AND :end ORDER BY r.timestamp, r.id")
+                .bind("deviceId", deviceId)
+                .bind("start", start)
+                .bind("end", end));
+    }
+
+    public Mono<Reading> findLatestByDeviceId(Long deviceId) {
+        return databaseClient.sql(select + " WHERE r.device_id = :deviceId ORDER BY r.timestamp DESC LIMIT 1")
+                .bind("deviceId", deviceId)
+                .map(ReactiveReadingRepository::toReading)
+                .one();
+    }
+
+    public Flux<Reading> findByStatus(ReadingStatus status) {
+        // r2dbc-h2 envía los String como CLOB, que no se compara con la columna ENUM; en compacto es un TINYINT
+        Object value = layout.statusValue(status);
+        String parameter = value instanceof String ? "CAST(:status AS CHAR(13))" : ":status";
+        return stream(databaseClient.sql(select + " WHERE r.status = " + parameter + " ORDER BY r.timestamp, r.id")
+                .bind("status", value));
+    }
+
+    public Flux<Reading> findByRequiresActionTrue() {
+        return stream(databaseClient.sql(select + " WHERE r.requires_action = :requiresAction ORDER BY r.timestamp, r.id")
+                .bind("requiresAction", true));
+    }
+
+    public Mono<GlucoseAggregate> aggregateByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        return databaseClient.sql(aggregate)
+                .bind("deviceId", deviceId)
+                .bind("start", start)
+                .bind("end", end)
+                .map(row -> {
+                    Object[] values = new Object[7];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = row.get(i);
+                    }
+                    return GlucoseAggregate.fromRow(values, 0);
+                })
+                .one();
+    }
+
+    private Flux<Reading> stream(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveReadingRepository::toReading)
+                .all();
+    }
+
+    private static Reading toReading(Readable row) {
+        Reading reading = new Reading();
+        reading.setId(row.get("id", Long.class));
+        reading.setTimestamp(row.get("timestamp", LocalDateTime.class));
+        reading.setDeviceId(row.get("device_id", Long.class));
+        reading.setGlucoseLevel(floatValue(row.get("glucose_level")));
+        String status = row.get("status", String.class);
+        reading.setStatus(status != null ? ReadingStatus.valueOf(status) : null);
+        reading.setInsulinDose(floatValue(row.get("insulin_dose")));
+        reading.setCarbIntake(floatValue(row.get("carb_intake")));
+        reading.setManualReading(row.get("manual_reading", Boolean.class));
+        reading.setRequiresAction(row.get("requires_action", Boolean.class));
+        reading.setNotes(row.get("notes", String.class));
+        return reading;
+    }
+
+    private static Float floatValue(Object value) {
+        return value != null ? ((Number) value).floatValue() : null;
+    }
+}
@@ -0,0 +1,158 @@
+package com.insulinpump.readingservice.reactive;
+
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.exception.DeviceNotFoundException;
+import com.insulinpump.readingservice.exception.ReadingNotFoundException;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versión no bloqueante de las consultas de ReadingService. Cada lectura se enriquece con dispositivo y paciente
+ * igual que en la API MVC, pero las llamadas a device-service y patient-service se hacen con un límite de
+ * concurrencia y se reutilizan dentro de la misma respuesta: un dispositivo se consulta una sola vez aunque
+ * tenga miles de lecturas. flatMapSequential conserva el orden de la consulta.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveReadingService {
+
+    private final ReactiveReadingRepository readingRepository;
+    private final ReactiveServiceClient serviceClient;
+    private final int enrichmentConcurrency;
+
+    public ReactiveReadingService(ReactiveReadingRepository readingRepository, ReactiveServiceClient serviceClient,
+                                  @Value("${readingservice.reactive.enrichment-concurrency:16}") int enrichmentConcurrency) {
+        this.readingRepository = readingRepository;
+        this.serviceClient = serviceClient;
+        this.enrichmentConcurrency = enrichmentConcurrency;
+    }
+
+    public Flux<ReadingDetailsDto> getAllReadings() {
+        log.info("Obteniendo todas las lecturas");
+        return enrich(readingRepository.findAll());
+    }
+
+    public Mono<ReadingDetailsDto> getReadingById(Long id) {
+        log.info("Obteniendo lectura con ID: {}", id);
+        return enrich(readingRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ReadingNotFoundException(id))))
+                .single();
+    }
+
+    public Flux<ReadingDetailsDto> getReadingsByDeviceId(Long deviceId) {
+        log.info("Obteniendo lecturas del dispositivo con ID: {}", deviceId);
+        return requireDevice(deviceId)
+                .thenMany(Flux.defer(() -> enrich(readingRepository.findByDeviceId(deviceId))));
+    }
+
+    public Flux<ReadingDetailsDto> getReadingsByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        log.info("Obteniendo lecturas del dispositivo {} entre {} y {}", deviceId, start, end);
+        return enrich(readingRepository.findByDeviceIdAndTimestampBetween(deviceId, start, end));
+    }
+
+    public Mono<ReadingDetailsDto> getLatestReadingByDeviceId(Long deviceId) {
+        log.info("Obteniendo última lectura del dispositivo: {}", deviceId);
+        return enrich(readingRepository.findLatestByDeviceId(deviceId)
+                .switchIfEmpty(Mono.error(() -> new ReadingNotFoundException("No se encontraron lecturas para el dispositivo: " + deviceId))))
+                .single();
+    }
+
+    public Mono<GlucoseStatisticsDto> getGlucoseStatisticsByDeviceId(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        log.info("Calculando estadísticas de glucosa para dispositivo {} entre {} y {}", deviceId, start, end);
+
+        // Dispositivo, paciente y agregado en paralelo: el agregado no espera a los otros servicios
+        Mono<Optional<PatientDto>> patient = serviceClient.getPatientByDeviceId(deviceId)
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    log.warn("No se pudo obtener información del paciente para el dispositivo: {}", deviceId);
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(Optional.empty());
+
+        return Mono.zip(requireDevice(deviceId), patient, readingRepository.aggregateByDeviceIdAndTimeRange(deviceId, start, end))
+                .map(result -> {
+                    if (result.getT3().isEmpty()) {
+                        throw new RuntimeException("No hay lecturas disponibles para el rango de tiempo especificado");
+                    }
+                    GlucoseStatisticsDto statistics = result.getT3().toStatistics(start, end);
+                    statistics.setDeviceId(deviceId);
+                    statistics.setDeviceSerialNo(result.getT1().getSerialNo());
+                    statistics.setPatientName(result.getT2().map(PatientDto::getName).orElse("No asignado"));
+                    return statistics;
+                });
+    }
+
+    public Flux<ReadingDetailsDto> getReadingsByStatus(ReadingStatus status) {
+        log.info("Obteniendo lecturas con estado: {}", status);
+        return enrich(readingRepository.findByStatus(status));
+    }
+
+    public Flux<ReadingDetailsDto> getReadingsRequiringAction() {
+        log.info("Obteniendo lecturas que requieren acción");
+        return enrich(readingRepository.findByRequiresActionTrue());
+    }
+
+    private Mono<DeviceDto> requireDevice(Long deviceId) {
+        return serviceClient.getDeviceById(deviceId)
+                .onErrorMap(e -> new DeviceNotFoundException(deviceId))
+                .switchIfEmpty(Mono.error(() -> new DeviceNotFoundException(deviceId)));
+    }
+
+    private Flux<ReadingDetailsDto> enrich(Flux<Reading> readings) {
+        return Flux.defer(() -> {
+            Map<Long, Mono<Enrichment>> enrichments = new ConcurrentHashMap<>();
+            return readings.flatMapSequential(reading -> enrichments
+                            .computeIfAbsent(reading.getDeviceId(), this::loadEnrichment)
+                            .map(enrichment -> enrichment.apply(reading)),
+                    enrichmentConcurrency);
+        });
+    }
+
+    private Flux<ReadingDetailsDto> enrich(Mono<Reading> reading) {
+        return enrich(reading.flux());
+    }
+
+    private Mono<Enrichment> loadEnrichment(Long deviceId) {
+        return serviceClient.getDeviceById(deviceId)
+                .flatMap(device -> device.getPatientId() == null
+                        ? Mono.just(new Enrichment(device, null))
+                        : serviceClient.getPatientById(device.getPatientId())
+                        .map(patient -> new Enrichment(device, patient))
+                        .onErrorResume(e -> {
+                            log.warn("No se pudo obtener información del paciente {}", device.getPatientId());
+                            return Mono.empty();
+                        })
+                        .defaultIfEmpty(new Enrichment(device, null)))
+                .onErrorResume(e -> {
+                    log.warn("No se pudo obtener información del dispositivo: {}", deviceId);
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(new Enrichment(null, null))
+                .cache();
+    }
+
+    private record Enrichment(DeviceDto device, PatientDto patient) {
+
+        ReadingDetailsDto apply(Reading reading) {
+            ReadingDetailsDto dto = new ReadingDetailsDto(reading);
+            dto.setDevice(device);
+            dto.setPatient(patient);
+            return dto;
+        }
+    }
+}
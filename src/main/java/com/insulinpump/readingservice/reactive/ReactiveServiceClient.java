@@ -0,0 +1,69 @@
+package com.insulinpump.readingservice.reactive;
+
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Equivalente no bloqueante de DeviceClient y PatientClient para la API reactiva: las mismas rutas a través de
+ * Eureka, sin ocupar un hilo mientras responde el otro servicio. Los pacientes pasan por PatientDeviceDirectory,
+ * igual que en la API MVC.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveServiceClient {
+
+    private final WebClient deviceService;
+    private final WebClient patientService;
+    private final PatientDeviceDirectory patientDeviceDirectory;
+    private final Duration timeout;
+
+    public ReactiveServiceClient(@LoadBalanced WebClient.Builder webClientBuilder, PatientDeviceDirectory patientDeviceDirectory,
+                                 @Value("${readingservice.reactive.client-timeout:5s}") Duration timeout) {
+        this.deviceService = webClientBuilder.clone().baseUrl("http://device-service").build();
+        this.patientService = webClientBuilder.clone().baseUrl("http://patient-service").build();
+        this.patientDeviceDirectory = patientDeviceDirectory;
+        this.timeout = timeout;
+    }
+
+    public Mono<DeviceDto> getDeviceById(Long id) {
+        return deviceService.get().uri("/api/devices/{id}", id)
+                .retrieve()
+                .bodyToMono(DeviceDto.class)
+                .timeout(timeout);
+    }
+
+    public Mono<PatientDto> getPatientById(Long id) {
+        return patientDeviceDirectory.findByPatient(id)
+                .map(PatientDeviceDirectory.Assignment::patient)
+                .filter(Objects::nonNull)
+                .map(Mono::just)
+                .orElseGet(() -> record(patientService.get().uri("/api/patients/{id}", id)));
+    }
+
+    public Mono<PatientDto> getPatientByDeviceId(Long deviceId) {
+        return patientDeviceDirectory.findByDevice(deviceId)
+                .map(PatientDeviceDirectory.Assignment::patient)
+                .filter(Objects::nonNull)
+                .map(Mono::just)
+                .orElseGet(() -> record(patientService.get().uri("/api/patients/device/{deviceId}", deviceId)));
+    }
+
+    private Mono<PatientDto> record(WebClient.RequestHeadersSpec<?> request) {
+        LocalDateTime observedAt = LocalDateTime.now();
+        return request.retrieve()
+                .bodyToMono(PatientDto.class)
+                .timeout(timeout)
+                .doOnNext(patient -> patientDeviceDirectory.record(patient, observedAt));
+    }
+}
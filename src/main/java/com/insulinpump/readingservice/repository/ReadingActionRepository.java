@@ -0,0 +1,14 @@
+package com.insulinpump.readingservice.repository;
+
+import com.insulinpump.readingservice.model.ActionState;
+import com.insulinpump.readingservice.model.ReadingAction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReadingActionRepository extends JpaRepository<ReadingAction, Long> {
+    List<ReadingAction> findByStateNot(ActionState state);
+    List<ReadingAction> findByReadingIdAndStateNot(Long readingId, ActionState state);
+}
@@ -0,0 +1,18 @@
+package com.insulinpump.readingservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Agregados de glucosa que se calculan en la base de datos. Van en SQL con las expresiones de
+ * ReadingStorageLayout: en el formato compacto JPA no aplica el conversor a AVG ni a SUM, que devolverían
+ * décimas y desbordarían el SMALLINT al sumar cuadrados.
+ */
+public interface ReadingAggregateRepository {
+
+    Float findAverageGlucoseLevelByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end);
+
+    // Una fila por dispositivo: [deviceId, count, sum, sumOfSquares, min, max, low, high] (ver GlucoseAggregate)
+    List<Object[]> aggregateGlucoseByDeviceIdsAndTimeRange(Collection<Long> deviceIds, LocalDateTime start, LocalDateTime end);
+}
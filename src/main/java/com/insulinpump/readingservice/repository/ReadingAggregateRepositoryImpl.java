@@ -0,0 +1,50 @@
+package com.insulinpump.readingservice.repository;
+
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Fragmento de ReadingRepository: Spring Data lo localiza por el sufijo Impl
+class ReadingAggregateRepositoryImpl implements ReadingAggregateRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String average;
+    private final String aggregate;
+
+    ReadingAggregateRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate, ReadingStorageLayout layout) {
+        this.jdbcTemplate = jdbcTemplate;
+        String glucose = layout.glucoseLevel("r");
+        String status = layout.status("r");
+        this.average = "SELECT AVG(" + glucose + ") FROM lecturas r "
+                + "WHERE r.device_id = :deviceId AND r.timestamp BETWEEN :start AND :end";
+        this.aggregate = "SELECT r.device_id, COUNT(*), SUM(" + glucose + "), SUM(" + glucose + " * " + glucose + "), "
+                + "MIN(" + glucose + "), MAX(" + glucose + "), "
+                + "SUM(CASE WHEN " + status + " IN ('LOW', 'CRITICAL_LOW') THEN 1 ELSE 0 END), "
+                + "SUM(CASE WHEN " + status + " IN ('HIGH', 'CRITICAL_HIGH') THEN 1 ELSE 0 END) "
+                + "FROM lecturas r WHERE r.device_id IN (:deviceIds) AND r.timestamp BETWEEN :start AND :end GROUP BY r.device_id";
+    }
+
+    @Override
+    public Float findAverageGlucoseLevelByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        Number average = jdbcTemplate.queryForObject(this.average, new MapSqlParameterSource("deviceId", deviceId)
+                .addValue("start", start)
+                .addValue("end", end), Number.class);
+        return average != null ? average.floatValue() : null;
+    }
+
+    @Override
+    public List<Object[]> aggregateGlucoseByDeviceIdsAndTimeRange(Collection<Long> deviceIds, LocalDateTime start, LocalDateTime end) {
+        if (deviceIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(aggregate, new MapSqlParameterSource("deviceIds", deviceIds)
+                .addValue("start", start)
+                .addValue("end", end), (rs, rowNum) -> new Object[]{
+                rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getFloat(5), rs.getFloat(6),
+                rs.getLong(7), rs.getLong(8)});
+    }
+}
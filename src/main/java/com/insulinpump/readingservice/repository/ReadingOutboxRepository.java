@@ -0,0 +1,20 @@
+package com.insulinpump.readingservice.repository;
+
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReadingOutboxRepository extends JpaRepository<ReadingOutboxEvent, Long> {
+
+    // Bloquea el lote para que dos instancias no publiquen los mismos eventos ni los desordenen
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM ReadingOutboxEvent e ORDER BY e.id")
+    List<ReadingOutboxEvent> findNextBatch(Pageable pageable);
+}
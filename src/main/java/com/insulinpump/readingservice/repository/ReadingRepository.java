@@ -8,28 +8,46 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ReadingRepository extends JpaRepository<Reading, Long> {
+public interface ReadingRepository extends JpaRepository<Reading, Long>, ReadingStore, ReadingAggregateRepository {
+    // Declarados en JpaRepository y en ReadingStore: se repiten para que la llamada no sea ambigua
+    @Override
+    <S extends Reading> S save(S entity);
+
+    @Override
+    <S extends Reading> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    Optional<Reading> findById(Long id);
+
+    @Override
+    boolean existsById(Long id);
+
+    @Override
+    List<Reading> findAll();
+
+    @Override
+    void delete(Reading entity);
+
     List<Reading> findByDeviceId(Long deviceId);
     List<Reading> findByDeviceIdAndTimestampBetween(Long deviceId, LocalDateTime start, LocalDateTime end);
     List<Reading> findByDeviceIdAndStatus(Long deviceId, ReadingStatus status);
     List<Reading> findByDeviceIdOrderByTimestampDesc(Long deviceId);
     List<Reading> findByStatus(ReadingStatus status);
     List<Reading> findByRequiresActionTrue();
+    List<Reading> findByDeviceIdInAndTimestampBetweenOrderByTimestampAscIdAsc(Collection<Long> deviceIds, LocalDateTime start, LocalDateTime end);
 
     @Query("SELECT r FROM Reading r WHERE r.deviceId = :deviceId ORDER BY r.timestamp DESC LIMIT 1")
     Optional<Reading> findLatestByDeviceId(@Param("deviceId") Long deviceId);
 
-    @Query("SELECT AVG(r.glucoseLevel) FROM Reading r WHERE r.deviceId = :deviceId AND r.timestamp BETWEEN :start AND :end")
-    Float findAverageGlucoseLevelByDeviceIdAndTimeRange(@Param("deviceId") Long deviceId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("SELECT COUNT(r) FROM Reading r WHERE r.deviceId = :deviceId AND r.status IN ('LOW', 'CRITICAL_LOW') AND r.timestamp BETWEEN :start AND :end")
+    @Query("SELECT COUNT(r) FROM Reading r WHERE r.deviceId = :deviceId AND r.status IN (com.insulinpump.readingservice.model.ReadingStatus.LOW, com.insulinpump.readingservice.model.ReadingStatus.CRITICAL_LOW) AND r.timestamp BETWEEN :start AND :end")
     Long countLowReadingsByDeviceIdAndTimeRange(@Param("deviceId") Long deviceId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    @Query("SELECT COUNT(r) FROM Reading r WHERE r.deviceId = :deviceId AND r.status IN ('HIGH', 'CRITICAL_HIGH') AND r.timestamp BETWEEN :start AND :end")
+    @Query("SELECT COUNT(r) FROM Reading r WHERE r.deviceId = :deviceId AND r.status IN (com.insulinpump.readingservice.model.ReadingStatus.HIGH, com.insulinpump.readingservice.model.ReadingStatus.CRITICAL_HIGH) AND r.timestamp BETWEEN :start AND :end")
     Long countHighReadingsByDeviceIdAndTimeRange(@Param("deviceId") Long deviceId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     @Query("SELECT MIN(r.glucoseLevel) FROM Reading r WHERE r.deviceId = :deviceId AND r.timestamp BETWEEN :start AND :end")
@@ -37,4 +55,21 @@ public interface ReadingRepository extends JpaRepository<Reading, Long> {
 
     @Query("SELECT MAX(r.glucoseLevel) FROM Reading r WHERE r.deviceId = :deviceId AND r.timestamp BETWEEN :start AND :end")
     Float findMaxGlucoseLevelByDeviceIdAndTimeRange(@Param("deviceId") Long deviceId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-}
\ No newline at end of file
+
+    @Query("SELECT DISTINCT r.deviceId FROM Reading r WHERE r.timestamp BETWEEN :start AND :end")
+    List<Long> findDeviceIdsWithReadingsBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Conciliación de los contadores por estado
+    @Query("SELECT r.deviceId, r.status, COUNT(r), SUM(CASE WHEN r.requiresAction = true THEN 1 ELSE 0 END) FROM Reading r GROUP BY r.deviceId, r.status")
+    List<Object[]> countByDeviceIdAndStatus();
+
+    // Una fila por minuto y estado: [año, mes, día, hora, minuto, estado, count]
+    @Query("SELECT YEAR(r.timestamp), MONTH(r.timestamp), DAY(r.timestamp), HOUR(r.timestamp), MINUTE(r.timestamp), r.status, COUNT(r) " +
+            "FROM Reading r WHERE r.timestamp >= :since " +
+            "GROUP BY YEAR(r.timestamp), MONTH(r.timestamp), DAY(r.timestamp), HOUR(r.timestamp), MINUTE(r.timestamp), r.status")
+    List<Object[]> countByMinuteAndStatusSince(@Param("since") LocalDateTime since);
+
+    // Última lectura de cada dispositivo activo, para cargar el registro de actividad al arrancar
+    @Query("SELECT r.deviceId, MAX(r.timestamp) FROM Reading r WHERE r.timestamp >= :since GROUP BY r.deviceId")
+    List<Object[]> findLastTimestampByDeviceSince(@Param("since") LocalDateTime since);
+}
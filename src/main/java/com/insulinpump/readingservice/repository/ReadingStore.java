@@ -0,0 +1,64 @@
+package com.insulinpump.readingservice.repository;
+
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Operaciones sobre las lecturas que usan los servicios, independientes del motor de almacenamiento:
+ * ReadingRepository (JPA, tabla lecturas) o SegmentReadingRepository (readingservice.storage.engine=segment).
+ * Las funciones que necesitan SQL sobre la tabla lecturas usan ReadingRepository o JDBC y solo existen con JPA.
+ */
+public interface ReadingStore extends ReadingAggregateRepository {
+
+    <S extends Reading> S save(S entity);
+
+    <S extends Reading> List<S> saveAll(Iterable<S> entities);
+
+    Optional<Reading> findById(Long id);
+
+    boolean existsById(Long id);
+
+    // Clave natural de una lectura: la usa la reproducción del diario de ingesta para no duplicarla
+    boolean existsByDeviceIdAndTimestamp(Long deviceId, LocalDateTime timestamp);
+
+    List<Reading> findAll();
+
+    void delete(Reading entity);
+
+    List<Reading> findByDeviceId(Long deviceId);
+
+    List<Reading> findByDeviceIdAndTimestampBetween(Long deviceId, LocalDateTime start, LocalDateTime end);
+
+    List<Reading> findByStatus(ReadingStatus status);
+
+    List<Reading> findByRequiresActionTrue();
+
+    // Ordenadas por timestamp e id
+    List<Reading> findByDeviceIdInAndTimestampBetweenOrderByTimestampAscIdAsc(Collection<Long> deviceIds, LocalDateTime start, LocalDateTime end);
+
+    Optional<Reading> findLatestByDeviceId(Long deviceId);
+
+    Long countLowReadingsByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end);
+
+    Long countHighReadingsByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end);
+
+    Float findMinGlucoseLevelByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end);
+
+    Float findMaxGlucoseLevelByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end);
+
+    List<Long> findDeviceIdsWithReadingsBetween(LocalDateTime start, LocalDateTime end);
+
+    // Una fila por dispositivo y estado: [deviceId, estado, count, requiresAction]
+    List<Object[]> countByDeviceIdAndStatus();
+
+    // Una fila por minuto y estado: [año, mes, día, hora, minuto, estado, count]
+    List<Object[]> countByMinuteAndStatusSince(LocalDateTime since);
+
+    // Última lectura de cada dispositivo activo: [deviceId, timestamp]
+    List<Object[]> findLastTimestampByDeviceSince(LocalDateTime since);
+}
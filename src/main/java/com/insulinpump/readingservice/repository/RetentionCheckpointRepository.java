@@ -0,0 +1,9 @@
+package com.insulinpump.readingservice.repository;
+
+import com.insulinpump.readingservice.model.RetentionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RetentionCheckpointRepository extends JpaRepository<RetentionCheckpoint, String> {
+}
@@ -0,0 +1,265 @@
+package com.insulinpump.readingservice.retention;
+
+import com.insulinpump.readingservice.counters.ReadingStatusCounters;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.event.ReadingsBulkChangedEvent;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.model.RetentionCheckpoint;
+import com.insulinpump.readingservice.repository.RetentionCheckpointRepository;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Borra las lecturas más antiguas que readingservice.retention.max-age.
+ *
+ * Recorre la tabla por ID en bloques pequeños y borra cada bloque en su propia transacción corta, de modo
+ * que nunca mantiene bloqueos largos. El tamaño del bloque y la pausa entre bloques se ajustan según la
+ * latencia medida del borrado. El último ID revisado se guarda con cada bloque, así que una pasada
+ * interrumpida continúa donde se quedó.
+ *
+ * La lectura más reciente de cada dispositivo nunca se borra, para que el endpoint de última lectura
+ * siga respondiendo aunque el dispositivo lleve tiempo sin enviar datos.
+ *
+ * Cada bloque publica un ReadingsBulkChangedEvent de borrado, igual que el borrado masivo: el outbox, la cola
+ * de acciones, los contadores y las versiones por dispositivo se enteran de las lecturas purgadas.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.retention", name = "enabled", havingValue = "true")
+@Slf4j
+public class ReadingRetentionJob {
+
+    private static final String CHECKPOINT_PREFIX = "lecturas-shard-";
+
+    private static final String SELECT_CHUNK = "SELECT id, device_id, %s AS status, requires_action FROM lecturas "
+            + "WHERE id > ? AND timestamp < ? ORDER BY id LIMIT ?";
+
+    private static final String SELECT_LATEST = "SELECT r.id FROM lecturas r "
+            + "WHERE r.device_id IN (:devices) AND r.timestamp = "
+            + "(SELECT MAX(l.timestamp) FROM lecturas l WHERE l.device_id = r.device_id) AND r.timestamp < :cutoff";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final RetentionCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardExecutor shardExecutor;
+    private final ReadingStorageLayout storageLayout;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter deletedCounter;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Duration maxAge;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final Duration targetLatency;
+    private final Duration maxRunTime;
+
+    public ReadingRetentionJob(JdbcTemplate jdbcTemplate,
+                               RetentionCheckpointRepository checkpointRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               ShardExecutor shardExecutor,
+                               ReadingStorageLayout storageLayout,
+                               PlatformTransactionManager transactionManager,
+                               ObjectProvider<MeterRegistry> meterRegistry,
+                               @Value("${readingservice.retention.max-age:365d}") Duration maxAge,
+                               @Value("${readingservice.retention.min-chunk-size:100}") int minChunkSize,
+                               @Value("${readingservice.retention.max-chunk-size:2000}") int maxChunkSize,
+                               @Value("${readingservice.retention.target-latency:100ms}") Duration targetLatency,
+                               @Value("${readingservice.retention.max-run-time:1h}") Duration maxRunTime) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.checkpointRepository = checkpointRepository;
+        this.eventPublisher = eventPublisher;
+        this.shardExecutor = shardExecutor;
+        this.storageLayout = storageLayout;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.deletedCounter = registry != null
+                ? Counter.builder("readingservice.retention.deleted").description("Lecturas borradas por retención").register(registry)
+                : null;
+        this.maxAge = maxAge;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.targetLatency = targetLatency;
+        this.maxRunTime = maxRunTime;
+    }
+
+    @Scheduled(cron = "${readingservice.retention.cron:0 30 3 * * *}")
+    public void scheduledPurge() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.error("Error en la purga de lecturas antiguas, se continuará en la siguiente ejecución: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ejecuta una pasada de purga y devuelve cuántas lecturas se borraron.
+     */
+    public long purge() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Ya hay una purga de lecturas en curso");
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+            long deadline = System.nanoTime() + maxRunTime.toNanos();
+            log.info("Iniciando purga de lecturas anteriores a {}", cutoff);
+
+            long deleted = 0;
+            for (int shard = 0; shard < shardExecutor.getShardCount() && System.nanoTime() < deadline; shard++) {
+                deleted += purgeShard(shard, cutoff, deadline);
+            }
+            log.info("Purga finalizada: {} lecturas borradas", deleted);
+            return deleted;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long purgeShard(int shard, LocalDateTime cutoff, long deadline) {
+        String name = CHECKPOINT_PREFIX + shard;
+        RetentionCheckpoint checkpoint = inTransaction(shard, () -> checkpointRepository.findById(name)
+                .orElseGet(() -> new RetentionCheckpoint(name, 0L, 0L, null, null)));
+        if (checkpoint.getLastId() > 0) {
+            log.info("Reanudando purga del shard {} desde el ID {}", shard, checkpoint.getLastId());
+        } else {
+            checkpoint.setDeletedInRun(0L);
+            checkpoint.setRunStartedAt(LocalDateTime.now());
+        }
+
+        long deleted = 0;
+        int chunkSize = minChunkSize;
+        while (System.nanoTime() < deadline) {
+            int size = chunkSize;
+            long started = System.nanoTime();
+            ChunkResult result = inTransaction(shard, () -> purgeChunk(checkpoint, cutoff, size));
+            long elapsed = System.nanoTime() - started;
+
+            deleted += result.deleted();
+            if (result.scanned() < size) {
+                break;
+            }
+            chunkSize = adjustChunkSize(size, elapsed);
+            pause(elapsed);
+        }
+        return deleted;
+    }
+
+    /**
+     * Revisa un bloque de hasta chunkSize lecturas antiguas y borra las que no sean la última de su dispositivo.
+     */
+    private ChunkResult purgeChunk(RetentionCheckpoint checkpoint, LocalDateTime cutoff, int chunkSize) {
+        List<Candidate> candidates = jdbcTemplate.query(String.format(SELECT_CHUNK, storageLayout.status("lecturas")),
+                (rs, rowNum) -> new Candidate(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getBoolean(4)),
+                checkpoint.getLastId(), Timestamp.valueOf(cutoff), chunkSize);
+
+        int deleted = 0;
+        if (!candidates.isEmpty()) {
+            Set<Long> devices = new HashSet<>();
+            for (Candidate candidate : candidates) {
+                devices.add(candidate.deviceId());
+            }
+            Set<Long> protectedIds = new HashSet<>(namedJdbcTemplate.queryForList(SELECT_LATEST,
+                    Map.of("devices", devices, "cutoff", Timestamp.valueOf(cutoff)), Long.class));
+
+            List<Long> ids = new ArrayList<>(candidates.size());
+            Map<Long, long[]> deltas = new HashMap<>();
+            for (Candidate candidate : candidates) {
+                if (!protectedIds.contains(candidate.id())) {
+                    ids.add(candidate.id());
+                    candidate.subtractFrom(deltas.computeIfAbsent(candidate.deviceId(),
+                            id -> new long[ReadingStatusCounters.REQUIRING_ACTION + 1]));
+                }
+            }
+            if (!ids.isEmpty()) {
+                // Antes del DELETE, como en el borrado masivo: los listeners leen todavía las filas
+                Map<String, Object> parameters = Map.of("ids", ids);
+                eventPublisher.publishEvent(new ReadingsBulkChangedEvent(ReadingChangedEvent.Type.DELETED,
+                        "id IN (:ids)", parameters, deltas));
+                if (storageLayout.isCompact()) {
+                    namedJdbcTemplate.update(storageLayout.deleteNotes("id IN (:ids)"), parameters);
+                }
+                deleted = namedJdbcTemplate.update("DELETE FROM lecturas WHERE id IN (:ids)", parameters);
+            }
+        }
+
+        boolean finished = candidates.size() < chunkSize;
+        checkpoint.setLastId(finished ? 0L : candidates.get(candidates.size() - 1).id());
+        checkpoint.setDeletedInRun(checkpoint.getDeletedInRun() + deleted);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        if (finished) {
+            log.info("Pasada de purga completada en {}: {} lecturas borradas", checkpoint.getName(), checkpoint.getDeletedInRun());
+        }
+        if (deletedCounter != null) {
+            deletedCounter.increment(deleted);
+        }
+        return new ChunkResult(candidates.size(), deleted);
+    }
+
+    // Crece un 25% mientras el borrado va por debajo de la latencia objetivo y se reduce a la mitad si la supera
+    private int adjustChunkSize(int chunkSize, long elapsedNanos) {
+        if (elapsedNanos > targetLatency.toNanos()) {
+            return Math.max(minChunkSize, chunkSize / 2);
+        }
+        return Math.min(maxChunkSize, chunkSize + Math.max(1, chunkSize / 4));
+    }
+
+    // Si el bloque tardó más de lo previsto, deja respirar a la base de datos en proporción al exceso
+    private void pause(long elapsedNanos) {
+        long excess = elapsedNanos - targetLatency.toNanos();
+        if (excess <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Math.min(Duration.ofNanos(excess * 2).toMillis(), 5_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Purga de lecturas interrumpida", e);
+        }
+    }
+
+    private <T> T inTransaction(int shard, Supplier<T> work) {
+        return shardExecutor.onShard(shard, false, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    private record ChunkResult(int scanned, int deleted) {
+    }
+
+    private record Candidate(long id, long deviceId, String status, boolean requiresAction) {
+
+        void subtractFrom(long[] delta) {
+            if (status != null) {
+                delta[ReadingStatus.valueOf(status).ordinal()]--;
+            }
+            if (requiresAction) {
+                delta[ReadingStatusCounters.REQUIRING_ACTION]--;
+            }
+        }
+    }
+}
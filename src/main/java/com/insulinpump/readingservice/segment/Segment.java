@@ -0,0 +1,226 @@
+package com.insulinpump.readingservice.segment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Fichero de segmento de un dispositivo: registros de solo anexado sobre un fichero proyectado en memoria.
+ *
+ * El índice temporal es disperso: por cada bloque de BLOCK_RECORDS registros guarda su posición y el timestamp
+ * mínimo y máximo, así que admite lecturas fuera de orden y un recorrido por rango salta los bloques que no
+ * solapan. Se reconstruye al abrir el segmento. Lo protege el bloqueo del DeviceLog al que pertenece.
+ */
+final class Segment {
+
+    static final int BLOCK_RECORDS = 64;
+
+    final int id;
+    final long deviceId;
+    final Path path;
+    final AtomicInteger deadRecords = new AtomicInteger();
+
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private int records;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private int[] blockOffsets = new int[4];
+    private long[] blockMin = new long[4];
+    private long[] blockMax = new long[4];
+    private int blocks;
+    private boolean dirty;
+
+    private Segment(int id, long deviceId, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.deviceId = deviceId;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    static Segment create(int id, long deviceId, Path path, int size) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(id, deviceId, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el segmento " + path, e);
+        }
+    }
+
+    /**
+     * Abre un segmento existente y recorre sus registros hasta el primero incompleto o corrupto (escritura
+     * interrumpida), que marca el final. El resto del fichero se descarta y el segmento queda sellado.
+     */
+    static Segment recover(int id, long deviceId, Path path, RecordVisitor visitor) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Segment segment = new Segment(id, deviceId, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            SegmentRecord record = new SegmentRecord();
+            int position = 0;
+            while (segment.isValidRecord(position)) {
+                record.at(segment.buffer, position);
+                segment.indexRecord(position, record.timestampNanos());
+                visitor.visit(segment, position, record);
+                position += record.length();
+            }
+            segment.writePosition = position;
+            segment.seal(channel);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el segmento " + path, e);
+        }
+    }
+
+    private boolean isValidRecord(int position) {
+        if (position + SegmentRecord.HEADER_SIZE > buffer.capacity()) {
+            return false;
+        }
+        int length = buffer.getInt(position);
+        if (length < SegmentRecord.HEADER_SIZE || position + length > buffer.capacity()) {
+            return false;
+        }
+        return buffer.getInt(position + 4) == crc(buffer, position, length);
+    }
+
+    private static int crc(ByteBuffer buffer, int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + 8, length - 8));
+        return (int) crc.getValue();
+    }
+
+    boolean hasRoom(int length) {
+        return buffer.capacity() - writePosition >= length;
+    }
+
+    /**
+     * Escribe el registro y devuelve su posición. La longitud se escribe la última: hasta entonces el registro
+     * no existe para una recuperación.
+     */
+    int append(byte[] record, long timestampNanos) {
+        int position = writePosition;
+        buffer.put(position + 4, record, 4, record.length - 4);
+        buffer.putInt(position + 4, crc(ByteBuffer.wrap(record), 0, record.length));
+        buffer.putInt(position, record.length);
+        writePosition += record.length;
+        indexRecord(position, timestampNanos);
+        dirty = true;
+        return position;
+    }
+
+    /**
+     * Copia un registro ya escrito en otro segmento (compactación), conservando su secuencia.
+     */
+    int copyFrom(Segment source, int sourcePosition, int length, long timestampNanos) {
+        int position = writePosition;
+        buffer.put(position, source.buffer, sourcePosition, length);
+        writePosition += length;
+        indexRecord(position, timestampNanos);
+        dirty = true;
+        return position;
+    }
+
+    private void indexRecord(int position, long timestampNanos) {
+        if (records % BLOCK_RECORDS == 0) {
+            if (blocks == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                blockMin = Arrays.copyOf(blockMin, blocks * 2);
+                blockMax = Arrays.copyOf(blockMax, blocks * 2);
+            }
+            blockOffsets[blocks] = position;
+            blockMin[blocks] = Long.MAX_VALUE;
+            blockMax[blocks] = Long.MIN_VALUE;
+            blocks++;
+        }
+        blockMin[blocks - 1] = Math.min(blockMin[blocks - 1], timestampNanos);
+        blockMax[blocks - 1] = Math.max(blockMax[blocks - 1], timestampNanos);
+        minTimestamp = Math.min(minTimestamp, timestampNanos);
+        maxTimestamp = Math.max(maxTimestamp, timestampNanos);
+        records++;
+    }
+
+    /**
+     * Recorre los registros con timestamp en [from, to], saltando los bloques del índice que no solapan.
+     */
+    void scan(long from, long to, SegmentRecord record, RecordVisitor visitor) {
+        if (records == 0 || maxTimestamp < from || minTimestamp > to) {
+            return;
+        }
+        for (int block = 0; block < blocks; block++) {
+            if (blockMax[block] < from || blockMin[block] > to) {
+                continue;
+            }
+            int position = blockOffsets[block];
+            int end = block + 1 < blocks ? blockOffsets[block + 1] : writePosition;
+            while (position < end) {
+                record.at(buffer, position);
+                long timestamp = record.timestampNanos();
+                if (timestamp >= from && timestamp <= to) {
+                    visitor.visit(this, position, record);
+                }
+                position += record.length();
+            }
+        }
+    }
+
+    SegmentRecord read(int position, SegmentRecord record) {
+        return record.at(buffer, position);
+    }
+
+    void force() {
+        if (dirty) {
+            buffer.force(0, writePosition);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Fuerza a disco y recorta el fichero a los datos escritos: el segmento ya no admite más registros.
+     */
+    void seal() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            seal(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo sellar el segmento " + path, e);
+        }
+    }
+
+    private void seal(FileChannel channel) throws IOException {
+        buffer.force(0, writePosition);
+        dirty = false;
+        if (channel.size() != writePosition) {
+            channel.truncate(writePosition);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+        }
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar el segmento " + path, e);
+        }
+    }
+
+    int records() {
+        return records;
+    }
+
+    int size() {
+        return writePosition;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(Segment segment, int position, SegmentRecord record);
+    }
+}
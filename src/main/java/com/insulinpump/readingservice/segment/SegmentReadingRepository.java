@@ -0,0 +1,308 @@
+package com.insulinpump.readingservice.segment;
+
+import com.insulinpump.readingservice.analytics.GlucoseAggregate;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.ReadingStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * ReadingStore sobre SegmentReadingStore, con las mismas filas que las consultas de ReadingRepository.
+ * Los agregados se calculan recorriendo los buffers proyectados sin construir lecturas.
+ *
+ * Los segmentos no son transaccionales. Dentro de una transacción, save() asigna el id en el momento y guarda una
+ * copia de la lectura, pero el registro se anexa al segmento tras el commit, igual que los borrados: si la
+ * transacción se deshace (por ejemplo, al fallar el outbox) no queda nada en el segmento y el reintento de la
+ * bomba no la duplica. A cambio, la propia transacción no ve sus escrituras, y si el proceso cae entre el commit y
+ * el anexado la lectura se pierde aunque su evento esté en el outbox. Sin transacción se escribe en el momento.
+ */
+@RequiredArgsConstructor
+public class SegmentReadingRepository implements ReadingStore {
+
+    private static final Comparator<Reading> TIMESTAMP_ORDER = Comparator.comparing(Reading::getTimestamp)
+            .thenComparing(Reading::getId);
+
+    private static final ReadingStatus[] STATUSES = ReadingStatus.values();
+
+    private final SegmentReadingStore store;
+
+    // Consultas de la interfaz
+
+    @Override
+    public List<Reading> findByDeviceId(Long deviceId) {
+        return collect(deviceId, Long.MIN_VALUE, Long.MAX_VALUE, record -> true);
+    }
+
+    @Override
+    public List<Reading> findByDeviceIdAndTimestampBetween(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        return collect(deviceId, SegmentRecord.toNanos(start), SegmentRecord.toNanos(end), record -> true);
+    }
+
+    @Override
+    public List<Reading> findByStatus(ReadingStatus status) {
+        return collectAll(record -> record.status() == status);
+    }
+
+    @Override
+    public List<Reading> findByRequiresActionTrue() {
+        return collectAll(SegmentRecord::requiresAction);
+    }
+
+    @Override
+    public List<Reading> findByDeviceIdInAndTimestampBetweenOrderByTimestampAscIdAsc(Collection<Long> deviceIds, LocalDateTime start, LocalDateTime end) {
+        List<Reading> readings = new ArrayList<>();
+        for (Long deviceId : new LinkedHashSet<>(deviceIds)) {
+            store.scan(deviceId, SegmentRecord.toNanos(start), SegmentRecord.toNanos(end), record -> readings.add(record.toReading()));
+        }
+        readings.sort(TIMESTAMP_ORDER);
+        return readings;
+    }
+
+    @Override
+    public Optional<Reading> findLatestByDeviceId(Long deviceId) {
+        return store.latest(deviceId);
+    }
+
+    @Override
+    public Float findAverageGlucoseLevelByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        GlucoseAggregate aggregate = aggregate(deviceId, start, end);
+        return aggregate.isEmpty() ? null : aggregate.getAverage();
+    }
+
+    @Override
+    public Long countLowReadingsByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        return aggregate(deviceId, start, end).getLowCount();
+    }
+
+    @Override
+    public Long countHighReadingsByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        return aggregate(deviceId, start, end).getHighCount();
+    }
+
+    @Override
+    public Float findMinGlucoseLevelByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        GlucoseAggregate aggregate = aggregate(deviceId, start, end);
+        return aggregate.isEmpty() ? null : aggregate.getMin();
+    }
+
+    @Override
+    public Float findMaxGlucoseLevelByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        GlucoseAggregate aggregate = aggregate(deviceId, start, end);
+        return aggregate.isEmpty() ? null : aggregate.getMax();
+    }
+
+    @Override
+    public List<Object[]> aggregateGlucoseByDeviceIdsAndTimeRange(Collection<Long> deviceIds, LocalDateTime start, LocalDateTime end) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long deviceId : new LinkedHashSet<>(deviceIds)) {
+            GlucoseAggregate aggregate = aggregate(deviceId, start, end);
+            if (!aggregate.isEmpty()) {
+                rows.add(new Object[]{deviceId, aggregate.getCount(), aggregate.getSum(), aggregate.getSumOfSquares(),
+                        aggregate.getMin(), aggregate.getMax(), aggregate.getLowCount(), aggregate.getHighCount()});
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Long> findDeviceIdsWithReadingsBetween(LocalDateTime start, LocalDateTime end) {
+        long from = SegmentRecord.toNanos(start);
+        long to = SegmentRecord.toNanos(end);
+        List<Long> deviceIds = new ArrayList<>();
+        for (Long deviceId : store.deviceIds()) {
+            boolean[] found = new boolean[1];
+            store.scan(deviceId, from, to, record -> found[0] = true);
+            if (found[0]) {
+                deviceIds.add(deviceId);
+            }
+        }
+        return deviceIds;
+    }
+
+    @Override
+    public List<Object[]> countByDeviceIdAndStatus() {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long deviceId : store.deviceIds()) {
+            long[] counts = new long[STATUSES.length];
+            long[] requiringAction = new long[STATUSES.length];
+            store.scan(deviceId, Long.MIN_VALUE, Long.MAX_VALUE, record -> {
+                ReadingStatus status = record.status();
+                if (status != null) {
+                    counts[status.ordinal()]++;
+                    if (record.requiresAction()) {
+                        requiringAction[status.ordinal()]++;
+                    }
+                }
+            });
+            for (ReadingStatus status : STATUSES) {
+                if (counts[status.ordinal()] > 0) {
+                    rows.add(new Object[]{deviceId, status, counts[status.ordinal()], requiringAction[status.ordinal()]});
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Object[]> countByMinuteAndStatusSince(LocalDateTime since) {
+        Map<LocalDateTime, long[]> counts = new TreeMap<>();
+        store.scanAll(SegmentRecord.toNanos(since), Long.MAX_VALUE, record -> {
+            if (record.status() != null) {
+                LocalDateTime minute = SegmentRecord.fromNanos(record.timestampNanos()).truncatedTo(ChronoUnit.MINUTES);
+                counts.computeIfAbsent(minute, m -> new long[STATUSES.length])[record.status().ordinal()]++;
+            }
+        });
+        List<Object[]> rows = new ArrayList<>();
+        counts.forEach((minute, byStatus) -> {
+            for (ReadingStatus status : STATUSES) {
+                if (byStatus[status.ordinal()] > 0) {
+                    rows.add(new Object[]{minute.getYear(), minute.getMonthValue(), minute.getDayOfMonth(), minute.getHour(),
+                            minute.getMinute(), status, byStatus[status.ordinal()]});
+                }
+            }
+        });
+        return rows;
+    }
+
+    @Override
+    public List<Object[]> findLastTimestampByDeviceSince(LocalDateTime since) {
+        long from = SegmentRecord.toNanos(since);
+        List<Object[]> rows = new ArrayList<>();
+        for (Long deviceId : store.deviceIds()) {
+            long[] last = {Long.MIN_VALUE};
+            store.scan(deviceId, from, Long.MAX_VALUE, record -> last[0] = Math.max(last[0], record.timestampNanos()));
+            if (last[0] != Long.MIN_VALUE) {
+                rows.add(new Object[]{deviceId, SegmentRecord.fromNanos(last[0])});
+            }
+        }
+        return rows;
+    }
+
+    private GlucoseAggregate aggregate(Long deviceId, LocalDateTime start, LocalDateTime end) {
+        GlucoseAggregate aggregate = new GlucoseAggregate();
+        store.scan(deviceId, SegmentRecord.toNanos(start), SegmentRecord.toNanos(end),
+                record -> aggregate.add(record.glucoseLevel(), record.status()));
+        return aggregate;
+    }
+
+    private List<Reading> collect(Long deviceId, long from, long to, Predicate<SegmentRecord> filter) {
+        List<Reading> readings = new ArrayList<>();
+        store.scan(deviceId, from, to, record -> {
+            if (filter.test(record)) {
+                readings.add(record.toReading());
+            }
+        });
+        readings.sort(TIMESTAMP_ORDER);
+        return readings;
+    }
+
+    private List<Reading> collectAll(Predicate<SegmentRecord> filter) {
+        List<Reading> readings = new ArrayList<>();
+        store.scanAll(Long.MIN_VALUE, Long.MAX_VALUE, record -> {
+            if (filter.test(record)) {
+                readings.add(record.toReading());
+            }
+        });
+        readings.sort(TIMESTAMP_ORDER);
+        return readings;
+    }
+
+    // Altas, bajas y acceso por id
+
+    @Override
+    public <S extends Reading> S save(S entity) {
+        SegmentReadingStore.checkStorable(entity);
+        boolean created = entity.getId() == null;
+        if (created) {
+            entity.setId(store.nextId());
+        }
+        Reading snapshot = new Reading();
+        BeanUtils.copyProperties(entity, snapshot);
+        afterCommit(() -> {
+            if (created) {
+                store.insert(snapshot);
+            } else {
+                store.save(snapshot);
+            }
+        });
+        return entity;
+    }
+
+    @Override
+    public <S extends Reading> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<Reading> findById(Long id) {
+        return store.findById(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return store.exists(id);
+    }
+
+    @Override
+    public boolean existsByDeviceIdAndTimestamp(Long deviceId, LocalDateTime timestamp) {
+        long nanos = SegmentRecord.toNanos(timestamp);
+        boolean[] found = new boolean[1];
+        store.scan(deviceId, nanos, nanos, record -> found[0] = true);
+        return found[0];
+    }
+
+    @Override
+    public List<Reading> findAll() {
+        List<Reading> readings = collectAll(record -> true);
+        readings.sort(Comparator.comparing(Reading::getId));
+        return readings;
+    }
+
+    public long count() {
+        return store.count();
+    }
+
+    public void deleteById(Long id) {
+        afterCommit(() -> store.delete(id));
+    }
+
+    @Override
+    public void delete(Reading entity) {
+        if (entity.getId() != null) {
+            Long id = entity.getId();
+            afterCommit(() -> store.delete(id));
+        }
+    }
+
+    private static void afterCommit(Runnable write) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            write.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write.run();
+            }
+        });
+    }
+}
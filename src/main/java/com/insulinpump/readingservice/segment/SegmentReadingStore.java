@@ -0,0 +1,520 @@
+package com.insulinpump.readingservice.segment;
+
+import com.insulinpump.readingservice.model.Reading;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Almacén embebido de lecturas para despliegues sin MySQL: un directorio por dispositivo con segmentos de solo
+ * anexado proyectados en memoria (ver Segment y SegmentRecord).
+ *
+ * - Una modificación añade una versión nueva de la lectura y un borrado añade una marca; el índice en memoria
+ *   id -> posición apunta a la versión vigente y el resto de registros quedan muertos.
+ * - Cada dispositivo escribe en un segmento activo que se sella al llenarse (o al reiniciar) y se abre otro.
+ * - La compactación reescribe los segmentos sellados de un dispositivo sin los registros muertos cuando superan
+ *   la fracción configurada. Se escriben como .tmp, se renombran y solo entonces se borran los originales.
+ * - Al arrancar se recorren todos los segmentos validando el CRC: un registro a medias marca el final del
+ *   segmento, y si una lectura aparece varias veces gana la de mayor secuencia.
+ *
+ * Las escrituras llegan al fichero en cuanto se hacen; sync() las fuerza a disco (ver SegmentStoreMaintenance).
+ */
+@Slf4j
+public class SegmentReadingStore implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".seg.tmp";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncEveryWrite;
+    private final ConcurrentMap<Long, DeviceLog> devices = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+    // id de lectura -> posición de su versión vigente (ver location)
+    private final ConcurrentMap<Long, Long> index = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger segmentIds = new AtomicInteger();
+    // Serializa las modificaciones y borrados (no las altas), que pueden cambiar la lectura de dispositivo
+    private final Object updateLock = new Object();
+
+    public SegmentReadingStore(Path directory, int segmentSize, boolean syncEveryWrite) {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("El tamaño de segmento debe ser de al menos 4096 bytes: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncEveryWrite = syncEveryWrite;
+        recover();
+    }
+
+    private static long location(Segment segment, int position) {
+        return ((long) segment.id << 32) | position;
+    }
+
+    private Segment segmentAt(long location) {
+        return segments.get((int) (location >>> 32));
+    }
+
+    private static int positionAt(long location) {
+        return (int) location;
+    }
+
+    // Escritura
+
+    /**
+     * Guarda una lectura nueva (asignándole id) o una versión nueva de una existente.
+     */
+    public Reading save(Reading reading) {
+        checkStorable(reading);
+        if (reading.getId() == null) {
+            reading.setId(nextId());
+            return insert(reading);
+        }
+        synchronized (updateLock) {
+            ids.accumulateAndGet(reading.getId(), Math::max);
+            Optional<Reading> previous = findById(reading.getId());
+            if (previous.isPresent() && !previous.get().getDeviceId().equals(reading.getDeviceId())) {
+                // Cambio de dispositivo: la versión anterior se da de baja en el registro del dispositivo antiguo
+                append(previous.get(), true);
+            }
+            append(reading, false);
+            return reading;
+        }
+    }
+
+    /**
+     * Reserva el id de una lectura nueva que se guardará después con insert(). Un id reservado y nunca
+     * insertado solo deja un hueco en la numeración.
+     */
+    public long nextId() {
+        return ids.incrementAndGet();
+    }
+
+    /**
+     * Guarda una lectura nueva con un id obtenido de nextId(), sin buscar versiones anteriores.
+     */
+    public Reading insert(Reading reading) {
+        checkStorable(reading);
+        append(reading, false);
+        return reading;
+    }
+
+    static void checkStorable(Reading reading) {
+        if (reading.getDeviceId() == null || reading.getTimestamp() == null) {
+            throw new IllegalArgumentException("La lectura necesita dispositivo y marca temporal");
+        }
+    }
+
+    public boolean delete(long id) {
+        synchronized (updateLock) {
+            Optional<Reading> current = findById(id);
+            current.ifPresent(reading -> append(reading, true));
+            return current.isPresent();
+        }
+    }
+
+    private void append(Reading reading, boolean tombstone) {
+        DeviceLog deviceLog = device(reading.getDeviceId());
+        deviceLog.lock.writeLock().lock();
+        try {
+            byte[] record = SegmentRecord.encode(reading, sequence.incrementAndGet(), tombstone);
+            if (record.length > segmentSize) {
+                throw new IllegalArgumentException("La lectura no cabe en un segmento de " + segmentSize + " bytes");
+            }
+            Segment active = deviceLog.activeSegment(record.length);
+            long timestamp = SegmentRecord.toNanos(reading.getTimestamp());
+            int position = active.append(record, timestamp);
+            if (syncEveryWrite) {
+                active.force();
+            }
+
+            Long previous;
+            if (tombstone) {
+                active.deadRecords.incrementAndGet();
+                previous = index.remove(reading.getId());
+            } else {
+                previous = index.put(reading.getId(), location(active, position));
+            }
+            if (previous != null) {
+                segmentAt(previous).deadRecords.incrementAndGet();
+            }
+        } finally {
+            deviceLog.lock.writeLock().unlock();
+        }
+    }
+
+    private DeviceLog device(long deviceId) {
+        return devices.computeIfAbsent(deviceId, DeviceLog::new);
+    }
+
+    // Lectura
+
+    public Optional<Reading> findById(long id) {
+        while (true) {
+            Long location = index.get(id);
+            Segment segment = location != null ? segmentAt(location) : null;
+            if (location == null) {
+                return Optional.empty();
+            }
+            if (segment == null) {
+                continue;
+            }
+            DeviceLog deviceLog = devices.get(segment.deviceId);
+            deviceLog.lock.readLock().lock();
+            try {
+                // Puede haber cambiado mientras se esperaba el bloqueo (compactación o nueva versión)
+                Long current = index.get(id);
+                Segment currentSegment = current != null ? segmentAt(current) : null;
+                if (current == null) {
+                    return Optional.empty();
+                }
+                if (currentSegment != null && currentSegment.deviceId == segment.deviceId) {
+                    return Optional.of(currentSegment.read(positionAt(current), new SegmentRecord()).toReading());
+                }
+            } finally {
+                deviceLog.lock.readLock().unlock();
+            }
+        }
+    }
+
+    public boolean exists(long id) {
+        return index.containsKey(id);
+    }
+
+    public long count() {
+        return index.size();
+    }
+
+    public Set<Long> deviceIds() {
+        return devices.keySet();
+    }
+
+    /**
+     * Visita las versiones vigentes de las lecturas del dispositivo con timestamp en [from, to] (nanosegundos).
+     * El registro solo es válido durante la visita: lo que se quiera conservar se copia con toReading().
+     */
+    public void scan(long deviceId, long from, long to, ReadingVisitor visitor) {
+        DeviceLog deviceLog = devices.get(deviceId);
+        if (deviceLog == null) {
+            return;
+        }
+        SegmentRecord record = new SegmentRecord();
+        deviceLog.lock.readLock().lock();
+        try {
+            for (Segment segment : deviceLog.segments) {
+                // Sin registros muertos no hace falta consultar el índice
+                boolean allLive = segment.deadRecords.get() == 0;
+                segment.scan(from, to, record, (current, position, view) -> {
+                    if (allLive || isLive(view.id(), current, position)) {
+                        visitor.visit(view);
+                    }
+                });
+            }
+        } finally {
+            deviceLog.lock.readLock().unlock();
+        }
+    }
+
+    public void scanAll(long from, long to, ReadingVisitor visitor) {
+        for (Long deviceId : devices.keySet()) {
+            scan(deviceId, from, to, visitor);
+        }
+    }
+
+    private boolean isLive(long id, Segment segment, int position) {
+        Long current = index.get(id);
+        return current != null && current == location(segment, position);
+    }
+
+    public Optional<Reading> latest(long deviceId) {
+        DeviceLog deviceLog = devices.get(deviceId);
+        if (deviceLog == null) {
+            return Optional.empty();
+        }
+        deviceLog.lock.readLock().lock();
+        try {
+            // Los segmentos con máximo más reciente primero; se para al no poder mejorar el candidato
+            List<Segment> byRecency = new ArrayList<>(deviceLog.segments);
+            byRecency.sort(Comparator.comparingLong(Segment::maxTimestamp).reversed());
+            SegmentRecord record = new SegmentRecord();
+            long[] best = {Long.MIN_VALUE, 0};
+            Reading[] latest = new Reading[1];
+            for (Segment segment : byRecency) {
+                if (segment.records() == 0) {
+                    continue;
+                }
+                if (segment.maxTimestamp() < best[0]) {
+                    break;
+                }
+                segment.scan(best[0], Long.MAX_VALUE, record, (current, position, view) -> {
+                    long timestamp = view.timestampNanos();
+                    boolean newer = timestamp > best[0] || (timestamp == best[0] && view.id() > best[1]);
+                    if (newer && isLive(view.id(), current, position)) {
+                        best[0] = timestamp;
+                        best[1] = view.id();
+                        latest[0] = view.toReading();
+                    }
+                });
+            }
+            return Optional.ofNullable(latest[0]);
+        } finally {
+            deviceLog.lock.readLock().unlock();
+        }
+    }
+
+    // Mantenimiento
+
+    public void sync() {
+        for (DeviceLog deviceLog : devices.values()) {
+            deviceLog.lock.writeLock().lock();
+            try {
+                if (deviceLog.active != null) {
+                    deviceLog.active.force();
+                }
+            } finally {
+                deviceLog.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Compacta los dispositivos cuyos segmentos sellados tienen al menos esa fracción de registros muertos.
+     * Devuelve cuántos registros se han eliminado.
+     */
+    public long compact(double deadRatio) {
+        long removed = 0;
+        for (DeviceLog deviceLog : devices.values()) {
+            removed += compact(deviceLog, deadRatio);
+        }
+        return removed;
+    }
+
+    private long compact(DeviceLog deviceLog, double deadRatio) {
+        deviceLog.lock.writeLock().lock();
+        try {
+            List<Segment> sealed = new ArrayList<>(deviceLog.segments);
+            sealed.remove(deviceLog.active);
+            long total = 0;
+            long dead = 0;
+            for (Segment segment : sealed) {
+                total += segment.records();
+                dead += segment.deadRecords.get();
+            }
+            if (total == 0 || dead == 0 || (double) dead / total < deadRatio) {
+                return 0;
+            }
+
+            // Todas las versiones anteriores de una lectura borrada en este dispositivo están en segmentos
+            // sellados, así que las marcas de borrado se pueden descartar junto con ellas
+            List<Segment> output = new ArrayList<>();
+            List<long[]> moves = new ArrayList<>();
+            SegmentRecord record = new SegmentRecord();
+            for (Segment segment : sealed) {
+                segment.scan(Long.MIN_VALUE, Long.MAX_VALUE, record, (current, position, view) -> {
+                    if (view.tombstone() || !isLive(view.id(), current, position)) {
+                        return;
+                    }
+                    int length = view.length();
+                    Segment target = output.isEmpty() ? null : output.get(output.size() - 1);
+                    if (target == null || !target.hasRoom(length)) {
+                        int id = segmentIds.incrementAndGet();
+                        target = Segment.create(id, deviceLog.deviceId, deviceLog.directory.resolve(id + TEMP_SUFFIX), segmentSize);
+                        output.add(target);
+                    }
+                    int newPosition = target.copyFrom(current, position, length, view.timestampNanos());
+                    moves.add(new long[]{view.id(), location(current, position), location(target, newPosition)});
+                });
+            }
+
+            List<Segment> published = new ArrayList<>();
+            for (Segment segment : output) {
+                segment.seal();
+                published.add(publish(segment));
+            }
+            for (Segment segment : published) {
+                segments.put(segment.id, segment);
+            }
+            for (long[] move : moves) {
+                index.replace(move[0], move[1], move[2]);
+            }
+            deviceLog.segments.removeAll(sealed);
+            deviceLog.segments.addAll(published);
+            for (Segment segment : sealed) {
+                segments.remove(segment.id);
+                segment.delete();
+            }
+            long removed = total - moves.size();
+            log.info("Dispositivo {}: compactados {} segmentos en {}, {} registros eliminados",
+                    deviceLog.deviceId, sealed.size(), published.size(), removed);
+            return removed;
+        } finally {
+            deviceLog.lock.writeLock().unlock();
+        }
+    }
+
+    private Segment publish(Segment temporary) {
+        Path target = temporary.path.resolveSibling(temporary.id + SEGMENT_SUFFIX);
+        try {
+            Files.move(temporary.path, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo publicar el segmento " + target, e);
+        }
+        return Segment.recover(temporary.id, temporary.deviceId, target, (segment, position, record) -> {
+        });
+    }
+
+    @Override
+    public void close() {
+        for (DeviceLog deviceLog : devices.values()) {
+            deviceLog.lock.writeLock().lock();
+            try {
+                if (deviceLog.active != null) {
+                    deviceLog.active.seal();
+                    deviceLog.active = null;
+                }
+            } finally {
+                deviceLog.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Recuperación
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> deviceDirectories;
+            try (Stream<Path> stream = Files.list(directory)) {
+                deviceDirectories = stream.filter(Files::isDirectory).toList();
+            }
+            long started = System.currentTimeMillis();
+            for (Path deviceDirectory : deviceDirectories) {
+                recoverDevice(deviceDirectory);
+            }
+            // Marcas de borrado vigentes: la lectura no existe
+            index.values().removeIf(location -> {
+                Segment segment = segmentAt(location);
+                if (segment.read(positionAt(location), new SegmentRecord()).tombstone()) {
+                    segment.deadRecords.incrementAndGet();
+                    return true;
+                }
+                return false;
+            });
+            log.info("Almacén de segmentos recuperado en {} ms: {} dispositivos, {} segmentos, {} lecturas",
+                    System.currentTimeMillis() - started, devices.size(), segments.size(), index.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el almacén de segmentos " + directory, e);
+        }
+    }
+
+    private void recoverDevice(Path deviceDirectory) throws IOException {
+        long deviceId;
+        try {
+            deviceId = Long.parseLong(deviceDirectory.getFileName().toString());
+        } catch (NumberFormatException e) {
+            log.warn("Directorio ignorado en el almacén de segmentos: {}", deviceDirectory);
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(deviceDirectory)) {
+            files = stream.sorted().toList();
+        }
+        DeviceLog deviceLog = device(deviceId);
+        SegmentRecord winner = new SegmentRecord();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                // Compactación interrumpida antes de publicar: los originales siguen completos
+                Files.delete(file);
+                continue;
+            }
+            if (!name.endsWith(SEGMENT_SUFFIX)) {
+                continue;
+            }
+            int segmentId = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            segmentIds.accumulateAndGet(segmentId, Math::max);
+            Segment segment = Segment.recover(segmentId, deviceId, file, (current, position, record) -> {
+                segments.putIfAbsent(current.id, current);
+                long recordSequence = record.sequence();
+                long id = record.id();
+                sequence.accumulateAndGet(recordSequence, Math::max);
+                ids.accumulateAndGet(id, Math::max);
+                long location = location(current, position);
+                Long previous = index.get(id);
+                if (previous == null) {
+                    index.put(id, location);
+                } else if (segmentAt(previous).read(positionAt(previous), winner).sequence() < recordSequence) {
+                    index.put(id, location);
+                    segmentAt(previous).deadRecords.incrementAndGet();
+                } else {
+                    current.deadRecords.incrementAndGet();
+                }
+            });
+            if (segment.records() == 0) {
+                segments.remove(segment.id);
+                segment.delete();
+            } else {
+                segments.put(segment.id, segment);
+                deviceLog.segments.add(segment);
+            }
+        }
+    }
+
+    /**
+     * Segmentos de un dispositivo. Al reiniciar todos quedan sellados y las escrituras van a uno nuevo, de modo
+     * que el segmento activo solo contiene registros posteriores a los de los sellados.
+     */
+    private final class DeviceLog {
+
+        private final long deviceId;
+        private final Path directory;
+        private final List<Segment> segments = new ArrayList<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private Segment active;
+
+        private DeviceLog(long deviceId) {
+            this.deviceId = deviceId;
+            this.directory = SegmentReadingStore.this.directory.resolve(Long.toString(deviceId));
+        }
+
+        private Segment activeSegment(int length) {
+            if (active != null && active.hasRoom(length)) {
+                return active;
+            }
+            if (active != null) {
+                active.seal();
+            }
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo crear el directorio " + directory, e);
+            }
+            int id = segmentIds.incrementAndGet();
+            active = Segment.create(id, deviceId, directory.resolve(id + SEGMENT_SUFFIX), segmentSize);
+            SegmentReadingStore.this.segments.put(id, active);
+            segments.add(active);
+            return active;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ReadingVisitor {
+        void visit(SegmentRecord record);
+    }
+}
@@ -0,0 +1,155 @@
+package com.insulinpump.readingservice.segment;
+
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Vista de un registro dentro del buffer proyectado de un segmento. Los campos se leen en su posición sin copiar
+ * el registro; solo toReading() construye un objeto. La misma instancia se reutiliza al recorrer un segmento.
+ *
+ * Formato (big endian, el orden por defecto de ByteBuffer):
+ * <pre>
+ *  0 int   longitud total del registro (0 = fin de los datos escritos)
+ *  4 int   CRC32 de los bytes [8, longitud)
+ *  8 long  secuencia global (la mayor gana al recuperar)
+ * 16 long  id de la lectura
+ * 24 long  timestamp en nanosegundos desde epoch (UTC)
+ * 32 long  deviceId
+ * 40 float glucosa
+ * 44 float dosis de insulina (NaN = null)
+ * 48 float carbohidratos (NaN = null)
+ * 52 byte  ordinal del estado (-1 = null)
+ * 53 byte  flags (ver constantes)
+ * 54 short longitud de las notas en bytes (-1 = null)
+ * 56       notas en UTF-8
+ * </pre>
+ */
+public final class SegmentRecord {
+
+    static final int HEADER_SIZE = 56;
+
+    static final int MANUAL = 1;
+    static final int MANUAL_NULL = 2;
+    static final int REQUIRES_ACTION = 4;
+    static final int REQUIRES_ACTION_NULL = 8;
+    static final int TOMBSTONE = 16;
+
+    private static final ReadingStatus[] STATUSES = ReadingStatus.values();
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    SegmentRecord at(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    int length() {
+        return buffer.getInt(offset);
+    }
+
+    long sequence() {
+        return buffer.getLong(offset + 8);
+    }
+
+    public long id() {
+        return buffer.getLong(offset + 16);
+    }
+
+    public long timestampNanos() {
+        return buffer.getLong(offset + 24);
+    }
+
+    public long deviceId() {
+        return buffer.getLong(offset + 32);
+    }
+
+    public float glucoseLevel() {
+        return buffer.getFloat(offset + 40);
+    }
+
+    public ReadingStatus status() {
+        byte ordinal = buffer.get(offset + 52);
+        return ordinal < 0 ? null : STATUSES[ordinal];
+    }
+
+    public boolean requiresAction() {
+        return (flags() & REQUIRES_ACTION) != 0;
+    }
+
+    boolean tombstone() {
+        return (flags() & TOMBSTONE) != 0;
+    }
+
+    private int flags() {
+        return buffer.get(offset + 53);
+    }
+
+    public Reading toReading() {
+        int flags = flags();
+        Reading reading = new Reading();
+        reading.setId(id());
+        reading.setTimestamp(fromNanos(timestampNanos()));
+        reading.setDeviceId(deviceId());
+        reading.setGlucoseLevel(glucoseLevel());
+        reading.setInsulinDose(nullable(buffer.getFloat(offset + 44)));
+        reading.setCarbIntake(nullable(buffer.getFloat(offset + 48)));
+        reading.setStatus(status());
+        reading.setManualReading((flags & MANUAL_NULL) != 0 ? null : (flags & MANUAL) != 0);
+        reading.setRequiresAction((flags & REQUIRES_ACTION_NULL) != 0 ? null : (flags & REQUIRES_ACTION) != 0);
+        short notesLength = buffer.getShort(offset + 54);
+        if (notesLength >= 0) {
+            byte[] notes = new byte[notesLength];
+            buffer.get(offset + HEADER_SIZE, notes);
+            reading.setNotes(new String(notes, StandardCharsets.UTF_8));
+        }
+        return reading;
+    }
+
+    /**
+     * Bytes del registro de la lectura (o de su borrado). El CRC y la longitud los completa quien lo escribe.
+     */
+    static byte[] encode(Reading reading, long sequence, boolean tombstone) {
+        byte[] notes = reading.getNotes() != null && !tombstone ? reading.getNotes().getBytes(StandardCharsets.UTF_8) : null;
+        if (notes != null && notes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Las notas de la lectura superan " + Short.MAX_VALUE + " bytes");
+        }
+        int length = HEADER_SIZE + (notes != null ? notes.length : 0);
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putLong(8, sequence);
+        record.putLong(16, reading.getId());
+        record.putLong(24, toNanos(reading.getTimestamp()));
+        record.putLong(32, reading.getDeviceId());
+        record.putFloat(40, reading.getGlucoseLevel() != null ? reading.getGlucoseLevel() : Float.NaN);
+        record.putFloat(44, reading.getInsulinDose() != null ? reading.getInsulinDose() : Float.NaN);
+        record.putFloat(48, reading.getCarbIntake() != null ? reading.getCarbIntake() : Float.NaN);
+        record.put(52, reading.getStatus() != null ? (byte) reading.getStatus().ordinal() : -1);
+        int flags = (tombstone ? TOMBSTONE : 0)
+                | (reading.getManualReading() == null ? MANUAL_NULL : Boolean.TRUE.equals(reading.getManualReading()) ? MANUAL : 0)
+                | (reading.getRequiresAction() == null ? REQUIRES_ACTION_NULL : Boolean.TRUE.equals(reading.getRequiresAction()) ? REQUIRES_ACTION : 0);
+        record.put(53, (byte) flags);
+        record.putShort(54, notes != null ? (short) notes.length : -1);
+        if (notes != null) {
+            record.put(HEADER_SIZE, notes);
+        }
+        return record.array();
+    }
+
+    public static long toNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+
+    public static LocalDateTime fromNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static Float nullable(float value) {
+        return Float.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,39 @@
+package com.insulinpump.readingservice.segment;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fuerza a disco las escrituras recientes de los segmentos y compacta los dispositivos con muchos registros
+ * muertos (versiones sustituidas y borrados).
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "segment")
+@RequiredArgsConstructor
+@Slf4j
+public class SegmentStoreMaintenance {
+
+    private final SegmentReadingStore store;
+
+    @Value("${readingservice.storage.segment.compaction.dead-ratio:0.5}")
+    private double deadRatio;
+
+    @Scheduled(fixedDelayString = "${readingservice.storage.segment.sync-interval:1000}")
+    public void sync() {
+        store.sync();
+    }
+
+    @Scheduled(fixedDelayString = "${readingservice.storage.segment.compaction.interval:60000}",
+            initialDelayString = "${readingservice.storage.segment.compaction.interval:60000}")
+    public void compact() {
+        try {
+            store.compact(deadRatio);
+        } catch (RuntimeException e) {
+            log.error("Error compactando los segmentos de lecturas, se reintentará: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.event.ReadingsBulkChangedEvent;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Versión de escritura por dispositivo para responder peticiones condicionales (ETag / Last-Modified) sin
+ * ejecutar la consulta.
+ *
+ * La versión vive en la tabla versiones_dispositivo, en el shard del dispositivo, y se incrementa dentro de la
+ * transacción de cada alta, modificación y borrado: todas las instancias ven la misma versión y sobrevive a los
+ * reinicios. Un dispositivo sin fila no tiene escrituras registradas; su primera escritura crea la fila, así que
+ * el ETag cambia igualmente. Se lee en una transacción de solo lectura, con el mismo enrutado (réplica o
+ * primario) que la consulta que se sirve después: los datos nunca son más antiguos que la versión del ETag.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeviceVersionTracker {
+
+    // Sin Last-Modified: ServletWebRequest.checkNotModified ignora If-Modified-Since con un valor negativo
+    public static final long UNKNOWN_LAST_MODIFIED = -1L;
+
+    private static final String SELECT = "SELECT version, updated_at FROM versiones_dispositivo WHERE device_id = ?";
+    // Last-Modified no retrocede aunque los relojes de las instancias no coincidan
+    private static final String INCREMENT = "UPDATE versiones_dispositivo SET version = version + 1, "
+            + "updated_at = GREATEST(updated_at, ?) WHERE device_id = ?";
+    private static final String INSERT = "INSERT INTO versiones_dispositivo (device_id, version, updated_at) VALUES (?, 1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardExecutor shardExecutor;
+
+    @Transactional(readOnly = true)
+    public DeviceVersion current(Long deviceId) {
+        List<DeviceVersion> versions = shardExecutor.onDevice(deviceId, true, () -> jdbcTemplate.query(SELECT,
+                (rs, rowNum) -> new DeviceVersion(deviceId, rs.getLong(1), rs.getTimestamp(2).getTime()), deviceId));
+        return versions.isEmpty() ? new DeviceVersion(deviceId, 0L, UNKNOWN_LAST_MODIFIED) : versions.get(0);
+    }
+
+    public String etag(DeviceVersion version, String resource, Object... qualifiers) {
+        return "W/\"" + resource + '-' + version.deviceId() + '-' + version.version()
+                + (qualifiers.length > 0 ? "-" + Integer.toHexString(Objects.hash(qualifiers)) : "") + '"';
+    }
+
+    /**
+     * Incrementa la versión del dispositivo. Debe llamarse dentro de la transacción (y del shard) de la escritura.
+     */
+    public void markWritten(Long deviceId) {
+        if (deviceId == null) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (jdbcTemplate.update(INCREMENT, now, deviceId) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT, deviceId, now);
+        } catch (DuplicateKeyException e) {
+            // Otra transacción creó la fila a la vez
+            jdbcTemplate.update(INCREMENT, now, deviceId);
+        }
+    }
+
+    // Síncrono, como el outbox: la versión cambia si y solo si la escritura se confirma
+    @EventListener
+    public void onReadingChanged(ReadingChangedEvent event) {
+        markWritten(event.getReading().getDeviceId());
+        if (event.getPrevious() != null && !Objects.equals(event.getPrevious().getDeviceId(), event.getReading().getDeviceId())) {
+            markWritten(event.getPrevious().getDeviceId());
+        }
+    }
+
+    @EventListener
+    public void onReadingsChanged(ReadingsBulkChangedEvent event) {
+        event.getCountDeltas().keySet().forEach(this::markWritten);
+    }
+
+    public record DeviceVersion(Long deviceId, long version, long lastModified) {
+
+        public boolean hasLastModified() {
+            return lastModified != UNKNOWN_LAST_MODIFIED;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.bucketing.BucketFunction;
+import com.insulinpump.readingservice.bucketing.BucketWidth;
+import com.insulinpump.readingservice.bucketing.GapFill;
+import com.insulinpump.readingservice.bucketing.GlucoseBuckets;
+import com.insulinpump.readingservice.dto.GlucoseBucketSeriesDto;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serie de glucosa por intervalos de tiempo. La agregación se hace en la base de datos con un GROUP BY sobre
+ * el intervalo de cada lectura (índice device_id, timestamp), así que solo se transfiere una fila por
+ * intervalo con lecturas; el relleno de huecos se hace aquí.
+ */
+@Service
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class GlucoseBucketService {
+
+    // %s = glucosa según el formato de almacenamiento
+    private static final String SELECT_BUCKETS = "SELECT FLOOR(TIMESTAMPDIFF(SECOND, :origin, l.timestamp) / :width) AS bucket, "
+            + "COUNT(*), SUM(%1$s), SUM(%1$s * %1$s), MIN(%1$s), MAX(%1$s) FROM lecturas l "
+            + "WHERE l.device_id = :deviceId AND l.timestamp BETWEEN :start AND :end AND l.glucose_level IS NOT NULL "
+            + "GROUP BY bucket ORDER BY bucket";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ShardExecutor shardExecutor;
+    private final ReadingStorageLayout storageLayout;
+
+    @Transactional(readOnly = true)
+    public GlucoseBucketSeriesDto getBucketedSeries(Long deviceId, LocalDateTime start, LocalDateTime end, String width,
+                                                    Set<BucketFunction> functions, GapFill fill) {
+        log.info("Obteniendo serie por intervalos de {} ({}, relleno {}) del dispositivo {} entre {} y {}",
+                width, functions, fill, deviceId, start, end);
+
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio");
+        }
+        BucketWidth bucketWidth = BucketWidth.fromLabel(width);
+        Set<BucketFunction> selected = functions == null || functions.isEmpty()
+                ? EnumSet.of(BucketFunction.AVG)
+                : EnumSet.copyOf(functions);
+        GlucoseBuckets buckets = new GlucoseBuckets(start, end, bucketWidth);
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("origin", Timestamp.valueOf(buckets.getOrigin()))
+                .addValue("width", bucketWidth.getSeconds())
+                .addValue("deviceId", deviceId)
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        String sql = String.format(SELECT_BUCKETS, storageLayout.glucoseLevel("l"));
+        AtomicLong sourceReadings = new AtomicLong();
+        shardExecutor.onDevice(deviceId, true, () -> {
+            jdbcTemplate.query(sql, parameters, rs -> {
+                long count = rs.getLong(2);
+                sourceReadings.addAndGet(count);
+                buckets.add(rs.getInt(1), count, rs.getDouble(3), rs.getDouble(4), rs.getFloat(5), rs.getFloat(6));
+            });
+            return null;
+        });
+
+        return new GlucoseBucketSeriesDto(deviceId, start, end, bucketWidth.getLabel(), selected, fill,
+                sourceReadings.get(), buckets.finish(selected, fill));
+    }
+}
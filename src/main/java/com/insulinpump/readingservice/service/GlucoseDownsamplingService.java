@@ -0,0 +1,77 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.downsampling.DownsamplingMode;
+import com.insulinpump.readingservice.downsampling.GlucoseDownsampler;
+import com.insulinpump.readingservice.dto.GlucoseSeriesDto;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+@Service
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class GlucoseDownsamplingService {
+
+    public static final int MIN_POINTS = 3;
+    public static final int MAX_POINTS = 10_000;
+
+    private static final String SELECT_SERIES = "SELECT l.timestamp, %s FROM lecturas l "
+            + "WHERE l.device_id = ? AND l.timestamp BETWEEN ? AND ? AND l.glucose_level IS NOT NULL ORDER BY l.timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardExecutor shardExecutor;
+    private final ReadingStorageLayout storageLayout;
+
+    @Value("${readingservice.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Transactional(readOnly = true)
+    public GlucoseSeriesDto getDownsampledSeries(Long deviceId, LocalDateTime start, LocalDateTime end,
+                                                 int points, DownsamplingMode mode) {
+        log.info("Obteniendo serie reducida ({} puntos, {}) del dispositivo {} entre {} y {}", points, mode, deviceId, start, end);
+
+        if (points < MIN_POINTS || points > MAX_POINTS) {
+            throw new IllegalArgumentException("El número de puntos debe estar entre " + MIN_POINTS + " y " + MAX_POINTS);
+        }
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio");
+        }
+
+        GlucoseDownsampler downsampler = GlucoseDownsampler.create(mode, toEpochMillis(start), toEpochMillis(end), points);
+        String sql = String.format(SELECT_SERIES, storageLayout.glucoseLevel("l"));
+
+        // Una sola pasada sobre el cursor: solo timestamp y glucosa, sin entidades ni enriquecimiento
+        shardExecutor.onDevice(deviceId, true, () -> {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, deviceId);
+                ps.setTimestamp(2, Timestamp.valueOf(start));
+                ps.setTimestamp(3, Timestamp.valueOf(end));
+                return ps;
+            }, rs -> {
+                downsampler.accept(toEpochMillis(rs.getTimestamp(1).toLocalDateTime()), rs.getFloat(2));
+            });
+            return null;
+        });
+
+        return new GlucoseSeriesDto(deviceId, start, end, mode, points, downsampler.getSourcePoints(), downsampler.finish());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,250 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.counters.ReadingStatusCounters;
+import com.insulinpump.readingservice.dto.ReadingBulkDeleteDto;
+import com.insulinpump.readingservice.dto.ReadingBulkResultDto;
+import com.insulinpump.readingservice.dto.ReadingBulkUpdateDto;
+import com.insulinpump.readingservice.dto.ShardResultDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.event.ReadingsBulkChangedEvent;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Modificación y borrado masivo de lecturas con sentencias de conjunto.
+ *
+ * Cada shard afectado ejecuta un número fijo de sentencias (conteo previo, UPDATE o DELETE, conteo posterior y lo
+ * que hagan los listeners de ReadingsBulkChangedEvent), independiente del número de lecturas. Las reglas de estado
+ * y requiresAction son las mismas que en ReadingService, expresadas en SQL.
+ *
+ * Una selección por dispositivo vive en un solo shard y es atómica. Una lista de IDs se aplica en cada shard con su
+ * propia transacción: si falla alguno, los demás quedan confirmados y el resultado indica el desenlace de cada shard
+ * (solo si fallan todos se propaga el error).
+ */
+@Service
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class ReadingBulkService {
+
+    static final int MAX_IDS = 10_000;
+
+    private static final String COUNT_BY_STATUS = "SELECT device_id, %1$s AS status, requires_action, COUNT(*) AS total "
+            + "FROM lecturas WHERE %2$s GROUP BY device_id, %1$s, requires_action";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ShardExecutor shardExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReadingStorageLayout storageLayout;
+
+    public ReadingBulkResultDto updateReadings(ReadingBulkUpdateDto request) {
+        Selection selection = selection(request.getDeviceId(), request.getStart(), request.getEnd(), request.getIds());
+        Map<String, Object> parameters = new HashMap<>(selection.parameters());
+        List<String> assignments = new ArrayList<>();
+
+        boolean recalculate = Boolean.TRUE.equals(request.getRecalculateStatus());
+        if (recalculate && request.getStatus() != null) {
+            throw new IllegalArgumentException("No se puede fijar el estado y recalcularlo a la vez");
+        }
+        if (request.getStatus() != null) {
+            assignments.add("status = :status");
+            parameters.put("status", storageLayout.statusValue(request.getStatus()));
+        } else if (recalculate) {
+            assignments.add("status = CASE WHEN glucose_level < :criticalLow THEN :statusCriticalLow "
+                    + "WHEN glucose_level < :low THEN :statusLow "
+                    + "WHEN glucose_level > :criticalHigh THEN :statusCriticalHigh "
+                    + "WHEN glucose_level > :high THEN :statusHigh ELSE :statusNormal END");
+            addThresholds(parameters);
+        }
+        if (request.getRequiresAction() != null) {
+            assignments.add("requires_action = :requiresAction");
+            parameters.put("requiresAction", request.getRequiresAction());
+        } else if (request.getStatus() != null) {
+            assignments.add("requires_action = :requiresAction");
+            parameters.put("requiresAction", ReadingService.requiresAction(request.getStatus()));
+        } else if (recalculate) {
+            // Se evalúa sobre glucose_level y no sobre status: H2 y MySQL no coinciden en qué valor ven tras el SET
+            assignments.add("requires_action = CASE WHEN glucose_level < :criticalLow OR glucose_level > :criticalHigh "
+                    + "THEN TRUE ELSE FALSE END");
+        }
+        String upsertNotes = null;
+        if (request.getNotes() != null) {
+            parameters.put("notes", request.getNotes());
+            upsertNotes = storageLayout.upsertNotes(selection.condition());
+            if (upsertNotes == null) {
+                assignments.add("notes = :notes");
+            }
+        }
+        if (request.getManualReading() != null) {
+            assignments.add("manual_reading = :manualReading");
+            parameters.put("manualReading", request.getManualReading());
+        }
+        if (assignments.isEmpty() && upsertNotes == null) {
+            throw new IllegalArgumentException("No se ha indicado ningún cambio");
+        }
+
+        String update = assignments.isEmpty() ? null
+                : "UPDATE lecturas SET " + String.join(", ", assignments) + " WHERE " + selection.condition();
+        String notesStatement = upsertNotes;
+        log.info("Actualización masiva de lecturas ({})", selection);
+        ReadingBulkResultDto result = execute(selection, () -> {
+            Map<Long, long[]> before = countByDevice(selection);
+            if (before.isEmpty()) {
+                return 0L;
+            }
+            long rows = update != null
+                    ? jdbcTemplate.update(update, parameters)
+                    : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lecturas WHERE " + selection.condition(), parameters, Long.class);
+            if (notesStatement != null) {
+                jdbcTemplate.update(notesStatement, parameters);
+            }
+            Map<Long, long[]> deltas = subtract(countByDevice(selection), before);
+            eventPublisher.publishEvent(new ReadingsBulkChangedEvent(ReadingChangedEvent.Type.UPDATED,
+                    selection.condition(), selection.parameters(), deltas));
+            return rows;
+        });
+        log.info("Actualización masiva finalizada: {} lecturas", result.getAffectedReadings());
+        return result;
+    }
+
+    public ReadingBulkResultDto deleteReadings(ReadingBulkDeleteDto request) {
+        Selection selection = selection(request.getDeviceId(), request.getStart(), request.getEnd(), request.getIds());
+        log.info("Borrado masivo de lecturas ({})", selection);
+        ReadingBulkResultDto result = execute(selection, () -> {
+            Map<Long, long[]> before = countByDevice(selection);
+            if (before.isEmpty()) {
+                return 0L;
+            }
+            // Antes del DELETE: el outbox y la cola de acciones leen todavía las filas afectadas
+            eventPublisher.publishEvent(new ReadingsBulkChangedEvent(ReadingChangedEvent.Type.DELETED,
+                    selection.condition(), selection.parameters(), subtract(Map.of(), before)));
+            String deleteNotes = storageLayout.deleteNotes(selection.condition());
+            if (deleteNotes != null) {
+                jdbcTemplate.update(deleteNotes, selection.parameters());
+            }
+            return (long) jdbcTemplate.update("DELETE FROM lecturas WHERE " + selection.condition(), selection.parameters());
+        });
+        log.info("Borrado masivo finalizado: {} lecturas", result.getAffectedReadings());
+        return result;
+    }
+
+    private ReadingBulkResultDto execute(Selection selection, Supplier<Long> work) {
+        if (selection.deviceId() != null || !shardExecutor.isSharded()) {
+            Long deviceId = selection.deviceId();
+            return new ReadingBulkResultDto(deviceId != null ? shardExecutor.onDevice(deviceId, false, work) : work.get());
+        }
+        // Un ID puede estar en cualquier shard tras un rebalanceo; la búsqueda por clave primaria es barata en todos
+        long total = 0;
+        List<ShardResultDto> shards = new ArrayList<>(shardExecutor.getShardCount());
+        RuntimeException failure = null;
+        for (int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+            try {
+                long affected = shardExecutor.onShard(shard, false, work);
+                total += affected;
+                shards.add(new ShardResultDto(shard, ShardResultDto.Outcome.COMMITTED, affected));
+            } catch (RuntimeException e) {
+                log.error("Cambio masivo fallido en el shard {} ({})", shard, selection, e);
+                shards.add(new ShardResultDto(shard, ShardResultDto.Outcome.FAILED, 0L));
+                failure = failure != null ? failure : e;
+            }
+        }
+        if (failure != null && shards.stream().allMatch(shard -> shard.getOutcome() == ShardResultDto.Outcome.FAILED)) {
+            throw failure;
+        }
+        return new ReadingBulkResultDto(total, shards);
+    }
+
+    private Map<Long, long[]> countByDevice(Selection selection) {
+        Map<Long, long[]> counts = new HashMap<>();
+        String sql = String.format(COUNT_BY_STATUS, storageLayout.status("lecturas"), selection.condition());
+        jdbcTemplate.query(sql, selection.parameters(), rs -> {
+            String status = rs.getString("status");
+            long[] deviceCounts = counts.computeIfAbsent(rs.getLong("device_id"),
+                    id -> new long[ReadingStatusCounters.REQUIRING_ACTION + 1]);
+            if (status == null) {
+                return;
+            }
+            long total = rs.getLong("total");
+            deviceCounts[ReadingStatus.valueOf(status).ordinal()] += total;
+            if (rs.getBoolean("requires_action")) {
+                deviceCounts[ReadingStatusCounters.REQUIRING_ACTION] += total;
+            }
+        });
+        return counts;
+    }
+
+    private static Map<Long, long[]> subtract(Map<Long, long[]> after, Map<Long, long[]> before) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        Set<Long> devices = new LinkedHashSet<>(before.keySet());
+        devices.addAll(after.keySet());
+        for (Long deviceId : devices) {
+            long[] delta = new long[ReadingStatusCounters.REQUIRING_ACTION + 1];
+            long[] previous = before.get(deviceId);
+            long[] current = after.get(deviceId);
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] = (current != null ? current[i] : 0) - (previous != null ? previous[i] : 0);
+            }
+            deltas.put(deviceId, delta);
+        }
+        return deltas;
+    }
+
+    // Umbrales y estados en el formato de las columnas físicas: la comparación se hace sobre el valor guardado
+    private void addThresholds(Map<String, Object> parameters) {
+        parameters.put("criticalLow", storageLayout.glucoseValue(ReadingService.CRITICAL_LOW_THRESHOLD));
+        parameters.put("low", storageLayout.glucoseValue(ReadingService.LOW_THRESHOLD));
+        parameters.put("high", storageLayout.glucoseValue(ReadingService.HIGH_THRESHOLD));
+        parameters.put("criticalHigh", storageLayout.glucoseValue(ReadingService.CRITICAL_HIGH_THRESHOLD));
+        parameters.put("statusCriticalLow", storageLayout.statusValue(ReadingStatus.CRITICAL_LOW));
+        parameters.put("statusLow", storageLayout.statusValue(ReadingStatus.LOW));
+        parameters.put("statusHigh", storageLayout.statusValue(ReadingStatus.HIGH));
+        parameters.put("statusCriticalHigh", storageLayout.statusValue(ReadingStatus.CRITICAL_HIGH));
+        parameters.put("statusNormal", storageLayout.statusValue(ReadingStatus.NORMAL));
+    }
+
+    private static Selection selection(Long deviceId, LocalDateTime start, LocalDateTime end, List<Long> ids) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        if (byIds == (deviceId != null)) {
+            throw new IllegalArgumentException("Indique un dispositivo con su rango temporal o una lista de IDs, no ambos");
+        }
+        if (byIds) {
+            if (ids.size() > MAX_IDS) {
+                throw new IllegalArgumentException("Como máximo se admiten " + MAX_IDS + " IDs por petición");
+            }
+            return new Selection(null, "id IN (:ids)", Map.of("ids", new ArrayList<>(new LinkedHashSet<>(ids))));
+        }
+        if (start == null || end == null || start.isAfter(end)) {
+            throw new IllegalArgumentException("El rango temporal debe tener inicio y fin, con el inicio anterior al fin");
+        }
+        return new Selection(deviceId, "device_id = :deviceId AND timestamp BETWEEN :start AND :end",
+                Map.of("deviceId", deviceId, "start", start, "end", end));
+    }
+
+    private record Selection(Long deviceId, String condition, Map<String, Object> parameters) {
+
+        @Override
+        public String toString() {
+            return deviceId != null
+                    ? "dispositivo " + deviceId + " entre " + parameters.get("start") + " y " + parameters.get("end")
+                    : ((List<?>) parameters.get("ids")).size() + " IDs";
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
+import com.insulinpump.readingservice.exception.PatientNotFoundException;
+import com.insulinpump.readingservice.export.ColumnarReadingExportWriter;
+import com.insulinpump.readingservice.export.CsvReadingExportWriter;
+import com.insulinpump.readingservice.export.ExportFormat;
+import com.insulinpump.readingservice.export.ReadingExportWriter;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+@Service
+@ConditionalOnProperty(prefix = "readingservice.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ReadingExportService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PatientClient patientClient;
+    private final ShardExecutor shardExecutor;
+    private final PatientDeviceDirectory patientDeviceDirectory;
+    private final ReadingStorageLayout storageLayout;
+
+    // Con MySQL requiere useCursorFetch=true en la URL para que el driver no cargue todo el resultado
+    @Value("${readingservice.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Transactional(readOnly = true)
+    public long exportByDevice(Long deviceId, LocalDateTime start, LocalDateTime end, ExportFormat format, OutputStream outputStream) {
+        log.info("Exportando lecturas del dispositivo {} entre {} y {} en formato {}", deviceId, start, end, format);
+        String sql = select() + " WHERE device_id = ? AND timestamp BETWEEN ? AND ? ORDER BY timestamp";
+        return export(format, outputStream, rowHandler -> shardExecutor.onDevice(deviceId, true, () ->
+                query(sql, rowHandler, deviceId, Timestamp.valueOf(start), Timestamp.valueOf(end))));
+    }
+
+    public Long resolvePatientDeviceId(Long patientId) {
+        Long deviceId;
+        try {
+            deviceId = patientDeviceDirectory.deviceForPatient(patientId, patientClient::getPatientById);
+        } catch (Exception e) {
+            throw new PatientNotFoundException(patientId);
+        }
+
+        if (deviceId == null) {
+            throw new RuntimeException("El paciente no tiene un dispositivo asignado");
+        }
+        return deviceId;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportAll(LocalDateTime start, LocalDateTime end, ExportFormat format, OutputStream outputStream) {
+        log.info("Exportando lecturas de toda la flota entre {} y {} en formato {}", start, end, format);
+        String sql = select() + " WHERE timestamp BETWEEN ? AND ? ORDER BY id";
+        // Con sharding se recorren los shards uno tras otro; cada uno mantiene el orden por ID
+        return export(format, outputStream, rowHandler -> {
+            for (int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+                shardExecutor.onShard(shard, true, () ->
+                        query(sql, rowHandler, Timestamp.valueOf(start), Timestamp.valueOf(end)));
+            }
+        });
+    }
+
+    private String select() {
+        return "SELECT " + storageLayout.selectColumns("lecturas") + " FROM lecturas";
+    }
+
+    private Void query(String sql, RowCallbackHandler rowHandler, Object... params) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return ps;
+        }, rowHandler);
+        return null;
+    }
+
+    private long export(ExportFormat format, OutputStream outputStream, Consumer<RowCallbackHandler> source) {
+        long[] rows = {0};
+        try (ReadingExportWriter writer = createWriter(format, outputStream)) {
+            source.accept(rs -> {
+                try {
+                    writer.writeRow(rs);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exportación finalizada: {} lecturas", rows[0]);
+        return rows[0];
+    }
+
+    private ReadingExportWriter createWriter(ExportFormat format, OutputStream outputStream) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvReadingExportWriter(outputStream);
+            case COLUMNAR -> new ColumnarReadingExportWriter(outputStream);
+        };
+    }
+}
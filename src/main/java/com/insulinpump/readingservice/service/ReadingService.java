@@ -1,22 +1,41 @@
 package com.insulinpump.readingservice.service;
 
+import com.insulinpump.readingservice.analytics.GlucoseAggregate;
 import com.insulinpump.readingservice.client.DeviceClient;
 import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
 import com.insulinpump.readingservice.dto.*;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
 import com.insulinpump.readingservice.exception.DeviceNotFoundException;
 import com.insulinpump.readingservice.exception.PatientNotFoundException;
 import com.insulinpump.readingservice.exception.ReadingNotFoundException;
+import com.insulinpump.readingservice.journal.IngestJournal;
+import com.insulinpump.readingservice.model.JournalAppliedEntry;
 import com.insulinpump.readingservice.model.Reading;
 import com.insulinpump.readingservice.model.ReadingStatus;
-import com.insulinpump.readingservice.repository.ReadingRepository;
+import com.insulinpump.readingservice.repository.JournalAppliedEntryRepository;
+import com.insulinpump.readingservice.repository.ReadingStore;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.beans.PropertyDescriptor;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,24 +44,42 @@ import java.util.stream.Collectors;
 @Transactional
 public class ReadingService {
 
-    private final ReadingRepository readingRepository;
+    static final float CRITICAL_LOW_THRESHOLD = 50.0f;
+    static final float LOW_THRESHOLD = 70.0f;
+    static final float HIGH_THRESHOLD = 180.0f;
+    static final float CRITICAL_HIGH_THRESHOLD = 250.0f;
+
+    // Orden de mezcla de las consultas sobre todos los shards
+    private static final Comparator<Reading> TIMESTAMP_ORDER = Comparator
+            .comparing(Reading::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Reading::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final ReadingStore readingRepository;
     private final DeviceClient deviceClient;
     private final PatientClient patientClient;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardExecutor shardExecutor;
+    private final PatientDeviceDirectory patientDeviceDirectory;
+    private final IngestJournal ingestJournal;
+    private final JournalAppliedEntryRepository journalAppliedEntryRepository;
 
+    @Transactional(readOnly = true)
     public List<ReadingDetailsDto> getAllReadings() {
         log.info("Obteniendo todas las lecturas");
-        return readingRepository.findAll().stream()
+        return shardExecutor.scatterGather(readingRepository::findAll, TIMESTAMP_ORDER).stream()
                 .map(this::convertToReadingDetailsDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public ReadingDetailsDto getReadingById(Long id) {
         log.info("Obteniendo lectura con ID: {}", id);
-        Reading reading = readingRepository.findById(id)
+        Reading reading = shardExecutor.findById(id, () -> readingRepository.findById(id))
                 .orElseThrow(() -> new ReadingNotFoundException(id));
         return convertToReadingDetailsDto(reading);
     }
 
+    @Transactional(readOnly = true)
     public List<ReadingDetailsDto> getReadingsByDeviceId(Long deviceId) {
         log.info("Obteniendo lecturas del dispositivo con ID: {}", deviceId);
         // Verificar que el dispositivo existe
@@ -52,48 +89,105 @@ public class ReadingService {
             throw new DeviceNotFoundException(deviceId);
         }
 
-        return readingRepository.findByDeviceId(deviceId).stream()
+        return shardExecutor.onDevice(deviceId, true, () -> readingRepository.findByDeviceId(deviceId)).stream()
                 .map(this::convertToReadingDetailsDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<ReadingDetailsDto> getReadingsByPatientId(Long patientId) {
         log.info("Obteniendo lecturas del paciente con ID: {}", patientId);
 
-        // Verificar que el paciente existe y obtener su información
-        PatientDto patient;
+        // Traducir paciente -> dispositivo con el directorio local; solo se consulta patient-service si no lo conoce
+        Long deviceId;
         try {
-            patient = patientClient.getPatientById(patientId);
+            deviceId = patientDeviceDirectory.deviceForPatient(patientId, patientClient::getPatientById);
         } catch (Exception e) {
             throw new PatientNotFoundException(patientId);
         }
 
-        if (patient.getDeviceId() == null) {
+        if (deviceId == null) {
             throw new RuntimeException("El paciente no tiene un dispositivo asignado");
         }
 
-        return readingRepository.findByDeviceId(patient.getDeviceId()).stream()
+        return shardExecutor.onDevice(deviceId, true, () -> readingRepository.findByDeviceId(deviceId)).stream()
                 .map(this::convertToReadingDetailsDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<ReadingDetailsDto> getReadingsByDeviceIdAndTimeRange(Long deviceId, LocalDateTime start, LocalDateTime end) {
         log.info("Obteniendo lecturas del dispositivo {} entre {} y {}", deviceId, start, end);
-        return readingRepository.findByDeviceIdAndTimestampBetween(deviceId, start, end).stream()
+        return shardExecutor.onDevice(deviceId, true, () -> readingRepository.findByDeviceIdAndTimestampBetween(deviceId, start, end)).stream()
                 .map(this::convertToReadingDetailsDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lecturas de todos los dispositivos del paciente (actual y anteriores) en orden temporal.
+     * Una consulta IN por shard ordenada por timestamp; los resultados de cada shard se mezclan con un k-way merge.
+     */
+    @Transactional(readOnly = true)
+    public List<ReadingDetailsDto> getReadingsByPatientIdAndTimeRange(Long patientId, LocalDateTime start, LocalDateTime end) {
+        log.info("Obteniendo lecturas de todos los dispositivos del paciente {} entre {} y {}", patientId, start, end);
+        PatientDto patient = loadPatient(patientId);
+        Map<Long, DeviceDto> devices = resolvePatientDevices(patient);
+
+        List<Reading> readings = shardExecutor.gatherByDevices(devices.keySet(),
+                deviceIds -> readingRepository.findByDeviceIdInAndTimestampBetweenOrderByTimestampAscIdAsc(deviceIds, start, end),
+                TIMESTAMP_ORDER);
+
+        // Dispositivos y paciente ya consultados: ninguna llamada remota por lectura
+        List<ReadingDetailsDto> result = new ArrayList<>(readings.size());
+        for (Reading reading : readings) {
+            ReadingDetailsDto dto = new ReadingDetailsDto(reading);
+            dto.setDevice(devices.get(reading.getDeviceId()));
+            dto.setPatient(patient);
+            result.add(dto);
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public GlucoseStatisticsDto getGlucoseStatisticsByPatientId(Long patientId, LocalDateTime start, LocalDateTime end) {
+        log.info("Calculando estadísticas de glucosa del paciente {} entre {} y {}", patientId, start, end);
+        PatientDto patient = loadPatient(patientId);
+        Map<Long, DeviceDto> devices = resolvePatientDevices(patient);
+
+        // Un parcial por dispositivo calculado en la base de datos y combinado aquí
+        GlucoseAggregate aggregate = new GlucoseAggregate();
+        List<Object[]> partials = shardExecutor.gatherByDevices(devices.keySet(),
+                deviceIds -> readingRepository.aggregateGlucoseByDeviceIdsAndTimeRange(deviceIds, start, end), null);
+        for (Object[] partial : partials) {
+            aggregate.merge(GlucoseAggregate.fromRow(partial, 1));
+        }
+
+        if (aggregate.isEmpty()) {
+            throw new RuntimeException("No hay lecturas disponibles para el rango de tiempo especificado");
+        }
+
+        GlucoseStatisticsDto statistics = aggregate.toStatistics(start, end);
+        statistics.setDeviceIds(new ArrayList<>(devices.keySet()));
+        statistics.setDeviceSerialNo(devices.values().stream()
+                .filter(device -> device != null && device.getSerialNo() != null)
+                .map(DeviceDto::getSerialNo)
+                .collect(Collectors.joining(", ")));
+        statistics.setPatientName(patient.getName());
+        return statistics;
+    }
+
+    @Transactional(readOnly = true)
     public List<ReadingDetailsDto> getReadingsByStatus(ReadingStatus status) {
         log.info("Obteniendo lecturas con estado: {}", status);
-        return readingRepository.findByStatus(status).stream()
+        return shardExecutor.scatterGather(() -> readingRepository.findByStatus(status), TIMESTAMP_ORDER).stream()
                 .map(this::convertToReadingDetailsDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<ReadingDetailsDto> getReadingsRequiringAction() {
         log.info("Obteniendo lecturas que requieren acción");
-        return readingRepository.findByRequiresActionTrue().stream()
+        return shardExecutor.scatterGather(readingRepository::findByRequiresActionTrue, TIMESTAMP_ORDER).stream()
                 .map(this::convertToReadingDetailsDto)
                 .collect(Collectors.toList());
     }
@@ -102,79 +196,260 @@ public class ReadingService {
         log.info("Creando nueva lectura para dispositivo: {}", readingCreateDto.getDeviceId());
 
         // Verificar que el dispositivo existe
+        DeviceDto device;
         try {
-            deviceClient.getDeviceById(readingCreateDto.getDeviceId());
+            device = deviceClient.getDeviceById(readingCreateDto.getDeviceId());
         } catch (Exception e) {
             throw new DeviceNotFoundException(readingCreateDto.getDeviceId());
         }
 
         Reading reading = new Reading();
         BeanUtils.copyProperties(readingCreateDto, reading);
+        applyDerivedFields(reading);
+
+        // El evento se publica dentro de la transacción del shard para que la fila del outbox se escriba con la lectura
+        Reading savedReading = shardExecutor.onDevice(reading.getDeviceId(), false, () -> {
+            Reading saved = readingRepository.save(reading);
+            eventPublisher.publishEvent(ReadingChangedEvent.created(saved));
+            return saved;
+        });
+        log.info("Lectura creada exitosamente con ID: {}", savedReading.getId());
 
-        // Determinar el estado si no se proporciona
-        if (reading.getStatus() == null) {
-            reading.setStatus(determineReadingStatus(reading.getGlucoseLevel()));
+        // Reutilizar el dispositivo ya consultado en lugar de volver a llamar a device-service
+        return convertToReadingDetailsDto(savedReading, device);
+    }
+
+    /**
+     * Sin transacción propia: cada shard guarda su parte en la suya. Si la base de datos de un shard no está
+     * disponible, sus lecturas (y solo las suyas) van al diario de ingesta; las de los shards confirmados no se
+     * repiten al reproducirlo.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReadingBatchResultDto createReadings(List<Reading> readings) {
+        log.info("Creando lote de {} lecturas", readings.size());
+
+        // Verificar cada dispositivo una sola vez por lote
+        Set<Long> deviceIds = new HashSet<>();
+        for (Reading reading : readings) {
+            if (deviceIds.add(reading.getDeviceId())) {
+                try {
+                    deviceClient.getDeviceById(reading.getDeviceId());
+                } catch (Exception e) {
+                    throw new DeviceNotFoundException(reading.getDeviceId());
+                }
+            }
         }
 
-        // Establecer timestamp si no se proporciona
-        if (reading.getTimestamp() == null) {
-            reading.setTimestamp(LocalDateTime.now());
+        readings.forEach(this::applyDerivedFields);
+
+        // Un saveAll por shard de destino, cada uno en su transacción: el lote no es atómico entre shards.
+        // Si falla algún shard se siguen guardando los demás y el resultado indica qué shards quedaron confirmados
+        // o en el diario; solo si no se guarda ni se acepta ninguna lectura se propaga el error.
+        Map<Integer, List<Reading>> readingsByShard = new LinkedHashMap<>();
+        for (Reading reading : readings) {
+            readingsByShard.computeIfAbsent(shardExecutor.shardForDevice(reading.getDeviceId()), shard -> new ArrayList<>())
+                    .add(reading);
+        }
+        List<Long> ids = new ArrayList<>(readings.size());
+        List<ShardResultDto> shardResults = new ArrayList<>(readingsByShard.size());
+        int journaled = 0;
+        RuntimeException failure = null;
+        for (Map.Entry<Integer, List<Reading>> entry : readingsByShard.entrySet()) {
+            int shard = entry.getKey();
+            try {
+                List<Reading> saved = shardExecutor.onShard(shard, false, () -> {
+                    List<Reading> shardSaved = readingRepository.saveAll(entry.getValue());
+                    shardSaved.forEach(savedReading -> eventPublisher.publishEvent(ReadingChangedEvent.created(savedReading)));
+                    return shardSaved;
+                });
+                saved.forEach(savedReading -> ids.add(savedReading.getId()));
+                shardResults.add(new ShardResultDto(shard, ShardResultDto.Outcome.COMMITTED, (long) saved.size()));
+            } catch (RuntimeException e) {
+                if (ingestJournal.isEnabled() && IngestJournal.isDatabaseUnavailable(e)) {
+                    log.warn("Shard {} no disponible: {} lecturas del lote aceptadas en el diario de ingesta", shard, entry.getValue().size());
+                    ingestJournal.append(entry.getValue());
+                    shardResults.add(new ShardResultDto(shard, ShardResultDto.Outcome.JOURNALED, (long) entry.getValue().size()));
+                    journaled += entry.getValue().size();
+                    continue;
+                }
+                if (!shardExecutor.isSharded()) {
+                    throw e;
+                }
+                log.error("No se pudieron guardar {} lecturas del lote en el shard {}", entry.getValue().size(), shard, e);
+                shardResults.add(new ShardResultDto(shard, ShardResultDto.Outcome.FAILED, 0L));
+                failure = failure != null ? failure : e;
+            }
         }
+        if (ids.isEmpty() && journaled == 0 && failure != null) {
+            throw failure;
+        }
+        log.info("Lote creado: {} de {} lecturas, {} en el diario de ingesta", ids.size(), readings.size(), journaled);
 
-        // Determinar si requiere acción
-        if (reading.getRequiresAction() == null) {
-            reading.setRequiresAction(requiresAction(reading.getStatus()));
+        return new ReadingBatchResultDto(readings.size(), ids.size(), ids, shardResults);
+    }
+
+    /**
+     * Acepta la lectura en el diario de ingesta cuando la base de datos no está disponible. No abre transacción:
+     * el dispositivo se valida y los campos derivados (también el timestamp) se fijan ahora, y la lectura se
+     * inserta al reproducir el diario. Devuelve la lectura sin ID.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReadingDetailsDto journalReading(ReadingCreateDto readingCreateDto) {
+        log.warn("Base de datos no disponible: lectura del dispositivo {} aceptada en el diario de ingesta", readingCreateDto.getDeviceId());
+
+        DeviceDto device;
+        try {
+            device = deviceClient.getDeviceById(readingCreateDto.getDeviceId());
+        } catch (Exception e) {
+            throw new DeviceNotFoundException(readingCreateDto.getDeviceId());
         }
 
-        Reading savedReading = readingRepository.save(reading);
-        log.info("Lectura creada exitosamente con ID: {}", savedReading.getId());
+        Reading reading = new Reading();
+        BeanUtils.copyProperties(readingCreateDto, reading);
+        applyDerivedFields(reading);
+        ingestJournal.append(List.of(reading));
+
+        return convertToReadingDetailsDto(reading, device);
+    }
 
-        return convertToReadingDetailsDto(savedReading);
+    /**
+     * Inserta una lectura del diario de ingesta. La marca de la entrada se guarda con la lectura en la misma
+     * transacción, así que una entrada ya insertada se ignora. También se ignora si ya hay una lectura del
+     * dispositivo con el mismo timestamp: la escritura original pudo confirmarse aunque el cliente viera un error
+     * de conexión. Devuelve si se insertó.
+     */
+    public boolean createJournaledReading(String entryId, Reading reading) {
+        reading.setId(null);
+        return shardExecutor.onDevice(reading.getDeviceId(), false, () -> {
+            if (journalAppliedEntryRepository.existsById(entryId)
+                    || readingRepository.existsByDeviceIdAndTimestamp(reading.getDeviceId(), reading.getTimestamp())) {
+                return false;
+            }
+            Reading saved = readingRepository.save(reading);
+            journalAppliedEntryRepository.save(new JournalAppliedEntry(entryId, saved.getId(), LocalDateTime.now()));
+            eventPublisher.publishEvent(ReadingChangedEvent.created(saved));
+            return true;
+        });
     }
 
     public ReadingDetailsDto updateReading(Long id, ReadingCreateDto readingUpdateDto) {
         log.info("Actualizando lectura con ID: {}", id);
 
-        Reading existingReading = readingRepository.findById(id)
-                .orElseThrow(() -> new ReadingNotFoundException(id));
+        int shard = shardExecutor.locate(id, () -> readingRepository.existsById(id));
+        if (shard < 0) {
+            throw new ReadingNotFoundException(id);
+        }
 
-        BeanUtils.copyProperties(readingUpdateDto, existingReading, "id");
+        Reading previousReading = new Reading();
+        Reading updatedReading = shardExecutor.onShard(shard, false, () -> {
+            Reading existingReading = readingRepository.findById(id)
+                    .orElseThrow(() -> new ReadingNotFoundException(id));
 
-        // Recalcular estado si cambió el nivel de glucosa
-        if (existingReading.getStatus() == null) {
-            existingReading.setStatus(determineReadingStatus(existingReading.getGlucoseLevel()));
-        }
+            BeanUtils.copyProperties(existingReading, previousReading);
 
-        // Actualizar si requiere acción
-        if (existingReading.getRequiresAction() == null) {
-            existingReading.setRequiresAction(requiresAction(existingReading.getStatus()));
-        }
+            BeanUtils.copyProperties(readingUpdateDto, existingReading, "id");
 
-        Reading updatedReading = readingRepository.save(existingReading);
+            // Recalcular estado si cambió el nivel de glucosa
+            if (existingReading.getStatus() == null) {
+                existingReading.setStatus(determineReadingStatus(existingReading.getGlucoseLevel()));
+            }
+
+            // Actualizar si requiere acción
+            if (existingReading.getRequiresAction() == null) {
+                existingReading.setRequiresAction(requiresAction(existingReading.getStatus()));
+            }
+
+            int target = shardExecutor.shardForDevice(existingReading.getDeviceId());
+            if (target != shard) {
+                return moveReading(previousReading, existingReading, target);
+            }
+
+            Reading saved = readingRepository.save(existingReading);
+            eventPublisher.publishEvent(ReadingChangedEvent.updated(previousReading, saved));
+            return saved;
+        });
         log.info("Lectura actualizada exitosamente");
 
         return convertToReadingDetailsDto(updatedReading);
     }
 
+    /**
+     * Mueve al shard del nuevo dispositivo una lectura cuyo deviceId ha cambiado. Se ejecuta dentro de la
+     * transacción del shard origen: la inserción en el destino se confirma antes que el borrado, de modo que un
+     * fallo al insertar deja la lectura intacta en el origen. El shard destino asigna un ID nuevo de su rango.
+     */
+    private Reading moveReading(Reading previousReading, Reading existingReading, int target) {
+        Reading moved = new Reading();
+        BeanUtils.copyProperties(existingReading, moved, "id");
+        Reading saved = shardExecutor.onShard(target, false, () -> {
+            Reading inserted = readingRepository.save(moved);
+            eventPublisher.publishEvent(ReadingChangedEvent.created(inserted));
+            return inserted;
+        });
+        readingRepository.delete(existingReading);
+        eventPublisher.publishEvent(ReadingChangedEvent.deleted(previousReading));
+        log.info("La lectura {} ha cambiado de dispositivo: movida al shard {} con el ID {}", previousReading.getId(), target, saved.getId());
+        return saved;
+    }
+
+    public ReadingDetailsDto patchReading(Long id, ReadingPatchDto readingPatchDto) {
+        log.info("Actualizando parcialmente la lectura con ID: {}", id);
+
+        int shard = shardExecutor.locate(id, () -> readingRepository.existsById(id));
+        if (shard < 0) {
+            throw new ReadingNotFoundException(id);
+        }
+
+        Reading previousReading = new Reading();
+        Reading patchedReading = shardExecutor.onShard(shard, false, () -> {
+            Reading existingReading = readingRepository.findById(id)
+                    .orElseThrow(() -> new ReadingNotFoundException(id));
+
+            BeanUtils.copyProperties(existingReading, previousReading);
+            applyPatch(existingReading, readingPatchDto);
+
+            // Sin cambios no hay UPDATE ni evento
+            if (existingReading.equals(previousReading)) {
+                return existingReading;
+            }
+            Reading saved = readingRepository.save(existingReading);
+            eventPublisher.publishEvent(ReadingChangedEvent.updated(previousReading, saved));
+            return saved;
+        });
+        log.info("Lectura actualizada parcialmente");
+
+        return convertToReadingDetailsDto(patchedReading);
+    }
+
     public void deleteReading(Long id) {
         log.info("Eliminando lectura con ID: {}", id);
 
-        Reading reading = readingRepository.findById(id)
-                .orElseThrow(() -> new ReadingNotFoundException(id));
+        int shard = shardExecutor.locate(id, () -> readingRepository.existsById(id));
+        if (shard < 0) {
+            throw new ReadingNotFoundException(id);
+        }
 
-        readingRepository.delete(reading);
+        Reading reading = shardExecutor.onShard(shard, false, () -> {
+            Reading existingReading = readingRepository.findById(id)
+                    .orElseThrow(() -> new ReadingNotFoundException(id));
+            readingRepository.delete(existingReading);
+            eventPublisher.publishEvent(ReadingChangedEvent.deleted(existingReading));
+            return existingReading;
+        });
         log.info("Lectura eliminada exitosamente");
     }
 
+    @Transactional(readOnly = true)
     public ReadingDetailsDto getLatestReadingByDeviceId(Long deviceId) {
         log.info("Obteniendo última lectura del dispositivo: {}", deviceId);
 
-        Reading reading = readingRepository.findLatestByDeviceId(deviceId)
+        Reading reading = shardExecutor.onDevice(deviceId, true, () -> readingRepository.findLatestByDeviceId(deviceId))
                 .orElseThrow(() -> new ReadingNotFoundException("No se encontraron lecturas para el dispositivo: " + deviceId));
 
         return convertToReadingDetailsDto(reading);
     }
 
+    @Transactional(readOnly = true)
     public GlucoseStatisticsDto getGlucoseStatisticsByDeviceId(Long deviceId, LocalDateTime start, LocalDateTime end) {
         log.info("Calculando estadísticas de glucosa para dispositivo {} entre {} y {}", deviceId, start, end);
 
@@ -189,12 +464,22 @@ public class ReadingService {
         // Obtener el paciente asociado al dispositivo
         PatientDto patient = null;
         try {
-            patient = patientClient.getPatientByDeviceId(deviceId);
+            patient = patientDeviceDirectory.patientForDevice(deviceId, patientClient::getPatientByDeviceId);
         } catch (Exception e) {
             log.warn("No se pudo obtener información del paciente para el dispositivo: {}", deviceId);
         }
 
         // Obtener estadísticas de la base de datos
+        GlucoseStatisticsDto statistics = shardExecutor.onDevice(deviceId, true,
+                () -> calculateStatistics(deviceId, start, end));
+
+        statistics.setDeviceSerialNo(device.getSerialNo());
+        statistics.setPatientName(patient != null ? patient.getName() : "No asignado");
+
+        return statistics;
+    }
+
+    private GlucoseStatisticsDto calculateStatistics(Long deviceId, LocalDateTime start, LocalDateTime end) {
         List<Reading> readings = readingRepository.findByDeviceIdAndTimestampBetween(deviceId, start, end);
 
         if (readings.isEmpty()) {
@@ -213,8 +498,6 @@ public class ReadingService {
         // Crear estadísticas
         GlucoseStatisticsDto statistics = new GlucoseStatisticsDto();
         statistics.setDeviceId(deviceId);
-        statistics.setDeviceSerialNo(device.getSerialNo());
-        statistics.setPatientName(patient != null ? patient.getName() : "No asignado");
         statistics.setStartTime(start);
         statistics.setEndTime(end);
         statistics.setAverageGlucoseLevel(averageGlucoseLevel);
@@ -228,36 +511,111 @@ public class ReadingService {
         return statistics;
     }
 
-    private ReadingDetailsDto convertToReadingDetailsDto(Reading reading) {
-        ReadingDetailsDto dto = new ReadingDetailsDto(reading);
+    private PatientDto loadPatient(Long patientId) {
+        try {
+            return patientDeviceDirectory.patient(patientId, patientClient::getPatientById);
+        } catch (Exception e) {
+            throw new PatientNotFoundException(patientId);
+        }
+    }
 
-        // Obtener información del dispositivo
+    /**
+     * Dispositivos del paciente según device-service más el asignado actualmente, por si aún no figura en la lista.
+     */
+    private Map<Long, DeviceDto> resolvePatientDevices(PatientDto patient) {
+        Map<Long, DeviceDto> devices = new LinkedHashMap<>();
         try {
-            DeviceDto device = deviceClient.getDeviceById(reading.getDeviceId());
-            dto.setDevice(device);
+            for (DeviceDto device : deviceClient.getDevicesByPatientId(patient.getId())) {
+                devices.put(device.getId(), device);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron obtener los dispositivos del paciente {}: {}", patient.getId(), e.getMessage());
+        }
 
-            // Obtener información del paciente si el dispositivo tiene uno asignado
-            if (device.getPatientId() != null) {
-                try {
-                    PatientDto patient = patientClient.getPatientById(device.getPatientId());
-                    dto.setPatient(patient);
-                } catch (Exception e) {
-                    log.warn("No se pudo obtener información del paciente para la lectura: {}", reading.getId());
-                }
+        if (patient.getDeviceId() != null && !devices.containsKey(patient.getDeviceId())) {
+            DeviceDto device = null;
+            try {
+                device = deviceClient.getDeviceById(patient.getDeviceId());
+            } catch (Exception e) {
+                log.warn("No se pudo obtener información del dispositivo: {}", patient.getDeviceId());
             }
+            devices.put(patient.getDeviceId(), device);
+        }
+
+        if (devices.isEmpty()) {
+            throw new RuntimeException("El paciente no tiene dispositivos asignados");
+        }
+        return devices;
+    }
+
+    private ReadingDetailsDto convertToReadingDetailsDto(Reading reading) {
+        // Obtener información del dispositivo
+        DeviceDto device;
+        try {
+            device = deviceClient.getDeviceById(reading.getDeviceId());
         } catch (Exception e) {
             log.warn("No se pudo obtener información del dispositivo para la lectura: {}", reading.getId());
+            return new ReadingDetailsDto(reading);
+        }
+
+        return convertToReadingDetailsDto(reading, device);
+    }
+
+    private ReadingDetailsDto convertToReadingDetailsDto(Reading reading, DeviceDto device) {
+        ReadingDetailsDto dto = new ReadingDetailsDto(reading);
+        dto.setDevice(device);
+
+        // Obtener información del paciente si el dispositivo tiene uno asignado
+        if (device != null && device.getPatientId() != null) {
+            try {
+                PatientDto patient = patientDeviceDirectory.patient(device.getPatientId(), patientClient::getPatientById);
+                dto.setPatient(patient);
+            } catch (Exception e) {
+                log.warn("No se pudo obtener información del paciente para la lectura: {}", reading.getId());
+            }
         }
 
         return dto;
     }
 
-    private ReadingStatus determineReadingStatus(Float glucoseLevel) {
-        final float CRITICAL_LOW_THRESHOLD = 50.0f;
-        final float LOW_THRESHOLD = 70.0f;
-        final float HIGH_THRESHOLD = 180.0f;
-        final float CRITICAL_HIGH_THRESHOLD = 250.0f;
+    private void applyDerivedFields(Reading reading) {
+        // Determinar el estado si no se proporciona
+        if (reading.getStatus() == null) {
+            reading.setStatus(determineReadingStatus(reading.getGlucoseLevel()));
+        }
+
+        // Establecer timestamp si no se proporciona
+        if (reading.getTimestamp() == null) {
+            reading.setTimestamp(LocalDateTime.now());
+        }
+
+        // Determinar si requiere acción
+        if (reading.getRequiresAction() == null) {
+            reading.setRequiresAction(requiresAction(reading.getStatus()));
+        }
+    }
+
+    private void applyPatch(Reading reading, ReadingPatchDto patch) {
+        ReadingStatus previousStatus = reading.getStatus();
 
+        // Solo se copian los campos presentes en la petición
+        BeanWrapper source = new BeanWrapperImpl(patch);
+        String[] absent = Arrays.stream(source.getPropertyDescriptors())
+                .map(PropertyDescriptor::getName)
+                .filter(name -> source.getPropertyValue(name) == null)
+                .toArray(String[]::new);
+        BeanUtils.copyProperties(patch, reading, absent);
+
+        // Mismas reglas que en el alta: el estado sale de la glucosa y requiresAction del estado, salvo que se fijen
+        if (patch.getGlucoseLevel() != null && patch.getStatus() == null) {
+            reading.setStatus(determineReadingStatus(reading.getGlucoseLevel()));
+        }
+        if (reading.getStatus() != previousStatus && patch.getRequiresAction() == null) {
+            reading.setRequiresAction(requiresAction(reading.getStatus()));
+        }
+    }
+
+    static ReadingStatus determineReadingStatus(Float glucoseLevel) {
         if (glucoseLevel < CRITICAL_LOW_THRESHOLD) {
             return ReadingStatus.CRITICAL_LOW;
         } else if (glucoseLevel < LOW_THRESHOLD) {
@@ -271,7 +629,17 @@ public class ReadingService {
         }
     }
 
-    private Boolean requiresAction(ReadingStatus status) {
+    /**
+     * Si la lectura será crítica (estado indicado o calculado a partir de la glucosa), para priorizar su ingesta.
+     */
+    public static boolean isCritical(ReadingStatus status, Float glucoseLevel) {
+        if (status == null && glucoseLevel != null) {
+            status = determineReadingStatus(glucoseLevel);
+        }
+        return requiresAction(status);
+    }
+
+    static Boolean requiresAction(ReadingStatus status) {
         return status == ReadingStatus.CRITICAL_LOW || status == ReadingStatus.CRITICAL_HIGH;
     }
 
@@ -0,0 +1,28 @@
+package com.insulinpump.readingservice.sharding;
+
+/**
+ * Shard seleccionado para el hilo actual. ShardRoutingDataSource lo consulta al obtener la conexión.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer get() {
+        return CURRENT.get();
+    }
+
+    public static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
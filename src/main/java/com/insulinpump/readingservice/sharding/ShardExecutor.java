@@ -0,0 +1,232 @@
+package com.insulinpump.readingservice.sharding;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta el acceso a datos en el shard que corresponde.
+ *
+ * Sin sharding (ShardExecutor.local()) todas las operaciones se ejecutan en línea, dentro de la
+ * transacción del llamante; si se indica un gestor de transacciones, una escritura sin transacción en curso
+ * (por ejemplo, desde un método NOT_SUPPORTED) abre una propia para que sea atómica. Con sharding, cada operación abre su propia transacción en el shard elegido,
+ * porque una transacción JPA solo puede usar una conexión.
+ */
+public class ShardExecutor {
+
+    private final ShardRouter router;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate readWriteTransaction;
+    private final ExecutorService scatterExecutor;
+
+    private ShardExecutor(ShardRouter router, PlatformTransactionManager transactionManager) {
+        this.router = router;
+        if (router != null) {
+            this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.readOnlyTransaction.setReadOnly(true);
+            this.readWriteTransaction = new TransactionTemplate(transactionManager);
+            this.readWriteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.scatterExecutor = Executors.newFixedThreadPool(router.getShardCount(), runnable -> {
+                Thread thread = new Thread(runnable, "shard-scatter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.readOnlyTransaction = null;
+            this.readWriteTransaction = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+            this.scatterExecutor = null;
+        }
+    }
+
+    public static ShardExecutor local() {
+        return new ShardExecutor(null, null);
+    }
+
+    public static ShardExecutor local(PlatformTransactionManager transactionManager) {
+        return new ShardExecutor(null, transactionManager);
+    }
+
+    public static ShardExecutor sharded(ShardRouter router, PlatformTransactionManager transactionManager) {
+        return new ShardExecutor(router, transactionManager);
+    }
+
+    public boolean isSharded() {
+        return router != null;
+    }
+
+    public int getShardCount() {
+        return router != null ? router.getShardCount() : 1;
+    }
+
+    public int shardForDevice(Long deviceId) {
+        return router != null ? router.shardForDevice(deviceId) : 0;
+    }
+
+    public <T> T onDevice(Long deviceId, boolean readOnly, Supplier<T> work) {
+        return onShard(shardForDevice(deviceId), readOnly, work);
+    }
+
+    public <T> T onShard(int shard, boolean readOnly, Supplier<T> work) {
+        if (router == null) {
+            return readOnly || readWriteTransaction == null ? work.get() : readWriteTransaction.execute(status -> work.get());
+        }
+        Integer previous = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            return (readOnly ? readOnlyTransaction : readWriteTransaction).execute(status -> work.get());
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Busca por ID empezando por el shard que generó el ID y, si la lectura se movió, en el resto.
+     */
+    public <T> Optional<T> findById(Long id, Supplier<Optional<T>> lookup) {
+        if (router == null) {
+            return lookup.get();
+        }
+        int owner = router.shardForId(id);
+        Optional<T> result = onShard(owner, true, lookup);
+        for (int shard = 0; result.isEmpty() && shard < router.getShardCount(); shard++) {
+            if (shard != owner) {
+                result = onShard(shard, true, lookup);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Localiza el shard que contiene la lectura con el ID dado; -1 si no existe en ninguno.
+     * Sin sharding devuelve siempre 0 y la existencia se comprueba dentro de la operación posterior.
+     */
+    public int locate(Long id, Supplier<Boolean> exists) {
+        if (router == null) {
+            return 0;
+        }
+        int owner = router.shardForId(id);
+        if (onShard(owner, true, exists)) {
+            return owner;
+        }
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            if (shard != owner && onShard(shard, true, exists)) {
+                return shard;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ejecuta la consulta en todos los shards en paralelo y mezcla los resultados en el orden indicado.
+     * Sin sharding devuelve el resultado de la consulta tal cual.
+     */
+    public <T> List<T> scatterGather(Supplier<List<T>> query, Comparator<? super T> order) {
+        if (router == null) {
+            return query.get();
+        }
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(router.getShardCount());
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                List<T> rows = new ArrayList<>(onShard(target, true, query));
+                rows.sort(order);
+                return rows;
+            }, scatterExecutor));
+        }
+
+        List<List<T>> partials = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<T>> future : futures) {
+            partials.add(future.join());
+        }
+        return mergeSorted(partials, order);
+    }
+
+    /**
+     * Ejecuta la consulta una vez por shard con los dispositivos que viven en él, en paralelo, y mezcla los
+     * resultados en el orden indicado (sin orden, los concatena). Con orden, la consulta debe devolver las filas ya
+     * ordenadas (ORDER BY en SQL): cada shard aporta una secuencia ordenada y se combinan con un k-way merge, sin
+     * volver a ordenar. Sin sharding, una sola consulta con todos.
+     *
+     * La memoria no es constante: cada shard devuelve su resultado completo como lista y la mezcla produce otra.
+     * Solo el merge en sí usa memoria adicional constante (un cursor por shard). Mezclar cursores abiertos
+     * obligaría a mantener una transacción y una conexión por shard mientras se escribe la respuesta, y los
+     * endpoints que lo usan devuelven la lista entera igualmente.
+     */
+    public <T> List<T> gatherByDevices(Collection<Long> deviceIds, Function<List<Long>, List<T>> query, Comparator<? super T> order) {
+        if (router == null) {
+            return query.apply(new ArrayList<>(deviceIds));
+        }
+
+        Map<Integer, List<Long>> devicesByShard = new LinkedHashMap<>();
+        for (Long deviceId : deviceIds) {
+            devicesByShard.computeIfAbsent(router.shardForDevice(deviceId), shard -> new ArrayList<>()).add(deviceId);
+        }
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(devicesByShard.size());
+        devicesByShard.forEach((shard, shardDevices) -> futures.add(CompletableFuture.supplyAsync(
+                () -> onShard(shard, true, () -> query.apply(shardDevices)), scatterExecutor)));
+
+        List<List<T>> partials = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<T>> future : futures) {
+            partials.add(future.join());
+        }
+        if (partials.size() == 1) {
+            return partials.get(0);
+        }
+        if (order == null) {
+            List<T> all = new ArrayList<>();
+            partials.forEach(all::addAll);
+            return all;
+        }
+        return mergeSorted(partials, order);
+    }
+
+    static <T> List<T> mergeSorted(List<List<T>> partials, Comparator<? super T> order) {
+        int total = 0;
+        for (List<T> partial : partials) {
+            total += partial.size();
+        }
+
+        // k-way merge: un cursor por shard en una cola de prioridad; la memoria adicional es O(k), no O(filas)
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, partials.size()),
+                (a, b) -> order.compare(partials.get(a[0]).get(a[1]), partials.get(b[0]).get(b[1])));
+        for (int i = 0; i < partials.size(); i++) {
+            if (!partials.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+
+        List<T> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> partial = partials.get(head[0]);
+            merged.add(partial.get(head[1]));
+            if (++head[1] < partial.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.insulinpump.readingservice.sharding;
+
+import com.insulinpump.readingservice.dto.ShardRebalanceResultDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.repository.ReadingStore;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mueve cada lectura al shard que le corresponde por su deviceId. Se usa tras añadir shards
+ * o para repartir datos cargados en un único nodo (backfill).
+ *
+ * Cada shard se recorre por lotes de ID ascendente. La lectura se inserta en el shard destino, que le
+ * asigna un ID nuevo dentro de su rango, y después se borra del origen. Junto con la inserción se guarda en
+ * lecturas_movidas el ID de origen y el nuevo: si el proceso se interrumpe entre ambos pasos, al relanzarlo esa
+ * marca evita insertarla otra vez. La tabla sirve además para traducir IDs antiguos.
+ * Los valores se copian en su formato físico; con el formato compacto las notas viajan a lecturas_notas.
+ *
+ * Cada paso publica su ReadingChangedEvent (CREATED en el destino, DELETED en el origen, marcados como traslado)
+ * dentro de la transacción de su shard, igual que ReadingService al cambiar una lectura de dispositivo: el outbox
+ * y la cola de acciones de cada shard siguen a la lectura y su ID nuevo.
+ */
+@Component
+@ConditionalOnProperty(prefix = "readingservice.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardRebalancer {
+
+    private static final String COLUMNS = "l.id, l.timestamp, l.device_id, l.glucose_level, l.status, l.insulin_dose, "
+            + "l.carb_intake, l.manual_reading, l.requires_action, ";
+
+    private static final String SELECT_BATCH = "SELECT " + COLUMNS + "%s AS notes FROM lecturas l WHERE l.id > ? ORDER BY l.id LIMIT ?";
+
+    static final String MOVED_TABLE = "lecturas_movidas";
+
+    private static final String ALREADY_MOVED = "SELECT COUNT(*) FROM " + MOVED_TABLE + " WHERE source_id = ?";
+
+    private static final String INSERT_MOVED = "INSERT INTO " + MOVED_TABLE + " (source_id, reading_id, moved_at) VALUES (?, ?, ?)";
+
+    private static final String INSERT = "INSERT INTO lecturas (timestamp, device_id, glucose_level, status, insulin_dose, "
+            + "carb_intake, manual_reading, requires_action, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_COMPACT = "INSERT INTO lecturas (timestamp, device_id, glucose_level, status, insulin_dose, "
+            + "carb_intake, manual_reading, requires_action) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_NOTES = "INSERT INTO " + ReadingStorageLayout.NOTES_TABLE + " (reading_id, notes) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardExecutor shardExecutor;
+    private final ReadingStore readingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReadingStorageLayout storageLayout;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${readingservice.sharding.rebalance-batch-size:1000}")
+    private int batchSize;
+
+    public ShardRebalanceResultDto rebalance() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay un rebalanceo de shards en curso");
+        }
+        try {
+            log.info("Iniciando rebalanceo de {} shards", shardExecutor.getShardCount());
+            long scanned = 0;
+            List<Long> movedPerShard = new ArrayList<>();
+            for (int shard = 0; shard < shardExecutor.getShardCount(); shard++) {
+                long[] counts = rebalanceShard(shard);
+                scanned += counts[0];
+                movedPerShard.add(counts[1]);
+            }
+            long moved = movedPerShard.stream().mapToLong(Long::longValue).sum();
+            log.info("Rebalanceo finalizado: {} lecturas revisadas, {} movidas", scanned, moved);
+            return new ShardRebalanceResultDto(shardExecutor.getShardCount(), scanned, moved, movedPerShard);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long[] rebalanceShard(int source) {
+        long scanned = 0;
+        long moved = 0;
+        long lastId = 0;
+        String select = String.format(SELECT_BATCH, storageLayout.notes("l"));
+        while (true) {
+            long from = lastId;
+            List<Object[]> batch = shardExecutor.onShard(source, true, () ->
+                    jdbcTemplate.query(select, (rs, rowNum) -> {
+                        Object[] row = new Object[10];
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = rs.getObject(i + 1);
+                        }
+                        return row;
+                    }, from, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            for (Object[] row : batch) {
+                long deviceId = ((Number) row[2]).longValue();
+                int target = shardExecutor.shardForDevice(deviceId);
+                if (target != source) {
+                    moveReading(row, source, target);
+                    moved++;
+                }
+            }
+            scanned += batch.size();
+            lastId = ((Number) batch.get(batch.size() - 1)[0]).longValue();
+        }
+        log.info("Shard {}: {} lecturas revisadas, {} movidas", source, scanned, moved);
+        return new long[]{scanned, moved};
+    }
+
+    private void moveReading(Object[] row, int source, int target) {
+        Long sourceId = ((Number) row[0]).longValue();
+        shardExecutor.onShard(target, false, () -> {
+            Integer moved = jdbcTemplate.queryForObject(ALREADY_MOVED, Integer.class, sourceId);
+            if (moved == null || moved == 0) {
+                long readingId = insert(row);
+                jdbcTemplate.update(INSERT_MOVED, sourceId, readingId, Timestamp.valueOf(LocalDateTime.now()));
+                // Se lee por JPA para publicar los valores lógicos, sea cual sea el formato de almacenamiento
+                readingRepository.findById(readingId)
+                        .ifPresent(copy -> eventPublisher.publishEvent(ReadingChangedEvent.relocatedTo(copy)));
+            }
+            return null;
+        });
+        shardExecutor.onShard(source, false, () -> {
+            Optional<Reading> original = readingRepository.findById(sourceId);
+            if (storageLayout.isCompact()) {
+                jdbcTemplate.update(storageLayout.deleteNotes("id = ?"), sourceId);
+            }
+            jdbcTemplate.update("DELETE FROM lecturas WHERE id = ?", sourceId);
+            original.ifPresent(reading -> eventPublisher.publishEvent(ReadingChangedEvent.relocatedFrom(reading)));
+            return null;
+        });
+    }
+
+    private long insert(Object[] row) {
+        boolean compact = storageLayout.isCompact();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(compact ? INSERT_COMPACT : INSERT, new String[]{"id"});
+            for (int i = 1; i <= (compact ? 8 : 9); i++) {
+                statement.setObject(i, row[i]);
+            }
+            return statement;
+        }, keyHolder);
+        long readingId = keyHolder.getKey().longValue();
+        if (compact && row[9] != null) {
+            jdbcTemplate.update(INSERT_NOTES, readingId, row[9]);
+        }
+        return readingId;
+    }
+}
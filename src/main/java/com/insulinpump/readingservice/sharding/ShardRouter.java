@@ -0,0 +1,52 @@
+package com.insulinpump.readingservice.sharding;
+
+/**
+ * Asigna dispositivos y lecturas a shards.
+ *
+ * Los dispositivos se reparten con jump consistent hash, de forma que al añadir un shard solo se mueve
+ * la fracción mínima de dispositivos. Cada shard genera IDs en su propio rango ([k << 40, (k + 1) << 40)),
+ * lo que permite localizar una lectura por ID sin consultar todos los shards.
+ */
+public class ShardRouter {
+
+    public static final int ID_RANGE_BITS = 40;
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un shard");
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardForDevice(Long deviceId) {
+        return jumpConsistentHash(deviceId, shardCount);
+    }
+
+    // Shard en el que se generó el ID; los datos cargados antes de activar el sharding pueden estar en otro
+    public int shardForId(Long id) {
+        long shard = id >>> ID_RANGE_BITS;
+        return shard < shardCount ? (int) shard : 0;
+    }
+
+    public static long idRangeStart(int shard) {
+        return (long) shard << ID_RANGE_BITS;
+    }
+
+    // Lamping & Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,188 @@
+package com.insulinpump.readingservice.sharding;
+
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Prepara cada shard: crea las tablas del servicio si no existen y coloca su contador de IDs
+ * al inicio del rango del shard (ver ShardRouter.ID_RANGE_BITS).
+ */
+@Slf4j
+public class ShardSchemaInitializer {
+
+    private static final String CREATE_TABLE = "CREATE TABLE lecturas ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT, "
+            + "carb_intake FLOAT(24), "
+            + "device_id BIGINT NOT NULL, "
+            + "glucose_level FLOAT(24) NOT NULL, "
+            + "insulin_dose FLOAT(24), "
+            + "manual_reading BOOLEAN, "
+            + "notes VARCHAR(255), "
+            + "requires_action BOOLEAN, "
+            + "status VARCHAR(20), "
+            + "timestamp DATETIME(6) NOT NULL, "
+            + "PRIMARY KEY (id))";
+
+    // Formato compacto (ver META-INF/orm-compact.xml): estado y medidas como enteros, notas aparte
+    private static final String CREATE_COMPACT_TABLE = "CREATE TABLE lecturas ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT, "
+            + "carb_intake SMALLINT, "
+            + "device_id BIGINT NOT NULL, "
+            + "glucose_level SMALLINT NOT NULL, "
+            + "insulin_dose SMALLINT, "
+            + "manual_reading BOOLEAN, "
+            + "requires_action BOOLEAN, "
+            + "status TINYINT, "
+            + "timestamp DATETIME(6) NOT NULL, "
+            + "PRIMARY KEY (id))";
+
+    private static final String CREATE_NOTES_TABLE = "CREATE TABLE " + ReadingStorageLayout.NOTES_TABLE + " ("
+            + "reading_id BIGINT NOT NULL, "
+            + "notes VARCHAR(255), "
+            + "PRIMARY KEY (reading_id), "
+            + "FOREIGN KEY (reading_id) REFERENCES lecturas (id))";
+
+    private static final String CREATE_INDEX = "CREATE INDEX idx_lecturas_device_timestamp ON lecturas (device_id, timestamp)";
+
+    private static final String CREATE_OUTBOX_TABLE = "CREATE TABLE eventos_lectura ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT, "
+            + "type VARCHAR(10) NOT NULL, "
+            + "reading_id BIGINT NOT NULL, "
+            + "device_id BIGINT NOT NULL, "
+            + "reading_timestamp DATETIME(6), "
+            + "glucose_level FLOAT(24), "
+            + "status VARCHAR(20), "
+            + "requires_action BOOLEAN, "
+            + "created_at DATETIME(6) NOT NULL, "
+            + "PRIMARY KEY (id))";
+
+    private static final String CREATE_CHECKPOINT_TABLE = "CREATE TABLE retencion_checkpoint ("
+            + "name VARCHAR(50) NOT NULL, "
+            + "last_id BIGINT NOT NULL, "
+            + "deleted_in_run BIGINT, "
+            + "run_started_at DATETIME(6), "
+            + "updated_at DATETIME(6), "
+            + "PRIMARY KEY (name))";
+
+    private static final String CREATE_JOURNAL_APPLIED_TABLE = "CREATE TABLE diario_ingesta_aplicadas ("
+            + "entry_id VARCHAR(36) NOT NULL, "
+            + "reading_id BIGINT NOT NULL, "
+            + "applied_at DATETIME(6), "
+            + "PRIMARY KEY (entry_id))";
+
+    private static final String CREATE_MOVED_TABLE = "CREATE TABLE " + ShardRebalancer.MOVED_TABLE + " ("
+            + "source_id BIGINT NOT NULL, "
+            + "reading_id BIGINT NOT NULL, "
+            + "moved_at DATETIME(6), "
+            + "PRIMARY KEY (source_id))";
+
+    private static final String CREATE_ACTION_TABLE = "CREATE TABLE acciones_lectura ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT, "
+            + "reading_id BIGINT NOT NULL, "
+            + "device_id BIGINT NOT NULL, "
+            + "reading_status VARCHAR(20), "
+            + "glucose_level FLOAT(24), "
+            + "reading_timestamp DATETIME(6), "
+            + "state VARCHAR(15) NOT NULL, "
+            + "assignee VARCHAR(100), "
+            + "created_at DATETIME(6) NOT NULL, "
+            + "claimed_at DATETIME(6), "
+            + "acknowledged_at DATETIME(6), "
+            + "resolved_at DATETIME(6), "
+            + "resolution VARCHAR(255), "
+            + "version BIGINT, "
+            + "PRIMARY KEY (id))";
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE versiones_dispositivo ("
+            + "device_id BIGINT NOT NULL, "
+            + "version BIGINT NOT NULL, "
+            + "updated_at DATETIME(6) NOT NULL, "
+            + "PRIMARY KEY (device_id))";
+
+    private static final String CREATE_ACTION_INDEX = "CREATE INDEX idx_acciones_lectura_state ON acciones_lectura (state)";
+
+    // Tablas cuyos IDs se exponen en la API y deben identificar el shard
+    private static final String[] SHARD_ID_TABLES = {"lecturas", "acciones_lectura"};
+
+    private final boolean compact;
+
+    public ShardSchemaInitializer() {
+        this(false);
+    }
+
+    public ShardSchemaInitializer(boolean compact) {
+        this.compact = compact;
+    }
+
+    public void initialize(List<? extends DataSource> shards) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shards.get(shard));
+            String product = jdbcTemplate.execute((Connection connection) -> connection.getMetaData().getDatabaseProductName());
+
+            if (!tableExists(jdbcTemplate, "lecturas")) {
+                log.info("Creando tabla lecturas en el shard {}", shard);
+                jdbcTemplate.execute(compact ? CREATE_COMPACT_TABLE : CREATE_TABLE);
+                jdbcTemplate.execute(CREATE_INDEX);
+            }
+            if (compact && !tableExists(jdbcTemplate, ReadingStorageLayout.NOTES_TABLE)) {
+                log.info("Creando tabla {} en el shard {}", ReadingStorageLayout.NOTES_TABLE, shard);
+                jdbcTemplate.execute(CREATE_NOTES_TABLE);
+            }
+            if (!tableExists(jdbcTemplate, "eventos_lectura")) {
+                log.info("Creando tabla eventos_lectura en el shard {}", shard);
+                jdbcTemplate.execute(CREATE_OUTBOX_TABLE);
+            }
+            if (!tableExists(jdbcTemplate, "retencion_checkpoint")) {
+                log.info("Creando tabla retencion_checkpoint en el shard {}", shard);
+                jdbcTemplate.execute(CREATE_CHECKPOINT_TABLE);
+            }
+            if (!tableExists(jdbcTemplate, "diario_ingesta_aplicadas")) {
+                log.info("Creando tabla diario_ingesta_aplicadas en el shard {}", shard);
+                jdbcTemplate.execute(CREATE_JOURNAL_APPLIED_TABLE);
+            }
+            if (!tableExists(jdbcTemplate, ShardRebalancer.MOVED_TABLE)) {
+                log.info("Creando tabla {} en el shard {}", ShardRebalancer.MOVED_TABLE, shard);
+                jdbcTemplate.execute(CREATE_MOVED_TABLE);
+            }
+            if (!tableExists(jdbcTemplate, "acciones_lectura")) {
+                log.info("Creando tabla acciones_lectura en el shard {}", shard);
+                jdbcTemplate.execute(CREATE_ACTION_TABLE);
+                jdbcTemplate.execute(CREATE_ACTION_INDEX);
+            }
+            if (!tableExists(jdbcTemplate, "versiones_dispositivo")) {
+                log.info("Creando tabla versiones_dispositivo en el shard {}", shard);
+                jdbcTemplate.execute(CREATE_VERSION_TABLE);
+            }
+
+            long rangeStart = ShardRouter.idRangeStart(shard);
+            for (String table : SHARD_ID_TABLES) {
+                Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                if (shard > 0 && (maxId == null || maxId < rangeStart)) {
+                    log.info("Fijando el inicio de IDs de {} del shard {} en {}", table, shard, rangeStart);
+                    jdbcTemplate.execute("MySQL".equalsIgnoreCase(product)
+                            ? "ALTER TABLE " + table + " AUTO_INCREMENT = " + rangeStart
+                            : "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + rangeStart);
+                }
+            }
+        }
+    }
+
+    private boolean tableExists(JdbcTemplate jdbcTemplate, String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
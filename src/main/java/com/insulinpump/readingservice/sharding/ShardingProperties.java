@@ -0,0 +1,27 @@
+package com.insulinpump.readingservice.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "readingservice.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Crea la tabla lecturas y fija el rango de IDs en los shards que aún no lo tienen
+    private boolean initializeSchema = true;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String jdbcUrl;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,31 @@
+package com.insulinpump.readingservice.storage;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Estado de la lectura como TINYINT (ordinal) en el formato compacto.
+ * Los valores nuevos de ReadingStatus deben añadirse siempre al final para no cambiar los códigos guardados.
+ */
+@Converter
+public class ReadingStatusCodeConverter implements AttributeConverter<ReadingStatus, Byte> {
+
+    private static final ReadingStatus[] STATUSES = ReadingStatus.values();
+
+    @Override
+    public Byte convertToDatabaseColumn(ReadingStatus status) {
+        return status != null ? (byte) status.ordinal() : null;
+    }
+
+    @Override
+    public ReadingStatus convertToEntityAttribute(Byte code) {
+        if (code == null) {
+            return null;
+        }
+        if (code < 0 || code >= STATUSES.length) {
+            throw new IllegalArgumentException("Código de estado de lectura desconocido: " + code);
+        }
+        return STATUSES[code];
+    }
+}
@@ -0,0 +1,109 @@
+package com.insulinpump.readingservice.storage;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Formato físico de la tabla lecturas para las sentencias SQL escritas a mano (exportación, cambios masivos,
+ * outbox, rebalanceo, retención). JPA lo resuelve con el mapeo; este componente da las expresiones equivalentes.
+ *
+ * - standard: el mapeo de Reading tal cual (estado como texto, medidas FLOAT, notas en la propia fila).
+ * - compact: META-INF/orm-compact.xml (estado TINYINT, medidas SMALLINT escaladas, notas en lecturas_notas).
+ */
+@Component
+public class ReadingStorageLayout {
+
+    public static final String NOTES_TABLE = "lecturas_notas";
+
+    private static final ReadingStatus[] STATUSES = ReadingStatus.values();
+
+    private final boolean compact;
+
+    public ReadingStorageLayout(@Value("${readingservice.storage.layout:standard}") String layout) {
+        this.compact = switch (layout.trim().toLowerCase()) {
+            case "standard" -> false;
+            case "compact" -> true;
+            default -> throw new IllegalArgumentException("Formato de almacenamiento de lecturas desconocido: " + layout);
+        };
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    // Expresiones que devuelven el valor lógico (el del formato estándar) de una columna de la tabla o alias dado
+
+    public String glucoseLevel(String table) {
+        return scaled(table + ".glucose_level", "10.0");
+    }
+
+    public String insulinDose(String table) {
+        return scaled(table + ".insulin_dose", "100.0");
+    }
+
+    public String carbIntake(String table) {
+        return scaled(table + ".carb_intake", "10.0");
+    }
+
+    public String status(String table) {
+        if (!compact) {
+            return table + ".status";
+        }
+        StringBuilder expression = new StringBuilder("CASE ").append(table).append(".status");
+        for (ReadingStatus status : STATUSES) {
+            expression.append(" WHEN ").append(status.ordinal()).append(" THEN '").append(status.name()).append('\'');
+        }
+        return expression.append(" END").toString();
+    }
+
+    public String notes(String table) {
+        return compact
+                ? "(SELECT n.notes FROM " + NOTES_TABLE + " n WHERE n.reading_id = " + table + ".id)"
+                : table + ".notes";
+    }
+
+    /**
+     * Columnas lógicas de una lectura en el orden de ReadingExportWriter.COLUMNS.
+     */
+    public String selectColumns(String table) {
+        return table + ".id, " + table + ".timestamp, " + table + ".device_id, "
+                + glucoseLevel(table) + " AS glucose_level, " + status(table) + " AS status, "
+                + insulinDose(table) + " AS insulin_dose, " + carbIntake(table) + " AS carb_intake, "
+                + table + ".manual_reading, " + table + ".requires_action, " + notes(table) + " AS notes";
+    }
+
+    // Valores para comparar o escribir directamente sobre las columnas físicas
+
+    public Object statusValue(ReadingStatus status) {
+        return compact ? (byte) status.ordinal() : status.name();
+    }
+
+    public Object glucoseValue(float glucoseLevel) {
+        return compact ? new ScaledShortConverter.Tenths().convertToDatabaseColumn(glucoseLevel) : glucoseLevel;
+    }
+
+    /**
+     * Sentencia que borra las notas de las lecturas que cumplen la condición, a ejecutar antes de borrarlas
+     * por SQL. Null en el formato estándar, donde las notas van en la fila.
+     */
+    public String deleteNotes(String condition) {
+        return compact
+                ? "DELETE FROM " + NOTES_TABLE + " WHERE reading_id IN (SELECT id FROM lecturas WHERE " + condition + ")"
+                : null;
+    }
+
+    /**
+     * Sentencia que fija :notes en las lecturas que cumplen la condición, o null si basta con un SET notes.
+     */
+    public String upsertNotes(String condition) {
+        return compact
+                ? "INSERT INTO " + NOTES_TABLE + " (reading_id, notes) SELECT id, :notes FROM lecturas WHERE " + condition
+                        + " ON DUPLICATE KEY UPDATE notes = :notes"
+                : null;
+    }
+
+    private String scaled(String column, String scale) {
+        return compact ? "(" + column + " / " + scale + ")" : column;
+    }
+}
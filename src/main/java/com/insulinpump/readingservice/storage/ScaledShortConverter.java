@@ -0,0 +1,53 @@
+package com.insulinpump.readingservice.storage;
+
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * Guarda un Float como SMALLINT con una escala fija de decimales (formato compacto).
+ * Un valor que no cabe en un SMALLINT con esa escala se rechaza en lugar de truncarse.
+ */
+public abstract class ScaledShortConverter implements AttributeConverter<Float, Short> {
+
+    private final float scale;
+
+    protected ScaledShortConverter(float scale) {
+        this.scale = scale;
+    }
+
+    @Override
+    public Short convertToDatabaseColumn(Float value) {
+        if (value == null) {
+            return null;
+        }
+        long scaled = Math.round(value * (double) scale);
+        if (scaled < Short.MIN_VALUE || scaled > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Valor fuera del rango del formato compacto: " + value);
+        }
+        return (short) scaled;
+    }
+
+    @Override
+    public Float convertToEntityAttribute(Short value) {
+        return value != null ? value / scale : null;
+    }
+
+    /**
+     * Glucosa (mg/dL) e hidratos (g) con un decimal: hasta 3276,7.
+     */
+    @jakarta.persistence.Converter
+    public static class Tenths extends ScaledShortConverter {
+        public Tenths() {
+            super(10f);
+        }
+    }
+
+    /**
+     * Dosis de insulina (U) con dos decimales: hasta 327,67.
+     */
+    @jakarta.persistence.Converter
+    public static class Hundredths extends ScaledShortConverter {
+        public Hundredths() {
+            super(100f);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.insulinpump.readingservice.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calienta el servicio antes de que Eureka le envíe tráfico.
+ *
+ * La instancia se registra con eureka.instance.initial-status=STARTING y este runner, tras ejercitar los
+ * caminos calientes (clasificación y mapeo de lecturas, serialización JSON, consultas del repositorio a
+ * través de la propia API HTTP), la marca como UP. Sin Eureka (tests, prueba de carga) solo se calienta.
+ *
+ * Registra en el log el tiempo de arranque, la duración del calentamiento y la latencia de la primera
+ * petición frente a la última, para comparar builds (AOT, CDS) y configuraciones.
+ */
+@Component
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final long WARMUP_DEVICE_ID = -1L;
+
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+    private final Timer warmupTimer;
+
+    @Value("${readingservice.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${readingservice.warmup.iterations:300}")
+    private int iterations;
+
+    @Value("${readingservice.warmup.max-duration:30s}")
+    private Duration maxDuration;
+
+    public WarmupRunner(ObjectMapper objectMapper, Environment environment,
+                        ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+                        ObjectProvider<MeterRegistry> meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.applicationInfoManager = applicationInfoManager;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.warmupTimer = registry != null
+                ? Timer.builder("readingservice.warmup.duration").description("Duración del calentamiento").register(registry)
+                : null;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Contexto listo en {} ms desde el arranque de la JVM", ManagementFactory.getRuntimeMXBean().getUptime());
+        try {
+            if (enabled) {
+                warmUp();
+            }
+        } catch (RuntimeException e) {
+            // Un fallo de calentamiento no debe dejar la instancia fuera de servicio
+            log.warn("El calentamiento no se completó: {}", e.getMessage());
+        } finally {
+            markUp();
+        }
+    }
+
+    private void warmUp() {
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+        RestClient client = selfClient();
+
+        long firstRequest = 0;
+        long lastRequest = 0;
+        int completed = 0;
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            exerciseMapping(i);
+            long requestStarted = System.nanoTime();
+            exerciseApi(client);
+            lastRequest = System.nanoTime() - requestStarted;
+            if (i == 0) {
+                firstRequest = lastRequest;
+            }
+            completed++;
+        }
+
+        long elapsed = System.nanoTime() - started;
+        if (warmupTimer != null) {
+            warmupTimer.record(Duration.ofNanos(elapsed));
+        }
+        log.info("Calentamiento completado: {} iteraciones en {} ms; primera ronda de peticiones {} ms, última {} ms",
+                completed, elapsed / 1_000_000, String.format("%.2f", firstRequest / 1e6), String.format("%.2f", lastRequest / 1e6));
+    }
+
+    private void exerciseMapping(int iteration) {
+        List<ReadingDetailsDto> readings = new ArrayList<>(64);
+        LocalDateTime timestamp = LocalDateTime.now().minusHours(6);
+        for (int i = 0; i < 64; i++) {
+            Reading reading = new Reading();
+            reading.setId((long) i);
+            reading.setDeviceId(WARMUP_DEVICE_ID);
+            reading.setTimestamp(timestamp.plusMinutes(5L * i));
+            reading.setGlucoseLevel(40.0f + (iteration * 7 + i * 13) % 300);
+            reading.setStatus(ReadingStatus.values()[(iteration + i) % ReadingStatus.values().length]);
+            reading.setRequiresAction(reading.getGlucoseLevel() < 70 || reading.getGlucoseLevel() > 250);
+            readings.add(new ReadingDetailsDto(reading));
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(readings);
+            objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Error serializando lecturas de calentamiento", e);
+        }
+    }
+
+    // Peticiones de solo lectura sobre un dispositivo inexistente: recorren MVC, servicio, JPA y el manejo de errores
+    private void exerciseApi(RestClient client) {
+        LocalDateTime end = LocalDateTime.now().withNano(0);
+        LocalDateTime start = end.minusHours(3);
+        String base = "/api/readings/device/" + WARMUP_DEVICE_ID;
+        get(client, base + "/latest");
+        get(client, base + "/timerange?start=" + start + "&end=" + end);
+        get(client, base + "/timerange/downsampled?points=100&start=" + start + "&end=" + end);
+    }
+
+    private void get(RestClient client, String uri) {
+        try {
+            client.get().uri(uri).retrieve().toBodilessEntity();
+        } catch (RestClientResponseException e) {
+            // 404 esperado para el dispositivo de calentamiento
+        }
+    }
+
+    private RestClient selfClient() {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            throw new IllegalStateException("El servidor web no está disponible");
+        }
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(2));
+        requestFactory.setReadTimeout(Duration.ofSeconds(10));
+        return RestClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    private void markUp() {
+        ApplicationInfoManager manager = applicationInfoManager.getIfAvailable();
+        if (manager != null && manager.getInfo().getStatus() != InstanceInfo.InstanceStatus.UP) {
+            manager.setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+            log.info("Instancia marcada como UP en Eureka");
+        }
+    }
+}
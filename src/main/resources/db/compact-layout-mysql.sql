@@ -0,0 +1,52 @@
+-- Migración de la tabla lecturas al formato compacto (perfil "compact", ver META-INF/orm-compact.xml).
+-- Ejecutar en cada shard con el servicio parado. Los códigos de estado son los ordinales de ReadingStatus:
+-- 0 NORMAL, 1 LOW, 2 HIGH, 3 CRITICAL_LOW, 4 CRITICAL_HIGH.
+-- Los valores que no caben en SMALLINT escalado (glucosa > 3276.7, dosis > 327.67) hacen fallar la migración:
+-- comprobarlo antes con la consulta del final.
+
+CREATE TABLE lecturas_notas (
+    reading_id BIGINT NOT NULL,
+    notes VARCHAR(255),
+    PRIMARY KEY (reading_id),
+    CONSTRAINT fk_lecturas_notas_lectura FOREIGN KEY (reading_id) REFERENCES lecturas (id)
+);
+
+INSERT INTO lecturas_notas (reading_id, notes)
+SELECT id, notes FROM lecturas WHERE notes IS NOT NULL;
+
+ALTER TABLE lecturas
+    ADD COLUMN status_code TINYINT,
+    ADD COLUMN glucose_tenths SMALLINT,
+    ADD COLUMN insulin_hundredths SMALLINT,
+    ADD COLUMN carb_tenths SMALLINT;
+
+UPDATE lecturas SET
+    status_code = CASE status
+        WHEN 'NORMAL' THEN 0 WHEN 'LOW' THEN 1 WHEN 'HIGH' THEN 2
+        WHEN 'CRITICAL_LOW' THEN 3 WHEN 'CRITICAL_HIGH' THEN 4 END,
+    glucose_tenths = ROUND(glucose_level * 10),
+    insulin_hundredths = ROUND(insulin_dose * 100),
+    carb_tenths = ROUND(carb_intake * 10);
+
+ALTER TABLE lecturas
+    DROP COLUMN status,
+    DROP COLUMN glucose_level,
+    DROP COLUMN insulin_dose,
+    DROP COLUMN carb_intake,
+    DROP COLUMN notes;
+
+ALTER TABLE lecturas
+    RENAME COLUMN status_code TO status,
+    CHANGE COLUMN glucose_tenths glucose_level SMALLINT NOT NULL,
+    RENAME COLUMN insulin_hundredths TO insulin_dose,
+    RENAME COLUMN carb_tenths TO carb_intake;
+
+-- Las columnas borradas siguen ocupando espacio en las páginas hasta reconstruir la tabla
+OPTIMIZE TABLE lecturas;
+
+-- Comprobación previa de rangos:
+-- SELECT COUNT(*) FROM lecturas WHERE glucose_level > 3276.7 OR insulin_dose > 327.67 OR carb_intake > 3276.7;
+--
+-- Tamaño antes y después (filas por página ~ 16384 / AVG_ROW_LENGTH con páginas de 16 KB):
+-- SELECT TABLE_NAME, TABLE_ROWS, AVG_ROW_LENGTH, DATA_LENGTH, INDEX_LENGTH
+-- FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME IN ('lecturas', 'lecturas_notas');
@@ -0,0 +1,32 @@
+-- Vuelta al formato estándar desde el compacto (inversa de compact-layout-mysql.sql).
+
+ALTER TABLE lecturas
+    ADD COLUMN status_name VARCHAR(20),
+    ADD COLUMN glucose_value FLOAT,
+    ADD COLUMN insulin_value FLOAT,
+    ADD COLUMN carb_value FLOAT,
+    ADD COLUMN notes VARCHAR(255);
+
+UPDATE lecturas SET
+    status_name = CASE status
+        WHEN 0 THEN 'NORMAL' WHEN 1 THEN 'LOW' WHEN 2 THEN 'HIGH'
+        WHEN 3 THEN 'CRITICAL_LOW' WHEN 4 THEN 'CRITICAL_HIGH' END,
+    glucose_value = glucose_level / 10.0,
+    insulin_value = insulin_dose / 100.0,
+    carb_value = carb_intake / 10.0;
+
+UPDATE lecturas l JOIN lecturas_notas n ON n.reading_id = l.id SET l.notes = n.notes;
+
+ALTER TABLE lecturas
+    DROP COLUMN status,
+    DROP COLUMN glucose_level,
+    DROP COLUMN insulin_dose,
+    DROP COLUMN carb_intake;
+
+ALTER TABLE lecturas
+    RENAME COLUMN status_name TO status,
+    CHANGE COLUMN glucose_value glucose_level FLOAT NOT NULL,
+    RENAME COLUMN insulin_value TO insulin_dose,
+    RENAME COLUMN carb_value TO carb_intake;
+
+DROP TABLE lecturas_notas;
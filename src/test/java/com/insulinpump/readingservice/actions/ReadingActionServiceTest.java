@@ -0,0 +1,128 @@
+package com.insulinpump.readingservice.actions;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.dto.ActionTransitionDto;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.ReadingActionDto;
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.exception.ActionConflictException;
+import com.insulinpump.readingservice.model.ActionState;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.ReadingActionRepository;
+import com.insulinpump.readingservice.service.ReadingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:acciones;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class ReadingActionServiceTest {
+
+    @Autowired
+    private ReadingService readingService;
+
+    @Autowired
+    private ReadingActionService readingActionService;
+
+    @Autowired
+    private ReadingActionRepository actionRepository;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        actionRepository.deleteAll();
+        readingActionService.reloadIndex();
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            DeviceDto device = new DeviceDto();
+            device.setId(invocation.getArgument(0));
+            return device;
+        });
+    }
+
+    @Test
+    void should_queue_critical_readings_by_severity_and_age() {
+        // Given
+        readingService.createReading(reading(1L, 120.0f, base));
+        readingService.createReading(reading(2L, 300.0f, base.plusMinutes(1)));
+        readingService.createReading(reading(3L, 40.0f, base.plusMinutes(2)));
+        readingService.createReading(reading(4L, 280.0f, base.plusMinutes(3)));
+
+        // When
+        List<ReadingActionDto> firstPage = readingActionService.getOpenActions(0, 2).getContent();
+        List<ReadingActionDto> secondPage = readingActionService.getOpenActions(1, 2).getContent();
+
+        // Then: hipoglucemia grave primero, después las hiperglucemias por antigüedad
+        assertThat(readingActionService.getOpenActions(0, 10).getTotalOpen()).isEqualTo(3);
+        assertThat(firstPage).extracting(ReadingActionDto::getDeviceId).containsExactly(3L, 2L);
+        assertThat(secondPage).extracting(ReadingActionDto::getDeviceId).containsExactly(4L);
+        assertThat(firstPage.get(0).getReadingStatus()).isEqualTo(ReadingStatus.CRITICAL_LOW);
+    }
+
+    @Test
+    void should_reject_stale_transitions_and_drop_resolved_actions_from_queue() {
+        // Given
+        readingService.createReading(reading(1L, 45.0f, base));
+        ReadingActionDto open = readingActionService.getOpenActions(0, 10).getContent().get(0);
+
+        // When
+        ReadingActionDto claimed = readingActionService.claim(open.getId(), new ActionTransitionDto("dra.ruiz", open.getVersion(), null));
+
+        // Then
+        assertThat(claimed.getState()).isEqualTo(ActionState.CLAIMED);
+        assertThat(claimed.getVersion()).isGreaterThan(open.getVersion());
+        assertThatThrownBy(() -> readingActionService.claim(open.getId(), new ActionTransitionDto("dr.gil", open.getVersion(), null)))
+                .isInstanceOf(ActionConflictException.class);
+        assertThatThrownBy(() -> readingActionService.acknowledge(open.getId(), new ActionTransitionDto("dr.gil", null, null)))
+                .isInstanceOf(ActionConflictException.class);
+
+        ReadingActionDto resolved = readingActionService.resolve(open.getId(),
+                new ActionTransitionDto("dra.ruiz", claimed.getVersion(), "Glucagón administrado"));
+        assertThat(resolved.getState()).isEqualTo(ActionState.RESOLVED);
+        assertThat(readingActionService.getOpenActions(0, 10).getContent()).isEmpty();
+        assertThat(readingActionService.getAction(open.getId()).getResolution()).isEqualTo("Glucagón administrado");
+    }
+
+    @Test
+    void should_follow_reading_corrections() {
+        // Given
+        ReadingDetailsDto created = readingService.createReading(reading(1L, 120.0f, base));
+        assertThat(readingActionService.getOpenActions(0, 10).getTotalOpen()).isZero();
+
+        // When: la lectura se corrige a un valor crítico y después de vuelta a normal
+        readingService.updateReading(created.getId(), reading(1L, 260.0f, base));
+        int openAfterCritical = readingActionService.getOpenActions(0, 10).getTotalOpen();
+        readingService.updateReading(created.getId(), reading(1L, 130.0f, base));
+
+        // Then
+        assertThat(openAfterCritical).isEqualTo(1);
+        assertThat(readingActionService.getOpenActions(0, 10).getTotalOpen()).isZero();
+        assertThat(actionRepository.findAll()).singleElement()
+                .satisfies(action -> assertThat(action.getState()).isEqualTo(ActionState.RESOLVED));
+    }
+
+    private ReadingCreateDto reading(long deviceId, float glucoseLevel, LocalDateTime timestamp) {
+        ReadingCreateDto dto = new ReadingCreateDto();
+        dto.setDeviceId(deviceId);
+        dto.setGlucoseLevel(glucoseLevel);
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+}
@@ -0,0 +1,153 @@
+package com.insulinpump.readingservice.analytics;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.dto.CohortStatisticsDto;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.ReadingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cohortes;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.analytics.parallelism=2",
+        "readingservice.analytics.chunk-size=2"
+})
+class CohortAnalyticsServiceTest {
+
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Autowired
+    private ReadingRepository readingRepository;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 6, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        readingRepository.deleteAll();
+        // Dispositivos 1-6: los impares son del modelo X; los pacientes de 1, 2 y 3 tienen diabetes tipo 1
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(0);
+            return new DeviceDto(id, "SN-" + id, id % 2 == 1 ? "X" : "Y", "Insulet", "ACTIVE", 100 + id);
+        });
+        when(patientClient.getPatientByDeviceId(anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(0);
+            return new PatientDto(100 + id, "Paciente " + id, 40, "MED-" + id, id, id <= 3 ? "TYPE_1" : "TYPE_2");
+        });
+    }
+
+    @Test
+    void should_merge_parallel_partials_into_cohort_statistics() {
+        // Given
+        for (long device = 1; device <= 6; device++) {
+            save(device, 100.0f, 0);
+            save(device, 60.0f, 5);
+        }
+        save(1L, 200.0f, 10);
+        save(3L, 150.0f, 10);
+
+        // When: tipo 1 y modelo X -> dispositivos 1 y 3
+        CohortStatisticsDto cohort = cohortAnalyticsService.analyze("type_1", "X", base, base.plusHours(1), null, null);
+
+        // Then: igual que si se calculara sobre todas sus lecturas juntas
+        GlucoseAggregate expected = new GlucoseAggregate();
+        for (float glucose : new float[]{100.0f, 60.0f, 200.0f, 100.0f, 60.0f, 150.0f}) {
+            expected.add(glucose, status(glucose));
+        }
+        assertThat(cohort.isComplete()).isTrue();
+        assertThat(cohort.getDevicesTotal()).isEqualTo(6);
+        assertThat(cohort.getDevicesScanned()).isEqualTo(6);
+        assertThat(cohort.getDevicesInCohort()).isEqualTo(2);
+        assertThat(cohort.getStatistics().getTotalReadings()).isEqualTo(6);
+        assertThat(cohort.getStatistics().getAverageGlucoseLevel()).isEqualTo(expected.getAverage());
+        assertThat(cohort.getStatistics().getStandardDeviation()).isEqualTo(expected.getStandardDeviation());
+        assertThat(cohort.getStatistics().getLowReadingsCount()).isEqualTo(2);
+        assertThat(cohort.getStatistics().getHighReadingsCount()).isEqualTo(1);
+        // Dispositivo 1: 1 de 3 en rango; dispositivo 3: 2 de 3
+        assertThat(cohort.getTimeInRange()).isEqualTo(50.0f);
+        assertThat(cohort.getAverageTimeInRange()).isCloseTo(50.0f, offset(0.01f));
+    }
+
+    @Test
+    void should_return_partial_result_when_time_budget_is_exhausted() {
+        // Given: cada dispositivo tarda en resolverse
+        for (long device = 1; device <= 6; device++) {
+            save(device, 100.0f, 0);
+        }
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(150);
+            return new DeviceDto(invocation.getArgument(0), null, "X", null, null, null);
+        });
+
+        // When
+        CohortStatisticsDto cohort = cohortAnalyticsService.analyze(null, "X", base, base.plusHours(1), Duration.ofMillis(200), null);
+
+        // Then
+        assertThat(cohort.isComplete()).isFalse();
+        assertThat(cohort.getStopReason()).isEqualTo(CohortAnalyticsService.TIME_BUDGET);
+        assertThat(cohort.getDevicesScanned()).isLessThan(6);
+        assertThat(cohort.getStatistics().getTotalReadings()).isEqualTo(cohort.getDevicesInCohort().intValue());
+    }
+
+    @Test
+    void should_stop_cancelled_query() throws Exception {
+        // Given
+        for (long device = 1; device <= 6; device++) {
+            save(device, 100.0f, 0);
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new DeviceDto(invocation.getArgument(0), null, "X", null, null, null);
+        });
+
+        // When
+        CompletableFuture<CohortStatisticsDto> result = CompletableFuture.supplyAsync(() ->
+                cohortAnalyticsService.analyze(null, "X", base, base.plusHours(1), Duration.ofSeconds(30), "consulta-1"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(cohortAnalyticsService.cancel("consulta-1")).isTrue();
+        release.countDown();
+        CohortStatisticsDto cohort = result.get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(cohort.isComplete()).isFalse();
+        assertThat(cohort.getStopReason()).isEqualTo(CohortAnalyticsService.CANCELLED);
+        assertThat(cohort.getDevicesScanned()).isLessThan(6);
+        assertThat(cohortAnalyticsService.cancel("consulta-1")).isFalse();
+    }
+
+    private void save(long deviceId, float glucoseLevel, int minutes) {
+        readingRepository.save(new Reading(null, glucoseLevel, base.plusMinutes(minutes), deviceId, status(glucoseLevel),
+                null, null, null, false, false));
+    }
+
+    private ReadingStatus status(float glucoseLevel) {
+        return glucoseLevel < 70 ? ReadingStatus.LOW : glucoseLevel > 180 ? ReadingStatus.HIGH : ReadingStatus.NORMAL;
+    }
+}
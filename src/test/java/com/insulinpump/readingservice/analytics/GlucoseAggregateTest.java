@@ -0,0 +1,51 @@
+package com.insulinpump.readingservice.analytics;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GlucoseAggregateTest {
+
+    @Test
+    void should_give_same_result_merging_partials_as_aggregating_everything() {
+        // Given
+        float[] values = {45f, 65f, 90f, 110f, 150f, 190f, 260f, 120f};
+        ReadingStatus[] statuses = {ReadingStatus.CRITICAL_LOW, ReadingStatus.LOW, ReadingStatus.NORMAL, ReadingStatus.NORMAL,
+                ReadingStatus.NORMAL, ReadingStatus.HIGH, ReadingStatus.CRITICAL_HIGH, ReadingStatus.NORMAL};
+        GlucoseAggregate whole = new GlucoseAggregate();
+        GlucoseAggregate first = new GlucoseAggregate();
+        GlucoseAggregate second = new GlucoseAggregate();
+        for (int i = 0; i < values.length; i++) {
+            whole.add(values[i], statuses[i]);
+            (i < 3 ? first : second).add(values[i], statuses[i]);
+        }
+
+        // When
+        GlucoseAggregate merged = new GlucoseAggregate().merge(first).merge(second).merge(new GlucoseAggregate());
+
+        // Then
+        assertThat(merged.getCount()).isEqualTo(8);
+        assertThat(merged.getAverage()).isEqualTo(whole.getAverage());
+        assertThat(merged.getStandardDeviation()).isCloseTo(whole.getStandardDeviation(), within(0.001f));
+        assertThat(merged.getMin()).isEqualTo(45f);
+        assertThat(merged.getMax()).isEqualTo(260f);
+        assertThat(merged.getLowCount()).isEqualTo(2);
+        assertThat(merged.getHighCount()).isEqualTo(2);
+    }
+
+    @Test
+    void should_read_partial_from_query_row() {
+        // Given: [deviceId, count, sum, sumOfSquares, min, max, low, high]
+        Object[] row = {7L, 2L, 200.0, 20200.0, 90.0f, 110.0f, 0L, 0L};
+
+        // When
+        GlucoseAggregate aggregate = GlucoseAggregate.fromRow(row, 1);
+
+        // Then
+        assertThat(aggregate.getAverage()).isEqualTo(100.0f);
+        assertThat(aggregate.getStandardDeviation()).isCloseTo(10.0f, within(0.001f));
+        assertThat(aggregate.toStatistics(null, null).getTotalReadings()).isEqualTo(2);
+    }
+}
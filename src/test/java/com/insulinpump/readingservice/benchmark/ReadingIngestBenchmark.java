@@ -0,0 +1,76 @@
+package com.insulinpump.readingservice.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.insulinpump.readingservice.codec.ReadingFrameCodec;
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.model.Reading;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la ingesta JSON (Jackson + Bean Validation) con la trama binaria de ReadingFrameCodec.
+ * Los bytes por lote de cada formato se imprimen en el setup; para asignaciones usar "-prof gc".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadingIngestBenchmark {
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    private ObjectMapper objectMapper;
+    private Validator validator;
+    private ReadingFrameCodec codec;
+    private byte[] json;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        codec = new ReadingFrameCodec();
+
+        List<ReadingCreateDto> readings = new ArrayList<>(batchSize);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < batchSize; i++) {
+            ReadingCreateDto dto = new ReadingCreateDto();
+            dto.setDeviceId(1000L + i);
+            dto.setGlucoseLevel(80.0f + (i % 150));
+            dto.setTimestamp(start.plusMinutes(5L * i));
+            dto.setInsulinDose(i % 10 == 0 ? 1.5f : null);
+            dto.setManualReading(false);
+            readings.add(dto);
+        }
+
+        json = objectMapper.writeValueAsBytes(readings);
+        frame = codec.encode(readings);
+        System.out.printf("%nbatchSize=%d json=%d bytes frame=%d bytes%n", batchSize, json.length, frame.length);
+    }
+
+    @Benchmark
+    public void json(Blackhole blackhole) throws Exception {
+        List<ReadingCreateDto> readings = objectMapper.readValue(json, new TypeReference<>() {});
+        for (ReadingCreateDto reading : readings) {
+            blackhole.consume(validator.validate(reading));
+        }
+        blackhole.consume(readings);
+    }
+
+    @Benchmark
+    public List<Reading> frame() {
+        return codec.decode(frame);
+    }
+}
@@ -0,0 +1,85 @@
+package com.insulinpump.readingservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.insulinpump.readingservice.codec.CompactReadingJsonWriter;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la serialización JSON por defecto de List&lt;ReadingDetailsDto&gt; con el formato compacto.
+ * Los bytes por lectura se imprimen en el setup; para asignaciones por operación usar "-prof gc".
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ReadingListSerialization -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadingListSerializationBenchmark {
+
+    @Param({"1000"})
+    private int readings;
+
+    @Param({"10"})
+    private int devices;
+
+    private ObjectMapper objectMapper;
+    private CompactReadingJsonWriter compactWriter;
+    private List<ReadingDetailsDto> list;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        compactWriter = new CompactReadingJsonWriter(objectMapper);
+
+        list = new ArrayList<>(readings);
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 0, 0);
+        ReadingStatus[] statuses = ReadingStatus.values();
+        for (int i = 0; i < readings; i++) {
+            long deviceId = 1 + i % devices;
+            Reading reading = new Reading((long) i, 80.0f + (i % 150) + 0.5f, start.plusMinutes(5L * (i / devices)), deviceId,
+                    statuses[i % statuses.length], i % 20 == 0 ? "tras comer" : null, i % 10 == 0 ? 1.5f : null, null,
+                    false, i % 7 == 0);
+            ReadingDetailsDto dto = new ReadingDetailsDto(reading);
+            dto.setDevice(new DeviceDto(deviceId, "PUMP-" + deviceId, "LT-1", "Sintético", "ACTIVE", 100 + deviceId));
+            dto.setPatient(new PatientDto(100 + deviceId, "Paciente " + deviceId, 40, "MED-" + deviceId, deviceId, "TYPE_1"));
+            list.add(dto);
+        }
+        out = new ByteArrayOutputStream(1 << 20);
+
+        int jsonBytes = objectMapper.writeValueAsBytes(list).length;
+        compactWriter.write(list, out);
+        System.out.printf("%nreadings=%d devices=%d json=%d bytes (%.1f/lectura) compact=%d bytes (%.1f/lectura)%n",
+                readings, devices, jsonBytes, (double) jsonBytes / readings, out.size(), (double) out.size() / readings);
+    }
+
+    @Benchmark
+    public int jackson() throws Exception {
+        out.reset();
+        objectMapper.writeValue(out, list);
+        return out.size();
+    }
+
+    @Benchmark
+    public int compact() throws Exception {
+        out.reset();
+        compactWriter.write(list, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,142 @@
+package com.insulinpump.readingservice.benchmark;
+
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compara el formato estándar de la tabla lecturas con el compacto (perfil "compact") sobre H2 en disco:
+ * en el setup se imprimen los bytes que ocupan tabla e índice (device_id, timestamp), por fila y filas por
+ * página; el benchmark mide un recorrido agregado por dispositivo y rango como el de las estadísticas.
+ * H2 no separa el tamaño del índice, que no cambia entre formatos porque no incluye columnas compactadas.
+ * Para medir en MySQL, ver la consulta a information_schema al final de db/compact-layout-mysql.sql.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadingStorageLayoutBenchmark {
+
+    private static final int DEVICES = 200;
+    private static final int READINGS_PER_DEVICE = 2_000;
+    private static final String[] STATUSES = {"NORMAL", "LOW", "HIGH", "CRITICAL_LOW", "CRITICAL_HIGH"};
+
+    private static final String STANDARD_TABLE = "CREATE TABLE lecturas (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "carb_intake REAL, device_id BIGINT NOT NULL, glucose_level REAL NOT NULL, insulin_dose REAL, "
+            + "manual_reading BOOLEAN, notes VARCHAR(255), requires_action BOOLEAN, status VARCHAR(20), "
+            + "timestamp TIMESTAMP(6) NOT NULL)";
+    private static final String COMPACT_TABLE = "CREATE TABLE lecturas (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "carb_intake SMALLINT, device_id BIGINT NOT NULL, glucose_level SMALLINT NOT NULL, insulin_dose SMALLINT, "
+            + "manual_reading BOOLEAN, requires_action BOOLEAN, status TINYINT, timestamp TIMESTAMP(6) NOT NULL)";
+    private static final String NOTES_TABLE = "CREATE TABLE lecturas_notas (reading_id BIGINT PRIMARY KEY, notes VARCHAR(255))";
+    private static final String INDEX = "CREATE INDEX idx_lecturas_device_timestamp ON lecturas (device_id, timestamp)";
+
+    @Param({"standard", "compact"})
+    private String layout;
+
+    private Path directory;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private String aggregate;
+    private Object[] parameters;
+    private LocalDateTime start;
+
+    @Setup
+    public void setUp() throws IOException {
+        ReadingStorageLayout storageLayout = new ReadingStorageLayout(layout);
+        directory = Files.createTempDirectory("lecturas-" + layout);
+        // Una sola conexión: H2 cierra la base de datos de fichero al cerrarse la última.
+        // Sin reutilizar resultados, para que cada iteración recorra de verdad la tabla
+        dataSource = new SingleConnectionDataSource("jdbc:h2:file:" + directory.resolve("db") + ";MODE=MySQL;OPTIMIZE_REUSE_RESULTS=FALSE", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute(storageLayout.isCompact() ? COMPACT_TABLE : STANDARD_TABLE);
+        jdbcTemplate.execute(INDEX);
+        if (storageLayout.isCompact()) {
+            jdbcTemplate.execute(NOTES_TABLE);
+        }
+        start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        load(storageLayout);
+        long rows = (long) DEVICES * READINGS_PER_DEVICE;
+        long tableBytes = diskSpaceUsed("LECTURAS");
+        long notesBytes = storageLayout.isCompact() ? diskSpaceUsed("LECTURAS_NOTAS") : 0;
+        System.out.printf("%nlayout=%s rows=%d lecturas+índice=%d bytes (%.1f/fila, ~%d filas por página de 16 KB) notas=%d bytes%n",
+                layout, rows, tableBytes, (double) tableBytes / rows, 16384 * rows / tableBytes, notesBytes);
+
+        aggregate = "SELECT l.device_id, COUNT(*), SUM(" + storageLayout.glucoseLevel("l") + "), MIN("
+                + storageLayout.glucoseLevel("l") + "), MAX(" + storageLayout.glucoseLevel("l") + "), "
+                + "SUM(CASE WHEN l.status IN (?, ?) THEN 1 ELSE 0 END) FROM lecturas l "
+                + "WHERE l.timestamp BETWEEN ? AND ? GROUP BY l.device_id";
+        parameters = new Object[]{storageLayout.statusValue(ReadingStatus.LOW), storageLayout.statusValue(ReadingStatus.CRITICAL_LOW),
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(3))};
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        dataSource.destroy();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void scanAggregate(Blackhole blackhole) {
+        blackhole.consume(jdbcTemplate.queryForList(aggregate, parameters));
+    }
+
+    private void load(ReadingStorageLayout storageLayout) {
+        String insert = storageLayout.isCompact()
+                ? "INSERT INTO lecturas (carb_intake, device_id, glucose_level, insulin_dose, manual_reading, requires_action, "
+                        + "status, timestamp) VALUES (?, ?, ?, ?, FALSE, ?, ?, ?)"
+                : "INSERT INTO lecturas (carb_intake, device_id, glucose_level, insulin_dose, manual_reading, requires_action, "
+                        + "status, timestamp, notes) VALUES (?, ?, ?, ?, FALSE, ?, ?, ?, ?)";
+        for (int reading = 0; reading < READINGS_PER_DEVICE; reading++) {
+            List<Object[]> batch = new ArrayList<>(DEVICES);
+            List<Object[]> notes = new ArrayList<>();
+            for (int device = 0; device < DEVICES; device++) {
+                float glucose = 60.0f + ((device * 31 + reading * 7) % 2000) / 10.0f;
+                int status = glucose < 70 ? 1 : glucose > 180 ? 2 : 0;
+                Float insulin = reading % 12 == 0 ? 2.5f : null;
+                Float carbs = reading % 12 == 0 ? 45.0f : null;
+                String note = reading % 50 == 0 ? "Lectura tras ejercicio" : null;
+                Timestamp timestamp = Timestamp.valueOf(start.plusMinutes(5L * reading));
+                if (storageLayout.isCompact()) {
+                    batch.add(new Object[]{carbs != null ? (short) (carbs * 10) : null, device, (short) Math.round(glucose * 10),
+                            insulin != null ? (short) (insulin * 100) : null, status != 0, (byte) status, timestamp});
+                    if (note != null) {
+                        notes.add(new Object[]{(long) reading * DEVICES + device + 1, note});
+                    }
+                } else {
+                    batch.add(new Object[]{carbs, device, glucose, insulin, status != 0, STATUSES[status], timestamp, note});
+                }
+            }
+            jdbcTemplate.batchUpdate(insert, batch);
+            if (!notes.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO lecturas_notas (reading_id, notes) VALUES (?, ?)", notes);
+            }
+        }
+    }
+
+    private long diskSpaceUsed(String table) {
+        jdbcTemplate.execute("CHECKPOINT SYNC");
+        return jdbcTemplate.queryForObject("CALL DISK_SPACE_USED('" + table + "')", Long.class);
+    }
+}
@@ -0,0 +1,63 @@
+package com.insulinpump.readingservice.bucketing;
+
+import com.insulinpump.readingservice.dto.GlucoseBucketDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GlucoseBucketsTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 7, 1, 10, 20);
+
+    @Test
+    void should_align_buckets_to_width_and_fill_gaps() {
+        // Given: intervalos de 1h desde las 10:00; lecturas en 10h (100) y 13h (160), nada en 11h, 12h y 14h
+        GlucoseBuckets buckets = new GlucoseBuckets(start, start.plusHours(4), BucketWidth.ONE_HOUR);
+        buckets.add(0, 2, 200.0, 20_000.0, 100.0f, 100.0f);
+        buckets.add(3, 1, 160.0, 25_600.0, 160.0f, 160.0f);
+
+        // When
+        List<GlucoseBucketDto> none = buckets.finish(EnumSet.allOf(BucketFunction.class), GapFill.NULL);
+        List<GlucoseBucketDto> previous = buckets.finish(EnumSet.allOf(BucketFunction.class), GapFill.PREVIOUS);
+        List<GlucoseBucketDto> linear = buckets.finish(EnumSet.allOf(BucketFunction.class), GapFill.LINEAR);
+
+        // Then
+        assertThat(buckets.getOrigin()).isEqualTo(LocalDateTime.of(2025, 7, 1, 10, 0));
+        assertThat(none).hasSize(5).extracting(GlucoseBucketDto::getAverageGlucoseLevel)
+                .containsExactly(100.0f, null, null, 160.0f, null);
+        assertThat(previous).extracting(GlucoseBucketDto::getAverageGlucoseLevel)
+                .containsExactly(100.0f, 100.0f, 100.0f, 160.0f, 160.0f);
+        assertThat(linear).extracting(GlucoseBucketDto::getAverageGlucoseLevel)
+                .containsExactly(100.0f, 120.0f, 140.0f, 160.0f, null);
+        assertThat(linear).extracting(GlucoseBucketDto::getFilled).containsExactly(null, true, true, null, null);
+        assertThat(linear).extracting(GlucoseBucketDto::getCount).containsExactly(2L, 0L, 0L, 1L, 0L);
+    }
+
+    @Test
+    void should_only_include_requested_functions() {
+        // Given
+        GlucoseBuckets buckets = new GlucoseBuckets(start, start.plusMinutes(10), BucketWidth.FIFTEEN_MINUTES);
+        buckets.add(0, 2, 200.0, 20_200.0, 90.0f, 110.0f);
+
+        // When
+        GlucoseBucketDto bucket = buckets.finish(EnumSet.of(BucketFunction.MAX, BucketFunction.STDDEV), GapFill.NULL).get(0);
+
+        // Then
+        assertThat(bucket.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 7, 1, 10, 15));
+        assertThat(bucket.getMaxGlucoseLevel()).isEqualTo(110.0f);
+        assertThat(bucket.getStandardDeviation()).isEqualTo(10.0f);
+        assertThat(bucket.getAverageGlucoseLevel()).isNull();
+        assertThat(bucket.getCount()).isNull();
+    }
+
+    @Test
+    void should_reject_too_many_buckets() {
+        assertThatThrownBy(() -> new GlucoseBuckets(start, start.plusYears(1), BucketWidth.FIVE_MINUTES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
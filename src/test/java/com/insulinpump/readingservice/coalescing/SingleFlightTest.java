@@ -0,0 +1,216 @@
+package com.insulinpump.readingservice.coalescing;
+
+import com.insulinpump.readingservice.datasource.ReplicaRoutingContext;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.exception.ReadingNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(meterRegistry);
+        singleFlight = new SingleFlight(provider, 2);
+    }
+
+    @Test
+    void should_share_one_computation_between_concurrent_identical_calls() throws Exception {
+        // Given: el líder no termina hasta que los demás están esperando
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computations = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("latest-1", () -> {
+                    computations.incrementAndGet();
+                    await(release);
+                    return "lectura";
+                })));
+            }
+            waitUntil(() -> followers() == 4);
+
+            // When
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("lectura");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(computations).hasValue(1);
+        assertThat(singleFlight.getInFlight()).isZero();
+        assertThat(singleFlight.getCoalescingRatio()).isEqualTo(0.8);
+        assertThat(meterRegistry.get("readingservice.coalescing.ratio").gauge().value()).isEqualTo(0.8);
+
+        // Sin cálculo en curso la siguiente petición vuelve a calcular
+        assertThat(singleFlight.execute("latest-1", () -> "nueva")).isEqualTo("nueva");
+    }
+
+    @Test
+    void should_propagate_the_leader_exception_to_followers() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("latest-2", () -> {
+                    await(release);
+                    throw new ReadingNotFoundException("No se encontraron lecturas para el dispositivo: 2");
+                })));
+            }
+            waitUntil(() -> followers() == 1);
+
+            // When
+            release.countDown();
+
+            // Then
+            for (Future<Object> result : results) {
+                assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(ReadingNotFoundException.class);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(singleFlight.getInFlight()).isZero();
+    }
+
+    @Test
+    void should_run_without_coalescing_when_key_space_is_full() throws Exception {
+        // Given: dos claves en curso, el máximo configurado
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (String key : List.of("a", "b")) {
+                executor.submit(() -> singleFlight.execute(key, () -> {
+                    await(release);
+                    return key;
+                }));
+            }
+            waitUntil(() -> singleFlight.getInFlight() == 2);
+
+            // When / Then
+            assertThat(singleFlight.execute("c", () -> "c")).isEqualTo("c");
+            assertThat(singleFlight.getInFlight()).isEqualTo(2);
+            assertThat(meterRegistry.get("readingservice.coalescing.requests").tag("role", "bypassed")
+                    .functionCounter().count()).isEqualTo(1.0);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_give_each_caller_its_own_copy() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<ReadingDetailsDto>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("latest-3", () -> {
+                    await(release);
+                    ReadingDetailsDto reading = new ReadingDetailsDto();
+                    reading.setDevice(new DeviceDto(3L, "SN-3", null, null, null, null));
+                    return reading;
+                }, ReadingDetailsDto::new)));
+            }
+            waitUntil(() -> followers() == 1);
+
+            // When
+            release.countDown();
+            ReadingDetailsDto first = results.get(0).get(5, TimeUnit.SECONDS);
+            ReadingDetailsDto second = results.get(1).get(5, TimeUnit.SECONDS);
+            first.setNotes("modificada");
+            first.getDevice().setSerialNo("otro");
+
+            // Then
+            assertThat(second).isNotSameAs(first);
+            assertThat(second.getNotes()).isNull();
+            assertThat(second.getDevice().getSerialNo()).isEqualTo("SN-3");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void should_not_join_a_replica_computation_when_the_primary_is_forced() throws Exception {
+        // Given: un cálculo en curso leyendo de la réplica
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> replica = executor.submit(() -> singleFlight.execute("latest-4", () -> {
+                await(release);
+                return "réplica";
+            }));
+            waitUntil(() -> singleFlight.getInFlight() == 1);
+
+            // When: la misma petición de un cliente que acaba de escribir
+            ReplicaRoutingContext.forcePrimary();
+            String primary;
+            try {
+                primary = singleFlight.execute("latest-4", () -> "primario");
+            } finally {
+                ReplicaRoutingContext.clear();
+            }
+
+            // Then
+            assertThat(primary).isEqualTo("primario");
+            assertThat(followers()).isZero();
+            release.countDown();
+            assertThat(replica.get(5, TimeUnit.SECONDS)).isEqualTo("réplica");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private double followers() {
+        return meterRegistry.get("readingservice.coalescing.requests").tag("role", "follower").functionCounter().count();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condición no alcanzada a tiempo").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.insulinpump.readingservice.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactReadingJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final CompactReadingJsonWriter writer = new CompactReadingJsonWriter(objectMapper);
+
+    @Test
+    void should_write_devices_and_patients_once_and_reference_them_by_id() throws Exception {
+        // Given
+        DeviceDto device = new DeviceDto(7L, "SN-7", "X1", "Acme", "ACTIVE", 3L);
+        PatientDto patient = new PatientDto(3L, "Ana", 40, "MED-3", 7L, "TYPE_1");
+        List<ReadingDetailsDto> readings = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readings.add(dto(i + 1L, 7L, 100.5f + i, LocalDateTime.of(2025, 3, 1, 23, 55).plusMinutes(5L * i), device, patient));
+        }
+
+        // When
+        JsonNode json = write(readings);
+
+        // Then
+        assertThat(json.get("devices")).hasSize(1);
+        assertThat(json.get("devices").get(0).get("serialNo").asText()).isEqualTo("SN-7");
+        assertThat(json.get("patients")).hasSize(1);
+        assertThat(json.get("patients").get(0).get("name").asText()).isEqualTo("Ana");
+        JsonNode rows = json.get("readings");
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).has("device")).isFalse();
+        assertThat(rows.get(0).has("notes")).isFalse();
+        assertThat(rows.get(0).get("deviceId").asLong()).isEqualTo(7L);
+        assertThat(rows.get(1).get("glucoseLevel").floatValue()).isEqualTo(101.5f);
+        assertThat(rows.get(2).get("status").asText()).isEqualTo("NORMAL");
+        assertThat(rows.get(2).get("requiresAction").asBoolean()).isFalse();
+    }
+
+    @Test
+    void should_format_timestamps_like_jackson_across_day_boundaries() throws Exception {
+        // Given
+        List<ReadingDetailsDto> readings = List.of(
+                dto(1L, 1L, 90f, LocalDateTime.of(2025, 12, 31, 23, 59, 59), null, null),
+                dto(2L, 1L, 90f, LocalDateTime.of(2026, 1, 1, 0, 4, 5, 123_000_000), null, null),
+                dto(3L, 1L, 90f, LocalDateTime.of(2026, 1, 1, 9, 0), null, null));
+
+        // When
+        JsonNode rows = write(readings).get("readings");
+
+        // Then
+        for (int i = 0; i < readings.size(); i++) {
+            LocalDateTime parsed = LocalDateTime.parse(rows.get(i).get("timestamp").asText());
+            assertThat(parsed).isEqualTo(readings.get(i).getTimestamp());
+        }
+        assertThat(rows.get(0).get("timestamp").asText()).isEqualTo("2025-12-31T23:59:59");
+        assertThat(rows.get(1).get("timestamp").asText()).isEqualTo("2026-01-01T00:04:05.123");
+    }
+
+    @Test
+    void should_write_floats_like_float_to_string() throws Exception {
+        // Given
+        float[] values = {80f, 110.5f, -3.2f, 0.05f, 123.456f, 0.1f};
+        List<ReadingDetailsDto> readings = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            readings.add(dto(i + 1L, 1L, values[i], LocalDateTime.of(2025, 3, 1, 8, 0), null, null));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        writer.write(readings, out);
+        JsonNode rows = objectMapper.readTree(out.toByteArray()).get("readings");
+
+        // Then
+        String raw = out.toString();
+        for (int i = 0; i < values.length; i++) {
+            assertThat(rows.get(i).get("glucoseLevel").floatValue()).isEqualTo(values[i]);
+            assertThat(raw).contains("\"glucoseLevel\":" + Float.toString(values[i]));
+        }
+    }
+
+    private JsonNode write(List<ReadingDetailsDto> readings) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(readings, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private ReadingDetailsDto dto(Long id, Long deviceId, float glucose, LocalDateTime timestamp, DeviceDto device, PatientDto patient) {
+        Reading reading = new Reading(id, glucose, timestamp, deviceId, ReadingStatus.NORMAL, null, null, null, false, false);
+        ReadingDetailsDto dto = new ReadingDetailsDto(reading);
+        dto.setDevice(device);
+        dto.setPatient(patient);
+        return dto;
+    }
+}
@@ -0,0 +1,77 @@
+package com.insulinpump.readingservice.codec;
+
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.exception.InvalidReadingFrameException;
+import com.insulinpump.readingservice.model.Reading;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReadingFrameCodecTest {
+
+    private final ReadingFrameCodec codec = new ReadingFrameCodec();
+
+    @Test
+    void should_round_trip_batch_of_readings() {
+        // Given
+        ReadingCreateDto first = createDto(1L, 120.5f, LocalDateTime.of(2025, 1, 10, 8, 30, 15));
+        first.setInsulinDose(2.5f);
+        first.setManualReading(true);
+        ReadingCreateDto second = createDto(2L, 45.0f, null);
+
+        // When
+        byte[] frame = codec.encode(Arrays.asList(first, second));
+        List<Reading> readings = codec.decode(frame);
+
+        // Then
+        assertThat(frame).hasSize(ReadingFrameCodec.HEADER_SIZE + 2 * ReadingFrameCodec.RECORD_SIZE);
+        assertThat(readings).hasSize(2);
+
+        Reading decodedFirst = readings.get(0);
+        assertThat(decodedFirst.getDeviceId()).isEqualTo(1L);
+        assertThat(decodedFirst.getGlucoseLevel()).isEqualTo(120.5f);
+        assertThat(decodedFirst.getTimestamp()).isEqualTo(LocalDateTime.of(2025, 1, 10, 8, 30, 15));
+        assertThat(decodedFirst.getInsulinDose()).isEqualTo(2.5f);
+        assertThat(decodedFirst.getCarbIntake()).isNull();
+        assertThat(decodedFirst.getManualReading()).isTrue();
+
+        Reading decodedSecond = readings.get(1);
+        assertThat(decodedSecond.getTimestamp()).isNull();
+        assertThat(decodedSecond.getManualReading()).isNull();
+    }
+
+    @Test
+    void should_reject_frame_with_invalid_glucose() {
+        // Given
+        byte[] frame = codec.encode(List.of(createDto(1L, -10.0f, LocalDateTime.now())));
+
+        // When & Then
+        assertThatThrownBy(() -> codec.decode(frame))
+                .isInstanceOf(InvalidReadingFrameException.class)
+                .hasMessageContaining("glucosa");
+    }
+
+    @Test
+    void should_reject_truncated_frame() {
+        // Given
+        byte[] frame = codec.encode(List.of(createDto(1L, 100.0f, LocalDateTime.now())));
+        byte[] truncated = Arrays.copyOf(frame, frame.length - 1);
+
+        // When & Then
+        assertThatThrownBy(() -> codec.decode(truncated))
+                .isInstanceOf(InvalidReadingFrameException.class);
+    }
+
+    private ReadingCreateDto createDto(Long deviceId, Float glucoseLevel, LocalDateTime timestamp) {
+        ReadingCreateDto dto = new ReadingCreateDto();
+        dto.setDeviceId(deviceId);
+        dto.setGlucoseLevel(glucoseLevel);
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+}
@@ -2,27 +2,49 @@ package com.insulinpump.readingservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.insulinpump.readingservice.coalescing.SingleFlight;
+import com.insulinpump.readingservice.codec.CompactReadingJsonWriter;
+import com.insulinpump.readingservice.codec.CompactReadingListHttpMessageConverter;
+import com.insulinpump.readingservice.dto.DeviceDto;
 import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
 import com.insulinpump.readingservice.dto.ReadingCreateDto;
 import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.exception.ConcurrencyLimitExceededException;
 import com.insulinpump.readingservice.exception.GlobalExceptionHandler;
 import com.insulinpump.readingservice.exception.ReadingNotFoundException;
+import com.insulinpump.readingservice.journal.IngestJournal;
+import com.insulinpump.readingservice.limiter.AdaptiveConcurrencyLimiter;
+import com.insulinpump.readingservice.limiter.RequestPriority;
 import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.service.DeviceVersionTracker;
+import com.insulinpump.readingservice.service.DeviceVersionTracker.DeviceVersion;
 import com.insulinpump.readingservice.service.ReadingService;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -35,6 +57,19 @@ class ReadingControllerTest {
     @Mock
     private ReadingService readingService;
 
+    @Spy
+    private DeviceVersionTracker deviceVersionTracker = new DeviceVersionTracker(mock(JdbcTemplate.class), ShardExecutor.local());
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 100);
+
+    @Spy
+    private AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), true, 20, 4, 200, 2.0, 0.9, 0.7, Duration.ofSeconds(1));
+
+    @Mock
+    private IngestJournal ingestJournal;
+
     @InjectMocks
     private ReadingController readingController;
 
@@ -70,6 +105,34 @@ class ReadingControllerTest {
         verify(readingService, times(1)).getAllReadings();
     }
 
+    @Test
+    void should_get_readings_in_compact_format_only_when_requested() throws Exception {
+        // Given
+        ReadingDetailsDto dto = createTestDto();
+        dto.setDevice(new DeviceDto(1L, "SN-1", "X1", "Acme", "ACTIVE", null));
+        when(readingService.getAllReadings()).thenReturn(List.of(dto, dto));
+        MockMvc compactMockMvc = MockMvcBuilders
+                .standaloneSetup(readingController)
+                .setMessageConverters(
+                        new CompactReadingListHttpMessageConverter(new CompactReadingJsonWriter(objectMapper)),
+                        new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+
+        // When & Then
+        compactMockMvc.perform(get("/api/readings").accept(CompactReadingJsonWriter.MEDIA_TYPE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CompactReadingJsonWriter.MEDIA_TYPE_VALUE))
+                .andExpect(jsonPath("$.devices.length()").value(1))
+                .andExpect(jsonPath("$.devices[0].serialNo").value("SN-1"))
+                .andExpect(jsonPath("$.readings[1].deviceId").value(1))
+                .andExpect(jsonPath("$.readings[1].device").doesNotExist());
+
+        compactMockMvc.perform(get("/api/readings"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].device.serialNo").value("SN-1"));
+    }
+
     @Test
     void should_get_reading_by_id() throws Exception {
         // Given
@@ -139,6 +202,42 @@ class ReadingControllerTest {
         verify(readingService, times(1)).getLatestReadingByDeviceId(1L);
     }
 
+    @Test
+    void should_return_304_for_latest_reading_when_device_not_written() throws Exception {
+        // Given
+        when(readingService.getLatestReadingByDeviceId(1L)).thenReturn(createTestDto());
+        String etag = mockMvc.perform(get("/api/readings/device/1/latest"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/readings/device/1/latest").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Otra instancia guarda una lectura del dispositivo
+        doReturn(new DeviceVersion(1L, 1L, System.currentTimeMillis())).when(deviceVersionTracker).current(1L);
+        mockMvc.perform(get("/api/readings/device/1/latest").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"));
+
+        verify(readingService, times(2)).getLatestReadingByDeviceId(1L);
+    }
+
+    @Test
+    void should_not_answer_if_modified_since_for_device_without_known_version() throws Exception {
+        // Given: el dispositivo no tiene escrituras registradas en versiones_dispositivo
+        when(readingService.getLatestReadingByDeviceId(1L)).thenReturn(createTestDto());
+        String future = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusDays(1));
+
+        // When & Then
+        mockMvc.perform(get("/api/readings/device/1/latest").header("If-Modified-Since", future))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Last-Modified"));
+
+        verify(readingService, times(1)).getLatestReadingByDeviceId(1L);
+    }
+
     @Test
     void should_get_readings_by_time_range() throws Exception {
         // Given
@@ -229,6 +328,61 @@ class ReadingControllerTest {
         verify(readingService, times(1)).createReading(any(ReadingCreateDto.class));
     }
 
+    @Test
+    void should_shed_routine_reading_with_503_and_retry_after_when_saturated() throws Exception {
+        // Given
+        doThrow(new ConcurrencyLimitExceededException(RequestPriority.ROUTINE, 20, 2))
+                .when(concurrencyLimiter).acquire(RequestPriority.ROUTINE);
+
+        // When & Then
+        mockMvc.perform(post("/api/readings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createTestCreateDto())))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+
+        verify(readingService, never()).createReading(any(ReadingCreateDto.class));
+    }
+
+    @Test
+    void should_admit_critical_reading_with_priority() throws Exception {
+        // Given: sin estado indicado, 40 mg/dL es CRITICAL_LOW
+        ReadingCreateDto createDto = createTestCreateDto();
+        createDto.setGlucoseLevel(40.0f);
+        createDto.setStatus(null);
+        when(readingService.createReading(any(ReadingCreateDto.class))).thenReturn(createTestDto());
+
+        // When & Then
+        mockMvc.perform(post("/api/readings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createDto)))
+                .andExpect(status().isCreated());
+
+        verify(concurrencyLimiter).acquire(RequestPriority.CRITICAL);
+        assertThat(concurrencyLimiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void should_accept_reading_into_journal_when_database_is_unavailable() throws Exception {
+        // Given
+        when(readingService.createReading(any(ReadingCreateDto.class)))
+                .thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"));
+        when(ingestJournal.isEnabled()).thenReturn(true);
+        ReadingDetailsDto journaled = createTestDto();
+        journaled.setId(null);
+        when(readingService.journalReading(any(ReadingCreateDto.class))).thenReturn(journaled);
+
+        // When & Then
+        mockMvc.perform(post("/api/readings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createTestCreateDto())))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.glucoseLevel").value(100.0));
+
+        verify(readingService).journalReading(any(ReadingCreateDto.class));
+    }
+
     @Test
     void should_update_reading() throws Exception {
         // Given
@@ -0,0 +1,125 @@
+package com.insulinpump.readingservice.counters;
+
+import com.insulinpump.readingservice.dto.ReadingStatusSummaryDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadingStatusCountersTest {
+
+    private final ReadingStatusCounters counters = new ReadingStatusCounters();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void should_maintain_counts_on_create_update_and_delete() {
+        // Given
+        Reading normal = reading(1L, 1L, ReadingStatus.NORMAL, false, now.minusMinutes(5));
+        Reading critical = reading(2L, 1L, ReadingStatus.CRITICAL_LOW, true, now.minusHours(2));
+        Reading other = reading(3L, 2L, ReadingStatus.HIGH, false, now.minusDays(3));
+
+        // When
+        counters.onReadingChanged(ReadingChangedEvent.created(normal));
+        counters.onReadingChanged(ReadingChangedEvent.created(critical));
+        counters.onReadingChanged(ReadingChangedEvent.created(other));
+        counters.onReadingChanged(ReadingChangedEvent.updated(normal, reading(1L, 1L, ReadingStatus.LOW, false, normal.getTimestamp())));
+        counters.onReadingChanged(ReadingChangedEvent.deleted(other));
+
+        // Then
+        ReadingStatusSummaryDto global = counters.summary();
+        assertThat(global.getTotalReadings()).isEqualTo(2L);
+        assertThat(global.getRequiringAction()).isEqualTo(1L);
+        assertThat(global.getCounts()).containsEntry(ReadingStatus.LOW, 1L).containsEntry(ReadingStatus.NORMAL, 0L);
+        assertThat(global.getWindows().get("15m")).containsEntry(ReadingStatus.LOW, 1L).containsEntry(ReadingStatus.CRITICAL_LOW, 0L);
+        assertThat(global.getWindows().get("24h")).containsEntry(ReadingStatus.LOW, 1L).containsEntry(ReadingStatus.CRITICAL_LOW, 1L);
+        assertThat(counters.summary(1L).getCounts()).containsEntry(ReadingStatus.CRITICAL_LOW, 1L);
+        assertThat(counters.summary(2L).getTotalReadings()).isZero();
+    }
+
+    @Test
+    void should_correct_drift_without_losing_concurrent_changes() {
+        // Given: el contador conoce 1 lectura del dispositivo 1, la base de datos tiene 3 más una del dispositivo 2
+        long nowMinute = ReadingStatusCounters.minute(now);
+        counters.onReadingChanged(ReadingChangedEvent.created(reading(1L, 1L, ReadingStatus.NORMAL, false, now)));
+        ReadingStatusCounters.Fence fence = counters.fence(nowMinute);
+        long[] device1 = new long[ReadingStatus.values().length + 1];
+        device1[ReadingStatus.NORMAL.ordinal()] = 3;
+        long[] device2 = new long[ReadingStatus.values().length + 1];
+        device2[ReadingStatus.CRITICAL_HIGH.ordinal()] = 1;
+        device2[ReadingStatusCounters.REQUIRING_ACTION] = 1;
+        long[] tenMinutesAgo = new long[ReadingStatus.values().length];
+        tenMinutesAgo[ReadingStatus.NORMAL.ordinal()] = 1;
+        long[] currentMinute = new long[ReadingStatus.values().length];
+        currentMinute[ReadingStatus.NORMAL.ordinal()] = 1;
+
+        // When: la lectura 5 llega después de la consulta y antes de aplicar la corrección
+        counters.onReadingChanged(ReadingChangedEvent.created(reading(5L, 3L, ReadingStatus.NORMAL, false, now.minusHours(5))));
+        counters.reconcileTotals(fence, Map.of(1L, device1, 2L, device2));
+        counters.reconcileWindow(fence, Map.of(nowMinute, currentMinute, nowMinute - 10, tenMinutesAgo));
+
+        // Then
+        ReadingStatusSummaryDto global = counters.summary();
+        assertThat(global.getCounts()).containsEntry(ReadingStatus.NORMAL, 4L).containsEntry(ReadingStatus.CRITICAL_HIGH, 1L);
+        assertThat(global.getRequiringAction()).isEqualTo(1L);
+        assertThat(global.getWindows().get("15m")).containsEntry(ReadingStatus.NORMAL, 2L);
+        assertThat(global.getWindows().get("24h")).containsEntry(ReadingStatus.NORMAL, 3L);
+        assertThat(counters.summary(2L).getRequiringAction()).isEqualTo(1L);
+        assertThat(counters.summary(3L).getTotalReadings()).isEqualTo(1L);
+    }
+
+    @Test
+    void should_age_out_window_corrections_with_their_minute() {
+        // Given: la base de datos tiene una lectura de hace 14 minutos que el anillo no conoce
+        long nowMinute = ReadingStatusCounters.minute(now);
+        long[] missing = new long[ReadingStatus.values().length];
+        missing[ReadingStatus.HIGH.ordinal()] = 1;
+        counters.reconcileWindow(counters.fence(nowMinute), Map.of(nowMinute - 14, missing));
+
+        // When
+        long[] now15m = counters.window().sum(nowMinute, 15);
+        long[] later15m = counters.window().sum(nowMinute + 1, 15);
+        long[] later1h = counters.window().sum(nowMinute + 1, 60);
+
+        // Then: la corrección sale de la ventana de 15 minutos un minuto después, no queda fija
+        assertThat(now15m[ReadingStatus.HIGH.ordinal()]).isEqualTo(1L);
+        assertThat(later15m[ReadingStatus.HIGH.ordinal()]).isZero();
+        assertThat(later1h[ReadingStatus.HIGH.ordinal()]).isEqualTo(1L);
+    }
+
+    @Test
+    void should_skip_devices_and_minutes_written_during_the_query() {
+        // Given
+        long nowMinute = ReadingStatusCounters.minute(now);
+        ReadingStatusCounters.Fence fence = counters.fence(nowMinute);
+        // Escrita mientras se consultaba: no se sabe si la consulta la vio
+        counters.onReadingChanged(ReadingChangedEvent.created(reading(1L, 1L, ReadingStatus.NORMAL, false, now)));
+        long[] database = new long[ReadingStatus.values().length + 1];
+        database[ReadingStatus.NORMAL.ordinal()] = 1;
+        long[] minute = new long[ReadingStatus.values().length];
+        minute[ReadingStatus.NORMAL.ordinal()] = 1;
+
+        // When
+        counters.reconcileTotals(fence, Map.of(1L, database));
+        counters.reconcileWindow(fence, Map.of(nowMinute, minute));
+
+        // Then: sin contar dos veces la lectura
+        assertThat(counters.summary().getCounts()).containsEntry(ReadingStatus.NORMAL, 1L);
+        assertThat(counters.summary().getWindows().get("15m")).containsEntry(ReadingStatus.NORMAL, 1L);
+    }
+
+    private Reading reading(Long id, Long deviceId, ReadingStatus status, boolean requiresAction, LocalDateTime timestamp) {
+        Reading reading = new Reading();
+        reading.setId(id);
+        reading.setDeviceId(deviceId);
+        reading.setGlucoseLevel(100.0f);
+        reading.setStatus(status);
+        reading.setRequiresAction(requiresAction);
+        reading.setTimestamp(timestamp);
+        return reading;
+    }
+}
@@ -0,0 +1,68 @@
+package com.insulinpump.readingservice.counters;
+
+import com.insulinpump.readingservice.config.ShardingConfig;
+import com.insulinpump.readingservice.dto.ReadingStatusSummaryDto;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({ShardingConfig.class, ReadingStorageLayout.class, ReadingStatusCounters.class, ReadingStatusReconciler.class})
+class ReadingStatusReconcilerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReadingStatusReconciler reconciler;
+
+    @Autowired
+    private ReadingStatusCounters counters;
+
+    @Test
+    void should_load_counts_of_existing_readings_from_database() {
+        // Given: lecturas guardadas sin pasar por el servicio (p. ej. antes del arranque)
+        LocalDateTime now = LocalDateTime.now();
+        persist(1L, ReadingStatus.NORMAL, false, now.minusMinutes(3));
+        persist(1L, ReadingStatus.CRITICAL_HIGH, true, now.minusHours(3));
+        persist(2L, ReadingStatus.LOW, false, now.minusDays(2));
+        entityManager.flush();
+
+        // When
+        reconciler.reconcile();
+
+        // Then
+        ReadingStatusSummaryDto global = counters.summary();
+        assertThat(global.getTotalReadings()).isEqualTo(3L);
+        assertThat(global.getRequiringAction()).isEqualTo(1L);
+        assertThat(global.getReconciledAt()).isNotNull();
+        assertThat(global.getWindows().get("1h")).containsEntry(ReadingStatus.NORMAL, 1L).containsEntry(ReadingStatus.CRITICAL_HIGH, 0L);
+        assertThat(global.getWindows().get("24h")).containsEntry(ReadingStatus.CRITICAL_HIGH, 1L).containsEntry(ReadingStatus.LOW, 0L);
+        assertThat(counters.summary(2L).getCounts()).containsEntry(ReadingStatus.LOW, 1L);
+
+        // Una segunda pasada sin cambios no mueve nada
+        reconciler.reconcile();
+        ReadingStatusSummaryDto again = counters.summary();
+        assertThat(again.getCounts()).isEqualTo(global.getCounts());
+        assertThat(again.getWindows()).isEqualTo(global.getWindows());
+    }
+
+    private void persist(Long deviceId, ReadingStatus status, boolean requiresAction, LocalDateTime timestamp) {
+        Reading reading = new Reading();
+        reading.setDeviceId(deviceId);
+        reading.setGlucoseLevel(100.0f);
+        reading.setStatus(status);
+        reading.setRequiresAction(requiresAction);
+        reading.setTimestamp(timestamp);
+        entityManager.persist(reading);
+    }
+}
@@ -0,0 +1,83 @@
+package com.insulinpump.readingservice.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @BeforeEach
+    void setUp() {
+        // Dos bases de datos H2 independientes que hacen de primario y réplica
+        DataSource primary = createDatabase("primario");
+        DataSource replica = createDatabase("replica");
+
+        meterRegistry = new SimpleMeterRegistry();
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, meterRegistry));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingContext.clear();
+    }
+
+    @Test
+    void should_route_read_only_transactions_to_replica() {
+        // When
+        String readOnly = readOnlyTransaction.execute(status -> currentDatabase());
+        String readWrite = readWriteTransaction.execute(status -> currentDatabase());
+
+        // Then
+        assertThat(readOnly).isEqualTo("replica");
+        assertThat(readWrite).isEqualTo("primario");
+        assertThat(meterRegistry.get("readingservice.datasource.connections.routed").tag("pool", "replica").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void should_route_to_primary_when_client_has_recent_write() {
+        // Given
+        ReplicaRoutingContext.forcePrimary();
+
+        // When
+        String readOnly = readOnlyTransaction.execute(status -> currentDatabase());
+
+        // Then
+        assertThat(readOnly).isEqualTo("primario");
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT nombre FROM instancia", String.class);
+    }
+
+    private DataSource createDatabase(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS instancia (nombre VARCHAR(20))");
+        template.execute("DELETE FROM instancia");
+        template.update("INSERT INTO instancia VALUES (?)", name);
+        return dataSource;
+    }
+}
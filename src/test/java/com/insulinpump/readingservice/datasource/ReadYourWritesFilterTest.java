@@ -0,0 +1,52 @@
+package com.insulinpump.readingservice.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    void should_force_primary_for_reads_after_recent_write() throws Exception {
+        // Given
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/readings"), writeResponse, new MockFilterChain());
+        String token = writeResponse.getHeader(ReadYourWritesFilter.TOKEN_HEADER);
+
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/readings/device/1/latest");
+        read.addHeader(ReadYourWritesFilter.TOKEN_HEADER, token);
+        AtomicBoolean primaryForced = new AtomicBoolean();
+
+        // When
+        filter.doFilter(read, new MockHttpServletResponse(),
+                (request, response) -> primaryForced.set(ReplicaRoutingContext.isPrimaryForced()));
+
+        // Then
+        assertThat(token).isNotNull();
+        assertThat(primaryForced).isTrue();
+        assertThat(ReplicaRoutingContext.isPrimaryForced()).isFalse();
+    }
+
+    @Test
+    void should_not_force_primary_for_old_write_token() throws Exception {
+        // Given
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/readings/device/1/latest");
+        read.addHeader(ReadYourWritesFilter.TOKEN_HEADER, Long.toString(System.currentTimeMillis() - 60_000));
+        AtomicBoolean primaryForced = new AtomicBoolean();
+
+        // When
+        filter.doFilter(read, new MockHttpServletResponse(),
+                (request, response) -> primaryForced.set(ReplicaRoutingContext.isPrimaryForced()));
+
+        // Then
+        assertThat(primaryForced).isFalse();
+    }
+}
@@ -0,0 +1,113 @@
+package com.insulinpump.readingservice.directory;
+
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.dto.PatientDto;
+import feign.FeignException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PatientDeviceDirectoryTest {
+
+    private final PatientDeviceDirectory directory = new PatientDeviceDirectory();
+    private final PatientClient patientClient = mock(PatientClient.class);
+
+    @Test
+    void should_load_patient_once_and_answer_both_directions_locally() {
+        // Given
+        when(patientClient.getPatientById(1L)).thenReturn(patient(1L, 10L));
+
+        // When
+        Long deviceId = directory.deviceForPatient(1L, patientClient::getPatientById);
+        PatientDto byDevice = directory.patientForDevice(10L, patientClient::getPatientByDeviceId);
+        Long again = directory.deviceForPatient(1L, patientClient::getPatientById);
+
+        // Then
+        assertThat(deviceId).isEqualTo(10L);
+        assertThat(again).isEqualTo(10L);
+        assertThat(byDevice.getName()).isEqualTo("Paciente 1");
+        verify(patientClient, times(1)).getPatientById(1L);
+        verify(patientClient, never()).getPatientByDeviceId(anyLong());
+    }
+
+    @Test
+    void should_apply_pushed_reassignment_and_ignore_older_observations() {
+        // Given
+        LocalDateTime t0 = LocalDateTime.of(2025, 3, 1, 10, 0);
+        directory.record(patient(1L, 10L), t0);
+        directory.record(patient(2L, 20L), t0);
+
+        // When: el dispositivo 20 pasa al paciente 1 y llega tarde una respuesta anterior al cambio
+        boolean applied = directory.apply(1L, 20L, t0.plusMinutes(5));
+        boolean stale = directory.record(patient(1L, 10L), t0.plusMinutes(1));
+
+        // Then
+        assertThat(applied).isTrue();
+        assertThat(stale).isFalse();
+        assertThat(directory.findByPatient(1L).orElseThrow().deviceId()).isEqualTo(20L);
+        assertThat(directory.findByPatient(1L).orElseThrow().patient().getDeviceId()).isEqualTo(20L);
+        assertThat(directory.findByDevice(20L).orElseThrow().patientId()).isEqualTo(1L);
+        assertThat(directory.findByDevice(10L)).isEmpty();
+        // El antiguo paciente del dispositivo 20 se olvida y se volverá a consultar
+        assertThat(directory.findByPatient(2L)).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_revalidate_stale_entries_in_bounded_batches() {
+        // Given
+        LocalDateTime old = LocalDateTime.now().minusHours(1);
+        for (long id = 1; id <= 3; id++) {
+            directory.record(patient(id, id * 10), old);
+        }
+        PatientDeviceDirectorySync sync = new PatientDeviceDirectorySync(directory, patientClient, mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(sync, "maxAge", Duration.ZERO);
+        ReflectionTestUtils.setField(sync, "batchSize", 2);
+        when(patientClient.getPatientById(1L)).thenReturn(patient(1L, 11L));
+        when(patientClient.getPatientById(2L)).thenThrow(mock(FeignException.NotFound.class));
+
+        // When
+        int changes = sync.sync();
+
+        // Then: el paciente 1 cambió de dispositivo, el 2 ya no existe y el 3 queda para la siguiente pasada
+        assertThat(changes).isEqualTo(2);
+        assertThat(directory.findByPatient(1L).orElseThrow().deviceId()).isEqualTo(11L);
+        assertThat(directory.findByPatient(2L)).isEmpty();
+        assertThat(directory.findByPatient(3L)).isPresent();
+        verify(patientClient, never()).getPatientById(3L);
+    }
+
+    @Test
+    void should_keep_stale_entries_ordered_by_verification() throws InterruptedException {
+        // Given
+        LocalDateTime t0 = LocalDateTime.of(2025, 3, 1, 10, 0);
+        for (long id = 1; id <= 5; id++) {
+            directory.record(patient(id, id * 10), t0);
+            Thread.sleep(2);
+        }
+        LocalDateTime cutoff = LocalDateTime.now().plusSeconds(1);
+
+        // When: el paciente 1 se vuelve a verificar, el 2 se elimina y el 3 pierde su dispositivo a favor del 4
+        directory.record(patient(1L, 10L), t0.plusMinutes(1));
+        directory.remove(2L);
+        directory.apply(4L, 30L, t0.plusMinutes(2));
+
+        // Then
+        assertThat(directory.staleEntries(cutoff, 10)).extracting(PatientDeviceDirectory.Assignment::patientId)
+                .containsExactly(5L, 1L, 4L);
+        assertThat(directory.staleEntries(cutoff, 2)).extracting(PatientDeviceDirectory.Assignment::patientId)
+                .containsExactly(5L, 1L);
+        assertThat(directory.staleEntries(t0, 10)).isEmpty();
+    }
+
+    private PatientDto patient(Long id, Long deviceId) {
+        return new PatientDto(id, "Paciente " + id, 40, "MED-" + id, deviceId, "TYPE_1");
+    }
+}
@@ -0,0 +1,79 @@
+package com.insulinpump.readingservice.downsampling;
+
+import com.insulinpump.readingservice.dto.GlucosePointDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlucoseDownsamplerTest {
+
+    private static final long START = 1_700_000_000_000L;
+    private static final long FIVE_MINUTES = 5 * 60_000L;
+    private static final int READINGS = 90 * 288; // 90 días de CGM cada 5 minutos
+
+    @Test
+    void should_keep_extremes_with_min_max_buckets() {
+        // Given
+        GlucoseDownsampler downsampler = GlucoseDownsampler.create(DownsamplingMode.MIN_MAX, START, end(), 200);
+
+        // When
+        feed(downsampler);
+        List<GlucosePointDto> points = downsampler.finish();
+
+        // Then
+        assertThat(downsampler.getSourcePoints()).isEqualTo(READINGS);
+        assertThat(points).hasSizeLessThanOrEqualTo(200);
+        assertThat(points).extracting(GlucosePointDto::getGlucoseLevel).contains(38.0f, 320.0f);
+        assertThat(points).isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+    }
+
+    @Test
+    void should_bound_points_and_keep_first_last_and_spikes_with_lttb() {
+        // Given
+        GlucoseDownsampler downsampler = GlucoseDownsampler.create(DownsamplingMode.LTTB, START, end(), 300);
+
+        // When
+        feed(downsampler);
+        List<GlucosePointDto> points = downsampler.finish();
+
+        // Then
+        assertThat(points).hasSizeLessThanOrEqualTo(300);
+        assertThat(points.get(0).getTimestamp()).isEqualTo(GlucosePointDto.of(START, 0).getTimestamp());
+        assertThat(points.get(points.size() - 1).getTimestamp())
+                .isEqualTo(GlucosePointDto.of(START + (READINGS - 1) * FIVE_MINUTES, 0).getTimestamp());
+        assertThat(points).extracting(GlucosePointDto::getGlucoseLevel).contains(38.0f, 320.0f);
+        assertThat(points).isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+    }
+
+    @Test
+    void should_return_all_points_when_series_is_smaller_than_target() {
+        // Given
+        GlucoseDownsampler downsampler = GlucoseDownsampler.create(DownsamplingMode.LTTB, START, START + 10 * FIVE_MINUTES, 500);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            downsampler.accept(START + i * FIVE_MINUTES, 100 + i);
+        }
+
+        // Then
+        assertThat(downsampler.finish()).hasSize(5);
+    }
+
+    private void feed(GlucoseDownsampler downsampler) {
+        for (int i = 0; i < READINGS; i++) {
+            float value = (float) (130 + 40 * Math.sin(i / 40.0));
+            if (i == 10_000) {
+                value = 38.0f;  // hipoglucemia aislada
+            } else if (i == 20_000) {
+                value = 320.0f; // hiperglucemia aislada
+            }
+            downsampler.accept(START + i * FIVE_MINUTES, value);
+        }
+    }
+
+    private long end() {
+        return START + READINGS * FIVE_MINUTES;
+    }
+}
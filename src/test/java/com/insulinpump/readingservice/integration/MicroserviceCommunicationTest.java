@@ -3,6 +3,7 @@ package com.insulinpump.readingservice.integration;
 
 import com.insulinpump.readingservice.client.DeviceClient;
 import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
 import com.insulinpump.readingservice.dto.DeviceDto;
 import com.insulinpump.readingservice.dto.PatientDto;
 import com.insulinpump.readingservice.dto.ReadingCreateDto;
@@ -10,6 +11,7 @@ import com.insulinpump.readingservice.dto.ReadingDetailsDto;
 import com.insulinpump.readingservice.exception.DeviceNotFoundException;
 import com.insulinpump.readingservice.repository.ReadingRepository;
 import com.insulinpump.readingservice.service.ReadingService;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
 import feign.FeignException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,7 +19,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 
@@ -38,6 +42,15 @@ class MicroserviceCommunicationTest {
     @Mock
     private PatientClient patientClient;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ShardExecutor shardExecutor = ShardExecutor.local();
+
+    @Spy
+    private PatientDeviceDirectory patientDeviceDirectory = new PatientDeviceDirectory();
+
     @InjectMocks
     private ReadingService readingService;
 
@@ -87,7 +100,7 @@ class MicroserviceCommunicationTest {
         assertThat(result.getPatient().getDiabetesType()).isEqualTo("TYPE_1");
 
         // Verificar que se llamaron los servicios externos
-        verify(deviceClient, times(2)).getDeviceById(1L); // Una vez para validar, otra para enriquecer
+        verify(deviceClient, times(1)).getDeviceById(1L); // Se reutiliza el dispositivo validado para enriquecer
         verify(patientClient, times(1)).getPatientById(100L);
         verify(readingRepository, times(1)).save(any());
     }
@@ -134,7 +147,7 @@ class MicroserviceCommunicationTest {
         assertThat(readings).isNotEmpty();
         assertThat(readings.get(0).getDevice().getSerialNo()).isEqualTo("DEV456");
 
-        verify(patientClient, times(2)).getPatientById(100L); // Cambiado de 1 a 2
+        verify(patientClient, times(1)).getPatientById(100L); // El enriquecimiento reutiliza el directorio local
         verify(deviceClient, times(1)).getDeviceById(2L);
         verify(readingRepository, times(1)).findByDeviceId(2L);
     }
@@ -221,7 +234,7 @@ class MicroserviceCommunicationTest {
         assertThat(result.getDevice().getSerialNo()).isEqualTo("DEV999");
         // El paciente puede ser null debido al error del servicio
 
-        verify(deviceClient, times(2)).getDeviceById(5L); // Una vez para validar, otra para enriquecer
+        verify(deviceClient, times(1)).getDeviceById(5L); // Se reutiliza el dispositivo validado para enriquecer
         verify(readingRepository, times(1)).save(any());
     }
 
@@ -0,0 +1,103 @@
+package com.insulinpump.readingservice.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.service.ReadingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestJournalReplayerTest {
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 8, 1, 12, 0);
+    private final ReadingService readingService = mock(ReadingService.class);
+    private SimpleMeterRegistry registry;
+    private IngestJournal journal;
+    private IngestJournalReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", registry);
+        journal = new IngestJournal(true, directory, new ObjectMapper().findAndRegisterModules(),
+                beanFactory.getBeanProvider(MeterRegistry.class));
+        replayer = new IngestJournalReplayer(journal, readingService, beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    void should_move_rejected_readings_to_the_dead_letter_file_and_continue() throws IOException {
+        // Given
+        journal.append(List.of(reading(100.0f, base), reading(110.0f, base.plusMinutes(5)), reading(120.0f, base.plusMinutes(10))));
+        when(readingService.createJournaledReading(anyString(), any(Reading.class))).thenAnswer(invocation -> {
+            if (invocation.<Reading>getArgument(1).getGlucoseLevel() == 110.0f) {
+                throw new DataIntegrityViolationException("restricción violada");
+            }
+            return true;
+        });
+
+        // When
+        replayer.replay();
+
+        // Then
+        assertThat(journal.getDepth()).isZero();
+        List<String> rejected = Files.readAllLines(directory.resolve("ingesta.rechazadas.jsonl"));
+        assertThat(rejected).singleElement().asString().contains("110.0").contains("restricción violada");
+        assertThat(registry.get("readingservice.journal.discarded").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void should_stop_and_keep_the_entry_on_transient_or_unknown_errors() {
+        // Given
+        journal.append(List.of(reading(100.0f, base), reading(110.0f, base.plusMinutes(5))));
+        when(readingService.createJournaledReading(anyString(), any(Reading.class)))
+                .thenThrow(new PessimisticLockingFailureException("interbloqueo"))
+                .thenThrow(new IllegalStateException("error desconocido"))
+                .thenReturn(true);
+
+        // When
+        replayer.replay();
+        long afterTransient = journal.getDepth();
+        replayer.replay();
+        long afterUnknown = journal.getDepth();
+        replayer.replay();
+
+        // Then
+        assertThat(afterTransient).isEqualTo(2);
+        assertThat(afterUnknown).isEqualTo(2);
+        assertThat(journal.getDepth()).isZero();
+        assertThat(directory.resolve("ingesta.rechazadas.jsonl")).doesNotExist();
+        assertThat(registry.get("readingservice.journal.discarded").counter().count()).isZero();
+    }
+
+    private Reading reading(float glucoseLevel, LocalDateTime timestamp) {
+        return new Reading(null, glucoseLevel, timestamp, 1L, ReadingStatus.NORMAL, null, null, null, false, false);
+    }
+}
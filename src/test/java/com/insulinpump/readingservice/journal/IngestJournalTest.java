@@ -0,0 +1,192 @@
+package com.insulinpump.readingservice.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final LocalDateTime base = LocalDateTime.of(2025, 8, 1, 12, 0);
+    private SimpleMeterRegistry registry;
+    private IngestJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void should_group_concurrent_appends_and_replay_them_in_order() throws Exception {
+        // Given
+        journal = open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CyclicBarrier start = new CyclicBarrier(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            long deviceId = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 50; i++) {
+                    journal.append(List.of(reading(deviceId, 100.0f + i, base.plusMinutes(i))));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // When
+        List<IngestJournal.JournalEntry> replayed = new ArrayList<>();
+        int count = journal.replay(replayed::add);
+
+        // Then: cada dispositivo recibe sus lecturas en el orden en que se aceptaron
+        assertThat(count).isEqualTo(400);
+        assertThat(replayed).extracting(IngestJournal.JournalEntry::id).doesNotHaveDuplicates();
+        for (long deviceId = 0; deviceId < 8; deviceId++) {
+            long device = deviceId;
+            assertThat(replayed).map(IngestJournal.JournalEntry::reading).filteredOn(reading -> reading.getDeviceId() == device)
+                    .extracting(Reading::getTimestamp).isSorted().hasSize(50);
+        }
+        // Con 8 hilos a la vez algún fsync cubre entradas de varios append()
+        assertThat(registry.get("readingservice.journal.appended").functionCounter().count()).isEqualTo(400.0);
+        assertThat(registry.get("readingservice.journal.syncs").functionCounter().count())
+                .isPositive().isLessThan(400.0);
+        assertThat(journal.getDepth()).isZero();
+        assertThat(Files.size(directory.resolve("ingesta.journal"))).isZero();
+    }
+
+    @Test
+    void should_stop_replay_at_failure_and_resume_from_the_same_entry() {
+        // Given
+        journal = open();
+        journal.append(List.of(reading(1L, 100.0f, base), reading(1L, 110.0f, base.plusMinutes(5)),
+                reading(1L, 120.0f, base.plusMinutes(10))));
+        List<Float> inserted = new ArrayList<>();
+
+        // When: la base de datos cae al insertar la segunda
+        assertThatThrownBy(() -> journal.replay(entry -> {
+            if (entry.reading().getGlucoseLevel() == 110.0f) {
+                throw new CannotCreateTransactionException("Conexión rechazada");
+            }
+            inserted.add(entry.reading().getGlucoseLevel());
+        })).isInstanceOf(CannotCreateTransactionException.class);
+        long depthAfterFailure = journal.getDepth();
+        journal.replay(entry -> inserted.add(entry.reading().getGlucoseLevel()));
+
+        // Then
+        assertThat(depthAfterFailure).isEqualTo(2);
+        assertThat(inserted).containsExactly(100.0f, 110.0f, 120.0f);
+        assertThat(journal.getDepth()).isZero();
+        assertThat(registry.get("readingservice.journal.replayed").functionCounter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void should_recover_pending_entries_after_restart_and_drop_torn_tail() throws IOException {
+        // Given
+        journal = open();
+        for (int i = 0; i < 3; i++) {
+            journal.append(List.of(reading(1L, 100.0f + i, base.plusMinutes(i))));
+        }
+        List<IngestJournal.JournalEntry> first = new ArrayList<>();
+        assertThatThrownBy(() -> journal.replay(entry -> {
+            if (!first.isEmpty()) {
+                throw new CannotCreateTransactionException("Conexión rechazada");
+            }
+            first.add(entry);
+        }));
+        journal.close();
+
+        // When: una escritura quedó a medias antes de la caída
+        Files.write(directory.resolve("ingesta.journal"), new byte[]{0, 0, 0, 64, 1, 2, 3}, StandardOpenOption.APPEND);
+        journal = open();
+
+        // Then
+        assertThat(journal.getDepth()).isEqualTo(2);
+        List<IngestJournal.JournalEntry> replayed = new ArrayList<>();
+        journal.replay(replayed::add);
+        assertThat(replayed).extracting(entry -> entry.reading().getGlucoseLevel()).containsExactly(101.0f, 102.0f);
+        assertThat(replayed.get(0).reading().getStatus()).isEqualTo(ReadingStatus.NORMAL);
+        assertThat(replayed.get(0).reading().getTimestamp()).isEqualTo(base.plusMinutes(1));
+
+        journal.append(List.of(reading(1L, 90.0f, base.plusHours(1))));
+        assertThat(journal.getDepth()).isEqualTo(1);
+    }
+
+    @Test
+    void should_classify_connection_errors_as_database_unavailable() {
+        assertThat(IngestJournal.isDatabaseUnavailable(new CannotCreateTransactionException("Sin conexión"))).isTrue();
+        assertThat(IngestJournal.isDatabaseUnavailable(new RuntimeException(new SQLTransientConnectionException("timeout")))).isTrue();
+        assertThat(IngestJournal.isDatabaseUnavailable(new QueryTimeoutException("timeout"))).isTrue();
+        assertThat(IngestJournal.isDatabaseUnavailable(new DataIntegrityViolationException("duplicado"))).isFalse();
+        assertThat(IngestJournal.isRejected(new DataIntegrityViolationException("duplicado"))).isTrue();
+        assertThat(IngestJournal.isRejected(new QueryTimeoutException("timeout"))).isFalse();
+        assertThat(IngestJournal.isRejected(new IllegalStateException("desconocido"))).isFalse();
+    }
+
+    @Test
+    void should_write_rejected_entries_to_the_dead_letter_file() throws IOException {
+        // Given
+        journal = open();
+        IngestJournal.JournalEntry entry = new IngestJournal.JournalEntry("e-1", reading(3L, 95.0f, base));
+
+        // When
+        journal.reject(entry, new DataIntegrityViolationException("duplicado"));
+        journal.reject(new IngestJournal.JournalEntry("e-2", reading(3L, 96.0f, base.plusMinutes(5))),
+                new DataIntegrityViolationException("otro"));
+
+        // Then
+        List<String> lines = Files.readAllLines(directory.resolve("ingesta.rechazadas.jsonl"));
+        assertThat(lines).hasSize(2);
+        IngestJournal.RejectedEntry rejected = objectMapper.readValue(lines.get(0), IngestJournal.RejectedEntry.class);
+        assertThat(rejected.id()).isEqualTo("e-1");
+        assertThat(rejected.reading().getGlucoseLevel()).isEqualTo(95.0f);
+        assertThat(rejected.error()).isEqualTo("duplicado");
+    }
+
+    @SuppressWarnings("unchecked")
+    private IngestJournal open() {
+        registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+        when(meterRegistry.getIfAvailable()).thenReturn(registry);
+        return new IngestJournal(true, directory, objectMapper, meterRegistry);
+    }
+
+    private Reading reading(Long deviceId, float glucoseLevel, LocalDateTime timestamp) {
+        return new Reading(null, glucoseLevel, timestamp, deviceId, ReadingStatus.NORMAL, null, null, null, false, false);
+    }
+}
@@ -0,0 +1,83 @@
+package com.insulinpump.readingservice.limiter;
+
+import com.insulinpump.readingservice.exception.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void should_reserve_capacity_for_critical_readings() {
+        // Given: límite fijo de 10 -> 7 consultas, 9 rutinarias, 10 críticas
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 10, 10);
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            permits.add(limiter.acquire(RequestPriority.READ));
+        }
+
+        // When / Then
+        assertThatThrownBy(() -> limiter.acquire(RequestPriority.READ))
+                .isInstanceOf(ConcurrencyLimitExceededException.class)
+                .satisfies(e -> assertThat(((ConcurrencyLimitExceededException) e).getRetryAfterSeconds()).isBetween(1L, 2L));
+        permits.add(limiter.acquire(RequestPriority.ROUTINE));
+        permits.add(limiter.acquire(RequestPriority.ROUTINE));
+        assertThatThrownBy(() -> limiter.acquire(RequestPriority.ROUTINE)).isInstanceOf(ConcurrencyLimitExceededException.class);
+        permits.add(limiter.acquire(RequestPriority.CRITICAL));
+        assertThatThrownBy(() -> limiter.acquire(RequestPriority.CRITICAL)).isInstanceOf(ConcurrencyLimitExceededException.class);
+
+        // Al terminar se libera el hueco, una sola vez aunque se cierre dos veces
+        permits.get(0).close();
+        permits.get(0).close();
+        assertThat(limiter.getInFlight()).isEqualTo(9);
+        permits.add(limiter.acquire(RequestPriority.CRITICAL));
+    }
+
+    @Test
+    void should_lower_the_limit_when_latency_rises_and_recover_afterwards() {
+        // Given: demanda alta con latencia estable de 10 ms
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200);
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), limiter.getLimit());
+        }
+        int healthy = limiter.getLimit();
+        assertThat(healthy).isGreaterThan(20);
+
+        // When: la base de datos se satura y la latencia se multiplica
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(200), limiter.getLimit());
+        }
+
+        // Then
+        int saturated = limiter.getLimit();
+        assertThat(saturated).isLessThan(healthy / 2);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), limiter.getLimit());
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(saturated);
+    }
+
+    @Test
+    void should_not_raise_the_limit_without_demand() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 4, 200);
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(mock(ObjectProvider.class), true, initial, min, max, 2.0, 0.9, 0.7,
+                Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,125 @@
+package com.insulinpump.readingservice.liveness;
+
+import com.insulinpump.readingservice.dto.DeviceLivenessDto;
+import com.insulinpump.readingservice.event.DeviceSilentEvent;
+import com.insulinpump.readingservice.repository.ReadingRepository;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DeviceLivenessTrackerTest {
+
+    private static final long MINUTE = 60_000;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private DeviceLivenessTracker tracker;
+    private long start;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tracker = new DeviceLivenessTracker(eventPublisher, mock(ReadingRepository.class), ShardExecutor.local(),
+                mock(ObjectProvider.class), Duration.ofMinutes(15), 1000, Duration.ofDays(7));
+        start = System.currentTimeMillis();
+    }
+
+    @Test
+    void should_report_device_silent_only_after_its_threshold() {
+        // Given: el dispositivo 1 sigue enviando, el 2 se calla tras la primera lectura
+        tracker.seen(1L, start);
+        tracker.seen(2L, start);
+        for (int minute = 1; minute <= 20; minute++) {
+            tracker.seen(1L, start + minute * MINUTE);
+            tracker.advance(start + minute * MINUTE);
+        }
+
+        // Then
+        assertThat(tracker.getSilentDevices()).extracting(DeviceLivenessDto::getDeviceId).containsExactly(2L);
+        ArgumentCaptor<DeviceSilentEvent> event = ArgumentCaptor.forClass(DeviceSilentEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertThat(event.getValue().getDeviceId()).isEqualTo(2L);
+
+        // When: vuelve a enviar
+        tracker.seen(2L, start + 21 * MINUTE);
+
+        // Then
+        assertThat(tracker.getSilentDevices()).isEmpty();
+        assertThat(tracker.getDevice(2L)).get().extracting(DeviceLivenessDto::isSilent).isEqualTo(false);
+    }
+
+    @Test
+    void should_apply_per_device_threshold() {
+        // Given
+        long now = System.currentTimeMillis();
+        tracker.seen(3L, now);
+        tracker.setThreshold(3L, Duration.ofMinutes(2));
+
+        // When
+        tracker.advance(now + MINUTE);
+        boolean silentAfterOneMinute = !tracker.getSilentDevices().isEmpty();
+        tracker.advance(now + 3 * MINUTE);
+
+        // Then
+        assertThat(silentAfterOneMinute).isFalse();
+        assertThat(tracker.getSilentDevices()).singleElement()
+                .satisfies(device -> assertThat(device.getThresholdMinutes()).isEqualTo(2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_not_publish_silent_events_for_devices_already_overdue_at_startup() {
+        // Given: el dispositivo 1 envió hace 5 minutos y el 2 hace 2 horas, antes del arranque
+        ReadingRepository readingRepository = mock(ReadingRepository.class);
+        LocalDateTime now = LocalDateTime.now();
+        when(readingRepository.findLastTimestampByDeviceSince(any())).thenReturn(List.of(
+                new Object[]{1L, now.minusMinutes(5)}, new Object[]{2L, now.minusHours(2)}));
+        tracker = new DeviceLivenessTracker(eventPublisher, readingRepository, ShardExecutor.local(),
+                mock(ObjectProvider.class), Duration.ofMinutes(15), 1000, Duration.ofDays(7));
+
+        // When
+        tracker.loadLastSeen();
+        tracker.advance(System.currentTimeMillis() + 5_000);
+
+        // Then: el 2 figura como silencioso pero no genera evento; el 1 sigue vigilado
+        verify(eventPublisher, never()).publishEvent(any(DeviceSilentEvent.class));
+        assertThat(tracker.getSilentDevices()).extracting(DeviceLivenessDto::getDeviceId).containsExactly(2L);
+        assertThat(tracker.getDevice(1L).orElseThrow().isSilent()).isFalse();
+
+        // El 1 vence su umbral después del arranque: ese sí se notifica
+        tracker.advance(System.currentTimeMillis() + 11 * MINUTE);
+        verify(eventPublisher, times(1)).publishEvent(any(DeviceSilentEvent.class));
+
+        // Una lectura nueva del 2 lo reactiva
+        tracker.seen(2L, System.currentTimeMillis());
+        assertThat(tracker.getSilentDevices()).extracting(DeviceLivenessDto::getDeviceId).containsExactly(1L);
+    }
+
+    @Test
+    void should_keep_timers_beyond_one_wheel_turn_until_due() {
+        // Given
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(1000, 8, 0);
+        wheel.schedule("corto", 3_000);
+        wheel.schedule("largo", 20_000);
+
+        // When: "largo" cae en una cubeta que se recorre antes de su vencimiento
+        List<String> expired = new ArrayList<>();
+        wheel.advance(10_000, timeout -> expired.add(timeout.target()));
+        int firstPass = expired.size();
+        wheel.advance(20_000, timeout -> expired.add(timeout.target()));
+
+        // Then
+        assertThat(firstPass).isEqualTo(1);
+        assertThat(expired).containsExactly("corto", "largo");
+    }
+}
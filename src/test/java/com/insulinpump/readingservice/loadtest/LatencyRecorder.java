@@ -0,0 +1,78 @@
+package com.insulinpump.readingservice.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latencias por endpoint. Guarda todas las muestras (un long por petición), suficiente para ejecuciones
+ * de minutos; los percentiles se calculan ordenando al final.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Series> series = new LinkedHashMap<>();
+
+    public synchronized void register(String endpoint) {
+        series.putIfAbsent(endpoint, new Series());
+    }
+
+    public void record(String endpoint, long nanos, boolean success) {
+        Series target;
+        synchronized (this) {
+            target = series.computeIfAbsent(endpoint, name -> new Series());
+        }
+        target.add(nanos, success);
+    }
+
+    public synchronized String report(double seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-14s %9s %9s %8s %8s %8s %8s %8s %7s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+        long total = 0;
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            long[] samples = entry.getValue().sorted();
+            total += samples.length;
+            out.append(String.format(Locale.ROOT, "%-14s %9d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %7d%n",
+                    entry.getKey(), samples.length, samples.length / seconds,
+                    percentile(samples, 50), percentile(samples, 90), percentile(samples, 99), percentile(samples, 99.9),
+                    samples.length > 0 ? samples[samples.length - 1] / 1e6 : 0.0, entry.getValue().errors()));
+        }
+        out.append(String.format(Locale.ROOT, "%-14s %9d %9.1f%n", "total", total, total / seconds));
+        return out.toString();
+    }
+
+    static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private static final class Series {
+        private long[] samples = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void add(long nanos, boolean success) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.insulinpump.readingservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.insulinpump.readingservice.ReadingserviceApplication;
+import com.insulinpump.readingservice.codec.ReadingFrameCodec;
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga autocontenida: arranca el servicio contra H2 y los sustitutos de device/patient-service,
+ * carga un historial de la flota sintética y reproduce tráfico CGM (ingesta más el sondeo de latest,
+ * timerange y statistics) durante el tiempo indicado. Al final imprime rendimiento y percentiles por endpoint.
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="devices=500 users=64 duration=60 stubLatency=5"
+ *
+ * Opciones (clave=valor): devices, users, duration (s), warmup (s), history (horas), stubLatency (ms),
+ * stubJitter (ms), thinkTime (ms), mix (pesos ingest,latest,timerange,statistics), readers (mvc o reactive).
+ * Con readers se arranca una segunda instancia sobre la misma base de datos que atiende latest, timerange y
+ * statistics, con la API MVC o con el perfil reactive; la ingesta sigue en la primera. Los argumentos que empiezan
+ * por "--" se pasan a Spring, p. ej. --spring.datasource.url=jdbc:mysql://... para medir contra MySQL.
+ */
+public class LoadTestRunner {
+
+    private static final String[] ENDPOINTS = {"ingest", "latest", "timerange", "statistics"};
+
+    private final Map<String, String> options = new HashMap<>();
+    private final List<String> springArgs = new ArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Map<Long, String> latestEtags = new ConcurrentHashMap<>();
+
+    private SyntheticFleet fleet;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private String readerUrl;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner(args).run();
+        System.exit(0);
+    }
+
+    LoadTestRunner(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else if (arg.contains("=")) {
+                options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+    }
+
+    void run() throws Exception {
+        int devices = option("devices", 200);
+        int users = option("users", 32);
+        int duration = option("duration", 30);
+        int warmup = option("warmup", 5);
+        int history = option("history", 24);
+        int[] mix = mix(options.getOrDefault("mix", "40,35,15,10"));
+
+        fleet = new SyntheticFleet(devices, LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusHours(history), 42L);
+        String readers = options.get("readers");
+        try (ServiceStubs stubs = new ServiceStubs(fleet, option("stubLatency", 5), option("stubJitter", 2));
+             ConfigurableApplicationContext context = startService(stubs);
+             ConfigurableApplicationContext reader = readers != null ? startReader(stubs, readers) : null) {
+            baseUrl = apiUrl(context);
+            readerUrl = reader != null ? apiUrl(reader) : baseUrl;
+            httpClient = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            System.out.printf("Cargando %d horas de historial para %d dispositivos...%n", history, devices);
+            long loaded = loadHistory(history);
+            System.out.printf("Historial cargado: %d lecturas%n", loaded);
+
+            if (warmup > 0) {
+                System.out.printf("Calentamiento: %d s%n", warmup);
+                drive(new LatencyRecorder(), users, warmup, mix);
+            }
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            for (String endpoint : ENDPOINTS) {
+                recorder.register(endpoint);
+            }
+            System.out.printf("Medición: %d usuarios durante %d s, mezcla %s, latencia de stubs %s ms, lecturas en %s%n",
+                    users, duration, options.getOrDefault("mix", "40,35,15,10"), options.getOrDefault("stubLatency", "5"),
+                    readers != null ? "instancia " + readers : "la misma instancia");
+            long started = System.nanoTime();
+            drive(recorder, users, duration, mix);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.println();
+            System.out.print(recorder.report(seconds));
+        }
+    }
+
+    private ConfigurableApplicationContext startService(ServiceStubs stubs) {
+        return start(stubs, "--spring.jpa.hibernate.ddl-auto=create-drop");
+    }
+
+    // Segunda instancia sobre la base de datos de la primera: sin DDL ni diario, solo atiende las consultas
+    private ConfigurableApplicationContext startReader(ServiceStubs stubs, String readers) {
+        return switch (readers) {
+            case "mvc" -> start(stubs, "--spring.jpa.hibernate.ddl-auto=none", "--readingservice.journal.enabled=false");
+            case "reactive" -> start(stubs, "--spring.jpa.hibernate.ddl-auto=none", "--spring.profiles.active=reactive",
+                    "--spring.r2dbc.url=r2dbc:h2:mem:///loadtest?options=MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.r2dbc.username=sa",
+                    "--spring.r2dbc.password=");
+            default -> throw new IllegalArgumentException("readers debe ser mvc o reactive: " + readers);
+        };
+    }
+
+    private ConfigurableApplicationContext start(ServiceStubs stubs, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.show-sql=false",
+                "--eureka.client.enabled=false",
+                "--spring.cloud.discovery.enabled=true",
+                "--spring.cloud.discovery.client.simple.instances.device-service[0].uri=" + stubs.deviceServiceUrl(),
+                "--spring.cloud.discovery.client.simple.instances.patient-service[0].uri=" + stubs.patientServiceUrl(),
+                "--logging.level.com.insulinpump=WARN"));
+        args.addAll(List.of(extraArgs));
+        args.addAll(springArgs);
+        return new SpringApplicationBuilder(ReadingserviceApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static String apiUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/readings";
+    }
+
+    private long loadHistory(int hours) throws Exception {
+        ReadingFrameCodec codec = new ReadingFrameCodec();
+        long loaded = 0;
+        for (List<ReadingCreateDto> batch : fleet.history(hours, 2_000)) {
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                    .header("Content-Type", ReadingFrameCodec.MEDIA_TYPE_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(codec.encode(batch)))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("La carga del historial falló con HTTP " + response.statusCode());
+            }
+            loaded += batch.size();
+        }
+        return loaded;
+    }
+
+    private void drive(LatencyRecorder recorder, int users, int seconds, int[] mix) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long thinkTime = option("thinkTime", 0);
+        int totalWeight = mix[0] + mix[1] + mix[2] + mix[3];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        int pick = random.nextInt(totalWeight);
+                        int operation = 0;
+                        while (pick >= mix[operation]) {
+                            pick -= mix[operation++];
+                        }
+                        execute(recorder, operation, fleet.deviceId(random.nextInt(fleet.size())));
+                        if (thinkTime > 0) {
+                            Thread.sleep(thinkTime);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    private void execute(LatencyRecorder recorder, int operation, long deviceId) {
+        long started = System.nanoTime();
+        boolean success;
+        try {
+            success = switch (operation) {
+                case 0 -> ingest(deviceId);
+                case 1 -> latest(deviceId);
+                case 2 -> timerange(deviceId, 3);
+                default -> statistics(deviceId, 24);
+            };
+        } catch (Exception e) {
+            success = false;
+        }
+        recorder.record(ENDPOINTS[operation], System.nanoTime() - started, success);
+    }
+
+    private boolean ingest(long deviceId) throws Exception {
+        byte[] body = objectMapper.writeValueAsBytes(fleet.nextReading(deviceId));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 300;
+    }
+
+    // Los paneles sondean la última lectura reenviando el ETag de la respuesta anterior
+    private boolean latest(long deviceId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(readerUrl + "/device/" + deviceId + "/latest"));
+        String etag = latestEtags.get(deviceId);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        response.headers().firstValue("ETag").ifPresent(value -> latestEtags.put(deviceId, value));
+        return response.statusCode() < 400;
+    }
+
+    private boolean timerange(long deviceId, int hours) throws Exception {
+        return get(deviceId, "/timerange", hours);
+    }
+
+    private boolean statistics(long deviceId, int hours) throws Exception {
+        return get(deviceId, "/statistics", hours);
+    }
+
+    private boolean get(long deviceId, String path, int hours) throws Exception {
+        LocalDateTime end = fleet.clock(deviceId);
+        LocalDateTime start = end.minusHours(hours);
+        URI uri = URI.create(readerUrl + "/device/" + deviceId + path + "?start=" + start.truncatedTo(ChronoUnit.SECONDS)
+                + "&end=" + end.truncatedTo(ChronoUnit.SECONDS));
+        HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+        return response.statusCode() < 400;
+    }
+
+    private int option(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, Integer.toString(defaultValue)));
+    }
+
+    private static int[] mix(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != ENDPOINTS.length) {
+            throw new IllegalArgumentException("mix necesita " + ENDPOINTS.length + " pesos: ingest,latest,timerange,statistics");
+        }
+        int[] weights = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+        }
+        return weights;
+    }
+}
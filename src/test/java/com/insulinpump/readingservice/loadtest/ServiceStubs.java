@@ -0,0 +1,113 @@
+package com.insulinpump.readingservice.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sustitutos locales de device-service y patient-service con latencia configurable.
+ * Responden a las mismas rutas que DeviceClient y PatientClient a partir de SyntheticFleet.
+ */
+public class ServiceStubs implements AutoCloseable {
+
+    private final SyntheticFleet fleet;
+    private final long latencyMicros;
+    private final long jitterMicros;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer deviceServer;
+    private final HttpServer patientServer;
+
+    public ServiceStubs(SyntheticFleet fleet, long latencyMillis, long jitterMillis) throws IOException {
+        this.fleet = fleet;
+        this.latencyMicros = TimeUnit.MILLISECONDS.toMicros(latencyMillis);
+        this.jitterMicros = TimeUnit.MILLISECONDS.toMicros(jitterMillis);
+        this.deviceServer = start("/api/devices/", this::handleDevice);
+        this.patientServer = start("/api/patients/", this::handlePatient);
+    }
+
+    public String deviceServiceUrl() {
+        return "http://localhost:" + deviceServer.getAddress().getPort();
+    }
+
+    public String patientServiceUrl() {
+        return "http://localhost:" + patientServer.getAddress().getPort();
+    }
+
+    private HttpServer start(String context, Handler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+        server.createContext(context, exchange -> {
+            try (exchange) {
+                simulateLatency();
+                String[] path = exchange.getRequestURI().getPath().split("/");
+                String body = handler.handle(path);
+                respond(exchange, body);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    // /api/devices/{id} y /api/devices/patient/{patientId}
+    private String handleDevice(String[] path) {
+        if (path.length == 5 && "patient".equals(path[3])) {
+            Long deviceId = fleet.deviceForPatient(Long.parseLong(path[4]));
+            return deviceId != null ? "[" + fleet.deviceJson(deviceId) + "]" : "[]";
+        }
+        long deviceId = Long.parseLong(path[3]);
+        return fleet.hasDevice(deviceId) ? fleet.deviceJson(deviceId) : null;
+    }
+
+    // /api/patients/{id} y /api/patients/device/{deviceId}
+    private String handlePatient(String[] path) {
+        if (path.length == 5 && "device".equals(path[3])) {
+            long deviceId = Long.parseLong(path[4]);
+            return fleet.hasDevice(deviceId) ? fleet.patientJson(fleet.patientForDevice(deviceId)) : null;
+        }
+        Long deviceId = fleet.deviceForPatient(Long.parseLong(path[3]));
+        return deviceId != null ? fleet.patientJson(Long.parseLong(path[3])) : null;
+    }
+
+    private void simulateLatency() {
+        long micros = latencyMicros + (jitterMicros > 0 ? ThreadLocalRandom.current().nextLong(jitterMicros) : 0);
+        if (micros > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(micros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        deviceServer.stop(0);
+        patientServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    private interface Handler {
+        String handle(String[] path);
+    }
+}
@@ -0,0 +1,139 @@
+package com.insulinpump.readingservice.loadtest;
+
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Flota sintética de bombas con CGM: un dispositivo y un paciente por bomba y una lectura cada 5 minutos.
+ *
+ * La glucosa sigue un paseo aleatorio con deriva hacia 120 mg/dL, picos tras las comidas (7:00, 13:30 y 20:30)
+ * e hipoglucemias ocasionales, de modo que aparecen todos los estados (NORMAL, HIGH, LOW, CRITICAL_*).
+ */
+public class SyntheticFleet {
+
+    public static final int READING_INTERVAL_MINUTES = 5;
+
+    private static final long PATIENT_ID_OFFSET = 100_000L;
+
+    private final int devices;
+    private final float[] glucose;
+    private final LocalDateTime[] clock;
+    private final SplittableRandom random;
+
+    public SyntheticFleet(int devices, LocalDateTime start, long seed) {
+        this.devices = devices;
+        this.glucose = new float[devices];
+        this.clock = new LocalDateTime[devices];
+        this.random = new SplittableRandom(seed);
+        for (int i = 0; i < devices; i++) {
+            glucose[i] = 90 + random.nextInt(60);
+            // Desfasar los relojes para que no todos los dispositivos envíen en el mismo minuto
+            clock[i] = start.plusSeconds(random.nextInt(READING_INTERVAL_MINUTES * 60));
+        }
+    }
+
+    public int size() {
+        return devices;
+    }
+
+    public long deviceId(int index) {
+        return index + 1L;
+    }
+
+    public boolean hasDevice(long deviceId) {
+        return deviceId >= 1 && deviceId <= devices;
+    }
+
+    public long patientForDevice(long deviceId) {
+        return deviceId + PATIENT_ID_OFFSET;
+    }
+
+    public Long deviceForPatient(long patientId) {
+        long deviceId = patientId - PATIENT_ID_OFFSET;
+        return hasDevice(deviceId) ? deviceId : null;
+    }
+
+    public LocalDateTime clock(long deviceId) {
+        synchronized (clock) {
+            return clock[(int) deviceId - 1];
+        }
+    }
+
+    /**
+     * Siguiente lectura del dispositivo, avanzando su reloj 5 minutos.
+     */
+    public ReadingCreateDto nextReading(long deviceId) {
+        int index = (int) deviceId - 1;
+        LocalDateTime timestamp;
+        float value;
+        synchronized (clock) {
+            timestamp = clock[index];
+            clock[index] = timestamp.plusMinutes(READING_INTERVAL_MINUTES);
+            value = step(index, timestamp);
+        }
+
+        ReadingCreateDto reading = new ReadingCreateDto();
+        reading.setDeviceId(deviceId);
+        reading.setTimestamp(timestamp);
+        reading.setGlucoseLevel(value);
+        reading.setManualReading(false);
+        return reading;
+    }
+
+    /**
+     * Historial de las últimas horas para todos los dispositivos, en lotes para la ingesta binaria.
+     */
+    public List<List<ReadingCreateDto>> history(int hours, int batchSize) {
+        int perDevice = hours * 60 / READING_INTERVAL_MINUTES;
+        List<List<ReadingCreateDto>> batches = new ArrayList<>();
+        List<ReadingCreateDto> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < perDevice; i++) {
+            for (int d = 0; d < devices; d++) {
+                batch.add(nextReading(deviceId(d)));
+                if (batch.size() == batchSize) {
+                    batches.add(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    public String deviceJson(long deviceId) {
+        return "{\"id\":" + deviceId + ",\"serialNo\":\"PUMP-" + deviceId + "\",\"model\":\"LT-1\","
+                + "\"manufacturer\":\"Sintético\",\"status\":\"ACTIVE\",\"patientId\":" + patientForDevice(deviceId) + "}";
+    }
+
+    public String patientJson(long patientId) {
+        return "{\"id\":" + patientId + ",\"name\":\"Paciente " + patientId + "\",\"age\":" + (18 + patientId % 60)
+                + ",\"medicalId\":\"MED-" + patientId + "\",\"deviceId\":" + (patientId - PATIENT_ID_OFFSET)
+                + ",\"diabetesType\":\"TYPE_1\"}";
+    }
+
+    private float step(int index, LocalDateTime timestamp) {
+        float value = glucose[index];
+        value += (120 - value) * 0.05f + (float) (random.nextGaussian() * 6);
+
+        int minuteOfDay = timestamp.getHour() * 60 + timestamp.getMinute();
+        for (int meal : new int[]{7 * 60, 13 * 60 + 30, 20 * 60 + 30}) {
+            int sinceMeal = minuteOfDay - meal;
+            if (sinceMeal >= 0 && sinceMeal < 60) {
+                value += 4 + random.nextInt(6);
+            }
+        }
+        if (random.nextInt(2_000) == 0) {
+            value = 45 + random.nextInt(15);
+        }
+
+        value = Math.max(35, Math.min(400, value));
+        glucose[index] = value;
+        return Math.round(value * 10) / 10.0f;
+    }
+}
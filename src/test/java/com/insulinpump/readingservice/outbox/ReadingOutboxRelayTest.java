@@ -0,0 +1,150 @@
+package com.insulinpump.readingservice.outbox;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.exception.DeviceNotFoundException;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import com.insulinpump.readingservice.repository.ReadingOutboxRepository;
+import com.insulinpump.readingservice.repository.ReadingRepository;
+import com.insulinpump.readingservice.service.ReadingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.outbox.poll-interval=3600000",
+        "readingservice.outbox.batch-size=2"
+})
+class ReadingOutboxRelayTest {
+
+    @Autowired
+    private ReadingService readingService;
+
+    @Autowired
+    private ReadingOutboxRelay relay;
+
+    @Autowired
+    private ReadingOutboxRepository outboxRepository;
+
+    @Autowired
+    private ReadingRepository readingRepository;
+
+    @MockitoSpyBean
+    private InMemoryReadingEventSink sink;
+
+    @MockitoSpyBean
+    private ReadingOutboxWriter outboxWriter;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        readingRepository.deleteAll();
+        sink.clear();
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            DeviceDto device = new DeviceDto();
+            device.setId(invocation.getArgument(0));
+            return device;
+        });
+    }
+
+    @Test
+    void should_publish_changes_in_order_per_device_and_empty_outbox() {
+        // Given
+        ReadingDetailsDto first = readingService.createReading(reading(1L, 120.0f));
+        readingService.createReading(reading(2L, 300.0f));
+        readingService.updateReading(first.getId(), reading(1L, 45.0f));
+        readingService.deleteReading(first.getId());
+        assertThat(outboxRepository.count()).isEqualTo(4);
+
+        // When
+        int published = relay.drain();
+
+        // Then
+        assertThat(published).isEqualTo(4);
+        assertThat(outboxRepository.count()).isZero();
+        List<ReadingOutboxEvent> deviceEvents = sink.getEvents().stream()
+                .filter(event -> event.getDeviceId().equals(1L))
+                .toList();
+        assertThat(deviceEvents).extracting(ReadingOutboxEvent::getType).containsExactly(
+                ReadingChangedEvent.Type.CREATED, ReadingChangedEvent.Type.UPDATED, ReadingChangedEvent.Type.DELETED);
+        assertThat(deviceEvents).extracting(ReadingOutboxEvent::getGlucoseLevel).containsExactly(120.0f, 45.0f, 45.0f);
+    }
+
+    @Test
+    void should_keep_events_when_sink_fails() {
+        // Given
+        readingService.createReading(reading(1L, 120.0f));
+        doThrow(new IllegalStateException("sink caído")).when(sink).publish(any());
+
+        // When
+        assertThatThrownBy(() -> relay.drain()).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(outboxRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_write_event_when_reading_is_not_stored() {
+        // Given
+        when(deviceClient.getDeviceById(99L)).thenThrow(new RuntimeException("no existe"));
+
+        // When
+        assertThatThrownBy(() -> readingService.createReading(reading(99L, 120.0f)))
+                .isInstanceOf(DeviceNotFoundException.class);
+
+        // Then
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void should_store_a_batch_and_its_events_atomically_without_sharding() {
+        // Given: falla el evento de la segunda lectura
+        doCallRealMethod().doThrow(new IllegalStateException("outbox caído")).when(outboxWriter).onReadingChanged(any());
+        List<Reading> batch = List.of(
+                new Reading(null, 120.0f, base, 1L, null, null, null, null, false, false),
+                new Reading(null, 130.0f, base.plusMinutes(5), 1L, null, null, null, null, false, false));
+
+        // When
+        assertThatThrownBy(() -> readingService.createReadings(batch)).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(readingRepository.count()).isZero();
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    private ReadingCreateDto reading(long deviceId, float glucoseLevel) {
+        ReadingCreateDto dto = new ReadingCreateDto();
+        dto.setDeviceId(deviceId);
+        dto.setGlucoseLevel(glucoseLevel);
+        dto.setTimestamp(base);
+        return dto;
+    }
+}
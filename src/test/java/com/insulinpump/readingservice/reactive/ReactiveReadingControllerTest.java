@@ -0,0 +1,162 @@
+package com.insulinpump.readingservice.reactive;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.ReadingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactivo;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactivo?options=MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration"
+})
+@ActiveProfiles("reactive")
+class ReactiveReadingControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReadingRepository readingRepository;
+
+    @MockitoBean
+    private ReactiveServiceClient serviceClient;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 9, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        readingRepository.deleteAll();
+        when(serviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return id == 404L ? Mono.error(new IllegalStateException("404")) : Mono.just(new DeviceDto(id, "SN-" + id, null, null, null, 50L));
+        });
+        when(serviceClient.getPatientById(50L)).thenReturn(Mono.just(new PatientDto(50L, "Ana", 40, "M-50", 1L, "TYPE_1")));
+        when(serviceClient.getPatientByDeviceId(anyLong())).thenReturn(Mono.empty());
+        when(serviceClient.getPatientByDeviceId(1L)).thenReturn(Mono.just(new PatientDto(50L, "Ana", 40, "M-50", 1L, "TYPE_1")));
+    }
+
+    @Test
+    void should_stream_time_range_in_order_and_enrich_each_device_once() {
+        // Given
+        for (int i = 0; i < 20; i++) {
+            save(1L, 100.0f + i, base.plusMinutes(5L * i));
+        }
+        save(2L, 150.0f, base);
+
+        // When
+        List<ReadingDetailsDto> readings = webTestClient.get()
+                .uri("/api/readings/device/1/timerange?start={start}&end={end}", base, base.plusHours(1))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ReadingDetailsDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        // Then
+        assertThat(readings).hasSize(13);
+        assertThat(readings).extracting(ReadingDetailsDto::getTimestamp).isSorted();
+        assertThat(readings).allSatisfy(reading -> {
+            assertThat(reading.getDevice().getSerialNo()).isEqualTo("SN-1");
+            assertThat(reading.getPatient().getName()).isEqualTo("Ana");
+        });
+        verify(serviceClient, times(1)).getDeviceById(1L);
+        verify(serviceClient, times(1)).getPatientById(50L);
+    }
+
+    @Test
+    void should_compute_statistics_and_latest_like_the_mvc_api() {
+        // Given
+        save(1L, 60.0f, base);
+        save(1L, 100.0f, base.plusMinutes(5));
+        save(1L, 200.0f, base.plusMinutes(10));
+
+        // When
+        GlucoseStatisticsDto statistics = webTestClient.get()
+                .uri("/api/readings/device/1/statistics?start={start}&end={end}", base, base.plusHours(1))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GlucoseStatisticsDto.class)
+                .returnResult().getResponseBody();
+
+        // Then
+        assertThat(statistics.getTotalReadings()).isEqualTo(3);
+        assertThat(statistics.getAverageGlucoseLevel()).isEqualTo(120.0f);
+        assertThat(statistics.getLowReadingsCount()).isEqualTo(1L);
+        assertThat(statistics.getHighReadingsCount()).isEqualTo(1L);
+        assertThat(statistics.getDeviceSerialNo()).isEqualTo("SN-1");
+        assertThat(statistics.getPatientName()).isEqualTo("Ana");
+
+        webTestClient.get().uri("/api/readings/device/1/latest")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.glucoseLevel").isEqualTo(200.0)
+                .jsonPath("$.status").isEqualTo("HIGH");
+        webTestClient.get().uri("/api/readings/status/LOW")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(1);
+        webTestClient.get().uri("/api/readings")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(3);
+        webTestClient.get().uri("/api/readings/requiring-action")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    void should_map_errors_with_the_global_exception_handler() {
+        webTestClient.get().uri("/api/readings/device/3/latest")
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri("/api/readings/device/404/statistics?start={start}&end={end}", base, base.plusHours(1))
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.post().uri("/api/readings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().is4xxClientError();
+    }
+
+    private void save(Long deviceId, float glucoseLevel, LocalDateTime timestamp) {
+        ReadingStatus status = glucoseLevel < 70 ? ReadingStatus.LOW : glucoseLevel > 180 ? ReadingStatus.HIGH : ReadingStatus.NORMAL;
+        readingRepository.save(new Reading(null, glucoseLevel, timestamp, deviceId, status, null, null, null, false, false));
+    }
+}
@@ -2,10 +2,12 @@ package com.insulinpump.readingservice.repository;
 
 import com.insulinpump.readingservice.model.Reading;
 import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -14,6 +16,7 @@ import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
+@Import(ReadingStorageLayout.class)
 @Transactional
 class ReadingRepositoryTest {
 
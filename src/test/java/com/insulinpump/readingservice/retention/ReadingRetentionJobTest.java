@@ -0,0 +1,157 @@
+package com.insulinpump.readingservice.retention;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.model.RetentionCheckpoint;
+import com.insulinpump.readingservice.repository.ReadingOutboxRepository;
+import com.insulinpump.readingservice.repository.ReadingRepository;
+import com.insulinpump.readingservice.repository.RetentionCheckpointRepository;
+import com.insulinpump.readingservice.service.DeviceVersionTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:retencion;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.retention.enabled=true",
+        "readingservice.retention.cron=-",
+        "readingservice.retention.max-age=30d",
+        "readingservice.retention.min-chunk-size=3",
+        "readingservice.retention.max-chunk-size=4",
+        "readingservice.outbox.poll-interval=3600000"
+})
+class ReadingRetentionJobTest {
+
+    @Autowired
+    private ReadingRetentionJob retentionJob;
+
+    @Autowired
+    private ReadingRepository readingRepository;
+
+    @Autowired
+    private RetentionCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ReadingOutboxRepository outboxRepository;
+
+    @Autowired
+    private DeviceVersionTracker deviceVersionTracker;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime old = LocalDateTime.now().minusDays(60).truncatedTo(ChronoUnit.SECONDS);
+    private final LocalDateTime recent = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+    @BeforeEach
+    void setUp() {
+        readingRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void should_purge_old_readings_in_chunks_keeping_latest_per_device() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            save(1L, old.plusMinutes(i));
+        }
+        save(1L, recent);
+        for (int i = 0; i < 5; i++) {
+            save(2L, old.plusMinutes(i));
+        }
+        save(3L, recent);
+
+        // When
+        long deleted = retentionJob.purge();
+
+        // Then
+        assertThat(deleted).isEqualTo(14);
+        assertThat(readingRepository.findByDeviceId(1L)).extracting(Reading::getTimestamp).containsExactly(recent);
+        assertThat(readingRepository.findByDeviceId(2L)).extracting(Reading::getTimestamp).containsExactly(old.plusMinutes(4));
+        assertThat(readingRepository.findByDeviceId(3L)).hasSize(1);
+        assertThat(checkpointRepository.findById("lecturas-shard-0")).get()
+                .satisfies(checkpoint -> {
+                    assertThat(checkpoint.getLastId()).isZero();
+                    assertThat(checkpoint.getDeletedInRun()).isEqualTo(14);
+                });
+    }
+
+    @Test
+    void should_publish_deleted_readings_of_each_chunk() {
+        // Given
+        List<Long> purgedIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            purgedIds.add(save(5L, old.plusMinutes(i)).getId());
+        }
+        save(5L, recent);
+        long versionBefore = deviceVersionTracker.current(5L).version();
+
+        // When
+        long deleted = retentionJob.purge();
+
+        // Then: un evento DELETED por lectura purgada, escrito en la misma transacción que cada bloque
+        assertThat(deleted).isEqualTo(7);
+        assertThat(outboxRepository.findAll())
+                .allSatisfy(event -> assertThat(event.getType()).isEqualTo(ReadingChangedEvent.Type.DELETED))
+                .extracting(ReadingOutboxEvent::getReadingId)
+                .containsExactlyInAnyOrderElementsOf(purgedIds);
+        assertThat(deviceVersionTracker.current(5L).version()).isGreaterThan(versionBefore);
+    }
+
+    @Test
+    void should_resume_from_checkpoint() {
+        // Given: una pasada anterior se interrumpió tras revisar las tres primeras lecturas
+        Long thirdId = null;
+        for (int i = 0; i < 6; i++) {
+            Long id = save(1L, old.plusMinutes(i)).getId();
+            if (i == 2) {
+                thirdId = id;
+            }
+        }
+        save(1L, recent);
+        checkpointRepository.save(new RetentionCheckpoint("lecturas-shard-0", thirdId, 3L, LocalDateTime.now(), LocalDateTime.now()));
+
+        // When
+        long deleted = retentionJob.purge();
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        assertThat(readingRepository.findByDeviceId(1L)).hasSize(4);
+        assertThat(checkpointRepository.findById("lecturas-shard-0")).get()
+                .satisfies(checkpoint -> {
+                    assertThat(checkpoint.getLastId()).isZero();
+                    assertThat(checkpoint.getDeletedInRun()).isEqualTo(6);
+                });
+
+        // La siguiente pasada empieza desde el principio
+        assertThat(retentionJob.purge()).isEqualTo(3);
+        assertThat(readingRepository.findByDeviceId(1L)).extracting(Reading::getTimestamp).containsExactly(recent);
+    }
+
+    private Reading save(Long deviceId, LocalDateTime timestamp) {
+        Reading reading = new Reading();
+        reading.setDeviceId(deviceId);
+        reading.setGlucoseLevel(110.0f);
+        reading.setTimestamp(timestamp);
+        reading.setStatus(ReadingStatus.NORMAL);
+        reading.setRequiresAction(false);
+        return readingRepository.save(reading);
+    }
+}
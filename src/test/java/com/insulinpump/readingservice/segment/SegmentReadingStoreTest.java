@@ -0,0 +1,157 @@
+package com.insulinpump.readingservice.segment;
+
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentReadingStoreTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 7, 1, 0, 0);
+    private SegmentReadingStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void should_roll_segments_and_answer_range_latest_and_updates() throws IOException {
+        // Given: ~70 registros por segmento de 4 KB
+        store = new SegmentReadingStore(directory, SEGMENT_SIZE, false);
+        SegmentReadingRepository repository = new SegmentReadingRepository(store);
+        for (int i = 0; i < 300; i++) {
+            repository.save(reading(1L, 100.0f + i % 10, base.plusMinutes(5L * i)));
+        }
+        repository.save(reading(2L, 40.0f, base.plusMinutes(1)));
+
+        // When
+        Reading updated = repository.findById(10L).orElseThrow();
+        updated.setGlucoseLevel(300.0f);
+        updated.setNotes("corregida");
+        repository.save(updated);
+        repository.deleteById(20L);
+
+        // Then
+        assertThat(segmentFiles(1L)).hasSizeGreaterThan(3);
+        assertThat(repository.count()).isEqualTo(300);
+        assertThat(repository.findById(10L)).get().extracting(Reading::getGlucoseLevel, Reading::getNotes)
+                .containsExactly(300.0f, "corregida");
+        assertThat(repository.existsById(20L)).isFalse();
+
+        List<Reading> range = repository.findByDeviceIdAndTimestampBetween(1L, base.plusMinutes(40), base.plusMinutes(100));
+        assertThat(range).extracting(Reading::getId).containsExactly(9L, 10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 21L);
+        assertThat(repository.findLatestByDeviceId(1L)).get().extracting(Reading::getId).isEqualTo(300L);
+        assertThat(repository.findMaxGlucoseLevelByDeviceIdAndTimeRange(1L, base, base.plusDays(2))).isEqualTo(300.0f);
+        assertThat(repository.findByStatus(ReadingStatus.CRITICAL_LOW)).extracting(Reading::getDeviceId).containsExactly(2L);
+        assertThat(repository.aggregateGlucoseByDeviceIdsAndTimeRange(List.of(1L, 2L), base, base.plusMinutes(10)))
+                .extracting(row -> row[0], row -> row[1])
+                .containsExactly(org.assertj.core.groups.Tuple.tuple(1L, 3L), org.assertj.core.groups.Tuple.tuple(2L, 1L));
+    }
+
+    @Test
+    void should_recover_after_restart_and_drop_a_torn_last_record() throws IOException {
+        // Given
+        store = new SegmentReadingStore(directory, SEGMENT_SIZE, false);
+        for (int i = 0; i < 100; i++) {
+            store.save(reading(1L, 100.0f + i, base.plusMinutes(i)));
+        }
+        Reading moved = store.findById(5L).orElseThrow();
+        moved.setDeviceId(2L);
+        store.save(moved);
+        store.delete(6L);
+        store.close();
+
+        // When: la última escritura quedó a medias
+        Path last = segmentFiles(1L).get(segmentFiles(1L).size() - 1);
+        try (RandomAccessFile file = new RandomAccessFile(last.toFile(), "rw")) {
+            file.setLength(file.length() - 10);
+        }
+        store = new SegmentReadingStore(directory, SEGMENT_SIZE, false);
+
+        // Then: el borrado de la 6 era el último registro del dispositivo 1 y se ha perdido; lo demás se conserva
+        assertThat(store.count()).isEqualTo(100);
+        assertThat(store.findById(6L)).isPresent();
+        assertThat(store.findById(5L)).get().extracting(Reading::getDeviceId).isEqualTo(2L);
+        assertThat(new SegmentReadingRepository(store).findByDeviceId(1L)).hasSize(99);
+        assertThat(store.latest(1L)).get().extracting(Reading::getId).isEqualTo(100L);
+
+        // Los ids siguen desde el mayor recuperado
+        assertThat(store.save(reading(1L, 90.0f, base.plusDays(1))).getId()).isEqualTo(101L);
+    }
+
+    @Test
+    void should_compact_dead_records_and_keep_deletions_after_restart() throws IOException {
+        // Given: cada lectura se reescribe tres veces y la mitad se borran
+        store = new SegmentReadingStore(directory, SEGMENT_SIZE, false);
+        List<Reading> readings = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            readings.add(store.save(reading(1L, 100.0f, base.plusMinutes(i))));
+        }
+        for (int version = 1; version <= 3; version++) {
+            for (Reading reading : readings) {
+                reading.setGlucoseLevel(100.0f + version);
+                store.save(reading);
+            }
+        }
+        for (int i = 0; i < 100; i += 2) {
+            store.delete(readings.get(i).getId());
+        }
+        store.close();
+        store = new SegmentReadingStore(directory, SEGMENT_SIZE, false);
+        long bytesBefore = directorySize();
+
+        // When
+        long removed = store.compact(0.5);
+
+        // Then
+        assertThat(removed).isEqualTo(400 + 50 - 50);
+        assertThat(directorySize()).isLessThan(bytesBefore / 4);
+        assertThat(store.count()).isEqualTo(50);
+
+        store.close();
+        store = new SegmentReadingStore(directory, SEGMENT_SIZE, false);
+        SegmentReadingRepository repository = new SegmentReadingRepository(store);
+        assertThat(repository.findByDeviceId(1L)).hasSize(50)
+                .allSatisfy(reading -> assertThat(reading.getGlucoseLevel()).isEqualTo(103.0f))
+                .extracting(Reading::getId).allMatch(id -> id % 2 == 0);
+    }
+
+    private Reading reading(Long deviceId, float glucoseLevel, LocalDateTime timestamp) {
+        ReadingStatus status = glucoseLevel < 50 ? ReadingStatus.CRITICAL_LOW : ReadingStatus.NORMAL;
+        return new Reading(null, glucoseLevel, timestamp, deviceId, status, null, null, null, false, status != ReadingStatus.NORMAL);
+    }
+
+    private List<Path> segmentFiles(Long deviceId) throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve(deviceId.toString()))) {
+            return files.sorted(Comparator.comparingInt(path -> Integer.parseInt(path.getFileName().toString().replace(".seg", ""))))
+                    .toList();
+        }
+    }
+
+    private long directorySize() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.insulinpump.readingservice.segment;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.config.SegmentStoreConfig;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.repository.ReadingStore;
+import com.insulinpump.readingservice.service.GlucoseBucketService;
+import com.insulinpump.readingservice.service.GlucoseDownsamplingService;
+import com.insulinpump.readingservice.service.ReadingBulkService;
+import com.insulinpump.readingservice.service.ReadingExportService;
+import com.insulinpump.readingservice.service.ReadingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:segmentos;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.storage.engine=segment",
+        "readingservice.storage.segment.segment-size=64KB"
+})
+class SegmentStoreIntegrationTest {
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void segmentDirectory(DynamicPropertyRegistry registry) {
+        registry.add("readingservice.storage.segment.directory", () -> directory.toString());
+    }
+
+    @Autowired
+    private ReadingService readingService;
+
+    @Autowired
+    private ReadingStore readingRepository;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 7, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            DeviceDto device = new DeviceDto();
+            device.setId(invocation.getArgument(0));
+            device.setSerialNo("SN-" + invocation.getArgument(0));
+            return device;
+        });
+    }
+
+    @Test
+    void should_serve_readings_from_segments_when_engine_is_segment() {
+        // Given
+        readingService.createReading(reading(7L, 100.0f, base));
+        readingService.createReading(reading(7L, 60.0f, base.plusMinutes(5)));
+        ReadingDetailsDto last = readingService.createReading(reading(7L, 200.0f, base.plusMinutes(10)));
+
+        // When
+        GlucoseStatisticsDto statistics = readingService.getGlucoseStatisticsByDeviceId(7L, base, base.plusHours(1));
+
+        // Then
+        assertThat(readingRepository).isInstanceOf(SegmentReadingRepository.class);
+        assertThat(readingService.getLatestReadingByDeviceId(7L).getId()).isEqualTo(last.getId());
+        assertThat(statistics.getTotalReadings()).isEqualTo(3);
+        assertThat(statistics.getAverageGlucoseLevel()).isEqualTo(120.0f);
+        assertThat(statistics.getLowestReading()).isEqualTo(60.0f);
+        assertThat(statistics.getHighestReading()).isEqualTo(200.0f);
+        assertThat(directory.resolve("7")).isDirectory();
+    }
+
+    @Test
+    void should_not_append_to_the_segment_when_the_transaction_rolls_back() {
+        // Given
+        LocalDateTime timestamp = base.plusDays(1);
+        Integer eventsBefore = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM eventos_lectura", Integer.class);
+
+        // When: el outbox se escribe y la transacción se deshace después
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            readingService.createReading(reading(8L, 110.0f, timestamp));
+            throw new IllegalStateException("fallo tras guardar");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(readingRepository.existsByDeviceIdAndTimestamp(8L, timestamp)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM eventos_lectura", Integer.class)).isEqualTo(eventsBefore);
+
+        // Y el reintento guarda una sola lectura
+        readingService.createReading(reading(8L, 110.0f, timestamp));
+        assertThat(readingService.getGlucoseStatisticsByDeviceId(8L, timestamp, timestamp.plusMinutes(1)).getTotalReadings())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void should_leave_out_the_features_that_query_the_readings_table_by_sql() {
+        assertThat(applicationContext.getBeanProvider(ReadingExportService.class).getIfAvailable()).isNull();
+        assertThat(applicationContext.getBeanProvider(ReadingBulkService.class).getIfAvailable()).isNull();
+        assertThat(applicationContext.getBeanProvider(GlucoseBucketService.class).getIfAvailable()).isNull();
+        assertThat(applicationContext.getBeanProvider(GlucoseDownsamplingService.class).getIfAvailable()).isNull();
+
+        // La retención y el sharding impiden arrancar
+        assertThatThrownBy(() -> new SegmentStoreConfig(new MockEnvironment().withProperty("readingservice.retention.enabled", "true")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SegmentStoreConfig(new MockEnvironment().withProperty("readingservice.sharding.enabled", "true")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ReadingCreateDto reading(long deviceId, float glucoseLevel, LocalDateTime timestamp) {
+        ReadingCreateDto dto = new ReadingCreateDto();
+        dto.setDeviceId(deviceId);
+        dto.setGlucoseLevel(glucoseLevel);
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+}
@@ -0,0 +1,45 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.service.DeviceVersionTracker.DeviceVersion;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(ReadingStorageLayout.class)
+class DeviceVersionTrackerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_share_device_versions_between_instances_and_restarts() {
+        // Given: dos instancias sobre la misma base de datos
+        DeviceVersionTracker instanceA = new DeviceVersionTracker(jdbcTemplate, ShardExecutor.local());
+        DeviceVersionTracker instanceB = new DeviceVersionTracker(jdbcTemplate, ShardExecutor.local());
+        DeviceVersion before = instanceA.current(7L);
+        String etag = instanceA.etag(before, "latest");
+
+        // When: la escritura la atiende la instancia B
+        instanceB.markWritten(7L);
+
+        // Then: la instancia A ya no reconoce el ETag anterior, tampoco tras reiniciarse
+        DeviceVersion after = instanceA.current(7L);
+        assertThat(before.version()).isZero();
+        assertThat(before.hasLastModified()).isFalse();
+        assertThat(after.version()).isEqualTo(1L);
+        assertThat(after.hasLastModified()).isTrue();
+        assertThat(instanceA.etag(after, "latest")).isNotEqualTo(etag);
+        assertThat(new DeviceVersionTracker(jdbcTemplate, ShardExecutor.local()).current(7L)).isEqualTo(after);
+
+        instanceA.markWritten(7L);
+        assertThat(instanceB.current(7L).version()).isEqualTo(2L);
+        assertThat(instanceB.current(8L).version()).isZero();
+    }
+}
@@ -0,0 +1,63 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.bucketing.BucketFunction;
+import com.insulinpump.readingservice.bucketing.GapFill;
+import com.insulinpump.readingservice.config.ShardingConfig;
+import com.insulinpump.readingservice.dto.GlucoseBucketDto;
+import com.insulinpump.readingservice.dto.GlucoseBucketSeriesDto;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({GlucoseBucketService.class, ShardingConfig.class, ReadingStorageLayout.class})
+class GlucoseBucketServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private GlucoseBucketService glucoseBucketService;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 7, 1, 10, 0);
+
+    @Test
+    void should_group_readings_by_bucket_in_the_database() {
+        // Given
+        persistReading(1L, 100.0f, base.plusMinutes(2));
+        persistReading(1L, 120.0f, base.plusMinutes(7));
+        persistReading(1L, 80.0f, base.plusMinutes(31));
+        persistReading(1L, 95.0f, base.plusMinutes(50));
+        persistReading(2L, 300.0f, base.plusMinutes(20));
+        entityManager.flush();
+
+        // When: intervalos de 15 minutos, el de 10:15 sin lecturas
+        GlucoseBucketSeriesDto series = glucoseBucketService.getBucketedSeries(1L, base, base.plusMinutes(59), "15m",
+                EnumSet.of(BucketFunction.AVG, BucketFunction.COUNT, BucketFunction.MIN), GapFill.LINEAR);
+
+        // Then
+        assertThat(series.getSourceReadings()).isEqualTo(4);
+        assertThat(series.getBuckets()).extracting(GlucoseBucketDto::getTimestamp)
+                .containsExactly(base, base.plusMinutes(15), base.plusMinutes(30), base.plusMinutes(45));
+        assertThat(series.getBuckets()).extracting(GlucoseBucketDto::getCount).containsExactly(2L, 0L, 1L, 1L);
+        assertThat(series.getBuckets()).extracting(GlucoseBucketDto::getAverageGlucoseLevel)
+                .containsExactly(110.0f, 95.0f, 80.0f, 95.0f);
+        assertThat(series.getBuckets()).extracting(GlucoseBucketDto::getMinGlucoseLevel)
+                .containsExactly(100.0f, 90.0f, 80.0f, 95.0f);
+        assertThat(series.getBuckets()).extracting(GlucoseBucketDto::getMaxGlucoseLevel).containsOnlyNulls();
+    }
+
+    private void persistReading(Long deviceId, Float glucoseLevel, LocalDateTime timestamp) {
+        entityManager.persist(new Reading(null, glucoseLevel, timestamp, deviceId, ReadingStatus.NORMAL, null, null, null, false, false));
+    }
+}
@@ -0,0 +1,163 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.actions.ReadingActionService;
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.counters.ReadingStatusCounters;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.ReadingBulkDeleteDto;
+import com.insulinpump.readingservice.dto.ReadingBulkUpdateDto;
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
+import com.insulinpump.readingservice.model.ActionState;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.ReadingActionRepository;
+import com.insulinpump.readingservice.repository.ReadingOutboxRepository;
+import com.insulinpump.readingservice.repository.ReadingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:masivo;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.outbox.poll-interval=3600000"
+})
+class ReadingBulkServiceTest {
+
+    @Autowired
+    private ReadingService readingService;
+
+    @Autowired
+    private ReadingBulkService readingBulkService;
+
+    @Autowired
+    private ReadingActionService readingActionService;
+
+    @Autowired
+    private ReadingStatusCounters readingStatusCounters;
+
+    @Autowired
+    private ReadingRepository readingRepository;
+
+    @Autowired
+    private ReadingActionRepository actionRepository;
+
+    @Autowired
+    private ReadingOutboxRepository outboxRepository;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 4, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        readingRepository.deleteAll();
+        actionRepository.deleteAll();
+        outboxRepository.deleteAll();
+        readingActionService.reloadIndex();
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            DeviceDto device = new DeviceDto();
+            device.setId(invocation.getArgument(0));
+            return device;
+        });
+    }
+
+    @Test
+    void should_recalculate_status_in_range_and_keep_derived_state_consistent() {
+        // Given: estados fijados a mano que no corresponden con la glucosa
+        readingService.createReading(reading(5L, 45.0f, base, ReadingStatus.NORMAL));
+        readingService.createReading(reading(5L, 120.0f, base.plusMinutes(5), ReadingStatus.CRITICAL_HIGH));
+        readingService.createReading(reading(5L, 300.0f, base.plusDays(1), ReadingStatus.NORMAL));
+        outboxRepository.deleteAll();
+        long requiringBefore = readingStatusCounters.summary(5L).getRequiringAction();
+
+        // When
+        ReadingBulkUpdateDto request = new ReadingBulkUpdateDto();
+        request.setDeviceId(5L);
+        request.setStart(base);
+        request.setEnd(base.plusHours(1));
+        request.setRecalculateStatus(true);
+        request.setNotes("Revisado");
+        long updated = readingBulkService.updateReadings(request).getAffectedReadings();
+
+        // Then
+        assertThat(updated).isEqualTo(2);
+        List<Reading> readings = readingRepository.findByDeviceIdOrderByTimestampDesc(5L);
+        assertThat(readings).extracting(Reading::getStatus)
+                .containsExactly(ReadingStatus.NORMAL, ReadingStatus.NORMAL, ReadingStatus.CRITICAL_LOW);
+        assertThat(readings).extracting(Reading::getRequiresAction).containsExactly(false, false, true);
+        assertThat(readings).extracting(Reading::getNotes).containsExactly(null, "Revisado", "Revisado");
+
+        assertThat(outboxRepository.findAll()).hasSize(2)
+                .allSatisfy(event -> assertThat(event.getType()).isEqualTo(ReadingChangedEvent.Type.UPDATED));
+        assertThat(readingStatusCounters.summary(5L).getCounts())
+                .containsEntry(ReadingStatus.CRITICAL_LOW, 1L)
+                .containsEntry(ReadingStatus.CRITICAL_HIGH, 0L);
+        assertThat(readingStatusCounters.summary(5L).getRequiringAction()).isEqualTo(requiringBefore);
+        assertThat(readingActionService.getOpenActions(0, 10).getContent())
+                .extracting(action -> action.getReadingStatus())
+                .containsExactly(ReadingStatus.CRITICAL_LOW);
+        assertThat(actionRepository.findAll())
+                .filteredOn(action -> action.getState() == ActionState.RESOLVED)
+                .singleElement()
+                .satisfies(action -> assertThat(action.getReadingStatus()).isEqualTo(ReadingStatus.CRITICAL_HIGH));
+    }
+
+    @Test
+    void should_delete_by_ids_resolving_open_actions() {
+        // Given
+        ReadingDetailsDto critical = readingService.createReading(reading(6L, 40.0f, base, null));
+        ReadingDetailsDto normal = readingService.createReading(reading(6L, 110.0f, base.plusMinutes(5), null));
+        ReadingDetailsDto kept = readingService.createReading(reading(6L, 115.0f, base.plusMinutes(10), null));
+        outboxRepository.deleteAll();
+
+        // When
+        ReadingBulkDeleteDto request = new ReadingBulkDeleteDto();
+        request.setIds(List.of(critical.getId(), normal.getId(), critical.getId()));
+        long deleted = readingBulkService.deleteReadings(request).getAffectedReadings();
+
+        // Then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(readingRepository.findByDeviceIdOrderByTimestampDesc(6L)).extracting(Reading::getId)
+                .containsExactly(kept.getId());
+        assertThat(outboxRepository.findAll()).extracting(ReadingOutboxEvent::getReadingId)
+                .containsExactly(critical.getId(), normal.getId());
+        assertThat(readingActionService.getOpenActions(0, 10).getTotalOpen()).isZero();
+        assertThat(actionRepository.findAll()).singleElement()
+                .satisfies(action -> assertThat(action.getResolution()).isEqualTo("Lectura eliminada"));
+    }
+
+    @Test
+    void should_reject_ambiguous_selection() {
+        ReadingBulkDeleteDto request = new ReadingBulkDeleteDto(1L, base, base.plusHours(1), List.of(1L));
+
+        assertThatThrownBy(() -> readingBulkService.deleteReadings(request))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ReadingCreateDto reading(long deviceId, float glucoseLevel, LocalDateTime timestamp, ReadingStatus status) {
+        ReadingCreateDto dto = new ReadingCreateDto();
+        dto.setDeviceId(deviceId);
+        dto.setGlucoseLevel(glucoseLevel);
+        dto.setTimestamp(timestamp);
+        dto.setStatus(status);
+        return dto;
+    }
+}
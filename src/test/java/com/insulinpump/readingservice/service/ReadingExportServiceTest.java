@@ -0,0 +1,94 @@
+package com.insulinpump.readingservice.service;
+
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.config.ShardingConfig;
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
+import com.insulinpump.readingservice.export.ColumnarReadingExportWriter;
+import com.insulinpump.readingservice.export.ExportFormat;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.storage.ReadingStorageLayout;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({ReadingExportService.class, ShardingConfig.class, PatientDeviceDirectory.class, ReadingStorageLayout.class})
+class ReadingExportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReadingExportService readingExportService;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    @Test
+    void should_export_device_readings_as_csv() {
+        // Given
+        persistReading(1L, 100.0f, base, "ayuno");
+        persistReading(1L, 190.0f, base.plusMinutes(5), "después, de comer");
+        persistReading(2L, 80.0f, base.plusMinutes(5), null);
+        entityManager.flush();
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = readingExportService.exportByDevice(1L, base.minusHours(1), base.plusHours(1), ExportFormat.CSV, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("id,timestamp,deviceId,glucoseLevel");
+        assertThat(lines[1]).contains("2025-03-01 10:00:00,1,100.0,NORMAL");
+        assertThat(lines[2]).endsWith("\"después, de comer\"");
+    }
+
+    @Test
+    void should_export_fleet_readings_as_columnar_blocks() throws Exception {
+        // Given
+        persistReading(1L, 100.0f, base, null);
+        persistReading(2L, 45.0f, base.plusMinutes(1), null);
+        persistReading(3L, 120.0f, base.minusDays(2), null);
+        entityManager.flush();
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = readingExportService.exportAll(base.minusHours(1), base.plusHours(1), ExportFormat.COLUMNAR, out);
+
+        // Then
+        DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())));
+        assertThat(rows).isEqualTo(2);
+        assertThat(in.readInt()).isEqualTo(ColumnarReadingExportWriter.MAGIC);
+        assertThat(in.readByte()).isEqualTo(ColumnarReadingExportWriter.VERSION);
+        assertThat(in.readInt()).isEqualTo(2);
+    }
+
+    private void persistReading(Long deviceId, Float glucoseLevel, LocalDateTime timestamp, String notes) {
+        Reading reading = new Reading();
+        reading.setDeviceId(deviceId);
+        reading.setGlucoseLevel(glucoseLevel);
+        reading.setTimestamp(timestamp);
+        reading.setStatus(ReadingStatus.NORMAL);
+        reading.setNotes(notes);
+        reading.setManualReading(false);
+        reading.setRequiresAction(false);
+        entityManager.persist(reading);
+    }
+}
@@ -2,19 +2,31 @@ package com.insulinpump.readingservice.service;
 
 import com.insulinpump.readingservice.client.DeviceClient;
 import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.directory.PatientDeviceDirectory;
 import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.ReadingBatchResultDto;
 import com.insulinpump.readingservice.dto.ReadingCreateDto;
 import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.dto.ReadingPatchDto;
+import com.insulinpump.readingservice.dto.ShardResultDto;
+import com.insulinpump.readingservice.event.ReadingChangedEvent;
 import com.insulinpump.readingservice.exception.ReadingNotFoundException;
+import com.insulinpump.readingservice.journal.IngestJournal;
+import com.insulinpump.readingservice.model.JournalAppliedEntry;
 import com.insulinpump.readingservice.model.Reading;
 import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.JournalAppliedEntryRepository;
 import com.insulinpump.readingservice.repository.ReadingRepository;
+import com.insulinpump.readingservice.sharding.ShardExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.transaction.annotation.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,7 +42,12 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +62,21 @@ class ReadingServiceTest {
     @Mock
     private PatientClient patientClient;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ShardExecutor shardExecutor = ShardExecutor.local();
+
+    @Spy
+    private PatientDeviceDirectory patientDeviceDirectory = new PatientDeviceDirectory();
+
+    @Mock
+    private IngestJournal ingestJournal;
+
+    @Mock
+    private JournalAppliedEntryRepository journalAppliedEntryRepository;
+
     @InjectMocks
     private ReadingService readingService;
 
@@ -111,6 +143,156 @@ class ReadingServiceTest {
         verify(readingRepository).save(any(Reading.class));
     }
 
+    @Test
+    void should_accept_reading_into_journal_with_derived_fields() {
+        // Given
+        testReadingCreateDto.setGlucoseLevel(300.0f);
+        testReadingCreateDto.setStatus(null);
+        testReadingCreateDto.setTimestamp(null);
+        when(deviceClient.getDeviceById(1L)).thenReturn(testDevice);
+
+        // When
+        ReadingDetailsDto result = readingService.journalReading(testReadingCreateDto);
+
+        // Then: el estado y el timestamp se fijan al aceptar, no al reproducir
+        assertThat(result.getId()).isNull();
+        assertThat(result.getStatus()).isEqualTo("CRITICAL_HIGH");
+        verify(ingestJournal).append(argThat(readings -> readings.size() == 1
+                && readings.get(0).getTimestamp() != null && Boolean.TRUE.equals(readings.get(0).getRequiresAction())));
+        verifyNoInteractions(readingRepository);
+    }
+
+    @Test
+    void should_insert_journaled_reading_only_once() {
+        // Given
+        when(readingRepository.save(any(Reading.class))).thenReturn(testReading);
+        when(journalAppliedEntryRepository.existsById("entrada-1")).thenReturn(false, true);
+
+        // When
+        boolean first = readingService.createJournaledReading("entrada-1", createTestReading());
+        boolean second = readingService.createJournaledReading("entrada-1", createTestReading());
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        verify(readingRepository, times(1)).save(any(Reading.class));
+        verify(journalAppliedEntryRepository).save(argThat((JournalAppliedEntry entry) ->
+                entry.getEntryId().equals("entrada-1") && entry.getReadingId().equals(1L)));
+        verify(eventPublisher, times(1)).publishEvent(any(ReadingChangedEvent.class));
+    }
+
+    @Test
+    void should_create_batch_verifying_each_device_once() {
+        // Given
+        Reading first = new Reading();
+        first.setDeviceId(1L);
+        first.setGlucoseLevel(40.0f);
+        Reading second = new Reading();
+        second.setDeviceId(1L);
+        second.setGlucoseLevel(120.0f);
+
+        when(deviceClient.getDeviceById(1L)).thenReturn(testDevice);
+        when(readingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ReadingBatchResultDto result = readingService.createReadings(Arrays.asList(first, second));
+
+        // Then
+        assertThat(result.getStoredReadings()).isEqualTo(2);
+        assertThat(first.getStatus()).isEqualTo(ReadingStatus.CRITICAL_LOW);
+        assertThat(first.getRequiresAction()).isTrue();
+        assertThat(second.getTimestamp()).isNotNull();
+        verify(deviceClient, times(1)).getDeviceById(1L);
+    }
+
+    @Test
+    void should_journal_only_the_readings_of_the_unavailable_shard() {
+        // Given: el dispositivo 1 va al shard 0 y el 2 al shard 1, cuya base de datos no responde
+        Reading committed = new Reading();
+        committed.setDeviceId(1L);
+        committed.setGlucoseLevel(110.0f);
+        Reading pending = new Reading();
+        pending.setDeviceId(2L);
+        pending.setGlucoseLevel(120.0f);
+
+        when(deviceClient.getDeviceById(anyLong())).thenReturn(testDevice);
+        doReturn(0).when(shardExecutor).shardForDevice(1L);
+        doReturn(1).when(shardExecutor).shardForDevice(2L);
+        doAnswer(invocation -> {
+            if (invocation.<Integer>getArgument(0) == 1) {
+                throw new CannotCreateTransactionException("Shard 1 no disponible");
+            }
+            return invocation.callRealMethod();
+        }).when(shardExecutor).onShard(anyInt(), anyBoolean(), any());
+        when(readingRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Reading> readings = invocation.getArgument(0);
+            readings.forEach(reading -> reading.setId(7L));
+            return readings;
+        });
+        when(ingestJournal.isEnabled()).thenReturn(true);
+
+        // When
+        ReadingBatchResultDto result = readingService.createReadings(Arrays.asList(committed, pending));
+
+        // Then: el shard 0 devuelve su ID y al diario solo va la lectura del shard 1
+        assertThat(result.getIds()).containsExactly(7L);
+        assertThat(result.isPartial()).isFalse();
+        assertThat(result.isJournaled()).isTrue();
+        assertThat(result.getShards()).extracting(ShardResultDto::getShard, ShardResultDto::getOutcome, ShardResultDto::getReadings)
+                .containsExactly(
+                        tuple(0, ShardResultDto.Outcome.COMMITTED, 1L),
+                        tuple(1, ShardResultDto.Outcome.JOURNALED, 1L));
+        verify(ingestJournal).append(List.of(pending));
+    }
+
+    @Test
+    void should_skip_journaled_reading_already_committed_by_the_original_write() {
+        // Given: la escritura original se confirmó aunque el cliente recibió un error de conexión
+        Reading reading = createTestReading();
+        when(readingRepository.existsByDeviceIdAndTimestamp(1L, reading.getTimestamp())).thenReturn(true);
+
+        // When
+        boolean inserted = readingService.createJournaledReading(IngestJournal.entryId(reading), reading);
+
+        // Then
+        assertThat(inserted).isFalse();
+        verify(readingRepository, never()).save(any(Reading.class));
+    }
+
+    @Test
+    void should_patch_only_given_fields_and_derive_status() {
+        // Given
+        testReading.setNotes("Antes de comer");
+        when(readingRepository.findById(1L)).thenReturn(Optional.of(testReading));
+        when(readingRepository.save(any(Reading.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ReadingPatchDto patch = new ReadingPatchDto();
+        patch.setGlucoseLevel(45.0f);
+
+        // When
+        ReadingDetailsDto result = readingService.patchReading(1L, patch);
+
+        // Then
+        assertThat(result.getStatus()).isEqualTo("CRITICAL_LOW");
+        assertThat(result.getRequiresAction()).isTrue();
+        assertThat(result.getNotes()).isEqualTo("Antes de comer");
+        verify(eventPublisher).publishEvent(any(ReadingChangedEvent.class));
+    }
+
+    @Test
+    void should_skip_update_when_patch_changes_nothing() {
+        // Given
+        when(readingRepository.findById(1L)).thenReturn(Optional.of(testReading));
+        ReadingPatchDto patch = new ReadingPatchDto();
+        patch.setGlucoseLevel(testReading.getGlucoseLevel());
+
+        // When
+        readingService.patchReading(1L, patch);
+
+        // Then
+        verify(readingRepository, never()).save(any(Reading.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
     @Test
     @Transactional
     void should_delete_reading() {
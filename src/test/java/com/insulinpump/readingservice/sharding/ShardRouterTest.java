@@ -0,0 +1,58 @@
+package com.insulinpump.readingservice.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardRouterTest {
+
+    @Test
+    void should_spread_devices_and_move_few_when_adding_a_shard() {
+        // Given
+        ShardRouter three = new ShardRouter(3);
+        ShardRouter four = new ShardRouter(4);
+        int[] perShard = new int[3];
+        int moved = 0;
+
+        // When
+        for (long deviceId = 1; deviceId <= 30_000; deviceId++) {
+            int before = three.shardForDevice(deviceId);
+            perShard[before]++;
+            int after = four.shardForDevice(deviceId);
+            if (after != before) {
+                moved++;
+                assertThat(after).isEqualTo(3);
+            }
+        }
+
+        // Then
+        for (int count : perShard) {
+            assertThat(count).isBetween(9_000, 11_000);
+        }
+        assertThat(moved).isBetween(6_500, 8_500);
+    }
+
+    @Test
+    void should_locate_shard_from_id_range() {
+        // Given
+        ShardRouter router = new ShardRouter(3);
+
+        // Then
+        assertThat(router.shardForId(42L)).isZero();
+        assertThat(router.shardForId(ShardRouter.idRangeStart(2) + 7)).isEqualTo(2);
+        assertThat(router.shardForId(ShardRouter.idRangeStart(5))).isZero();
+    }
+
+    @Test
+    void should_merge_sorted_partials() {
+        // When
+        List<Integer> merged = ShardExecutor.mergeSorted(
+                List.of(List.of(1, 4, 9), List.of(), List.of(2, 3, 10), List.of(5)), Comparator.naturalOrder());
+
+        // Then
+        assertThat(merged).containsExactly(1, 2, 3, 4, 5, 9, 10);
+    }
+}
@@ -0,0 +1,378 @@
+package com.insulinpump.readingservice.sharding;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.dto.DeviceDto;
+import com.insulinpump.readingservice.dto.GlucoseStatisticsDto;
+import com.insulinpump.readingservice.dto.PatientDto;
+import com.insulinpump.readingservice.dto.ReadingBatchResultDto;
+import com.insulinpump.readingservice.dto.ReadingBulkDeleteDto;
+import com.insulinpump.readingservice.dto.ReadingBulkResultDto;
+import com.insulinpump.readingservice.dto.ReadingCreateDto;
+import com.insulinpump.readingservice.dto.ReadingDetailsDto;
+import com.insulinpump.readingservice.dto.ShardRebalanceResultDto;
+import com.insulinpump.readingservice.dto.ShardResultDto;
+import com.insulinpump.readingservice.exception.ReadingNotFoundException;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.service.ReadingBulkService;
+import com.insulinpump.readingservice.service.ReadingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "readingservice.sharding.enabled=true",
+        "readingservice.sharding.shards[0].jdbc-url=jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.sharding.shards[0].username=sa",
+        "readingservice.sharding.shards[1].jdbc-url=jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.sharding.shards[1].username=sa",
+        "readingservice.sharding.shards[2].jdbc-url=jdbc:h2:mem:shard2;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.sharding.shards[2].username=sa"
+})
+class ShardingIntegrationTest {
+
+    @Autowired
+    private ReadingService readingService;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private ShardExecutor shardExecutor;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private ReadingBulkService readingBulkService;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < 3; shard++) {
+            shard(shard).update("DELETE FROM lecturas");
+            shard(shard).update("DELETE FROM " + ShardRebalancer.MOVED_TABLE);
+            shard(shard).update("DELETE FROM acciones_lectura");
+            shard(shard).update("DELETE FROM eventos_lectura");
+        }
+        when(deviceClient.getDeviceById(anyLong())).thenAnswer(invocation -> {
+            DeviceDto device = new DeviceDto();
+            device.setId(invocation.getArgument(0));
+            device.setSerialNo("SN-" + invocation.getArgument(0));
+            return device;
+        });
+    }
+
+    @Test
+    void should_store_each_device_in_a_single_shard() {
+        // Given
+        for (long deviceId = 1; deviceId <= 12; deviceId++) {
+            for (int i = 0; i < 3; i++) {
+                readingService.createReading(reading(deviceId, 100.0f + i, base.plusMinutes(deviceId * 10 + i)));
+            }
+        }
+
+        // Then
+        int usedShards = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            List<Long> devices = shard(shard).queryForList("SELECT DISTINCT device_id FROM lecturas", Long.class);
+            usedShards += devices.isEmpty() ? 0 : 1;
+            for (Long deviceId : devices) {
+                assertThat(shardExecutor.shardForDevice(deviceId)).isEqualTo(shard);
+                assertThat(shard(shard).queryForObject("SELECT COUNT(*) FROM lecturas WHERE device_id = ?", Long.class, deviceId))
+                        .isEqualTo(3L);
+            }
+        }
+        assertThat(usedShards).isGreaterThan(1);
+        assertThat(readingService.getReadingsByDeviceId(7L)).hasSize(3)
+                .allMatch(reading -> reading.getDeviceId().equals(7L));
+    }
+
+    @Test
+    void should_scatter_gather_fleet_queries_in_timestamp_order() {
+        // Given
+        for (long deviceId = 1; deviceId <= 9; deviceId++) {
+            readingService.createReading(reading(deviceId, 300.0f, base.plusMinutes(50 - deviceId)));
+            readingService.createReading(reading(deviceId, 110.0f, base.plusMinutes(deviceId)));
+        }
+
+        // When
+        List<ReadingDetailsDto> all = readingService.getAllReadings();
+        List<ReadingDetailsDto> critical = readingService.getReadingsByStatus(ReadingStatus.CRITICAL_HIGH);
+
+        // Then
+        assertThat(all).hasSize(18).isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+        assertThat(critical).hasSize(9).isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+    }
+
+    @Test
+    void should_find_update_and_delete_by_id_in_owner_shard() {
+        // Given
+        long deviceId = deviceOnShard(2);
+        ReadingDetailsDto created = readingService.createReading(reading(deviceId, 120.0f, base));
+
+        // Then
+        assertThat(created.getId()).isGreaterThanOrEqualTo(ShardRouter.idRangeStart(2));
+        assertThat(readingService.getReadingById(created.getId()).getGlucoseLevel()).isEqualTo(120.0f);
+
+        readingService.updateReading(created.getId(), reading(deviceId, 150.0f, base));
+        assertThat(readingService.getReadingById(created.getId()).getGlucoseLevel()).isEqualTo(150.0f);
+
+        readingService.deleteReading(created.getId());
+        assertThat(shard(2).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isZero();
+    }
+
+    @Test
+    void should_move_reading_to_the_new_device_shard_on_update() {
+        // Given
+        long deviceId = deviceOnShard(0);
+        long newDeviceId = deviceOnShard(2);
+        ReadingDetailsDto created = readingService.createReading(reading(deviceId, 120.0f, base));
+
+        // When
+        ReadingDetailsDto updated = readingService.updateReading(created.getId(), reading(newDeviceId, 130.0f, base));
+
+        // Then
+        assertThat(updated.getId()).isGreaterThanOrEqualTo(ShardRouter.idRangeStart(2));
+        assertThat(updated.getDeviceId()).isEqualTo(newDeviceId);
+        assertThat(shard(0).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isZero();
+        assertThat(readingService.getReadingsByDeviceId(newDeviceId)).singleElement()
+                .satisfies(reading -> assertThat(reading.getGlucoseLevel()).isEqualTo(130.0f));
+        assertThatThrownBy(() -> readingService.getReadingById(created.getId())).isInstanceOf(ReadingNotFoundException.class);
+    }
+
+    @Test
+    void should_report_per_shard_outcome_when_one_shard_of_a_batch_fails() {
+        // Given
+        long healthy = deviceOnShard(0);
+        long broken = deviceOnShard(1);
+        shard(1).execute("ALTER TABLE lecturas RENAME TO lecturas_fuera");
+        ReadingBatchResultDto result;
+        try {
+            // When
+            result = readingService.createReadings(List.of(entity(healthy, base), entity(broken, base), entity(healthy, base.plusMinutes(5))));
+        } finally {
+            shard(1).execute("ALTER TABLE lecturas_fuera RENAME TO lecturas");
+        }
+
+        // Then
+        assertThat(result.getReceivedReadings()).isEqualTo(3);
+        assertThat(result.getStoredReadings()).isEqualTo(2);
+        assertThat(result.isPartial()).isTrue();
+        assertThat(result.getShards()).containsExactly(
+                new ShardResultDto(0, ShardResultDto.Outcome.COMMITTED, 2L),
+                new ShardResultDto(1, ShardResultDto.Outcome.FAILED, 0L));
+        assertThat(shard(0).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isEqualTo(2L);
+        assertThat(shard(1).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isZero();
+    }
+
+    @Test
+    void should_report_per_shard_outcome_of_bulk_delete_by_ids() {
+        // Given
+        ReadingDetailsDto first = readingService.createReading(reading(deviceOnShard(0), 100.0f, base));
+        ReadingDetailsDto second = readingService.createReading(reading(deviceOnShard(1), 100.0f, base));
+        ReadingDetailsDto third = readingService.createReading(reading(deviceOnShard(2), 100.0f, base));
+        ReadingBulkDeleteDto request = new ReadingBulkDeleteDto();
+        request.setIds(List.of(first.getId(), second.getId(), third.getId()));
+        shard(1).execute("ALTER TABLE lecturas RENAME TO lecturas_fuera");
+        ReadingBulkResultDto result;
+        try {
+            // When
+            result = readingBulkService.deleteReadings(request);
+        } finally {
+            shard(1).execute("ALTER TABLE lecturas_fuera RENAME TO lecturas");
+        }
+
+        // Then: no es atómico entre shards; los shards 0 y 2 quedan confirmados
+        assertThat(result.getAffectedReadings()).isEqualTo(2L);
+        assertThat(result.isPartial()).isTrue();
+        assertThat(result.getShards()).containsExactly(
+                new ShardResultDto(0, ShardResultDto.Outcome.COMMITTED, 1L),
+                new ShardResultDto(1, ShardResultDto.Outcome.FAILED, 0L),
+                new ShardResultDto(2, ShardResultDto.Outcome.COMMITTED, 1L));
+        assertThat(shard(1).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isEqualTo(1L);
+        assertThat(shard(0).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isZero();
+    }
+
+    @Test
+    void should_rebalance_readings_stored_in_the_wrong_shard() {
+        // Given: lecturas cargadas en el shard 0 antes de activar el sharding
+        long misplaced = deviceOnShard(1);
+        long wellPlaced = deviceOnShard(0);
+        for (int i = 0; i < 5; i++) {
+            insert(0, misplaced, base.plusMinutes(i));
+            insert(0, wellPlaced, base.plusMinutes(i));
+        }
+
+        // When
+        ShardRebalanceResultDto result = shardRebalancer.rebalance();
+        ShardRebalanceResultDto second = shardRebalancer.rebalance();
+
+        // Then
+        // Las 5 lecturas movidas al shard 1 se vuelven a revisar al recorrer ese shard
+        assertThat(result.getScannedReadings()).isEqualTo(15L);
+        assertThat(result.getMovedReadings()).isEqualTo(5L);
+        assertThat(result.getMovedPerShard()).containsExactly(5L, 0L, 0L);
+        assertThat(second.getMovedReadings()).isZero();
+        assertThat(shard(0).queryForList("SELECT DISTINCT device_id FROM lecturas", Long.class)).containsExactly(wellPlaced);
+        assertThat(shard(1).queryForObject("SELECT COUNT(*) FROM lecturas WHERE device_id = ?", Long.class, misplaced))
+                .isEqualTo(5L);
+        assertThat(readingService.getReadingsByDeviceId(misplaced)).hasSize(5);
+    }
+
+    @Test
+    void should_write_outbox_events_with_old_and_new_ids_when_rebalancing() {
+        // Given
+        long misplaced = deviceOnShard(1);
+        insert(0, misplaced, base);
+        Long sourceId = shard(0).queryForObject("SELECT MAX(id) FROM lecturas", Long.class);
+
+        // When
+        shardRebalancer.rebalance();
+
+        // Then: los consumidores ven el borrado del ID antiguo y el alta con el nuevo, cada uno en su shard
+        Long targetId = shard(1).queryForObject("SELECT id FROM lecturas WHERE device_id = ?", Long.class, misplaced);
+        assertThat(shard(0).queryForList("SELECT type FROM eventos_lectura WHERE reading_id = ?", String.class, sourceId))
+                .containsExactly("DELETED");
+        assertThat(shard(1).queryForList("SELECT type FROM eventos_lectura WHERE reading_id = ?", String.class, targetId))
+                .containsExactly("CREATED");
+        assertThat(shard(1).queryForObject("SELECT device_id FROM eventos_lectura WHERE reading_id = ?", Long.class, targetId))
+                .isEqualTo(misplaced);
+    }
+
+    @Test
+    void should_follow_rebalanced_readings_with_their_open_actions() {
+        // Given: una lectura crítica en el shard equivocado con su acción abierta
+        long misplaced = deviceOnShard(1);
+        shard(0).update("INSERT INTO lecturas (timestamp, device_id, glucose_level, status, requires_action) VALUES (?, ?, ?, ?, ?)",
+                Timestamp.valueOf(base), misplaced, 40.0f, ReadingStatus.CRITICAL_LOW.name(), true);
+        Long sourceId = shard(0).queryForObject("SELECT MAX(id) FROM lecturas", Long.class);
+        shard(0).update("INSERT INTO acciones_lectura (reading_id, device_id, reading_status, glucose_level, reading_timestamp, "
+                        + "state, created_at, version) VALUES (?, ?, ?, ?, ?, 'OPEN', ?, 0)",
+                sourceId, misplaced, ReadingStatus.CRITICAL_LOW.name(), 40.0f, Timestamp.valueOf(base), Timestamp.valueOf(base));
+
+        // When
+        shardRebalancer.rebalance();
+
+        // Then: la acción del origen se cierra y el destino abre otra sobre el ID nuevo
+        Long targetId = shard(1).queryForObject("SELECT id FROM lecturas WHERE device_id = ?", Long.class, misplaced);
+        assertThat(shard(0).queryForList("SELECT state FROM acciones_lectura WHERE reading_id = ?", String.class, sourceId))
+                .containsExactly("RESOLVED");
+        assertThat(shard(0).queryForObject("SELECT resolution FROM acciones_lectura WHERE reading_id = ?", String.class, sourceId))
+                .isEqualTo("Lectura trasladada a otro shard");
+        assertThat(shard(1).queryForList("SELECT state FROM acciones_lectura WHERE reading_id = ?", String.class, targetId))
+                .containsExactly("OPEN");
+    }
+
+    @Test
+    void should_keep_identical_readings_and_not_copy_twice_when_rebalance_is_resumed() {
+        // Given: dos lecturas idénticas (mismo dispositivo, instante y valor) y una ya copiada al destino
+        long misplaced = deviceOnShard(1);
+        insert(0, misplaced, base);
+        insert(0, misplaced, base);
+        insert(0, misplaced, base.plusMinutes(5));
+        Long alreadyCopied = shard(0).queryForObject("SELECT MAX(id) FROM lecturas", Long.class);
+        insert(1, misplaced, base.plusMinutes(5));
+        Long copy = shard(1).queryForObject("SELECT MAX(id) FROM lecturas", Long.class);
+        shard(1).update("INSERT INTO " + ShardRebalancer.MOVED_TABLE + " (source_id, reading_id) VALUES (?, ?)", alreadyCopied, copy);
+
+        // When
+        ShardRebalanceResultDto result = shardRebalancer.rebalance();
+
+        // Then
+        assertThat(result.getMovedPerShard()).containsExactly(3L, 0L, 0L);
+        assertThat(shard(0).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isZero();
+        assertThat(shard(1).queryForObject("SELECT COUNT(*) FROM lecturas WHERE timestamp = ?", Long.class, Timestamp.valueOf(base)))
+                .isEqualTo(2L);
+        assertThat(shard(1).queryForObject("SELECT COUNT(*) FROM lecturas", Long.class)).isEqualTo(3L);
+    }
+
+    @Test
+    void should_merge_patient_readings_from_devices_on_several_shards() {
+        // Given: dos bombas antiguas que device-service lista y la actual, cada una en un shard
+        long oldPump = deviceOnShard(0);
+        long backupPump = deviceOnShard(1);
+        long currentPump = deviceOnShard(2);
+        when(patientClient.getPatientById(900L)).thenReturn(new PatientDto(900L, "Lucía", 35, "MED-900", currentPump, "TYPE_1"));
+        when(deviceClient.getDevicesByPatientId(900L)).thenReturn(List.of(
+                new DeviceDto(oldPump, "SN-OLD", "X1", "Acme", "INACTIVE", 900L),
+                new DeviceDto(backupPump, "SN-BACKUP", "X1", "Acme", "ACTIVE", 900L)));
+        long[] pumps = {oldPump, backupPump, currentPump};
+        for (int i = 0; i < 9; i++) {
+            readingService.createReading(reading(pumps[i % 3], 60.0f + i * 20, base.plusMinutes(i)));
+        }
+        readingService.createReading(reading(currentPump, 100.0f, base.plusDays(1)));
+
+        // When
+        List<ReadingDetailsDto> readings = readingService.getReadingsByPatientIdAndTimeRange(900L, base, base.plusHours(1));
+        GlucoseStatisticsDto statistics = readingService.getGlucoseStatisticsByPatientId(900L, base, base.plusHours(1));
+
+        // Then
+        assertThat(readings).hasSize(9)
+                .isSortedAccordingTo((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()))
+                .allMatch(reading -> reading.getPatient().getName().equals("Lucía"));
+        assertThat(readings.get(0).getDevice().getSerialNo()).isEqualTo("SN-OLD");
+        assertThat(readings.get(2).getDevice().getSerialNo()).isEqualTo("SN-" + currentPump);
+        assertThat(statistics.getTotalReadings()).isEqualTo(9);
+        assertThat(statistics.getDeviceIds()).containsExactlyInAnyOrder(oldPump, backupPump, currentPump);
+        assertThat(statistics.getAverageGlucoseLevel()).isEqualTo(140.0f);
+        assertThat(statistics.getLowestReading()).isEqualTo(60.0f);
+        assertThat(statistics.getHighestReading()).isEqualTo(220.0f);
+        assertThat(statistics.getLowReadingsCount()).isEqualTo(1L);
+        assertThat(statistics.getHighReadingsCount()).isEqualTo(2L);
+        assertThat(statistics.getStandardDeviation()).isCloseTo(51.64f, within(0.01f));
+        assertThat(statistics.getPatientName()).isEqualTo("Lucía");
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate((DataSource) shardRoutingDataSource.getShards().get(shard));
+    }
+
+    private long deviceOnShard(int shard) {
+        long deviceId = 1;
+        while (shardExecutor.shardForDevice(deviceId) != shard) {
+            deviceId++;
+        }
+        return deviceId;
+    }
+
+    private void insert(int shard, long deviceId, LocalDateTime timestamp) {
+        shard(shard).update("INSERT INTO lecturas (timestamp, device_id, glucose_level, status, requires_action) VALUES (?, ?, ?, ?, ?)",
+                Timestamp.valueOf(timestamp), deviceId, 100.0f, ReadingStatus.NORMAL.name(), false);
+    }
+
+    private Reading entity(long deviceId, LocalDateTime timestamp) {
+        return new Reading(null, 110.0f, timestamp, deviceId, null, null, null, null, false, null);
+    }
+
+    private ReadingCreateDto reading(long deviceId, float glucoseLevel, LocalDateTime timestamp) {
+        ReadingCreateDto dto = new ReadingCreateDto();
+        dto.setDeviceId(deviceId);
+        dto.setGlucoseLevel(glucoseLevel);
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+}
@@ -0,0 +1,200 @@
+package com.insulinpump.readingservice.storage;
+
+import com.insulinpump.readingservice.client.DeviceClient;
+import com.insulinpump.readingservice.client.PatientClient;
+import com.insulinpump.readingservice.downsampling.DownsamplingMode;
+import com.insulinpump.readingservice.dto.GlucosePointDto;
+import com.insulinpump.readingservice.dto.ReadingBulkDeleteDto;
+import com.insulinpump.readingservice.dto.ReadingBulkUpdateDto;
+import com.insulinpump.readingservice.export.ExportFormat;
+import com.insulinpump.readingservice.model.Reading;
+import com.insulinpump.readingservice.model.ReadingOutboxEvent;
+import com.insulinpump.readingservice.model.ReadingStatus;
+import com.insulinpump.readingservice.repository.ReadingActionRepository;
+import com.insulinpump.readingservice.repository.ReadingOutboxRepository;
+import com.insulinpump.readingservice.repository.ReadingRepository;
+import com.insulinpump.readingservice.service.ReadingBulkService;
+import com.insulinpump.readingservice.service.GlucoseDownsamplingService;
+import com.insulinpump.readingservice.service.ReadingExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compacto;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "readingservice.outbox.poll-interval=3600000"
+})
+@ActiveProfiles("compact")
+class CompactStorageLayoutTest {
+
+    @Autowired
+    private ReadingRepository readingRepository;
+
+    @Autowired
+    private ReadingBulkService readingBulkService;
+
+    @Autowired
+    private ReadingExportService readingExportService;
+
+    @Autowired
+    private GlucoseDownsamplingService glucoseDownsamplingService;
+
+    @Autowired
+    private ReadingActionRepository actionRepository;
+
+    @Autowired
+    private ReadingOutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private DeviceClient deviceClient;
+
+    @MockitoBean
+    private PatientClient patientClient;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 5, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM " + ReadingStorageLayout.NOTES_TABLE);
+        jdbcTemplate.update("DELETE FROM lecturas");
+        actionRepository.deleteAll();
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void should_store_scaled_integers_and_notes_apart() {
+        // Given
+        Reading noted = readingRepository.save(new Reading(null, 110.5f, base, 1L, ReadingStatus.HIGH, "tras comer", 1.25f, 30.0f, false, false));
+        Reading plain = readingRepository.save(new Reading(null, 62.0f, base.plusMinutes(5), 1L, ReadingStatus.LOW, null, null, null, false, false));
+
+        // Then: en la base de datos, enteros y las notas solo donde las hay
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT glucose_level, status, insulin_dose, carb_intake FROM lecturas WHERE id = ?", noted.getId());
+        assertThat(((Number) row.get("GLUCOSE_LEVEL")).intValue()).isEqualTo(1105);
+        assertThat(((Number) row.get("STATUS")).intValue()).isEqualTo(ReadingStatus.HIGH.ordinal());
+        assertThat(((Number) row.get("INSULIN_DOSE")).intValue()).isEqualTo(125);
+        assertThat(((Number) row.get("CARB_INTAKE")).intValue()).isEqualTo(300);
+        assertThat(jdbcTemplate.queryForList("SELECT reading_id FROM " + ReadingStorageLayout.NOTES_TABLE, Long.class))
+                .containsExactly(noted.getId());
+
+        // Y en la entidad y las consultas, los valores lógicos
+        assertThat(readingRepository.findById(noted.getId())).get()
+                .satisfies(reading -> {
+                    assertThat(reading.getGlucoseLevel()).isEqualTo(110.5f);
+                    assertThat(reading.getInsulinDose()).isEqualTo(1.25f);
+                    assertThat(reading.getNotes()).isEqualTo("tras comer");
+                });
+        assertThat(readingRepository.findById(plain.getId())).get()
+                .satisfies(reading -> assertThat(reading.getNotes()).isNull());
+        assertThat(readingRepository.findByStatus(ReadingStatus.LOW)).extracting(Reading::getId).containsExactly(plain.getId());
+        assertThat(readingRepository.countLowReadingsByDeviceIdAndTimeRange(1L, base, base.plusHours(1))).isEqualTo(1L);
+        assertThat(readingRepository.findMaxGlucoseLevelByDeviceIdAndTimeRange(1L, base, base.plusHours(1))).isEqualTo(110.5f);
+    }
+
+    @Test
+    void should_aggregate_logical_glucose_values() {
+        // Given: 300 mg/dL son 3000 décimas; su cuadrado no cabe en un SMALLINT
+        readingRepository.save(new Reading(null, 100.0f, base, 5L, ReadingStatus.NORMAL, null, null, null, false, false));
+        readingRepository.save(new Reading(null, 120.0f, base.plusMinutes(5), 5L, ReadingStatus.NORMAL, null, null, null, false, false));
+        readingRepository.save(new Reading(null, 300.0f, base.plusMinutes(10), 6L, ReadingStatus.CRITICAL_HIGH, null, null, null, false, false));
+
+        // When
+        Float average = readingRepository.findAverageGlucoseLevelByDeviceIdAndTimeRange(5L, base, base.plusHours(1));
+        List<Object[]> rows = readingRepository.aggregateGlucoseByDeviceIdsAndTimeRange(List.of(5L, 6L), base, base.plusHours(1));
+
+        // Then
+        assertThat(average).isEqualTo(110.0f);
+        assertThat(rows).extracting(row -> ((Number) row[0]).longValue(), row -> ((Number) row[1]).longValue(),
+                        row -> ((Number) row[2]).doubleValue(), row -> ((Number) row[3]).doubleValue(),
+                        row -> ((Number) row[4]).floatValue(), row -> ((Number) row[5]).floatValue(),
+                        row -> ((Number) row[6]).longValue(), row -> ((Number) row[7]).longValue())
+                .containsExactlyInAnyOrder(
+                        tuple(5L, 2L, 220.0, 24400.0, 100.0f, 120.0f, 0L, 0L),
+                        tuple(6L, 1L, 300.0, 90000.0, 300.0f, 300.0f, 0L, 1L));
+    }
+
+    @Test
+    void should_apply_bulk_changes_on_compact_columns() {
+        // Given
+        Reading low = readingRepository.save(new Reading(null, 45.0f, base, 2L, ReadingStatus.NORMAL, "previa", null, null, false, false));
+        Reading high = readingRepository.save(new Reading(null, 190.0f, base.plusMinutes(5), 2L, ReadingStatus.NORMAL, null, null, null, false, false));
+
+        // When
+        ReadingBulkUpdateDto update = new ReadingBulkUpdateDto();
+        update.setDeviceId(2L);
+        update.setStart(base);
+        update.setEnd(base.plusHours(1));
+        update.setRecalculateStatus(true);
+        update.setNotes("Revisado");
+        long updated = readingBulkService.updateReadings(update).getAffectedReadings();
+
+        // Then
+        assertThat(updated).isEqualTo(2);
+        assertThat(readingRepository.findByDeviceIdOrderByTimestampDesc(2L))
+                .extracting(Reading::getStatus, Reading::getNotes, Reading::getRequiresAction)
+                .containsExactly(
+                        tuple(ReadingStatus.HIGH, "Revisado", false),
+                        tuple(ReadingStatus.CRITICAL_LOW, "Revisado", true));
+        assertThat(outboxRepository.findAll()).extracting(ReadingOutboxEvent::getStatus, ReadingOutboxEvent::getGlucoseLevel)
+                .containsExactlyInAnyOrder(
+                        tuple(ReadingStatus.CRITICAL_LOW, 45.0f),
+                        tuple(ReadingStatus.HIGH, 190.0f));
+        assertThat(actionRepository.findAll()).singleElement()
+                .satisfies(action -> assertThat(action.getReadingStatus()).isEqualTo(ReadingStatus.CRITICAL_LOW));
+
+        // When: el borrado masivo se lleva también las notas
+        ReadingBulkDeleteDto delete = new ReadingBulkDeleteDto();
+        delete.setIds(List.of(low.getId(), high.getId()));
+        long deleted = readingBulkService.deleteReadings(delete).getAffectedReadings();
+
+        // Then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(readingRepository.count()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + ReadingStorageLayout.NOTES_TABLE, Long.class)).isZero();
+    }
+
+    @Test
+    void should_export_logical_values() {
+        // Given
+        readingRepository.save(new Reading(null, 100.0f, base, 3L, ReadingStatus.NORMAL, "ayuno", 2.5f, null, false, false));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = readingExportService.exportByDevice(3L, base.minusHours(1), base.plusHours(1), ExportFormat.CSV, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines[1]).contains("2025-05-01 08:00:00,3,100.0,NORMAL,2.5").endsWith("ayuno");
+    }
+
+    @Test
+    void should_downsample_logical_values() {
+        // Given
+        readingRepository.save(new Reading(null, 95.5f, base, 4L, ReadingStatus.NORMAL, null, null, null, false, false));
+        readingRepository.save(new Reading(null, 101.0f, base.plusMinutes(5), 4L, ReadingStatus.NORMAL, null, null, null, false, false));
+
+        // When
+        List<GlucosePointDto> points = glucoseDownsamplingService
+                .getDownsampledSeries(4L, base.minusHours(1), base.plusHours(1), 10, DownsamplingMode.LTTB).getPoints();
+
+        // Then
+        assertThat(points).extracting(GlucosePointDto::getGlucoseLevel).containsExactly(95.5f, 101.0f);
+    }
+}
@@ -0,0 +1,41 @@
+package com.insulinpump.readingservice.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WarmupRunnerTest {
+
+    @Test
+    void should_mark_instance_up_even_when_warmup_fails() {
+        // Given: sin servidor web no hay puerto al que enviar las peticiones de calentamiento
+        ApplicationInfoManager manager = mock(ApplicationInfoManager.class);
+        InstanceInfo info = mock(InstanceInfo.class);
+        when(manager.getInfo()).thenReturn(info);
+        when(info.getStatus()).thenReturn(InstanceInfo.InstanceStatus.STARTING);
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("applicationInfoManager", manager));
+        WarmupRunner runner = new WarmupRunner(new ObjectMapper().findAndRegisterModules(), new MockEnvironment(),
+                beanFactory.getBeanProvider(ApplicationInfoManager.class), beanFactory.getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(runner, "enabled", true);
+        ReflectionTestUtils.setField(runner, "iterations", 10);
+
+        // When
+        runner.run(new DefaultApplicationArguments());
+
+        // Then
+        verify(manager).setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+    }
+}